@@ -0,0 +1,68 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.blame.BlameResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.GitAccess;
+
+/**
+ * The blame of a file changed by every tenth commit. The blame view needs the editor, so the
+ * annotations are computed with the JGit blame command, which uses the same generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlameBenchmark {
+  /**
+   * The size of the repository.
+   */
+  @Param({"SMALL", "COMMITS_100K"})
+  public Scale scale;
+
+  /**
+   * Loads the repository.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticRepository.load(scale);
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GitAccess.getInstance().closeRepo();
+  }
+
+  /**
+   * @return The blame of the file.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public BlameResult blame() throws Exception {
+    Git git = GitAccess.getInstance().getGit();
+    return git.blame().setFilePath(SyntheticRepository.HOT_FILE).call();
+  }
+}
@@ -0,0 +1,116 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.RevCommitUtil;
+import com.oxygenxml.git.service.entities.FileStatus;
+
+/**
+ * The files changed by a commit, presented when a commit is selected in the history view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangedFilesBenchmark {
+  /**
+   * The size of the repository.
+   */
+  @Param({"SMALL", "FILES_50K"})
+  public Scale scale;
+
+  /**
+   * The last commit. Changes a few files.
+   */
+  private String headCommit;
+  /**
+   * The last merge commit.
+   */
+  private String mergeCommit;
+  /**
+   * The first commit. Adds all the files.
+   */
+  private String rootCommit;
+
+  /**
+   * Loads the repository and finds the commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticRepository.load(scale);
+    Repository repository = GitAccess.getInstance().getRepository();
+    try (RevWalk walk = new RevWalk(repository)) {
+      RevCommit commit = walk.parseCommit(repository.resolve(Constants.HEAD));
+      headCommit = commit.getName();
+      while (commit.getParentCount() > 0) {
+        if (mergeCommit == null && commit.getParentCount() > 1) {
+          mergeCommit = commit.getName();
+        }
+        commit = walk.parseCommit(commit.getParent(0));
+      }
+      rootCommit = commit.getName();
+    }
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GitAccess.getInstance().closeRepo();
+  }
+
+  /**
+   * @return The files changed by the last commit.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<FileStatus> head() throws Exception {
+    return RevCommitUtil.getChangedFiles(headCommit);
+  }
+
+  /**
+   * @return The files changed by a merge, compared with its first parent.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<FileStatus> merge() throws Exception {
+    return RevCommitUtil.getChangedFiles(mergeCommit);
+  }
+
+  /**
+   * @return All the files, added by the first commit.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<FileStatus> root() throws Exception {
+    return RevCommitUtil.getChangedFiles(rootCommit);
+  }
+}
@@ -0,0 +1,97 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.CommitHistoryCursor;
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+import com.oxygenxml.git.view.historycomponents.HistoryCommitTableModel;
+
+/**
+ * The history of the repository and of a file, as read by the history view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryBenchmark {
+  /**
+   * The size of the repository.
+   */
+  @Param({"SMALL", "COMMITS_100K"})
+  public Scale scale;
+
+  /**
+   * <code>true</code> to read the commit graph from the on-disk cache.
+   */
+  @Param({"true", "false"})
+  public boolean commitGraphCache;
+
+  /**
+   * Loads the repository. The commit graph cache, if used, is written before the measurements.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    System.setProperty(GitAddonSystemProperties.DISABLE_COMMIT_GRAPH_CACHE, String.valueOf(!commitGraphCache));
+    SyntheticRepository.load(scale);
+    firstPage();
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GitAccess.getInstance().closeRepo();
+    System.clearProperty(GitAddonSystemProperties.DISABLE_COMMIT_GRAPH_CACHE);
+  }
+
+  /**
+   * @return The first page of the history, presented when the history view opens.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> firstPage() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    try (CommitHistoryCursor cursor = gitAccess.createCommitHistoryCursor(null)) {
+      return gitAccess.getCommitsCharacteristics(null, cursor, HistoryCommitTableModel.PAGE_SIZE);
+    }
+  }
+
+  /**
+   * @return The whole history of the repository.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> wholeHistory() {
+    return GitAccess.getInstance().getCommitsCharacteristics(null);
+  }
+
+  /**
+   * @return The history of a file changed by every tenth commit.
+   */
+  @Benchmark
+  public List<CommitCharacteristics> fileHistory() {
+    return GitAccess.getInstance().getCommitsCharacteristics(SyntheticRepository.HOT_FILE);
+  }
+}
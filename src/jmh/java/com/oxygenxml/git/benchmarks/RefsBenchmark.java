@@ -0,0 +1,101 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.RefDecorations;
+
+/**
+ * The tags and the branches of each commit, presented in the history view.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RefsBenchmark {
+  /**
+   * The size of the repository.
+   */
+  @Param({"SMALL", "COMMITS_100K"})
+  public Scale scale;
+
+  /**
+   * The repository.
+   */
+  private Repository repository;
+
+  /**
+   * Loads the repository.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SyntheticRepository.load(scale);
+    repository = GitAccess.getInstance().getRepository();
+  }
+
+  /**
+   * Closes the repository.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    GitAccess.getInstance().closeRepo();
+  }
+
+  /**
+   * @return The tags of each commit.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public Map<String, List<String>> tagMap() throws Exception {
+    return GitAccess.getInstance().getTagMap(repository);
+  }
+
+  /**
+   * @return The local branches of each commit.
+   */
+  @Benchmark
+  public Map<String, List<String>> localBranchMap() {
+    return GitAccess.getInstance().getBranchMap(repository, ConfigConstants.CONFIG_KEY_LOCAL);
+  }
+
+  /**
+   * @return The remote-tracking branches of each commit.
+   */
+  @Benchmark
+  public Map<String, List<String>> remoteBranchMap() {
+    return GitAccess.getInstance().getBranchMap(repository, ConfigConstants.CONFIG_KEY_REMOTE);
+  }
+
+  /**
+   * @return The index with the tags and the branches of each commit, built from scratch.
+   *
+   * @throws Exception If it fails.
+   */
+  @Benchmark
+  public RefDecorations refDecorations() throws Exception {
+    return RefDecorations.build(repository);
+  }
+}
@@ -0,0 +1,61 @@
+package com.oxygenxml.git.benchmarks;
+
+/**
+ * The sizes of the synthetic repositories used by the benchmarks.
+ */
+public enum Scale {
+  /**
+   * A small project.
+   */
+  SMALL(1_000, 1_000, 100, 10, 10),
+  /**
+   * Many files, short history.
+   */
+  FILES_50K(50_000, 1_000, 100, 10, 10),
+  /**
+   * A very large working copy.
+   */
+  FILES_250K(250_000, 1_000, 100, 10, 10),
+  /**
+   * Few files, long history, many refs and submodules.
+   */
+  COMMITS_100K(1_000, 100_000, 5_000, 200, 100);
+
+  /**
+   * The number of files.
+   */
+  final int files;
+  /**
+   * The number of commits on the main branch.
+   */
+  final int commits;
+  /**
+   * The number of tags.
+   */
+  final int tags;
+  /**
+   * The number of local branches. Each one has a remote-tracking branch.
+   */
+  final int branches;
+  /**
+   * The number of submodules.
+   */
+  final int submodules;
+
+  /**
+   * Constructor.
+   *
+   * @param files      The number of files.
+   * @param commits    The number of commits on the main branch.
+   * @param tags       The number of tags.
+   * @param branches   The number of local branches.
+   * @param submodules The number of submodules.
+   */
+  Scale(int files, int commits, int tags, int branches, int submodules) {
+    this.files = files;
+    this.commits = commits;
+    this.tags = tags;
+    this.branches = branches;
+    this.submodules = submodules;
+  }
+}
@@ -0,0 +1,92 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.view.StagingResourcesTableModel;
+import com.oxygenxml.git.view.StagingResourcesTreeModel;
+
+/**
+ * The models of the staging view, filled with many changed files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StagingModelsBenchmark {
+  /**
+   * The number of changed files.
+   */
+  @Param({"1000", "50000"})
+  public int files;
+
+  /**
+   * The changed files.
+   */
+  private List<FileStatus> statuses;
+  /**
+   * The same files, but one in a hundred has another change type.
+   */
+  private List<FileStatus> updatedStatuses;
+
+  /**
+   * Creates the statuses.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    statuses = new ArrayList<>(files);
+    updatedStatuses = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      String path = SyntheticRepository.filePath(i);
+      statuses.add(new FileStatus(GitChangeType.MODIFIED, path));
+      updatedStatuses.add(new FileStatus(i % 100 == 0 ? GitChangeType.UNTRACKED : GitChangeType.MODIFIED, path));
+    }
+  }
+
+  /**
+   * @return The flat model, filled once.
+   */
+  @Benchmark
+  public StagingResourcesTableModel tableModel() {
+    StagingResourcesTableModel model = new StagingResourcesTableModel(null, false);
+    model.setFilesStatus(statuses);
+    return model;
+  }
+
+  /**
+   * @return The flat model, filled and then updated with slightly different statuses.
+   */
+  @Benchmark
+  public StagingResourcesTableModel tableModelUpdate() {
+    StagingResourcesTableModel model = new StagingResourcesTableModel(null, false);
+    model.setFilesStatus(statuses);
+    model.setFilesStatus(updatedStatuses);
+    return model;
+  }
+
+  /**
+   * @return The tree model.
+   */
+  @Benchmark
+  public StagingResourcesTreeModel treeModel() {
+    return new StagingResourcesTreeModel(null, "root", false, statuses);
+  }
+}
@@ -0,0 +1,107 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitStatus;
+
+/**
+ * The status of the working copy, computed when the staging view is refreshed.
+ * A few files are modified, so the status is not empty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatusBenchmark {
+  /**
+   * The number of modified files.
+   */
+  private static final int MODIFIED_FILES = 10;
+
+  /**
+   * The size of the repository.
+   */
+  @Param({"SMALL", "FILES_50K", "FILES_250K"})
+  public Scale scale;
+
+  /**
+   * The modified files.
+   */
+  private final File[] modifiedFiles = new File[MODIFIED_FILES];
+  /**
+   * The original content of the modified files.
+   */
+  private final byte[][] originalContents = new byte[MODIFIED_FILES][];
+  /**
+   * The original modification time of the modified files. Restored, so that the index stays clean.
+   */
+  private final FileTime[] originalTimes = new FileTime[MODIFIED_FILES];
+
+  /**
+   * Loads the repository and modifies some files.
+   *
+   * @throws Exception If it fails.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    File workTree = SyntheticRepository.load(scale);
+    for (int i = 0; i < MODIFIED_FILES; i++) {
+      modifiedFiles[i] = new File(workTree, SyntheticRepository.filePath(i * (scale.files / MODIFIED_FILES)));
+      originalContents[i] = Files.readAllBytes(modifiedFiles[i].toPath());
+      originalTimes[i] = Files.getLastModifiedTime(modifiedFiles[i].toPath());
+      Files.write(modifiedFiles[i].toPath(), "Modified.\n".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Restores the modified files.
+   *
+   * @throws Exception If it fails.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    for (int i = 0; i < MODIFIED_FILES; i++) {
+      Files.write(modifiedFiles[i].toPath(), originalContents[i]);
+      Files.setLastModifiedTime(modifiedFiles[i].toPath(), originalTimes[i]);
+    }
+    GitAccess.getInstance().closeRepo();
+  }
+
+  /**
+   * @return The status of the whole working copy.
+   */
+  @Benchmark
+  public GitStatus status() {
+    return GitAccess.getInstance().getStatus();
+  }
+
+  /**
+   * @return The status of one folder.
+   */
+  @Benchmark
+  public GitStatus folderStatus() {
+    return GitAccess.getInstance().getStatus(Collections.singleton("d0000"));
+  }
+}
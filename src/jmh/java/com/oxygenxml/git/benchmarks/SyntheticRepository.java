@@ -0,0 +1,540 @@
+package com.oxygenxml.git.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.util.FileUtils;
+import org.mockito.Mockito;
+
+import com.oxygenxml.git.service.GitAccess;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+/**
+ * Generates the repositories used by the benchmarks. The objects are written directly, without a working copy,
+ * so even the largest scales take minutes, not hours. A repository is generated once and reused by the
+ * next runs. The folder can be changed with the "benchmark.repositories" system property.
+ *
+ * The files are spread in folders of {@link #FILES_PER_FOLDER}. Each commit changes a few random files,
+ * every tenth commit changes a line of {@link #HOT_FILE} and every {@link #MERGE_INTERVAL} commits
+ * a side branch is merged. The working copy and the index match the HEAD.
+ */
+public final class SyntheticRepository {
+  /**
+   * A file changed by every tenth commit, one line at a time. Used for the file history and the blame.
+   */
+  public static final String HOT_FILE = "d0000/f00.txt";
+  /**
+   * The number of files in a folder.
+   */
+  static final int FILES_PER_FOLDER = 100;
+  /**
+   * The number of lines of {@link #HOT_FILE}.
+   */
+  private static final int HOT_FILE_LINES = 50;
+  /**
+   * The number of random files changed by a commit.
+   */
+  private static final int CHANGES_PER_COMMIT = 3;
+  /**
+   * A side branch is merged every this many commits.
+   */
+  private static final int MERGE_INTERVAL = 100;
+  /**
+   * The number of commits between the fork point of a side branch and its merge.
+   */
+  private static final int SIDE_BRANCH_LENGTH = 10;
+  /**
+   * The number of commits by which the remote-tracking branch of "master" is behind.
+   */
+  private static final int UPSTREAM_BEHIND = 5;
+  /**
+   * The time of the first commit.
+   */
+  private static final long START_TIME = 1_500_000_000_000L;
+  /**
+   * The authors of the commits.
+   */
+  private static final String[] AUTHORS = {"Alex", "Dana", "Mihai", "Radu", "Sorina"};
+  /**
+   * The commit recorded by all the submodules. The submodules are never initialized.
+   */
+  private static final ObjectId SUBMODULE_COMMIT = ObjectId.fromString("5d0c5b2b0ef6ba0f6ab3b5b0d1b5a30fd1bd5a35");
+  /**
+   * Written after the generation, so that an interrupted generation is started again.
+   */
+  private static final String COMPLETE_MARKER = "benchmark-repository-complete";
+
+  /**
+   * The size of the repository.
+   */
+  private final Scale scale;
+  /**
+   * The repository.
+   */
+  private final Repository repository;
+  /**
+   * Writes the objects.
+   */
+  private final ObjectInserter inserter;
+  /**
+   * The current blob of each file.
+   */
+  private final ObjectId[] blobs;
+  /**
+   * The commit that last changed each file.
+   */
+  private final int[] revisions;
+  /**
+   * The commit that last changed each line of {@link #HOT_FILE}.
+   */
+  private final int[] hotLineRevisions = new int[HOT_FILE_LINES];
+  /**
+   * The current tree of each folder.
+   */
+  private final ObjectId[] folderTrees;
+  /**
+   * The ".gitmodules" blob. <code>null</code> if there are no submodules.
+   */
+  private ObjectId gitmodulesBlob;
+  /**
+   * The tree with the submodules. <code>null</code> if there are no submodules.
+   */
+  private ObjectId modulesTree;
+  /**
+   * Generates the random changes. Seeded, so the repositories are always the same.
+   */
+  private final Random random = new Random(42);
+
+  /**
+   * Constructor.
+   *
+   * @param scale      The size of the repository.
+   * @param repository The repository, just created.
+   */
+  private SyntheticRepository(Scale scale, Repository repository) {
+    this.scale = scale;
+    this.repository = repository;
+    this.inserter = repository.newObjectInserter();
+    this.blobs = new ObjectId[scale.files];
+    this.revisions = new int[scale.files];
+    this.folderTrees = new ObjectId[(scale.files + FILES_PER_FOLDER - 1) / FILES_PER_FOLDER];
+  }
+
+  /**
+   * Gets the working copy of a repository, generating it if needed.
+   *
+   * @param scale The size of the repository.
+   *
+   * @return The working copy.
+   *
+   * @throws IOException     Unable to write the repository.
+   * @throws GitAPIException Unable to pack the repository.
+   */
+  public static File get(Scale scale) throws IOException, GitAPIException {
+    File folder = new File(
+        System.getProperty("benchmark.repositories", "target/benchmark-repositories"),
+        scale.name().toLowerCase());
+    if (!new File(folder, Constants.DOT_GIT + "/" + COMPLETE_MARKER).isFile()) {
+      FileUtils.delete(folder, FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+      try (Git git = Git.init().setDirectory(folder).call()) {
+        new SyntheticRepository(scale, git.getRepository()).generate();
+        git.gc().setExpire(new Date()).call();
+      }
+      Files.createFile(new File(folder, Constants.DOT_GIT + "/" + COMPLETE_MARKER).toPath());
+    }
+    return folder.getAbsoluteFile();
+  }
+
+  /**
+   * Gets a repository, generating it if needed, and loads it in {@link GitAccess}.
+   *
+   * @param scale The size of the repository.
+   *
+   * @return The working copy.
+   *
+   * @throws IOException     Unable to write or to open the repository.
+   * @throws GitAPIException Unable to pack the repository.
+   */
+  public static File load(Scale scale) throws IOException, GitAPIException {
+    // The messages are translated through the workspace.
+    PluginWorkspaceProvider.setPluginWorkspace(Mockito.mock(StandalonePluginWorkspace.class));
+
+    File workTree = get(scale);
+    GitAccess.getInstance().setRepositorySynchronously(workTree.getAbsolutePath());
+    return workTree;
+  }
+
+  /**
+   * @param index The index of a file.
+   *
+   * @return The path of the file, relative to the working copy.
+   */
+  public static String filePath(int index) {
+    return folderName(index / FILES_PER_FOLDER) + "/" + fileName(index);
+  }
+
+  /**
+   * @param folder The index of a folder.
+   *
+   * @return The name of the folder.
+   */
+  private static String folderName(int folder) {
+    return String.format("d%04d", folder);
+  }
+
+  /**
+   * @param index The index of a file.
+   *
+   * @return The name of the file, inside its folder.
+   */
+  private static String fileName(int index) {
+    return String.format("f%02d.txt", index % FILES_PER_FOLDER);
+  }
+
+  /**
+   * @param submodule The index of a submodule.
+   *
+   * @return The path of the submodule.
+   */
+  private static String submodulePath(int submodule) {
+    return String.format("modules/m%03d", submodule);
+  }
+
+  /**
+   * Writes the history, the refs, the working copy and the index.
+   *
+   * @throws IOException
+   */
+  private void generate() throws IOException {
+    for (int i = 0; i < scale.files; i++) {
+      blobs[i] = insertBlob(i);
+    }
+    for (int folder = 0; folder < folderTrees.length; folder++) {
+      folderTrees[folder] = insertFolderTree(folder);
+    }
+    if (scale.submodules > 0) {
+      insertSubmodules();
+    }
+
+    List<ObjectId> commits = new ArrayList<>(scale.commits);
+    List<ObjectId> trees = new ArrayList<>(scale.commits);
+    ObjectId tree = insertRootTree();
+    ObjectId head = insertCommit(tree, "Initial commit.", 0);
+    commits.add(head);
+    trees.add(tree);
+    for (int i = 1; i < scale.commits; i++) {
+      if (i % MERGE_INTERVAL == 0 && i > SIDE_BRANCH_LENGTH) {
+        int forkPoint = i - SIDE_BRANCH_LENGTH;
+        ObjectId side = insertCommit(trees.get(forkPoint), "Side work " + i + ".", i, commits.get(forkPoint));
+        head = insertCommit(tree, "Merge side work " + i + ".", i, head, side);
+      } else {
+        tree = change(i);
+        head = insertCommit(tree, "Change " + i + ".", i, head);
+      }
+      commits.add(head);
+      trees.add(tree);
+    }
+    inserter.flush();
+
+    createRefs(commits);
+    writeWorkingCopyAndIndex();
+  }
+
+  /**
+   * Changes some files.
+   *
+   * @param commit The index of the commit.
+   *
+   * @return The new root tree.
+   *
+   * @throws IOException
+   */
+  private ObjectId change(int commit) throws IOException {
+    TreeSet<Integer> changed = new TreeSet<>();
+    if (commit % 10 == 0) {
+      hotLineRevisions[(commit / 10) % HOT_FILE_LINES] = commit;
+      changed.add(0);
+    }
+    for (int i = 0; i < CHANGES_PER_COMMIT; i++) {
+      changed.add(random.nextInt(scale.files));
+    }
+
+    TreeSet<Integer> changedFolders = new TreeSet<>();
+    for (int file : changed) {
+      revisions[file] = commit;
+      blobs[file] = insertBlob(file);
+      changedFolders.add(file / FILES_PER_FOLDER);
+    }
+    for (int folder : changedFolders) {
+      folderTrees[folder] = insertFolderTree(folder);
+    }
+    return insertRootTree();
+  }
+
+  /**
+   * @param file The index of a file.
+   *
+   * @return The current content of the file.
+   */
+  private byte[] content(int file) {
+    StringBuilder content = new StringBuilder();
+    if (file == 0) {
+      for (int line = 0; line < HOT_FILE_LINES; line++) {
+        content.append("Line ").append(line).append(", changed in commit ").append(hotLineRevisions[line]).append('\n');
+      }
+    } else {
+      content.append("File ").append(filePath(file)).append(", changed in commit ").append(revisions[file]).append('\n');
+    }
+    return content.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param file The index of a file.
+   *
+   * @return The blob with the current content of the file.
+   *
+   * @throws IOException
+   */
+  private ObjectId insertBlob(int file) throws IOException {
+    return inserter.insert(Constants.OBJ_BLOB, content(file));
+  }
+
+  /**
+   * @param folder The index of a folder.
+   *
+   * @return The tree with the current files of the folder.
+   *
+   * @throws IOException
+   */
+  private ObjectId insertFolderTree(int folder) throws IOException {
+    TreeFormatter formatter = new TreeFormatter();
+    int end = Math.min(scale.files, (folder + 1) * FILES_PER_FOLDER);
+    for (int i = folder * FILES_PER_FOLDER; i < end; i++) {
+      formatter.append(fileName(i), FileMode.REGULAR_FILE, blobs[i]);
+    }
+    return inserter.insert(formatter);
+  }
+
+  /**
+   * Writes ".gitmodules" and the tree with the submodules.
+   *
+   * @throws IOException
+   */
+  private void insertSubmodules() throws IOException {
+    StringBuilder gitmodules = new StringBuilder();
+    TreeFormatter formatter = new TreeFormatter();
+    for (int i = 0; i < scale.submodules; i++) {
+      String path = submodulePath(i);
+      gitmodules.append("[submodule \"").append(path).append("\"]\n")
+          .append("\tpath = ").append(path).append('\n')
+          .append("\turl = https://example.com/").append(path).append(".git\n");
+      formatter.append(path.substring(path.indexOf('/') + 1), FileMode.GITLINK, SUBMODULE_COMMIT);
+    }
+    gitmodulesBlob = inserter.insert(Constants.OBJ_BLOB, gitmodules.toString().getBytes(StandardCharsets.UTF_8));
+    modulesTree = inserter.insert(formatter);
+  }
+
+  /**
+   * @return The root tree, with the current folder trees. The entries are sorted by name.
+   *
+   * @throws IOException
+   */
+  private ObjectId insertRootTree() throws IOException {
+    TreeFormatter formatter = new TreeFormatter();
+    if (gitmodulesBlob != null) {
+      formatter.append(Constants.DOT_GIT_MODULES, FileMode.REGULAR_FILE, gitmodulesBlob);
+    }
+    for (int folder = 0; folder < folderTrees.length; folder++) {
+      formatter.append(folderName(folder), FileMode.TREE, folderTrees[folder]);
+    }
+    if (modulesTree != null) {
+      formatter.append("modules", FileMode.TREE, modulesTree);
+    }
+    return inserter.insert(formatter);
+  }
+
+  /**
+   * Writes a commit.
+   *
+   * @param tree    The tree.
+   * @param message The message.
+   * @param index   The index of the commit. Gives the author and the time.
+   * @param parents The parents.
+   *
+   * @return The commit.
+   *
+   * @throws IOException
+   */
+  private ObjectId insertCommit(ObjectId tree, String message, int index, ObjectId... parents) throws IOException {
+    String author = AUTHORS[index % AUTHORS.length];
+    PersonIdent ident = new PersonIdent(
+        author,
+        author.toLowerCase() + "@example.com",
+        new Date(START_TIME + index * 60_000L),
+        TimeZone.getTimeZone("UTC"));
+    CommitBuilder commit = new CommitBuilder();
+    commit.setTreeId(tree);
+    commit.setParentIds(parents);
+    commit.setAuthor(ident);
+    commit.setCommitter(ident);
+    commit.setMessage(message);
+    return inserter.insert(commit);
+  }
+
+  /**
+   * Creates "master", the branches, their remote-tracking branches and the tags. Half of the tags are annotated.
+   *
+   * @param commits The commits of the main branch, oldest first.
+   *
+   * @throws IOException
+   */
+  private void createRefs(List<ObjectId> commits) throws IOException {
+    int last = commits.size() - 1;
+    List<ReceiveCommand> commands = new ArrayList<>();
+    commands.add(create(Constants.R_HEADS + Constants.MASTER, commits.get(last)));
+    commands.add(create(
+        Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + Constants.MASTER,
+        commits.get(Math.max(0, last - UPSTREAM_BEHIND))));
+    for (int i = 0; i < scale.branches; i++) {
+      ObjectId commit = commits.get((int) ((i + 1L) * last / (scale.branches + 1)));
+      String name = String.format("branch-%03d", i);
+      commands.add(create(Constants.R_HEADS + name, commit));
+      commands.add(create(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + name, commit));
+    }
+    for (int i = 0; i < scale.tags; i++) {
+      ObjectId commit = commits.get((int) ((long) i * last / scale.tags));
+      String name = String.format("v%05d", i);
+      ObjectId target = commit;
+      if (i % 2 == 0) {
+        TagBuilder tag = new TagBuilder();
+        tag.setObjectId(commit, Constants.OBJ_COMMIT);
+        tag.setTag(name);
+        tag.setTagger(new PersonIdent(AUTHORS[0], "release@example.com", new Date(START_TIME), TimeZone.getTimeZone("UTC")));
+        tag.setMessage("Release " + name + ".\n");
+        target = inserter.insert(tag);
+      }
+      commands.add(create(Constants.R_TAGS + name, target));
+    }
+    inserter.flush();
+
+    BatchRefUpdate batch = repository.getRefDatabase().newBatchUpdate();
+    batch.addCommand(commands);
+    try (RevWalk walk = new RevWalk(repository)) {
+      batch.execute(walk, NullProgressMonitor.INSTANCE);
+    }
+    for (ReceiveCommand command : commands) {
+      if (command.getResult() != ReceiveCommand.Result.OK) {
+        throw new IOException("Unable to create " + command.getRefName() + ": " + command.getResult());
+      }
+    }
+
+    StoredConfig config = repository.getConfig();
+    config.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", "https://example.com/synthetic.git");
+    config.setString("remote", Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
+    config.setString("branch", Constants.MASTER, "remote", Constants.DEFAULT_REMOTE_NAME);
+    config.setString("branch", Constants.MASTER, "merge", Constants.R_HEADS + Constants.MASTER);
+    config.save();
+  }
+
+  /**
+   * @param name   The name of a new ref.
+   * @param target The object it points to.
+   *
+   * @return The command that creates the ref.
+   */
+  private static ReceiveCommand create(String name, ObjectId target) {
+    return new ReceiveCommand(ObjectId.zeroId(), target, name);
+  }
+
+  /**
+   * Writes the files of the HEAD and an index that matches them. The files are older than the index,
+   * so the status doesn't have to read them to know that they are unchanged.
+   *
+   * @throws IOException
+   */
+  private void writeWorkingCopyAndIndex() throws IOException {
+    File workTree = repository.getWorkTree();
+    Instant modified = Instant.ofEpochMilli(START_TIME);
+    DirCache dirCache = repository.lockDirCache();
+    try {
+      DirCacheBuilder builder = dirCache.builder();
+      for (int i = 0; i < scale.files; i++) {
+        builder.add(writeFile(workTree, filePath(i), content(i), blobs[i], modified));
+      }
+      if (gitmodulesBlob != null) {
+        byte[] gitmodules = repository.open(gitmodulesBlob).getBytes();
+        builder.add(writeFile(workTree, Constants.DOT_GIT_MODULES, gitmodules, gitmodulesBlob, modified));
+        for (int i = 0; i < scale.submodules; i++) {
+          String path = submodulePath(i);
+          FileUtils.mkdirs(new File(workTree, path), true);
+          DirCacheEntry entry = new DirCacheEntry(path);
+          entry.setFileMode(FileMode.GITLINK);
+          entry.setObjectId(SUBMODULE_COMMIT);
+          builder.add(entry);
+        }
+      }
+      builder.commit();
+    } finally {
+      dirCache.unlock();
+    }
+  }
+
+  /**
+   * Writes a file of the working copy.
+   *
+   * @param workTree The working copy.
+   * @param path     The path of the file.
+   * @param content  The content.
+   * @param blob     The blob with the same content.
+   * @param modified The modification time to set.
+   *
+   * @return The index entry of the file.
+   *
+   * @throws IOException
+   */
+  private static DirCacheEntry writeFile(File workTree, String path, byte[] content, ObjectId blob, Instant modified)
+      throws IOException {
+    File file = new File(workTree, path);
+    FileUtils.mkdirs(file.getParentFile(), true);
+    Files.write(file.toPath(), content);
+    Files.setLastModifiedTime(file.toPath(), FileTime.from(modified));
+
+    DirCacheEntry entry = new DirCacheEntry(path);
+    entry.setFileMode(FileMode.REGULAR_FILE);
+    entry.setObjectId(blob);
+    entry.setLength(content.length);
+    entry.setLastModified(modified);
+    return entry;
+  }
+}
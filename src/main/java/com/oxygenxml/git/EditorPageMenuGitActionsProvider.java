@@ -16,6 +16,8 @@ import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.view.historycomponents.HistoryController;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
@@ -84,20 +86,28 @@ public class EditorPageMenuGitActionsProvider {
           @Override
           public void actionPerformed(ActionEvent e) {
             gitOpScheduler.schedule(
+                Lane.READ,
+                Priority.INTERACTIVE,
+                null,
                 () -> ProjectAndEditorPageMenuActionsUtil.showHistory(
                     file,
                     historyCtrl,
-                    getViewsToSetCursorOn()));
+                    getViewsToSetCursorOn()),
+                0);
           }
         };
         AbstractAction showBlameAction = new AbstractAction(translator.getTranslation(Tags.SHOW_BLAME)) {
           @Override
           public void actionPerformed(ActionEvent e) {
             gitOpScheduler.schedule(
+                Lane.READ,
+                Priority.INTERACTIVE,
+                null,
                 () -> ProjectAndEditorPageMenuActionsUtil.showBlame(
                     file,
                     historyCtrl,
-                    getViewsToSetCursorOn()));
+                    getViewsToSetCursorOn()),
+                0);
           }
         };
 
@@ -25,12 +25,11 @@ import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
-import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
-import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.utils.GitAddonSystemProperties;
 import com.oxygenxml.git.utils.Log4jUtil;
+import com.oxygenxml.git.utils.OperationMetrics;
 import com.oxygenxml.git.utils.PanelRefresh;
 import com.oxygenxml.git.view.StagingPanel;
 import com.oxygenxml.git.view.dialog.UIUtil;
@@ -85,7 +84,7 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
     public void windowActivated(WindowEvent e) {
       super.windowActivated(e);
       if (refresh && stagingPanel != null && stagingPanel.isShowing()) {
-        gitRefreshSupport.call();
+        gitRefreshSupport.callIncremental();
       }
       refresh = false;
     }
@@ -196,6 +195,9 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
 			
 			Log4jUtil.setupLog4JLogger();
 			
+			// Expose the measurements of the Git operations through JMX.
+			OperationMetrics.getInstance().register();
+			
 		} catch (Throwable t) { // NOSONAR
 			// Catch Throwable - Runtime exceptions shouldn't affect Oxygen.
 			pluginWorkspaceAccess.showErrorMessage(t.getMessage());
@@ -214,6 +216,8 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
     if (shouldRecreateStagingPanel) {
       stagingPanel = new StagingPanel(gitRefreshSupport, gitCtrl, OxygenGitPluginExtension.this);
       gitRefreshSupport.setPanel(stagingPanel);
+      // Bring the remote changes in the background, not on each refresh.
+      gitRefreshSupport.getFetchScheduler().start();
     }
     viewInfo.setComponent(stagingPanel);
     
@@ -254,12 +258,8 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
       
       @Override
       public void branchChanged(String oldBranch, String newBranch) {
+        // The Project view is refreshed by the checkout itself, only for the folders that changed.
         gitRefreshSupport.call();
-        try {
-          FileHelper.refreshProjectView();
-        } catch (NoRepositorySelected e) {
-          logger.debug(e, e);
-        }
       }
     });
     
@@ -292,13 +292,16 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
 	 */
 	@Override
 	public boolean applicationClosing() {
-		OptionsManager.getInstance().saveOptions();
+		// Write the changes that are still waiting to be written in the background.
+		OptionsManager.getInstance().flushOptions();
 		
 		// EXM-42867: wait for the refresh to execute
 		gitRefreshSupport.shutdown();
 		
 		GitAccess.getInstance().closeRepo();
 		
+		OperationMetrics.getInstance().unregister();
+		
 		// Close application.
 		return true;
 	}
@@ -5,10 +5,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.SwingUtilities;
@@ -24,6 +27,8 @@ import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.utils.RepoUtil;
 import com.oxygenxml.git.view.DiffPresenter;
 import com.oxygenxml.git.view.dialog.UIUtil;
@@ -147,7 +152,7 @@ public class ProjectMenuGitActionsProvider {
     gitDiffAction = new AbstractAction(translator.getTranslation(Tags.GIT_DIFF)) {
       @Override
       public void actionPerformed(ActionEvent e) {
-        gitOpScheduler.schedule(ProjectMenuGitActionsProvider.this::doGitDiff);
+        gitOpScheduler.schedule(Lane.READ, Priority.INTERACTIVE, null, ProjectMenuGitActionsProvider.this::doGitDiff, 0);
       }
     };
     commitAction = new AbstractAction(translator.getTranslation(Tags.COMMIT)) {
@@ -160,20 +165,28 @@ public class ProjectMenuGitActionsProvider {
       @Override
       public void actionPerformed(ActionEvent e) {
         gitOpScheduler.schedule(
+            Lane.READ,
+            Priority.INTERACTIVE,
+            null,
             () -> ProjectAndEditorPageMenuActionsUtil.showHistory(
                 pluginWS.getProjectManager().getSelectedFiles()[0],
                 historyCtrl,
-                getViewsToSetCursorOn()));
+                getViewsToSetCursorOn()),
+            0);
       }
     };
     showBlameAction = new AbstractAction(translator.getTranslation(Tags.SHOW_BLAME)) {
       @Override
       public void actionPerformed(ActionEvent e) {
         gitOpScheduler.schedule(
+            Lane.READ,
+            Priority.INTERACTIVE,
+            null,
             () -> ProjectAndEditorPageMenuActionsUtil.showBlame(
                 pluginWS.getProjectManager().getSelectedFiles()[0],
                 historyCtrl,
-                getViewsToSetCursorOn()));
+                getViewsToSetCursorOn()),
+            0);
       }
     };
   }
@@ -203,7 +216,7 @@ public class ProjectMenuGitActionsProvider {
         try {
           RepoUtil.updateCurrentRepository(repository);
 
-          List<FileStatus> gitFiles = getStagedAndUnstagedFiles();
+          List<FileStatus> gitFiles = getStagedAndUnstagedFiles(getSelectedPaths(new File[] {selFile}, repository));
           boolean wasDiffShown = false;
           if (!gitFiles.isEmpty()) {
             String selectedFilePath = FileHelper.rewriteSeparator(selFile.getAbsolutePath());
@@ -243,22 +256,21 @@ public class ProjectMenuGitActionsProvider {
         try {
           RepoUtil.updateCurrentRepository(repository);
 
-          List<FileStatus> gitFiles = getStagedAndUnstagedFiles();
+          // Only the selected resources are inspected, not the entire working copy.
+          List<String> selectedPaths = getSelectedPaths(selectedFiles, repository);
+          GitStatus status = GitAccess.getInstance().getStatus(selectedPaths);
           boolean canCommit = false;
-          for (File selFile : selectedFiles) {
-            String selectedFilePath = FileHelper.rewriteSeparator(selFile.getAbsolutePath());
-            for (FileStatus fileStatus : gitFiles) {
-              if (selectedFilePath.endsWith(fileStatus.getFileLocation())) {
-                canCommit = true;
-                break;
-              }
-            }
+          for (FileStatus fileStatus : status.getUnstagedFiles()) {
+            canCommit |= isSelected(fileStatus, selectedPaths);
+          }
+          for (FileStatus fileStatus : status.getStagedFiles()) {
+            canCommit |= isSelected(fileStatus, selectedPaths);
           }
 
           if (canCommit) {
             SwingUtilities.invokeLater(
                 () -> pluginWS.showView(OxygenGitPluginExtension.GIT_STAGING_VIEW, true));
-            stageFiles(repository);
+            stageFiles(status.getUnstagedFiles(), selectedPaths);
           } else {
             SwingUtilities.invokeLater(
                 () -> pluginWS.showInformationMessage(translator.getTranslation(Tags.NOTHING_TO_COMMIT)));
@@ -275,32 +287,73 @@ public class ProjectMenuGitActionsProvider {
   }
   
   /**
+   * @param paths The paths of interest, relative to the working copy. An empty list means the entire working copy.
+   * 
    * @return The staged and the unstaged files.
    */
-  private List<FileStatus> getStagedAndUnstagedFiles() {
+  private List<FileStatus> getStagedAndUnstagedFiles(List<String> paths) {
     List<FileStatus> gitFiles = new ArrayList<>();
-    GitStatus status = GitAccess.getInstance().getStatus();
+    GitStatus status = GitAccess.getInstance().getStatus(paths);
     gitFiles.addAll(status.getUnstagedFiles());
     gitFiles.addAll(status.getStagedFiles());
     return gitFiles;
   }
   
   /**
-   * Stage files.
+   * Computes the paths of the selected resources, to be used as filters for the Git commands,
+   * so that the selected folders are not listed.
    * 
-   * @param repository The current repository.
+   * @param selectedFiles The resources selected in the Project view.
+   * @param repository    The working copy directory.
    * 
-   * @return <code>true</code> if we have staged files.
+   * @return The paths relative to the working copy, with '/' as separator, of the selected resources from
+   * inside the working copy. An empty list if the working copy itself is selected, which means everything.
    */
-  private void stageFiles(String repository) {
-    repository = FileHelper.rewriteSeparator(repository);
-    
-    List<FileStatus> unstagedFiles = GitAccess.getInstance().getUnstagedFiles();
-    Set<String> allSelectedFiles = ProjectViewManager.getSelectedFilesDeep();
+  static List<String> getSelectedPaths(File[] selectedFiles, String repository) {
+    List<String> paths = new ArrayList<>();
+    boolean entireWorkingCopy = false;
+    Path repositoryRoot = Paths.get(repository).toAbsolutePath().getRoot();
+    for (File selFile : selectedFiles) {
+      // A resource from another drive is outside the working copy and cannot be relativized to it.
+      if (repositoryRoot.equals(selFile.getAbsoluteFile().toPath().getRoot())) {
+        String path = FileHelper.rewriteSeparator(RepoUtil.getFilePathRelativeToRepo(selFile, repository));
+        if (path.isEmpty()) {
+          entireWorkingCopy = true;
+        } else if (!path.equals("..") && !path.startsWith("../")) {
+          paths.add(path);
+        }
+      }
+    }
+    return entireWorkingCopy ? Collections.emptyList() : paths;
+  }
+  
+  /**
+   * @param fileStatus    A file from the status.
+   * @param selectedPaths The paths of the selected resources. An empty list means the entire working copy.
+   * 
+   * @return <code>true</code> if the file is one of the selected resources or is inside one of them.
+   */
+  static boolean isSelected(FileStatus fileStatus, List<String> selectedPaths) {
+    boolean isSelected = selectedPaths.isEmpty();
+    String location = fileStatus.getFileLocation();
+    for (Iterator<String> iterator = selectedPaths.iterator(); !isSelected && iterator.hasNext();) {
+      String path = iterator.next();
+      isSelected = location.equals(path) || location.startsWith(path + "/");
+    }
+    return isSelected;
+  }
+  
+  /**
+   * Stage the selected files that are not in conflict.
+   * 
+   * @param unstagedFiles The unstaged files, from the status of the selected resources.
+   * @param selectedPaths The paths of the selected resources. An empty list means the entire working copy.
+   */
+  private void stageFiles(List<FileStatus> unstagedFiles, List<String> selectedPaths) {
     List<FileStatus> stagedFiles = new ArrayList<>();
     for (FileStatus unstagedFileStatus : unstagedFiles) {
-      if (allSelectedFiles.contains(repository + "/" + unstagedFileStatus.getFileLocation())
-          && unstagedFileStatus.getChangeType() != GitChangeType.CONFLICT) {
+      if (unstagedFileStatus.getChangeType() != GitChangeType.CONFLICT
+          && isSelected(unstagedFileStatus, selectedPaths)) {
         stagedFiles.add(unstagedFileStatus);
       }
     }
@@ -1,8 +1,6 @@
 package com.oxygenxml.git;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
 
 import javax.swing.JPopupMenu;
 
@@ -75,23 +73,4 @@ public class ProjectViewManager {
     return isGit;
   }
 
-	/**
-	 * Get all the selected files + the files from inside the selected directories in the Project view.
-	 * 
-	 * @param pluginWorkspaceAccess  Plug-in workspace access.
-	 * 
-	 * @return the selected files and all the files from inside the selected directories in the Project view.
-	 */
-	public static Set<String> getSelectedFilesDeep(){
-	  Set<String> files = new HashSet<>();
-
-	  StandalonePluginWorkspace pluginWS = (StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace();
-	  File[] selectedFiles = pluginWS.getProjectManager().getSelectedFiles();
-	  for (int i = 0; i < selectedFiles.length; i++) {
-	    files.addAll(FileHelper.getAllFilesFromPath(selectedFiles[i].getAbsolutePath()));
-	  }
-
-	  return files;
-	}
-	
 }
\ No newline at end of file
@@ -51,6 +51,10 @@ public class ResetableUserCredentialsProvider extends UsernamePasswordCredential
    * Flag to keep track if the credentials were previously created.
    */
   private boolean userCredentialsRequested = false; 
+  /**
+   * <code>false</code> to never show dialogs, for the operations that were not started by the user.
+   */
+  private boolean dialogsAllowed = true;
 
   /**
    * Constructor.
@@ -80,6 +84,21 @@ public class ResetableUserCredentialsProvider extends UsernamePasswordCredential
     return password;
   }
 
+  /**
+   * @param dialogsAllowed <code>false</code> to never show dialogs, for the operations that were not started
+   *                       by the user. Missing or invalid credentials make the operation fail.
+   */
+  public void setDialogsAllowed(boolean dialogsAllowed) {
+    this.dialogsAllowed = dialogsAllowed;
+  }
+
+  /**
+   * @return <code>true</code> if the user can be asked for credentials.
+   */
+  protected boolean areDialogsAllowed() {
+    return dialogsAllowed;
+  }
+
   /**
    * @see org.eclipse.jgit.transport.CredentialsProvider.reset(URIish)
    */
@@ -93,7 +112,8 @@ public class ResetableUserCredentialsProvider extends UsernamePasswordCredential
         // The credentials were actually previously requested. 
         userCredentialsRequested 
         // The user hasn't already canceled a login session.
-        && !shouldCancelLogin) {
+        && !shouldCancelLogin
+        && dialogsAllowed) {
       LoginDialog loginDialog = new LoginDialog(
           host,
           username == null ? translator.getTranslation(Tags.LOGIN_DIALOG_CREDENTIALS_NOT_FOUND_MESSAGE)
@@ -64,7 +64,7 @@ public class SSHCapableUserCredentialsProvider extends ResetableUserCredentialsP
 	      // A not so great method to check that the pass phrase is requested.
 	      passphaseRequested = true;
 	      
-	      if (!validPassphrase(passphrase)) {
+	      if (!validPassphrase(passphrase) && areDialogsAllowed()) {
 	        // We don't have a phrase from options. Ask the user.
 	        logger.debug("Ask for new passphrase...");
 	        passphrase = new PassphraseDialog(translator.getTranslation(Tags.ENTER_SSH_PASS_PHRASE) + ".").getPassphrase();
@@ -127,7 +127,10 @@ public class SSHCapableUserCredentialsProvider extends ResetableUserCredentialsP
       logger.debug("Look in cache for answer to: " + promptText + ", got " + response);
     }
     
-    if (response == null) {
+    if (response == null && !areDialogsAllowed()) {
+      // Not started by the user. Don't ask and don't remember the answer.
+      response = Boolean.FALSE;
+    } else if (response == null) {
       // Ask the user.
       String[] options = new String[] { "   Yes   ", "   No   " };
       int[] optonsId = new int[] { 0, 1 };
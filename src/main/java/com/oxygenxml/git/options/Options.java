@@ -96,6 +96,21 @@ public class Options {
 	@XmlElement(name = "isAutoPushWhenCommitting")
 	private boolean isAutoPushWhenCommitting = false;
 	
+	/**
+	 * The interval, in minutes, for fetching from the remote in the background. 
+	 * 0 to fetch only on an explicit refresh.
+	 */
+	@XmlElement(name = "fetchInterval")
+	private int fetchInterval = 5;
+	
+	public int getFetchInterval() {
+	  return fetchInterval;
+	}
+	
+	public void setFetchInterval(int fetchInterval) {
+	  this.fetchInterval = fetchInterval;
+	}
+	
 	public boolean isAutoPushWhenCommitting() {
     return isAutoPushWhenCommitting;
   }
@@ -1,8 +1,11 @@
 package com.oxygenxml.git.options;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
@@ -17,6 +20,9 @@ import javax.xml.bind.Unmarshaller;
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.git.OxygenGitPlugin;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.view.ChangesPanel.ResourcesViewMode;
 import com.oxygenxml.git.view.event.PullType;
 
@@ -69,6 +75,31 @@ public class OptionsManager {
    */
   private static OptionsManager instance;
 
+  /**
+   * The JAXB context of the options.
+   */
+  private static JAXBContext jaxbContext;
+
+  /**
+   * The key of the operation that writes the options.
+   */
+  private static final String SAVE_KEY = "OptionsManager.save";
+
+  /**
+   * Milliseconds after which the changed options are written.
+   */
+  static final int SAVE_DELAY = 1000;
+
+  /**
+   * <code>true</code> if the options changed since they were last written. Guarded by this.
+   */
+  private boolean dirty;
+
+  /**
+   * Held while the options are serialized and written.
+   */
+  private final Object flushLock = new Object();
+
   /**
    * Gets the singleton instance
    * 
@@ -89,8 +120,7 @@ public class OptionsManager {
     if (options == null) {
       options = new Options();
       try {
-        JAXBContext jaxbContext = JAXBContext.newInstance(Options.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+        Unmarshaller jaxbUnmarshaller = getJAXBContext().createUnmarshaller();
         if (OxygenGitPlugin.getInstance() == null) {
           // Running outside Oxygen, for example from tests.
           File optionsFileForTests = getOptionsFileForTests();
@@ -149,52 +179,99 @@ public class OptionsManager {
   }
 
   /**
-   * Save options.
+   * @return The JAXB context of the options. Created once, as it is expensive.
+   * 
+   * @throws JAXBException If the context cannot be created.
+   */
+  private static synchronized JAXBContext getJAXBContext() throws JAXBException {
+    if (jaxbContext == null) {
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      try {
+        Thread.currentThread().setContextClassLoader(JAXBContext.class.getClassLoader());
+        jaxbContext = JAXBContext.newInstance(Options.class);
+      } finally {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+      }
+    }
+    return jaxbContext;
+  }
+
+  /**
+   * Save options. The options are marked as changed and written in the background, after
+   * {@link #SAVE_DELAY} milliseconds, so that a burst of changes is written once.
+   * Call {@link #flushOptions()} to write them at once.
    */
   public void saveOptions() {
-    boolean save = true;
-    StringWriter optionsWriter = new StringWriter();
-    
-    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
-    try {
-      Thread.currentThread().setContextClassLoader(JAXBContext.class.getClassLoader());
-
-      JAXBContext jaxbContext = JAXBContext.newInstance(Options.class);
-      Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-      jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-      if (OxygenGitPlugin.getInstance() == null) {
-        jaxbMarshaller.marshal(getOptions(), getOptionsFileForTests());
-      } else {
-        jaxbMarshaller.marshal(getOptions(), optionsWriter);
+    synchronized (this) {
+      dirty = true;
+    }
+    GitOperationScheduler.getInstance().schedule(Lane.WRITE, Priority.BACKGROUND, SAVE_KEY, this::flushOptions, SAVE_DELAY);
+  }
+
+  /**
+   * Writes the options, if they changed since they were last written. The options are serialized
+   * while holding the lock of this manager, but they are written after releasing it, so that the
+   * getters don't wait for the write.
+   */
+  public void flushOptions() {
+    // Serializes the writes, so that an older serialization never overwrites a newer one.
+    synchronized (flushLock) {
+      String serializedOptions = null;
+      synchronized (this) {
+        if (dirty) {
+          dirty = false;
+          try {
+            Marshaller jaxbMarshaller = getJAXBContext().createMarshaller();
+            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            StringWriter optionsWriter = new StringWriter();
+            jaxbMarshaller.marshal(getOptions(), optionsWriter);
+            serializedOptions = optionsWriter.toString();
+          } catch (JAXBException e) {
+            if (logger.isDebugEnabled()) {
+              logger.debug(e, e);
+            }
+          }
+        }
       }
-    } catch (JAXBException e) {
-      save = false;
-      if (logger.isDebugEnabled()) {
-        logger.debug(e, e);
+
+      if (serializedOptions != null) {
+        writeOptions(serializedOptions);
       }
-    } finally {
-      Thread.currentThread().setContextClassLoader(contextClassLoader);
     }
-    
-    if (save) {
+  }
+
+  /**
+   * Writes the serialized options in Oxygen's options or, outside Oxygen, in the options file for tests.
+   * 
+   * @param serializedOptions The options, serialized as XML.
+   */
+  void writeOptions(String serializedOptions) {
+    if (OxygenGitPlugin.getInstance() == null) {
+      try {
+        Files.write(getOptionsFileForTests().toPath(), serializedOptions.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        logger.error(e, e);
+      }
+    } else {
       PluginWorkspaceProvider.getPluginWorkspace().getOptionsStorage().setOption(GIT_PLUGIN_OPTIONS,
-          PluginWorkspaceProvider.getPluginWorkspace().getXMLUtilAccess().escapeTextValue(optionsWriter.toString()));
+          PluginWorkspaceProvider.getPluginWorkspace().getXMLUtilAccess().escapeTextValue(serializedOptions));
     }
-
   }
   
   /**
    * Save the new view mode for the staged resources.
    */
-  public void saveStagedResViewMode(ResourcesViewMode stagedResViewMode) {
+  public synchronized void saveStagedResViewMode(ResourcesViewMode stagedResViewMode) {
     getOptions().setStagedResViewMode(stagedResViewMode);
+    
+    saveOptions();
   }
   
   /**
    * Init and get the options.
    * @return The initialized options.
    */
-  private Options getOptions() {
+  private synchronized Options getOptions() {
 	  loadOptions();
 	  return options;
   }
@@ -204,15 +281,19 @@ public class OptionsManager {
    * 
    * @param pullType The pull type.
    */
-  public void saveDefaultPullType(PullType pullType) {
+  public synchronized void saveDefaultPullType(PullType pullType) {
     getOptions().setDefaultPullType(pullType);
+    
+    saveOptions();
   }
   
   /**
    * Save the new view mode for the unstaged resources.
    */
-  public void saveUnstagedResViewMode(ResourcesViewMode unstagedResViewMode) {
+  public synchronized void saveUnstagedResViewMode(ResourcesViewMode unstagedResViewMode) {
     getOptions().setUnstagedResViewMode(unstagedResViewMode);
+    
+    saveOptions();
   }
 
   /**
@@ -230,7 +311,7 @@ public class OptionsManager {
    * @param repositoryOption
    *          - options to be saved
    */
-  public void addRepository(String repositoryOption) {
+  public synchronized void addRepository(String repositoryOption) {
     LinkedList<String> locations = (LinkedList<String>) getOptions().getRepositoryLocations().getLocations();
     locations.remove(repositoryOption);
     locations.addFirst(repositoryOption);
@@ -247,7 +328,7 @@ public class OptionsManager {
    * @param path
    *          - the path to the selected repository
    */
-  public void saveSelectedRepository(String path) {
+  public synchronized void saveSelectedRepository(String path) {
     getOptions().setSelectedRepository(path);
 
     saveOptions();
@@ -267,7 +348,7 @@ public class OptionsManager {
    * 
    * @param path The location/path of the repository.
    */
-  public void removeRepositoryLocation(String path) {
+  public synchronized void removeRepositoryLocation(String path) {
     getOptions().getRepositoryLocations().getLocations().remove(path);
 
     saveOptions();
@@ -278,7 +359,7 @@ public class OptionsManager {
    * 
    * @param paths The locations/paths of the repositories to remove.
    */
-  public void removeRepositoryLocations(Collection<String> paths) {
+  public synchronized void removeRepositoryLocations(Collection<String> paths) {
     getOptions().getRepositoryLocations().getLocations().removeAll(paths);
 
     saveOptions();
@@ -290,7 +371,7 @@ public class OptionsManager {
    * @param userCredentials
    *          - the credentials to be saved
    */
-  public void saveGitCredentials(UserCredentials userCredentials) {
+  public synchronized void saveGitCredentials(UserCredentials userCredentials) {
     if (userCredentials == null) {
       // Reset
       getOptions().getUserCredentialsList().setCredentials(null);
@@ -365,7 +446,7 @@ public class OptionsManager {
    * @param commitMessage
    *          - the last commitMessage
    */
-  public void saveCommitMessage(String commitMessage) {
+  public synchronized void saveCommitMessage(String commitMessage) {
     List<String> messages = getOptions().getCommitMessages().getMessages();
     if (messages.contains(commitMessage)) {
       messages.remove(commitMessage);
@@ -395,7 +476,7 @@ public class OptionsManager {
    * @param projectPath
    *          - the project path to be saved
    */
-  public void saveProjectTestedForGit(String projectPath) {
+  public synchronized void saveProjectTestedForGit(String projectPath) {
     List<String> projectsPath = getOptions().getProjectsTestsForGit().getPaths();
     projectsPath.add(projectPath);
     if (projectsPath.size() > MAXIMUM_PROJECTS_TESTED) {
@@ -413,7 +494,7 @@ public class OptionsManager {
    * @param destinationPath
    *          - the destination path entered by the user
    */
-  public void saveDestinationPath(String destinationPath) {
+  public synchronized void saveDestinationPath(String destinationPath) {
     LinkedList<String> destinationPaths = (LinkedList<String>) getOptions().getDestinationPaths().getPaths();
     destinationPaths.remove(destinationPath);
     destinationPaths.add(0, destinationPath);
@@ -465,7 +546,7 @@ public class OptionsManager {
   /**
    * @return A cache for asking the user for connection message.
    */
-  public void saveSshPrompt(String prompt, boolean answer) {
+  public synchronized void saveSshPrompt(String prompt, boolean answer) {
     getOptions().getSshPromptAnswers().put(prompt, answer);
     
     saveOptions();
@@ -477,11 +558,13 @@ public class OptionsManager {
    * @param passphrase
    *          - the SSH pass phrase
    */
-  public void saveSshPassphare(String passphrase) {
+  public synchronized void saveSshPassphare(String passphrase) {
     String encryptPassphrase = passphrase == null ? null
         : ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace())
               .getUtilAccess().encrypt(passphrase);
     getOptions().setPassphrase(encryptPassphrase);
+    
+    saveOptions();
   }
 
   /**
@@ -506,7 +589,27 @@ public class OptionsManager {
     return getOptions().isAutoPushWhenCommitting();
   }
   
-  public void setAutoPushWhenCommitting(boolean isAutoPushWhenCommitting) {
+  public synchronized void setAutoPushWhenCommitting(boolean isAutoPushWhenCommitting) {
     getOptions().setAutoPushWhenCommitting(isAutoPushWhenCommitting);
+    
+    saveOptions();
+  }
+  
+  /**
+   * @return The interval, in minutes, for fetching from the remote in the background.
+   * 0 to fetch only on an explicit refresh.
+   */
+  public int getFetchInterval() {
+    return getOptions().getFetchInterval();
+  }
+  
+  /**
+   * @param fetchInterval The interval, in minutes, for fetching from the remote in the background.
+   * 0 to fetch only on an explicit refresh.
+   */
+  public synchronized void setFetchInterval(int fetchInterval) {
+    getOptions().setFetchInterval(fetchInterval);
+    
+    saveOptions();
   }
 }
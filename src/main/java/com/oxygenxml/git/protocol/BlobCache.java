@@ -0,0 +1,165 @@
+package com.oxygenxml.git.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.NoRepositorySelected;
+
+/**
+ * Keeps what the diff and compare views read again and again through the "git" protocol.
+ * It keeps the blob ID of a file from a commit and the content of the small blobs.
+ * Both are identified by object IDs, which never change their meaning. The cache is still cleared when
+ * the repository is closed, so that the blobs of a repository are not kept in memory after switching
+ * to another one. The large blobs are always streamed.
+ */
+public final class BlobCache {
+  /**
+   * The maximum number of (commit, path) -> blob entries.
+   */
+  private static final int MAX_BLOB_IDS = 1024;
+  /**
+   * The largest blob whose content is cached.
+   */
+  private static final int MAX_CACHED_BLOB_SIZE = 512 * 1024;
+  /**
+   * The maximum total size of the cached contents.
+   */
+  private static final long MAX_CACHED_CONTENT_SIZE = 16L * 1024 * 1024;
+  /**
+   * Singleton instance.
+   */
+  private static final BlobCache instance = new BlobCache();
+  /**
+   * "commit:path" -> the blob of the file from that commit. The most recently used come last.
+   */
+  private final Map<String, ObjectId> blobIds = new LinkedHashMap<String, ObjectId>(MAX_BLOB_IDS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, ObjectId> eldest) {
+      return size() > MAX_BLOB_IDS;
+    }
+  };
+  /**
+   * Blob -> its content. The most recently used come last.
+   */
+  private final Map<ObjectId, byte[]> contents = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The total size of {@link #contents}.
+   */
+  private long contentsSize;
+
+  /**
+   * Singleton private constructor.
+   */
+  private BlobCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static BlobCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param commitId The ID of a commit.
+   * @param path     The path of a file.
+   *
+   * @return The blob of the file from the commit, or <code>null</code> if not cached.
+   */
+  synchronized ObjectId getBlobId(String commitId, String path) {
+    return blobIds.get(commitId + ":" + path);
+  }
+
+  /**
+   * Caches the blob of a file from a commit.
+   *
+   * @param commitId The ID of a commit.
+   * @param path     The path of a file.
+   * @param blobId   The blob of the file from the commit.
+   */
+  synchronized void putBlobId(String commitId, String path, ObjectId blobId) {
+    blobIds.put(commitId + ":" + path, blobId);
+  }
+
+  /**
+   * Opens a blob from the current repository. A small blob is read from the cache, or read
+   * completely and cached.
+   *
+   * @param blobId The blob.
+   *
+   * @return The stream with the content of the blob.
+   *
+   * @throws IOException Unable to read the blob.
+   */
+  InputStream openStream(ObjectId blobId) throws IOException {
+    byte[] content = getContent(blobId);
+    InputStream stream;
+    if (content != null) {
+      stream = new ByteArrayInputStream(content);
+    } else {
+      GitAccess gitAccess = GitAccess.getInstance();
+      Lock lock = gitAccess.getRepositoryLock().readLock();
+      lock.lock();
+      try {
+        ObjectLoader loader = gitAccess.getRepository().open(blobId);
+        if (loader.isLarge() || loader.getSize() > MAX_CACHED_BLOB_SIZE) {
+          stream = loader.openStream();
+        } else {
+          content = loader.getBytes();
+          putContent(blobId, content);
+          stream = new ByteArrayInputStream(content);
+        }
+      } catch (NoRepositorySelected e) {
+        throw new IOException(e);
+      } finally {
+        lock.unlock();
+      }
+    }
+    return stream;
+  }
+
+  /**
+   * @param blobId A blob.
+   *
+   * @return Its content, or <code>null</code> if not cached.
+   */
+  private synchronized byte[] getContent(ObjectId blobId) {
+    return contents.get(blobId);
+  }
+
+  /**
+   * Caches the content of a blob and forgets the least recently used ones, if too many.
+   *
+   * @param blobId  The blob.
+   * @param content Its content.
+   */
+  private synchronized void putContent(ObjectId blobId, byte[] content) {
+    byte[] previous = contents.put(blobId.copy(), content);
+    if (previous != null) {
+      contentsSize -= previous.length;
+    }
+    contentsSize += content.length;
+    for (Iterator<byte[]> iterator = contents.values().iterator();
+        contentsSize > MAX_CACHED_CONTENT_SIZE && iterator.hasNext();) {
+      contentsSize -= iterator.next().length;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Forgets everything. Called when the repository is closed.
+   */
+  public synchronized void clear() {
+    blobIds.clear();
+    contents.clear();
+    contentsSize = 0;
+  }
+}
@@ -1,15 +1,14 @@
 package com.oxygenxml.git.protocol;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.errors.NoWorkTreeException;
@@ -124,12 +123,20 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 			} else if (VersionIdentifier.PREVIOUSLY_SUBMODULE.equals(currentHost)) {
 			  fileObject = gitAccess.submoduleCompare(path, true);
 			} else {
-			  // Probably an ID.
-			  try {
-          fileObject = RevCommitUtil.getObjectID(gitAccess.getRepository(), currentHost, path);
-        } catch (IOException | NoRepositorySelected e) {
-          throw new IOException("Unable to extract GIT data from: " + getURL(), e);
-        }
+			  // Probably an ID. The file from a given commit never changes.
+			  BlobCache cache = BlobCache.getInstance();
+			  boolean isCommitId = ObjectId.isId(currentHost);
+			  fileObject = isCommitId ? cache.getBlobId(currentHost, path) : null;
+			  if (fileObject == null) {
+			    try {
+			      fileObject = RevCommitUtil.getObjectID(gitAccess.getRepository(), currentHost, path);
+			    } catch (IOException | NoRepositorySelected e) {
+			      throw new IOException("Unable to extract GIT data from: " + getURL(), e);
+			    }
+			    if (isCommitId && fileObject != null) {
+			      cache.putBlobId(currentHost, path, fileObject);
+			    }
+			  }
 			}
 
 			if (fileObject == null) {
@@ -146,15 +153,11 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 		public InputStream getInputStream() throws IOException {
 			if (VersionIdentifier.CURRENT_SUBMODULE.equals(currentHost) 
 					|| VersionIdentifier.PREVIOUSLY_SUBMODULE.equals(currentHost)) {
-				String commit = "Subproject commit " + fileObject.getName();
-				File temp = File.createTempFile("submodule", ".txt");
-				PrintWriter printWriter = new PrintWriter(temp);
-				printWriter.println(commit);
-				printWriter.close();
-				return new FileInputStream(temp);
+				String commit = "Subproject commit " + fileObject.getName() + System.lineSeparator();
+				return new ByteArrayInputStream(commit.getBytes(StandardCharsets.UTF_8));
 			}
 			
-			return GitAccess.getInstance().getInputStream(fileObject);
+			return BlobCache.getInstance().openStream(fileObject);
 		}
 
 		/**
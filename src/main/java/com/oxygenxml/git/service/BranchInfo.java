@@ -24,6 +24,11 @@ public class BranchInfo {
 	 */
 	private boolean isDetached;
 
+	/**
+	 * The full name of the remote-tracking branch of the branch. <code>null</code> if none.
+	 */
+	private String upstreamBranch;
+
 	public BranchInfo() {
 
 	}
@@ -58,4 +63,19 @@ public class BranchInfo {
 		this.shortBranchName = shortBranchName;
 	}
 
+	/**
+	 * @return The full name of the remote-tracking branch of the branch, for example
+	 * "refs/remotes/origin/main". <code>null</code> if none.
+	 */
+	public String getUpstreamBranch() {
+		return upstreamBranch;
+	}
+
+	/**
+	 * @param upstreamBranch The full name of the remote-tracking branch of the branch.
+	 */
+	public void setUpstreamBranch(String upstreamBranch) {
+		this.upstreamBranch = upstreamBranch;
+	}
+
 }
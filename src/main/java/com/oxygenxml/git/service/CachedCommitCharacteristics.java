@@ -0,0 +1,69 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+
+/**
+ * A commit read from the {@link CommitGraphCache}. The cache only has the first line of
+ * the message, so the full message is read from the repository, together with the page of
+ * the commit, by the {@link CommitHistoryCursor}. Reading the message never touches the repository,
+ * so the commit can be presented on AWT.
+ */
+class CachedCommitCharacteristics extends CommitCharacteristics {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(CachedCommitCharacteristics.class);
+  /**
+   * The full message. <code>null</code> until loaded.
+   */
+  private volatile String fullMessage;
+
+  /**
+   * Constructor.
+   *
+   * @param messageSummary      The first line of the commit message.
+   * @param authorDate          The date
+   * @param author              The commit author
+   * @param commitAbbreviatedId The abbreviated commit id
+   * @param commitId            The commit id
+   * @param committer           The committer
+   * @param parentCommitId      The parent commit id
+   */
+  CachedCommitCharacteristics(String messageSummary, Date authorDate, String author,
+      String commitAbbreviatedId, String commitId, String committer, List<String> parentCommitId) {
+    super(messageSummary, authorDate, author, commitAbbreviatedId, commitId, committer, parentCommitId);
+  }
+
+  /**
+   * Reads the full message from the repository. Called on a Git operations thread.
+   *
+   * @param revWalk Parses the commit.
+   */
+  void loadFullMessage(RevWalk revWalk) {
+    try {
+      RevCommit commit = revWalk.parseCommit(ObjectId.fromString(getCommitId()));
+      fullMessage = commit.getFullMessage();
+      commit.disposeBody();
+    } catch (IOException e) {
+      logger.debug(e, e);
+    }
+  }
+
+  /**
+   * @return The full message, if already loaded, otherwise the first line of the message.
+   */
+  @Override
+  public String getCommitMessage() {
+    String message = fullMessage;
+    return message != null ? message : super.getCommitMessage();
+  }
+}
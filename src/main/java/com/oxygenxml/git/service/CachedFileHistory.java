@@ -0,0 +1,396 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.service.CommitHistoryCursor.Pending;
+
+/**
+ * The history of a resource, walked over the {@link CommitGraphCache}. The result is the one of a
+ * {@link RevWalk} with a path filter: the commits that didn't change the resource are dropped,
+ * a merge that has the resource unchanged from one of its parents only follows that parent,
+ * and the parents of the returned commits are rewritten to the closest returned ancestors.
+ *
+ * The trees of a commit and of its parents are compared only when the {@link ChangedPathsIndex}
+ * can't rule the commit out. Most of the commits of a large history never touch the resource,
+ * so they are skipped without reading anything from the object database.
+ */
+final class CachedFileHistory {
+  /**
+   * A returned commit.
+   */
+  static final class Entry {
+    /**
+     * The index of the commit in the cache.
+     */
+    final int index;
+    /**
+     * The indexes of the rewritten parents.
+     */
+    final int[] parents;
+
+    /**
+     * Constructor.
+     *
+     * @param index   The index of the commit in the cache.
+     * @param parents The indexes of the rewritten parents.
+     */
+    Entry(int index, int[] parents) {
+      this.index = index;
+      this.parents = parents;
+    }
+  }
+
+  /**
+   * Returned when the rewritten parent is not known yet.
+   */
+  private static final int UNKNOWN = -2;
+
+  /**
+   * The repository.
+   */
+  private final Repository repository;
+  /**
+   * The commit graph.
+   */
+  private final CommitGraphCache cache;
+  /**
+   * The changed paths of the commits.
+   */
+  private final ChangedPathsIndex changedPaths;
+  /**
+   * The path of the resource.
+   */
+  private final String path;
+  /**
+   * The filter used when comparing trees. The same as the one of the file history {@link RevWalk}.
+   */
+  private final TreeFilter filter;
+  /**
+   * The parents changed while walking: simplified merges and parents whose history is no longer relevant.
+   */
+  private final Map<Integer, int[]> parentOverrides = new HashMap<>();
+  /**
+   * The commits that didn't change the resource. They are skipped when rewriting the parents.
+   */
+  private final BitSet unchanged = new BitSet();
+
+  /**
+   * Constructor.
+   *
+   * @param repository   The repository.
+   * @param cache        The commit graph, with all the walked commits in it.
+   * @param changedPaths The changed paths of the commits.
+   * @param path         The path of the resource.
+   */
+  CachedFileHistory(Repository repository, CommitGraphCache cache, ChangedPathsIndex changedPaths, String path) {
+    this.repository = repository;
+    this.cache = cache;
+    this.changedPaths = changedPaths;
+    this.path = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    this.filter = AndTreeFilter.create(PathFilterGroup.createFromStrings(this.path), TreeFilter.ANY_DIFF);
+  }
+
+  /**
+   * Walks the history. The commits are compared with their parents only as the entries are requested,
+   * so the first entries don't wait for the entire history.
+   *
+   * @param tips The indexes of the commits to start from.
+   *
+   * @return The commits that changed the resource, most recent first. The iterator throws
+   * {@link UncheckedIOException} if the commits or the trees cannot be read.
+   */
+  Iterator<Entry> walk(int[] tips) {
+    return new LazyWalk(tips);
+  }
+
+  /**
+   * Walks the commits in the order of {@link RevWalk}, until the next commit that changed the resource
+   * can be returned. A commit is returned when the closest kept ancestors on all its parent lines are known.
+   */
+  private final class LazyWalk implements Iterator<Entry> {
+    /**
+     * The commits that wait to be compared with their parents.
+     */
+    private final PriorityQueue<Pending> pending = CommitHistoryCursor.newPendingQueue();
+    /**
+     * The commits that were added to the pending ones.
+     */
+    private final BitSet seen = new BitSet(cache.size());
+    /**
+     * The commits that were compared with their parents.
+     */
+    private final BitSet evaluated = new BitSet(cache.size());
+    /**
+     * The commits that changed the resource and were not returned yet, most recent first.
+     */
+    private final Deque<Integer> changing = new ArrayDeque<>();
+    /**
+     * Incremented for each pending commit.
+     */
+    private long sequence;
+    /**
+     * The next entry, if already computed.
+     */
+    private Entry nextEntry;
+
+    /**
+     * Constructor.
+     *
+     * @param tips The indexes of the commits to start from.
+     */
+    LazyWalk(int[] tips) {
+      for (int tip : tips) {
+        addPending(tip);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntry == null) {
+        try {
+          nextEntry = computeNext();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry entry = nextEntry;
+      nextEntry = null;
+      return entry;
+    }
+
+    /**
+     * @return The next commit that changed the resource, or <code>null</code> if there are no more.
+     *
+     * @throws IOException Unable to read the commits or the trees.
+     */
+    private Entry computeNext() throws IOException {
+      Entry entry = null;
+      if (!changing.isEmpty() || !pending.isEmpty()) {
+        // A new walk for each entry, so that the parsed commits are not kept between pages.
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+          treeWalk.setFilter(filter);
+          treeWalk.setRecursive(filter.shouldBeRecursive());
+
+          while (entry == null && (!changing.isEmpty() || !pending.isEmpty())) {
+            int[] parents = changing.isEmpty() ? null : rewriteParents(changing.peek(), pending.isEmpty());
+            if (parents != null) {
+              entry = new Entry(changing.poll(), parents);
+            } else {
+              evaluateNext(revWalk, treeWalk);
+            }
+          }
+        }
+      }
+      return entry;
+    }
+
+    /**
+     * Compares the next pending commit with its parents and adds its parents to the pending ones.
+     *
+     * @param revWalk  Parses the commits whose trees are compared.
+     * @param treeWalk Compares the trees.
+     *
+     * @throws IOException
+     */
+    private void evaluateNext(RevWalk revWalk, TreeWalk treeWalk) throws IOException {
+      Pending next = pending.poll();
+      if (changesResource(next.index, revWalk, treeWalk)) {
+        changing.add(next.index);
+      }
+      evaluated.set(next.index);
+      // The parents may have been simplified.
+      for (int parent : getParents(next.index)) {
+        if (parent != -1) {
+          addPending(parent);
+        }
+      }
+    }
+
+    /**
+     * @param index    A commit that changed the resource.
+     * @param complete <code>true</code> if all the commits were compared with their parents.
+     *
+     * @return The rewritten parents of the commit, or <code>null</code> if more commits must be compared first.
+     *
+     * @throws IOException
+     */
+    private int[] rewriteParents(int index, boolean complete) throws IOException {
+      Set<Integer> parents = new LinkedHashSet<>();
+      for (int parent : getParents(index)) {
+        int rewritten = parent != -1 ? rewrite(parent, complete) : -1;
+        if (rewritten == UNKNOWN) {
+          return null;
+        }
+        if (rewritten != -1) {
+          parents.add(rewritten);
+        }
+      }
+      return parents.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param parent   A parent of a returned commit.
+     * @param complete <code>true</code> if all the commits were compared with their parents.
+     *
+     * @return The closest ancestor that is kept in the history, -1 if there is none or {@link #UNKNOWN}
+     * if an ancestor on the way was not compared with its parents yet.
+     *
+     * @throws IOException
+     */
+    private int rewrite(int parent, boolean complete) throws IOException {
+      int current = parent;
+      while (current != -1) {
+        if (!complete && !evaluated.get(current)) {
+          return UNKNOWN;
+        }
+        int[] parents = getParents(current);
+        if (parents.length > 1 || !unchanged.get(current)) {
+          return current;
+        }
+        if (parents.length == 0) {
+          return -1;
+        }
+        current = parents[0];
+      }
+      return -1;
+    }
+
+    /**
+     * Adds a commit to the pending ones, if not seen before.
+     *
+     * @param index The index of the commit.
+     */
+    private void addPending(int index) {
+      if (!seen.get(index)) {
+        seen.set(index);
+        pending.add(new Pending(index, cache.getCommitTime(index), sequence++));
+      }
+    }
+  }
+
+  /**
+   * Checks if a commit changed the resource. Mirrors the tree filter of {@link RevWalk}.
+   *
+   * @param index    The index of the commit.
+   * @param revWalk  Parses the commits whose trees are compared.
+   * @param treeWalk Compares the trees.
+   *
+   * @return <code>true</code> if the commit changed the resource.
+   *
+   * @throws IOException
+   */
+  private boolean changesResource(int index, RevWalk revWalk, TreeWalk treeWalk) throws IOException {
+    int[] parents = getParents(index);
+    boolean originalParents = !parentOverrides.containsKey(index);
+    if (originalParents && changedPaths.isIndexed(index) && !changedPaths.mightHaveChanged(index, path)) {
+      // Same resource as in the first parent.
+      unchanged.set(index);
+      if (parents.length > 1) {
+        parentOverrides.put(index, new int[] {parents[0]});
+      }
+      return false;
+    }
+
+    ObjectId[] trees = new ObjectId[parents.length + 1];
+    for (int i = 0; i < parents.length; i++) {
+      trees[i] = revWalk.parseCommit(cache.getId(parents[i])).getTree();
+    }
+    RevCommit commit = revWalk.parseCommit(cache.getId(index));
+    trees[parents.length] = commit.getTree();
+    treeWalk.reset(trees);
+
+    boolean changed;
+    if (parents.length <= 1) {
+      changed = treeWalk.next();
+      if (!changed) {
+        unchanged.set(index);
+      }
+    } else {
+      changed = mergeChangesResource(index, parents, treeWalk);
+    }
+    return changed;
+  }
+
+  /**
+   * Compares a merge with each of its parents.
+   *
+   * @param index    The index of the merge.
+   * @param parents  The indexes of its parents.
+   * @param treeWalk A walk over the trees of the parents and of the merge.
+   *
+   * @return <code>true</code> if the resource is different from all the parents.
+   *
+   * @throws IOException
+   */
+  private boolean mergeChangesResource(int index, int[] parents, TreeWalk treeWalk) throws IOException {
+    int count = parents.length;
+    int[] changes = new int[count];
+    int[] additions = new int[count];
+    while (treeWalk.next()) {
+      int mode = treeWalk.getRawMode(count);
+      for (int i = 0; i < count; i++) {
+        int parentMode = treeWalk.getRawMode(i);
+        if (mode != parentMode || !treeWalk.idEqual(i, count)) {
+          changes[i]++;
+          if (parentMode == 0 && mode != 0) {
+            additions[i]++;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      if (changes[i] == 0) {
+        // The resource comes from this parent. Only its history is relevant.
+        unchanged.set(index);
+        parentOverrides.put(index, new int[] {parents[i]});
+        return false;
+      }
+      if (changes[i] == additions[i]) {
+        // The resource didn't exist in this parent. Its history is not relevant.
+        parentOverrides.put(parents[i], new int[0]);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param index The index of a commit.
+   *
+   * @return The indexes of its parents, as simplified so far.
+   *
+   * @throws IOException
+   */
+  private int[] getParents(int index) throws IOException {
+    int[] parents = parentOverrides.get(index);
+    return parents != null ? parents : cache.getParents(index, repository);
+  }
+}
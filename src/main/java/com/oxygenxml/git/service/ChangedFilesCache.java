@@ -0,0 +1,85 @@
+package com.oxygenxml.git.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+
+/**
+ * Keeps the files changed by the most recently presented commits, so that selecting a commit again
+ * in the history doesn't compute the differences with its parent again. A commit never changes,
+ * so the results never become stale.
+ */
+final class ChangedFilesCache {
+  /**
+   * The maximum number of commits to keep.
+   */
+  private static final int MAX_ENTRIES = 64;
+  /**
+   * Singleton instance.
+   */
+  private static final ChangedFilesCache instance = new ChangedFilesCache();
+  /**
+   * Key -> the files changed by the commit. The most recently used come last.
+   */
+  private final Map<String, List<FileStatus>> results = new LinkedHashMap<String, List<FileStatus>>(MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, List<FileStatus>> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Singleton private constructor.
+   */
+  private ChangedFilesCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  static ChangedFilesCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param repository       The repository.
+   * @param commit           The commit.
+   * @param exactRenamesOnly <code>true</code> for the changed files in which only the renames that keep the
+   *                         content unchanged were detected.
+   *
+   * @return The key of the changed files.
+   */
+  static String createKey(Repository repository, ObjectId commit, boolean exactRenamesOnly) {
+    return repository.getDirectory().getAbsolutePath() + "|" + commit.name() + (exactRenamesOnly ? "|exact" : "");
+  }
+
+  /**
+   * @param key The key of the commit.
+   *
+   * @return The files changed by the commit or <code>null</code> if not cached.
+   */
+  synchronized List<FileStatus> get(String key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches the files changed by a commit.
+   *
+   * @param key          The key of the commit.
+   * @param changedFiles The files changed by the commit. Must not be modified afterwards.
+   */
+  synchronized void put(String key, List<FileStatus> changedFiles) {
+    results.put(key, changedFiles);
+  }
+
+  /**
+   * Forgets all the results.
+   */
+  synchronized void clear() {
+    results.clear();
+  }
+}
@@ -0,0 +1,277 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * For each commit from the {@link CommitGraphCache}, a Bloom filter with the paths changed by
+ * the commit, as compared with its first parent. The folders that contain the changed files are
+ * added as well. A negative answer is certain, so the history of a resource can skip the commits
+ * that don't touch it without comparing their trees.
+ *
+ * The filters are kept in the "changed-paths" file, next to the commit graph, one fixed size filter
+ * for each commit record, in the same order. The file is built in the background and only extended.
+ * Commits with too many changes get a filter that matches everything.
+ */
+final class ChangedPathsIndex {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(ChangedPathsIndex.class);
+  /**
+   * The name of the index file.
+   */
+  static final String FILE_NAME = "changed-paths";
+  /**
+   * The size of a filter, in bytes.
+   */
+  private static final int FILTER_SIZE = 64;
+  /**
+   * The number of bits in a filter.
+   */
+  private static final int FILTER_BITS = FILTER_SIZE * 8;
+  /**
+   * The number of bits set for each path.
+   */
+  private static final int HASHES = 7;
+  /**
+   * Above this number of paths, the false positives become too frequent and the filter matches everything.
+   */
+  private static final int MAX_PATHS = FILTER_BITS / 10;
+  /**
+   * The filters are written in batches of this size.
+   */
+  private static final int WRITE_BATCH = 1024;
+
+  /**
+   * The index file.
+   */
+  private final File file;
+  /**
+   * The commit graph.
+   */
+  private final CommitGraphCache graph;
+  /**
+   * The filters, read in memory.
+   */
+  private volatile ByteBuffer filters;
+  /**
+   * The number of commits with a filter.
+   */
+  private volatile int indexed;
+  /**
+   * Builds the filters in the background.
+   */
+  private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "Git Changed Paths Index");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  /**
+   * Constructor.
+   *
+   * @param file  The index file.
+   * @param graph The commit graph.
+   */
+  private ChangedPathsIndex(File file, CommitGraphCache graph) {
+    this.file = file;
+    this.graph = graph;
+  }
+
+  /**
+   * Opens the index of a commit graph.
+   *
+   * @param folder The folder of the commit graph.
+   * @param graph  The commit graph.
+   *
+   * @return The index.
+   *
+   * @throws IOException Unable to read the index file.
+   */
+  static ChangedPathsIndex open(File folder, CommitGraphCache graph) throws IOException {
+    ChangedPathsIndex index = new ChangedPathsIndex(new File(folder, FILE_NAME), graph);
+    try (RandomAccessFile raf = new RandomAccessFile(index.file, "rw")) {
+      int count = (int) Math.min(raf.length() / FILTER_SIZE, graph.size());
+      long length = (long) count * FILTER_SIZE;
+      if (raf.length() != length) {
+        // A partial filter or filters for commits that are no longer in the graph.
+        raf.setLength(length);
+      }
+      index.filters = CommitGraphCache.read(raf, null, length);
+      index.indexed = count;
+    }
+    return index;
+  }
+
+  /**
+   * Computes, in the background, the filters of the commits added to the graph.
+   *
+   * @param repository The repository.
+   */
+  void updateInBackground(Repository repository) {
+    if (!builder.isShutdown() && indexed < graph.size()) {
+      builder.execute(() -> {
+        try {
+          build(repository);
+        } catch (IOException e) {
+          logger.error(e, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Computes the missing filters.
+   *
+   * @param repository The repository.
+   *
+   * @throws IOException Unable to read the commits or to write the index.
+   */
+  private void build(Repository repository) throws IOException {
+    try (TreeWalk treeWalk = new TreeWalk(repository);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+      int target = graph.size();
+      while (indexed < target && !Thread.currentThread().isInterrupted()) {
+        int batchEnd = Math.min(target, indexed + WRITE_BATCH);
+        ByteBuffer batch = ByteBuffer.allocate((batchEnd - indexed) * FILTER_SIZE);
+        // A new walk for each batch, so that the parsed commits are not kept.
+        try (RevWalk revWalk = new RevWalk(repository)) {
+          for (int i = indexed; i < batchEnd; i++) {
+            RevCommit commit = revWalk.parseCommit(graph.getId(i));
+            if (commit.getParentCount() > 0) {
+              RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+              treeWalk.reset(parent.getTree(), commit.getTree());
+            } else {
+              treeWalk.reset();
+              treeWalk.addTree(new EmptyTreeIterator());
+              treeWalk.addTree(commit.getTree());
+            }
+            writeFilter(batch, (i - indexed) * FILTER_SIZE, changedPaths(treeWalk));
+          }
+        }
+
+        raf.seek((long) indexed * FILTER_SIZE);
+        raf.write(batch.array());
+        // Only the new filters are read.
+        filters = CommitGraphCache.read(raf, filters, (long) batchEnd * FILTER_SIZE);
+        indexed = batchEnd;
+      }
+    }
+  }
+
+  /**
+   * @param treeWalk A walk over the differences between two trees.
+   *
+   * @return The changed paths and the folders that contain them, or <code>null</code> if there are too many.
+   *
+   * @throws IOException
+   */
+  private static Set<String> changedPaths(TreeWalk treeWalk) throws IOException {
+    Set<String> paths = new HashSet<>();
+    while (treeWalk.next() && paths.size() <= MAX_PATHS) {
+      String path = treeWalk.getPathString();
+      paths.add(path);
+      for (int slash = path.lastIndexOf('/'); slash > 0 && paths.add(path.substring(0, slash));) {
+        slash = path.lastIndexOf('/', slash - 1);
+      }
+    }
+    return paths.size() <= MAX_PATHS ? paths : null;
+  }
+
+  /**
+   * Writes a filter.
+   *
+   * @param buffer The buffer.
+   * @param offset The offset of the filter in the buffer.
+   * @param paths  The paths to add in the filter. <code>null</code> for a filter that matches everything.
+   */
+  private static void writeFilter(ByteBuffer buffer, int offset, Set<String> paths) {
+    if (paths == null) {
+      for (int i = 0; i < FILTER_SIZE; i++) {
+        buffer.put(offset + i, (byte) 0xFF);
+      }
+    } else {
+      for (String path : paths) {
+        int[] bits = bits(path);
+        for (int bit : bits) {
+          int byteOffset = offset + bit / 8;
+          buffer.put(byteOffset, (byte) (buffer.get(byteOffset) | (1 << (bit % 8))));
+        }
+      }
+    }
+  }
+
+  /**
+   * @param path A path.
+   *
+   * @return The bits of the path in a filter.
+   */
+  private static int[] bits(String path) {
+    // Double hashing, over two independent hashes of the path.
+    int h1 = path.hashCode();
+    int h2 = 0x811C9DC5;
+    for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+      h2 = (h2 ^ (b & 0xFF)) * 0x01000193;
+    }
+    h2 |= 1;
+    int[] bits = new int[HASHES];
+    for (int i = 0; i < HASHES; i++) {
+      bits[i] = Math.floorMod(h1 + i * h2, FILTER_BITS);
+    }
+    return bits;
+  }
+
+  /**
+   * @param commitIndex The index of a commit in the graph.
+   *
+   * @return <code>true</code> if the filter of the commit was computed.
+   */
+  boolean isIndexed(int commitIndex) {
+    return commitIndex < indexed;
+  }
+
+  /**
+   * @param commitIndex The index of an indexed commit.
+   * @param path        A path, relative to the working copy.
+   *
+   * @return <code>false</code> if the commit didn't change the path, as compared with its first parent.
+   * <code>true</code> if it might have changed it.
+   */
+  boolean mightHaveChanged(int commitIndex, String path) {
+    ByteBuffer buffer = filters;
+    int offset = commitIndex * FILTER_SIZE;
+    for (int bit : bits(path)) {
+      if ((buffer.get(offset + bit / 8) & (1 << (bit % 8))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops building the filters.
+   */
+  void close() {
+    builder.shutdownNow();
+  }
+}
@@ -0,0 +1,727 @@
+package com.oxygenxml.git.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * The commit graph of a repository, cached on disk, so that the history can be presented
+ * without parsing every commit again after each restart. The cache is only extended:
+ * the commits that are already in it are never read again from the object database.
+ *
+ * The cache is kept in two append-only files, inside the ".git" folder:
+ * <ul>
+ * <li>"commit-graph": a header followed by one fixed size record for each commit. A record holds the
+ * commit ID, the commit and author times, the offsets of its strings and the indexes of its parents.
+ * The parents are always written before their children.</li>
+ * <li>"commit-strings": the author, the committer and the first line of the message of each commit,
+ * as length prefixed UTF-8.</li>
+ * </ul>
+ * Both files are read in memory, not mapped, so that they can be truncated, deleted or moved, with the ".git" folder,
+ * while the cache is opened. The paths changed by each commit are indexed separately, in a {@link ChangedPathsIndex}.
+ */
+final class CommitGraphCache {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(CommitGraphCache.class);
+  /**
+   * The folder with the cache files, inside the ".git" folder.
+   */
+  private static final String CACHE_FOLDER = "oxygen-git-plugin";
+  /**
+   * Identifies the graph file.
+   */
+  private static final int MAGIC = 0x4F584347;
+  /**
+   * The version of the format. A cache with another version is discarded.
+   */
+  private static final int VERSION = 1;
+  /**
+   * The size of the graph file header: magic and version.
+   */
+  private static final int HEADER_SIZE = 8;
+  /**
+   * The size of a commit record.
+   */
+  static final int RECORD_SIZE = 48;
+  /*
+   * Offsets inside a record. The commit ID takes the first 20 bytes.
+   */
+  private static final int COMMIT_TIME = 20;
+  private static final int AUTHOR_TIME = 24;
+  private static final int AUTHOR = 28;
+  private static final int COMMITTER = 32;
+  private static final int MESSAGE = 36;
+  private static final int FIRST_PARENT = 40;
+  private static final int SECOND_PARENT = 44;
+  /**
+   * Marks a missing parent.
+   */
+  private static final int NO_PARENT = -1;
+  /**
+   * Marks a commit with more than two parents. They are read from the object database.
+   */
+  private static final int MORE_PARENTS = -2;
+  /**
+   * The new records are written in batches of this size.
+   */
+  private static final int WRITE_BATCH = 4096;
+  /**
+   * Graph file -> the object on which the instances of the cache synchronize before locking the files.
+   */
+  private static final Map<File, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+  /**
+   * A commit ID and the index of its record.
+   */
+  private static final class Node extends ObjectIdOwnerMap.Entry {
+    /**
+     * The index of the record.
+     */
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param id    The commit ID.
+     * @param index The index of the record.
+     */
+    Node(AnyObjectId id, int index) {
+      super(id);
+      this.index = index;
+    }
+  }
+
+  /**
+   * The file with the commit records.
+   */
+  private final File graphFile;
+  /**
+   * The file with the strings.
+   */
+  private final File stringsFile;
+  /**
+   * The commit records, header included.
+   */
+  private ByteBuffer records;
+  /**
+   * The strings.
+   */
+  private ByteBuffer strings;
+  /**
+   * The number of commits in the cache, including the ones not yet written.
+   */
+  private int size;
+  /**
+   * Commit ID -> record index.
+   */
+  private ObjectIdOwnerMap<Node> indexes = new ObjectIdOwnerMap<>();
+  /**
+   * Author/committer name -> offset, for the names written in this session.
+   */
+  private final Map<String, Integer> nameOffsets = new HashMap<>();
+  /**
+   * The paths changed by the commits.
+   */
+  private ChangedPathsIndex changedPaths;
+  /**
+   * Extends the cache in the background.
+   */
+  private final ExecutorService updater = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "Git Commit Graph Cache");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  /**
+   * Constructor.
+   *
+   * @param graphFile   The file with the commit records.
+   * @param stringsFile The file with the strings.
+   */
+  private CommitGraphCache(File graphFile, File stringsFile) {
+    this.graphFile = graphFile;
+    this.stringsFile = stringsFile;
+  }
+
+  /**
+   * Opens the cache of a repository, creating it if needed.
+   *
+   * @param repository The repository.
+   *
+   * @return The cache.
+   *
+   * @throws IOException Unable to read or create the cache files.
+   */
+  static CommitGraphCache open(Repository repository) throws IOException {
+    File folder = new File(repository.getDirectory(), CACHE_FOLDER);
+    if (!folder.isDirectory() && !folder.mkdirs()) {
+      throw new IOException("Unable to create " + folder);
+    }
+    CommitGraphCache cache = new CommitGraphCache(
+        new File(folder, "commit-graph"),
+        new File(folder, "commit-strings"));
+    cache.load();
+    cache.changedPaths = ChangedPathsIndex.open(folder, cache);
+    return cache;
+  }
+
+  /**
+   * Reads the files and indexes the commit IDs.
+   *
+   * @throws IOException Unable to read the files.
+   */
+  private synchronized void load() throws IOException {
+    synchronized (getFileMonitor()) {
+      try (RandomAccessFile graph = new RandomAccessFile(graphFile, "rw");
+          RandomAccessFile str = new RandomAccessFile(stringsFile, "rw");
+          FileLock lock = graph.getChannel().lock()) {
+        load(graph, str);
+      }
+    }
+  }
+
+  /**
+   * Reads the files and indexes the commit IDs. The caller must hold the lock of the files.
+   *
+   * @param graph The graph file.
+   * @param str   The strings file.
+   *
+   * @throws IOException Unable to read the files.
+   */
+  private void load(RandomAccessFile graph, RandomAccessFile str) throws IOException {
+    graph.seek(0);
+    if (graph.length() < HEADER_SIZE || graph.readInt() != MAGIC || graph.readInt() != VERSION) {
+      // New or incompatible cache. Start over.
+      graph.setLength(0);
+      str.setLength(0);
+      graph.writeInt(MAGIC);
+      graph.writeInt(VERSION);
+      // The filters of the old records are meaningless.
+      new File(graphFile.getParentFile(), ChangedPathsIndex.FILE_NAME).delete();
+    }
+
+    int count = (int) ((graph.length() - HEADER_SIZE) / RECORD_SIZE);
+    // The strings are written before the records. If the last record points after the end
+    // of the strings, the files were not written completely.
+    long stringsLength = str.length();
+    while (count > 0 && !isComplete(graph, count - 1, stringsLength)) {
+      count--;
+    }
+    long graphLength = HEADER_SIZE + (long) count * RECORD_SIZE;
+    if (graph.length() != graphLength) {
+      // Drop the partial records.
+      graph.setLength(graphLength);
+    }
+    records = read(graph, null, graphLength);
+    strings = read(str, null, stringsLength);
+
+    size = count;
+    indexes = new ObjectIdOwnerMap<>();
+    for (int i = 0; i < count; i++) {
+      indexes.add(new Node(getId(i), i));
+    }
+
+    // The offsets of the names written before might have been dropped.
+    nameOffsets.clear();
+  }
+
+  /**
+   * Reads the start of a file in a heap buffer.
+   *
+   * @param file   The file.
+   * @param loaded The bytes already read from the start of the file, or <code>null</code>. They are not read again.
+   * @param length The number of bytes to read.
+   *
+   * @return The bytes.
+   *
+   * @throws IOException Unable to read the file.
+   */
+  static ByteBuffer read(RandomAccessFile file, ByteBuffer loaded, long length) throws IOException {
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("The commit cache is too large.");
+    }
+    byte[] bytes = new byte[(int) length];
+    int start = 0;
+    if (loaded != null) {
+      start = Math.min(loaded.capacity(), bytes.length);
+      ByteBuffer copy = loaded.duplicate();
+      copy.clear();
+      copy.get(bytes, 0, start);
+    }
+    file.seek(start);
+    file.readFully(bytes, start, bytes.length - start);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  /**
+   * @param graph          The graph file.
+   * @param index          The index of a record.
+   * @param stringsLength  The length of the strings file.
+   *
+   * @return <code>true</code> if all the strings of the record were written.
+   *
+   * @throws IOException
+   */
+  private static boolean isComplete(RandomAccessFile graph, int index, long stringsLength) throws IOException {
+    graph.seek(offset(index) + (long) AUTHOR);
+    boolean complete = true;
+    // Author, committer and message.
+    for (int i = 0; i < 3 && complete; i++) {
+      int stringOffset = graph.readInt();
+      complete = stringOffset >= 0 && stringOffset < stringsLength;
+    }
+    return complete;
+  }
+
+  /**
+   * Adds to the cache all the commits reachable from the given tips.
+   * Only the commits that are not already in the cache are read. The files are locked while they are
+   * extended, because another instance of the cache, for example from another application window,
+   * might extend them too. The records added by that instance are read first, so that the parent
+   * indexes of the new records match the records on disk.
+   *
+   * @param repository The repository.
+   * @param tips       The commits to start from.
+   *
+   * @throws IOException Unable to read the commits or to write the cache.
+   */
+  synchronized void update(Repository repository, Collection<? extends AnyObjectId> tips) throws IOException {
+    synchronized (getFileMonitor()) {
+      try (RandomAccessFile graph = new RandomAccessFile(graphFile, "rw");
+          RandomAccessFile str = new RandomAccessFile(stringsFile, "rw");
+          FileLock lock = graph.getChannel().lock()) {
+        if (graph.length() != offset(size) || str.length() != strings.capacity()) {
+          // Changed by another instance.
+          load(graph, str);
+        }
+
+        long graphLength = graph.length();
+        long stringsLength = str.length();
+        try {
+          append(repository, tips, graph, str);
+        } catch (IOException e) {
+          // Forget about what wasn't written.
+          try {
+            graph.setLength(graphLength);
+            str.setLength(stringsLength);
+            load(graph, str);
+          } catch (IOException ex) {
+            e.addSuppressed(ex);
+          }
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds to the cache, in the background, all the commits reachable from the given tips.
+   * The paths changed by the new commits are indexed afterwards.
+   *
+   * @param repository The repository.
+   * @param tips       The commits to start from.
+   */
+  void updateInBackground(Repository repository, Collection<? extends AnyObjectId> tips) {
+    if (!updater.isShutdown()) {
+      List<ObjectId> tipsCopy = new ArrayList<>(tips.size());
+      for (AnyObjectId tip : tips) {
+        tipsCopy.add(tip.copy());
+      }
+      updater.execute(() -> {
+        try {
+          update(repository, tipsCopy);
+          changedPaths.updateInBackground(repository);
+        } catch (IOException e) {
+          if (Thread.currentThread().isInterrupted()) {
+            // Closed.
+            logger.debug(e, e);
+          } else {
+            logger.error(e, e);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Appends to the files the commits reachable from the given tips that are not already in the cache.
+   * The caller must hold the lock of the files.
+   *
+   * @param repository The repository.
+   * @param tips       The commits to start from.
+   * @param graph      The graph file.
+   * @param str        The strings file.
+   *
+   * @throws IOException Unable to read the commits or to write the cache.
+   */
+  private void append(
+      Repository repository,
+      Collection<? extends AnyObjectId> tips,
+      RandomAccessFile graph,
+      RandomAccessFile str) throws IOException {
+    int initialSize = size;
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      RevFlag expanded = revWalk.newFlag("expanded");
+      RevFlag added = revWalk.newFlag("added");
+
+      Deque<RevCommit> stack = new ArrayDeque<>();
+      for (AnyObjectId tip : tips) {
+        if (indexOf(tip) == -1) {
+          stack.push(revWalk.parseCommit(tip));
+        }
+      }
+
+      Batch batch = new Batch(str.length());
+      // Depth first, so that the parents are always added before the commit.
+      // Stops when the cache is closed. The parents are written first, so what was added is usable.
+      while (!stack.isEmpty() && !Thread.currentThread().isInterrupted()) {
+        RevCommit commit = stack.peek();
+        if (commit.has(added)) {
+          // Reached on another path.
+          stack.pop();
+        } else if (!commit.has(expanded)) {
+          revWalk.parseHeaders(commit);
+          commit.add(expanded);
+          for (RevCommit parent : commit.getParents()) {
+            if (!parent.has(added) && indexOf(parent) == -1) {
+              stack.push(parent);
+            }
+          }
+        } else {
+          stack.pop();
+          batch.add(commit);
+          commit.add(added);
+          commit.disposeBody();
+
+          if (batch.count == WRITE_BATCH) {
+            batch = batch.write(graph, str);
+          }
+        }
+      }
+      batch.write(graph, str);
+
+      if (size != initialSize) {
+        // Only the appended bytes are read.
+        records = read(graph, records, graph.length());
+        strings = read(str, strings, str.length());
+      }
+    }
+  }
+
+  /**
+   * @return The object on which the instances of the cache of the same repository synchronize before
+   * locking the files. A file lock is held by the entire virtual machine, so it doesn't serialize the
+   * instances from the same application.
+   */
+  private Object getFileMonitor() {
+    return FILE_MONITORS.computeIfAbsent(graphFile.getAbsoluteFile(), f -> new Object());
+  }
+
+  /**
+   * New records and strings, written at once.
+   */
+  private final class Batch {
+    /**
+     * The records.
+     */
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(WRITE_BATCH * RECORD_SIZE);
+    /**
+     * The strings.
+     */
+    private final ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+    /**
+     * Writes the records.
+     */
+    private final DataOutputStream recordsOut = new DataOutputStream(recordBytes);
+    /**
+     * Writes the strings.
+     */
+    private final DataOutputStream stringsOut = new DataOutputStream(stringBytes);
+    /**
+     * The length of the strings file before this batch.
+     */
+    private final long stringsBase;
+    /**
+     * The number of records in this batch.
+     */
+    private int count;
+
+    /**
+     * Constructor.
+     *
+     * @param stringsBase The length of the strings file before this batch.
+     */
+    Batch(long stringsBase) {
+      this.stringsBase = stringsBase;
+    }
+
+    /**
+     * Adds the record of a commit.
+     *
+     * @param commit The commit, with its body parsed. Its parents are already in the cache.
+     *
+     * @throws IOException
+     */
+    void add(RevCommit commit) throws IOException {
+      PersonIdent authorIdent = commit.getAuthorIdent();
+      PersonIdent committerIdent = commit.getCommitterIdent();
+      int author = writeName(authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">");
+      int committer = writeName(committerIdent.getName());
+      int message = writeString(commit.getShortMessage());
+
+      byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+      commit.getId().copyRawTo(id, 0);
+      recordsOut.write(id);
+      recordsOut.writeInt(commit.getCommitTime());
+      recordsOut.writeInt((int) (authorIdent.getWhen().getTime() / 1000));
+      recordsOut.writeInt(author);
+      recordsOut.writeInt(committer);
+      recordsOut.writeInt(message);
+      int parentCount = commit.getParentCount();
+      recordsOut.writeInt(parentCount > 0 ? indexOf(commit.getParent(0)) : NO_PARENT);
+      if (parentCount > 2) {
+        recordsOut.writeInt(MORE_PARENTS);
+      } else {
+        recordsOut.writeInt(parentCount == 2 ? indexOf(commit.getParent(1)) : NO_PARENT);
+      }
+
+      indexes.add(new Node(commit, size));
+      size++;
+      count++;
+    }
+
+    /**
+     * Writes an author or committer name, once per session.
+     *
+     * @param name The name.
+     *
+     * @return The offset of the name.
+     *
+     * @throws IOException
+     */
+    private int writeName(String name) throws IOException {
+      Integer offset = nameOffsets.get(name);
+      if (offset == null) {
+        offset = writeString(name);
+        nameOffsets.put(name, offset);
+      }
+      return offset;
+    }
+
+    /**
+     * Writes a string.
+     *
+     * @param value The string.
+     *
+     * @return The offset of the string.
+     *
+     * @throws IOException
+     */
+    private int writeString(String value) throws IOException {
+      long offset = stringsBase + stringsOut.size();
+      if (offset > Integer.MAX_VALUE) {
+        throw new IOException("The commit cache is too large.");
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      stringsOut.writeInt(bytes.length);
+      stringsOut.write(bytes);
+      return (int) offset;
+    }
+
+    /**
+     * Appends the batch to the files. The strings are written first.
+     *
+     * @param graph The graph file.
+     * @param str   The strings file.
+     *
+     * @return A new batch, for the next records.
+     *
+     * @throws IOException
+     */
+    Batch write(RandomAccessFile graph, RandomAccessFile str) throws IOException {
+      if (count > 0) {
+        str.seek(str.length());
+        str.write(stringBytes.toByteArray());
+        graph.seek(graph.length());
+        graph.write(recordBytes.toByteArray());
+      }
+      return new Batch(str.length());
+    }
+  }
+
+  /**
+   * @return The paths changed by the commits from the cache.
+   */
+  ChangedPathsIndex getChangedPaths() {
+    return changedPaths;
+  }
+
+  /**
+   * Stops the background work on the cache. Called when the repository is closed.
+   * No file is kept opened, so the cache files can be deleted afterwards.
+   */
+  void close() {
+    updater.shutdownNow();
+    changedPaths.close();
+  }
+
+  /**
+   * @return The number of commits in the cache.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @param id A commit ID.
+   *
+   * @return The index of the commit record, or -1 if the commit is not in the cache.
+   */
+  synchronized int indexOf(AnyObjectId id) {
+    Node node = indexes.get(id);
+    return node != null ? node.index : -1;
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The commit ID.
+   */
+  synchronized ObjectId getId(int index) {
+    int offset = offset(index);
+    return ObjectId.fromRaw(new int[] {
+        records.getInt(offset),
+        records.getInt(offset + 4),
+        records.getInt(offset + 8),
+        records.getInt(offset + 12),
+        records.getInt(offset + 16)});
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The commit time, in seconds. Used to sort the commits, like {@link RevWalk} does.
+   */
+  synchronized int getCommitTime(int index) {
+    return records.getInt(offset(index) + COMMIT_TIME);
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The author date.
+   */
+  synchronized Date getAuthorDate(int index) {
+    return new Date(records.getInt(offset(index) + AUTHOR_TIME) * 1000L);
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The author name and email.
+   */
+  synchronized String getAuthor(int index) {
+    return getString(records.getInt(offset(index) + AUTHOR));
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The committer name.
+   */
+  synchronized String getCommitter(int index) {
+    return getString(records.getInt(offset(index) + COMMITTER));
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The first line of the commit message.
+   */
+  synchronized String getMessageSummary(int index) {
+    return getString(records.getInt(offset(index) + MESSAGE));
+  }
+
+  /**
+   * @param index      The index of a record.
+   * @param repository The repository. Used for commits with more than two parents.
+   *
+   * @return The indexes of the parents.
+   *
+   * @throws IOException Unable to read the parents of a commit with more than two parents.
+   */
+  synchronized int[] getParents(int index, Repository repository) throws IOException {
+    int offset = offset(index);
+    int first = records.getInt(offset + FIRST_PARENT);
+    int second = records.getInt(offset + SECOND_PARENT);
+    int[] parents;
+    if (first == NO_PARENT) {
+      parents = new int[0];
+    } else if (second == NO_PARENT) {
+      parents = new int[] {first};
+    } else if (second != MORE_PARENTS) {
+      parents = new int[] {first, second};
+    } else {
+      try (RevWalk revWalk = new RevWalk(repository)) {
+        RevCommit commit = revWalk.parseCommit(getId(index));
+        parents = new int[commit.getParentCount()];
+        for (int i = 0; i < parents.length; i++) {
+          parents[i] = indexOf(commit.getParent(i));
+        }
+      }
+    }
+    return parents;
+  }
+
+  /**
+   * @param index The index of a record.
+   *
+   * @return The offset of the record in the graph file.
+   */
+  private static int offset(int index) {
+    return HEADER_SIZE + index * RECORD_SIZE;
+  }
+
+  /**
+   * @param offset The offset of a string.
+   *
+   * @return The string.
+   */
+  private String getString(int offset) {
+    byte[] bytes = new byte[strings.getInt(offset)];
+    ByteBuffer buffer = strings.duplicate();
+    buffer.position(offset + 4);
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,472 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+
+/**
+ * Walks the history of the current branch and of its upstream branch, one page at a time.
+ * Only the requested commits are read, so the first page is available right away,
+ * whatever the size of the history. When following a resource, the walk continues
+ * with the old path after a rename.
+ *
+ * The bodies of the visited commits are released and the author and committer names
+ * are shared between records, so the walk only keeps compact data about each commit.
+ * The history is walked over the {@link CommitGraphCache}, when it has all the starting commits. Otherwise
+ * the history is read from the object database and the cache is extended in the background, for the next walk. The history of a resource is computed
+ * with the {@link ChangedPathsIndex}, so only the commits that might have changed it are compared with their parents.
+ *
+ * Not thread safe. When read from several Git operations, which may run in parallel, synchronize on the cursor.
+ */
+public class CommitHistoryCursor implements AutoCloseable {
+  /**
+   * The repository.
+   */
+  private final Repository repository;
+  /**
+   * The live walk. <code>null</code> when the history was consumed or the cursor was closed.
+   */
+  private RevWalk revWalk;
+  /**
+   * An optional path of a resource. If not <code>null</code>, only the commits that changed it are walked.
+   */
+  private String filePath;
+  /**
+   * The ID of the last returned commit.
+   */
+  private String lastCommitId;
+  /**
+   * After a rename, the new walk starts with the last returned commit. It must be skipped.
+   */
+  private boolean skipLastCommit;
+  /**
+   * Author and committer names, shared between the created records.
+   */
+  private final Map<String, String> names = new HashMap<>();
+  /**
+   * The commit graph cache, when walking the commits from it instead of the object database.
+   */
+  private CommitGraphCache cache;
+  /**
+   * The history of the followed resource, computed over the cache. <code>null</code> when not walking the cache
+   * or when all its commits were returned.
+   */
+  private Iterator<CachedFileHistory.Entry> fileHistory;
+  /**
+   * The commits from the cache that wait to be returned. <code>null</code> when not walking the cache
+   * or when all its commits were returned.
+   */
+  private PriorityQueue<Pending> pending;
+  /**
+   * The commits from the cache that were added to the pending ones.
+   */
+  private BitSet seen;
+  /**
+   * Incremented for each pending commit.
+   */
+  private long sequence;
+
+  /**
+   * A commit from the cache, waiting to be returned.
+   */
+  static final class Pending {
+    /**
+     * The index of the commit in the cache.
+     */
+    final int index;
+    /**
+     * The commit time.
+     */
+    final int commitTime;
+    /**
+     * The order in which it was added.
+     */
+    final long sequence;
+
+    /**
+     * Constructor.
+     *
+     * @param index      The index of the commit in the cache.
+     * @param commitTime The commit time.
+     * @param sequence   The order in which it was added.
+     */
+    Pending(int index, int commitTime, long sequence) {
+      this.index = index;
+      this.commitTime = commitTime;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * @return An empty queue of pending commits. The most recent commit comes first. Between commits
+   * with the same time, the first added wins, like in {@link RevWalk}.
+   */
+  static PriorityQueue<Pending> newPendingQueue() {
+    return new PriorityQueue<>((p1, p2) -> p1.commitTime != p2.commitTime 
+        ? Integer.compare(p2.commitTime, p1.commitTime) 
+        : Long.compare(p1.sequence, p2.sequence));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository.
+   * @param filePath   An optional resource path. If not <code>null</code>, only the commits
+   *                   that changed this resource are walked.
+   *
+   * @throws IOException Unable to read the branches.
+   */
+  public CommitHistoryCursor(Repository repository, String filePath) throws IOException {
+    this(repository, filePath, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository.
+   * @param filePath   An optional resource path. If not <code>null</code>, only the commits
+   *                   that changed this resource are walked.
+   * @param cache      The commit graph cache of the repository. May be <code>null</code>.
+   *
+   * @throws IOException Unable to read the branches.
+   */
+  CommitHistoryCursor(Repository repository, String filePath, CommitGraphCache cache) throws IOException {
+    this.repository = repository;
+    this.filePath = filePath;
+    this.cache = cache;
+
+    // EXM-44307 Show current branch commits only.
+    List<ObjectId> tips = new ArrayList<>(2);
+    Ref branchHead = repository.exactRef(repository.getFullBranch());
+    if (branchHead != null) {
+      tips.add(branchHead.getObjectId());
+
+      // If we have a remote, put it as well.
+      String fullRemoteBranchName = RevCommitUtil.getUpstreamBranchName(repository, repository.getBranch());
+      if (fullRemoteBranchName != null) {
+        Ref fullRemoteBranchHead = repository.exactRef(fullRemoteBranchName);
+        if (fullRemoteBranchHead != null) {
+          tips.add(fullRemoteBranchHead.getObjectId());
+        }
+      }
+    } else {
+      // Probably a new repository without any history.
+    }
+
+    if (!tips.isEmpty()) {
+      startWalk(tips);
+    }
+  }
+
+  /**
+   * Starts walking from the given commits, over the cache if it already has them. Otherwise the commits are read
+   * from the object database and the cache is brought up to date in the background, for the next walk.
+   *
+   * @param tips The commits to start from.
+   *
+   * @throws IOException Unable to read the commits.
+   */
+  private void startWalk(List<? extends AnyObjectId> tips) throws IOException {
+    int[] indexes = cache != null ? getCachedIndexes(tips) : null;
+    if (indexes != null) {
+      if (filePath == null) {
+        seen = new BitSet(cache.size());
+        pending = newPendingQueue();
+        for (int index : indexes) {
+          addPending(index);
+        }
+      } else {
+        ChangedPathsIndex changedPaths = cache.getChangedPaths();
+        // Index the new commits, for the next time.
+        changedPaths.updateInBackground(repository);
+        fileHistory = new CachedFileHistory(repository, cache, changedPaths, filePath).walk(indexes);
+      }
+    } else {
+      if (cache != null) {
+        // Only the commits added since the last time are read. Walking and writing them
+        // might take long after a large fetch, so the first page doesn't wait for it.
+        cache.updateInBackground(repository, tips);
+      }
+      revWalk = new RevWalk(repository);
+      for (AnyObjectId tip : tips) {
+        revWalk.markStart(revWalk.parseCommit(tip));
+      }
+      setPathFilter();
+    }
+  }
+
+  /**
+   * @param tips The commits to start from.
+   *
+   * @return The indexes of the given commits in the cache or <code>null</code> if some are not in the cache.
+   */
+  private int[] getCachedIndexes(List<? extends AnyObjectId> tips) {
+    int[] indexes = new int[tips.size()];
+    for (int i = 0; indexes != null && i < indexes.length; i++) {
+      indexes[i] = cache.indexOf(tips.get(i));
+      if (indexes[i] == -1) {
+        indexes = null;
+      }
+    }
+    return indexes;
+  }
+
+  /**
+   * Reads the next commits.
+   *
+   * @param max The maximum number of commits to read.
+   *
+   * @return The commits. Empty when there are no more commits. Never <code>null</code>.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  public List<CommitCharacteristics> next(int max) throws IOException, GitAPIException {
+    if (pending != null) {
+      return loadFullMessages(nextFromCache(max));
+    }
+    if (revWalk == null && fileHistory == null) {
+      return Collections.emptyList();
+    }
+
+    List<CommitCharacteristics> page = new ArrayList<>(Math.min(max, 64));
+    while (page.size() < max && (revWalk != null || fileHistory != null)) {
+      CommitCharacteristics commit = fileHistory != null ? nextFromFileHistory() : nextFromRevWalk();
+      if (commit == null) {
+        if (!followRename()) {
+          close();
+        }
+      } else {
+        // After a rename, the first commit was already returned.
+        if (!skipLastCommit || !commit.getCommitId().equals(lastCommitId)) {
+          page.add(commit);
+          lastCommitId = commit.getCommitId();
+        }
+        skipLastCommit = false;
+      }
+    }
+    return loadFullMessages(page);
+  }
+
+  /**
+   * Reads the full messages of the commits that come from the cache, so that they can be
+   * presented without reading the repository again.
+   *
+   * @param page The commits.
+   *
+   * @return The same commits.
+   */
+  private List<CommitCharacteristics> loadFullMessages(List<CommitCharacteristics> page) {
+    try (RevWalk messagesWalk = new RevWalk(repository)) {
+      for (CommitCharacteristics commit : page) {
+        if (commit instanceof CachedCommitCharacteristics) {
+          ((CachedCommitCharacteristics) commit).loadFullMessage(messagesWalk);
+        }
+      }
+    }
+    return page;
+  }
+
+  /**
+   * @return The next commit from the live walk, or <code>null</code> if there are no more commits.
+   *
+   * @throws IOException
+   */
+  private CommitCharacteristics nextFromRevWalk() throws IOException {
+    CommitCharacteristics next = null;
+    RevCommit commit = revWalk.next();
+    if (commit != null) {
+      next = RevCommitUtil.toCommitCharacteristics(commit, this::share);
+      // The full message was copied. Don't keep the raw buffer for the rest of the walk.
+      commit.disposeBody();
+    }
+    return next;
+  }
+
+  /**
+   * @return The next commit from the history of the followed resource, computed over the cache,
+   * or <code>null</code> if there are no more commits.
+   *
+   * @throws IOException Unable to read the commits or the trees.
+   */
+  private CommitCharacteristics nextFromFileHistory() throws IOException {
+    CommitCharacteristics next = null;
+    try {
+      if (fileHistory.hasNext()) {
+        CachedFileHistory.Entry entry = fileHistory.next();
+        next = toCommitCharacteristics(entry.index, entry.parents);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return next;
+  }
+
+  /**
+   * Reads the next commits from the cache. The order is the one of {@link RevWalk}: the most
+   * recent pending commit comes next and its parents become pending.
+   *
+   * @param max The maximum number of commits to read.
+   *
+   * @return The commits. Never <code>null</code>.
+   *
+   * @throws IOException Unable to read the parents of an octopus merge.
+   */
+  private List<CommitCharacteristics> nextFromCache(int max) throws IOException {
+    List<CommitCharacteristics> page = new ArrayList<>(Math.min(max, 64));
+    while (page.size() < max && pending != null) {
+      Pending next = pending.poll();
+      if (next == null) {
+        close();
+      } else {
+        int[] parents = cache.getParents(next.index, repository);
+        for (int parent : parents) {
+          if (parent != -1) {
+            addPending(parent);
+          }
+        }
+        page.add(toCommitCharacteristics(next.index, parents));
+      }
+    }
+    return page;
+  }
+
+  /**
+   * @param index   The index of a commit in the cache.
+   * @param parents The indexes of the parents to present.
+   *
+   * @return The characteristics of the commit.
+   */
+  private CommitCharacteristics toCommitCharacteristics(int index, int[] parents) {
+    List<String> parentsIds = null;
+    if (parents.length > 0) {
+      parentsIds = new ArrayList<>(parents.length);
+      for (int parent : parents) {
+        if (parent != -1) {
+          parentsIds.add(cache.getId(parent).abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name());
+        }
+      }
+    }
+
+    ObjectId id = cache.getId(index);
+    return new CachedCommitCharacteristics(
+        cache.getMessageSummary(index),
+        cache.getAuthorDate(index),
+        share(cache.getAuthor(index)),
+        id.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(),
+        id.getName(),
+        share(cache.getCommitter(index)),
+        parentsIds);
+  }
+
+  /**
+   * Adds a commit from the cache to the pending ones, if not seen before.
+   *
+   * @param index The index of the commit in the cache.
+   */
+  private void addPending(int index) {
+    if (!seen.get(index)) {
+      seen.set(index);
+      pending.add(new Pending(index, cache.getCommitTime(index), sequence++));
+    }
+  }
+
+  /**
+   * @return The repository whose history is read.
+   */
+  public Repository getRepository() {
+    return repository;
+  }
+
+  /**
+   * @return <code>true</code> if there might be more commits to read.
+   */
+  public boolean hasNext() {
+    return revWalk != null || fileHistory != null || pending != null;
+  }
+
+  /**
+   * Checks if the followed resource was renamed in the last returned commit. If so, a new walk
+   * is started from that commit, on the old path.
+   *
+   * @return <code>true</code> if the walk continues on the old path.
+   *
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  private boolean followRename() throws IOException, GitAPIException {
+    boolean followed = false;
+    if (filePath != null && lastCommitId != null) {
+      try (RevWalk renameWalk = new RevWalk(repository)) {
+        RevCommit current = renameWalk.parseCommit(ObjectId.fromString(lastCommitId));
+        if (current.getParentCount() > 0) {
+          RevCommit parent = current.getParent(0);
+          renameWalk.parseHeaders(parent);
+
+          Optional<DiffEntry> renameRev = RevCommitUtil.findRename(repository, parent, current, filePath);
+          if (renameRev.isPresent()) {
+            filePath = renameRev.get().getOldPath();
+            close();
+            startWalk(Collections.singletonList(current.getId()));
+            skipLastCommit = true;
+            followed = true;
+          }
+        }
+      }
+    }
+    return followed;
+  }
+
+  /**
+   * Limits the walk to the commits that changed the followed resource, if any.
+   */
+  private void setPathFilter() {
+    if (filePath != null) {
+      revWalk.setTreeFilter(
+          AndTreeFilter.create(
+              PathFilterGroup.createFromStrings(filePath),
+              TreeFilter.ANY_DIFF));
+    }
+  }
+
+  /**
+   * @param name An author or committer name.
+   *
+   * @return An equal string, shared between all the records of this cursor.
+   */
+  private String share(String name) {
+    return names.computeIfAbsent(name, n -> n);
+  }
+
+  @Override
+  public void close() {
+    pending = null;
+    fileHistory = null;
+    if (revWalk != null) {
+      revWalk.close();
+      revWalk = null;
+    }
+  }
+}
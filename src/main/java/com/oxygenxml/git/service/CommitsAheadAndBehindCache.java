@@ -0,0 +1,76 @@
+package com.oxygenxml.git.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.view.historycomponents.CommitsAheadAndBehind;
+
+/**
+ * Keeps the IDs of the commits ahead and behind computed for the most recent pairs of local and upstream commits,
+ * so that the toolbar, the commit panel, the push and the history view share a single walk. The commits
+ * never change, so a result stays valid until one of the branches moves, which changes the key.
+ */
+final class CommitsAheadAndBehindCache {
+  /**
+   * The maximum number of results to keep.
+   */
+  private static final int MAX_ENTRIES = 8;
+  /**
+   * Singleton instance.
+   */
+  private static final CommitsAheadAndBehindCache instance = new CommitsAheadAndBehindCache();
+  /**
+   * Key -> the commits ahead and behind. The most recently used come last.
+   */
+  private final Map<String, CommitsAheadAndBehind> results = new LinkedHashMap<String, CommitsAheadAndBehind>(MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CommitsAheadAndBehind> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Singleton private constructor.
+   */
+  private CommitsAheadAndBehindCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  static CommitsAheadAndBehindCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param repository The repository.
+   * @param local      The commit of the local branch.
+   * @param upstream   The commit of the remote-tracking branch.
+   *
+   * @return The key of the commits ahead and behind.
+   */
+  static String createKey(Repository repository, ObjectId local, ObjectId upstream) {
+    return repository.getDirectory().getAbsolutePath() + "|" + local.name() + "|" + upstream.name();
+  }
+
+  /**
+   * @param key The key of the result.
+   *
+   * @return The commits ahead and behind or <code>null</code> if not cached.
+   */
+  synchronized CommitsAheadAndBehind get(String key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches a result.
+   *
+   * @param key                   The key of the result.
+   * @param commitsAheadAndBehind The commits ahead and behind.
+   */
+  synchronized void put(String key, CommitsAheadAndBehind commitsAheadAndBehind) {
+    results.put(key, commitsAheadAndBehind);
+  }
+}
@@ -0,0 +1,130 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.dircache.DirCacheCheckout.CheckoutMetadata;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.TreeWalk.OperationType;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * Resolves many conflicts at once by taking the same side for all of them. The index is locked, read and
+ * written once, instead of once for every file and then again to stage the files.
+ */
+class ConflictResolver {
+  /**
+   * Hidden constructor.
+   */
+  private ConflictResolver() {
+    // Nothing
+  }
+
+  /**
+   * Replaces the stages of the conflicting paths with the chosen stage and writes its content in the working
+   * copy, as a checkout of that stage followed by an add would. The paths that don't exist on the chosen side
+   * are removed from the index and from the working copy. The paths that are not in conflict are left unchanged.
+   *
+   * @param repository The repository. The caller must hold the repository lock.
+   * @param paths      The paths to resolve.
+   * @param stage      {@link DirCacheEntry#STAGE_2} for 'mine' or {@link DirCacheEntry#STAGE_3} for 'theirs'.
+   *
+   * @return The number of resolved paths.
+   *
+   * @throws IOException If the index or the files cannot be read or written.
+   */
+  static int resolve(Repository repository, Set<String> paths, int stage) throws IOException {
+    int resolved = 0;
+    DirCache dirCache = repository.lockDirCache();
+    try (ObjectReader reader = repository.newObjectReader()) {
+      Map<String, CheckoutMetadata> conflicts = getConflicts(repository, dirCache, paths);
+
+      DirCacheBuilder builder = dirCache.builder();
+      Map<DirCacheEntry, CheckoutMetadata> toCheckout = new HashMap<>();
+      Set<String> toDelete = new HashSet<>(conflicts.keySet());
+      int count = dirCache.getEntryCount();
+      for (int i = 0; i < count; i++) {
+        DirCacheEntry entry = dirCache.getEntry(i);
+        String path = entry.getPathString();
+        if (!conflicts.containsKey(path)) {
+          builder.add(entry);
+        } else if (entry.getStage() == stage) {
+          DirCacheEntry resolvedEntry = new DirCacheEntry(path, DirCacheEntry.STAGE_0);
+          resolvedEntry.setFileMode(entry.getFileMode());
+          resolvedEntry.setObjectId(entry.getObjectId());
+          builder.add(resolvedEntry);
+          toCheckout.put(resolvedEntry, conflicts.get(path));
+          toDelete.remove(path);
+        }
+      }
+
+      // The paths that were deleted on the chosen side.
+      File workTree = repository.getWorkTree();
+      for (String path : toDelete) {
+        FileUtils.delete(new File(workTree, path), FileUtils.SKIP_MISSING | FileUtils.RETRY);
+      }
+      for (Map.Entry<DirCacheEntry, CheckoutMetadata> entry : toCheckout.entrySet()) {
+        // Also records the size and the modification time of the written file in the entry.
+        DirCacheCheckout.checkoutEntry(repository, entry.getKey(), reader, false, entry.getValue());
+      }
+
+      if (!builder.commit()) {
+        throw new IOException("Unable to write the index of " + repository.getDirectory());
+      }
+      resolved = conflicts.size();
+    } finally {
+      dirCache.unlock();
+    }
+    return resolved;
+  }
+
+  /**
+   * Finds the given paths that are in conflict, together with how their content is converted when written
+   * in the working copy (line endings, smudge filters).
+   *
+   * @param repository The repository.
+   * @param dirCache   The index.
+   * @param paths      The paths to look for.
+   *
+   * @return Path -> how to write it in the working copy, for the paths that are in conflict.
+   *
+   * @throws IOException If the index cannot be read.
+   */
+  private static Map<String, CheckoutMetadata> getConflicts(Repository repository, DirCache dirCache, Set<String> paths)
+      throws IOException {
+    Map<String, CheckoutMetadata> conflicts = new HashMap<>();
+    if (!paths.isEmpty()) {
+      try (TreeWalk walk = new TreeWalk(repository)) {
+        walk.setOperationType(OperationType.CHECKOUT_OP);
+        walk.setRecursive(true);
+        walk.setFilter(PathFilterGroup.createFromStrings(paths));
+        walk.addTree(new DirCacheIterator(dirCache));
+        while (walk.next()) {
+          DirCacheIterator iterator = walk.getTree(0, DirCacheIterator.class);
+          DirCacheEntry entry = iterator != null ? iterator.getDirCacheEntry() : null;
+          if (entry != null && entry.getStage() != DirCacheEntry.STAGE_0) {
+            conflicts.put(
+                walk.getPathString(),
+                new CheckoutMetadata(
+                    walk.getEolStreamType(OperationType.CHECKOUT_OP),
+                    walk.getFilterCommand(Constants.ATTR_FILTER_TYPE_SMUDGE)));
+          }
+        }
+      }
+    }
+    return conflicts;
+  }
+}
@@ -20,6 +20,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
 import org.apache.sshd.common.SshConstants;
@@ -30,11 +33,9 @@ import org.eclipse.jgit.api.CheckoutCommand.Stage;
 import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand.ListMode;
-import org.eclipse.jgit.api.LogCommand;
+import org.eclipse.jgit.api.MergeCommand.FastForwardMode;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.MergeResult.MergeStatus;
-import org.eclipse.jgit.api.PullCommand;
-import org.eclipse.jgit.api.PullResult;
 import org.eclipse.jgit.api.RebaseCommand.Operation;
 import org.eclipse.jgit.api.RebaseResult;
 import org.eclipse.jgit.api.ResetCommand;
@@ -47,24 +48,28 @@ import org.eclipse.jgit.api.SubmoduleStatusCommand;
 import org.eclipse.jgit.api.errors.AbortedByHookException;
 import org.eclipse.jgit.api.errors.CheckoutConflictException;
 import org.eclipse.jgit.api.errors.ConcurrentRefUpdateException;
+import org.eclipse.jgit.api.errors.DetachedHeadException;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.InvalidConfigurationException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.api.errors.NoHeadException;
 import org.eclipse.jgit.api.errors.NoMessageException;
+import org.eclipse.jgit.api.errors.RefNotAdvertisedException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.api.errors.UnmergedPathsException;
 import org.eclipse.jgit.api.errors.WrongRepositoryStateException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
-import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.errors.NoMergeBaseException;
 import org.eclipse.jgit.errors.NoMergeBaseException.MergeBaseFailureReason;
 import org.eclipse.jgit.errors.NoWorkTreeException;
 import org.eclipse.jgit.errors.RevisionSyntaxException;
 import org.eclipse.jgit.internal.JGitText;
 import org.eclipse.jgit.lib.AnyObjectId;
-import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
@@ -83,6 +88,7 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.submodule.SubmoduleStatus;
 import org.eclipse.jgit.submodule.SubmoduleWalk;
+import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
@@ -99,18 +105,25 @@ import com.oxygenxml.git.auth.AuthenticationInterceptor;
 import com.oxygenxml.git.auth.SSHCapableUserCredentialsProvider;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.options.UserCredentials;
+import com.oxygenxml.git.protocol.BlobCache;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.OperationMetrics;
+import com.oxygenxml.git.utils.OperationTimer;
+import com.oxygenxml.git.utils.ProjectRefreshPlanner;
+import com.oxygenxml.git.utils.RepositoryRootCache;
 import com.oxygenxml.git.view.dialog.ProgressDialog;
 import com.oxygenxml.git.view.event.GitCommand;
 import com.oxygenxml.git.view.event.GitCommandState;
 import com.oxygenxml.git.view.event.GitEvent;
 import com.oxygenxml.git.view.event.PullType;
 import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+import com.oxygenxml.git.view.historycomponents.CommitsAheadAndBehind;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
@@ -118,7 +131,11 @@ import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
 /**
  * Implements some basic git functionality like commit, push, pull, retrieve
  * File status(staged, unstaged)
- * 
+ *
+ * Thread safe. The operations that read the repository (status, blobs, diffs, history) may run in parallel,
+ * while the ones that change the index, the refs or the working copy (add, reset, commit, checkout, pull)
+ * run alone. See {@link #getRepositoryLock()}.
+ *
  * @author Beniamin Savu
  */
 public class GitAccess {
@@ -141,7 +158,13 @@ public class GitAccess {
 	/**
 	 * The GIT repository.
 	 */
-	private Git git;
+	private volatile Git git;
+	/**
+	 * Guards the index, the refs and the working copy. The operations that only read them share the read lock
+	 * and may run in parallel, the ones that change them take the write lock. The listeners are never
+	 * notified while holding the write lock.
+	 */
+	private final ReentrantReadWriteLock repositoryLock = new ReentrantReadWriteLock();
 	/**
 	 * Singleton instance.
 	 */
@@ -154,6 +177,30 @@ public class GitAccess {
 	 * Receive notifications when things change.
 	 */
 	private HashSet<GitEventListener> listeners = new LinkedHashSet<>();
+	/**
+	 * The tags and branches for each commit. Rebuilt lazily after the refs change.
+	 */
+	private volatile RefDecorations refDecorations;
+	/**
+	 * The index of the current repository, as last read. Read again when the index file changes.
+	 */
+	private volatile IndexSnapshot indexSnapshot;
+	/**
+	 * The state of HEAD, as last read. Read again when HEAD moves or the refs change.
+	 */
+	private volatile HeadSnapshot headSnapshot;
+	/**
+	 * Keeps the status of the working copy and updates it incrementally.
+	 */
+	private final WorkingCopyStatusEngine statusEngine = new WorkingCopyStatusEngine();
+	/**
+	 * The status of the submodules, shared by all the consumers until the index or ".gitmodules" change.
+	 */
+	private volatile SubmoduleSnapshot submoduleSnapshot;
+	/**
+	 * The on-disk commit graph of the current repository. Opened lazily.
+	 */
+	private volatile CommitGraphCache commitGraphCache;
 
 	 /**
    * Singleton instance.
@@ -257,6 +304,8 @@ public class GitAccess {
 		} else {
 		  git = cloneCommand.call();
 		}
+		// A new repository is on disk.
+		RepositoryRootCache.getInstance().clear();
 		
 		fireRepositoryChanged();
 	}
@@ -315,8 +364,14 @@ public class GitAccess {
       closeRepo();
 
       try {
-        git = Git.open(repo);
-        
+        Git opened = Git.open(repo);
+        repositoryLock.writeLock().lock();
+        try {
+          git = opened;
+        } finally {
+          repositoryLock.writeLock().unlock();
+        }
+
         repositoryOpened();
       } catch (IOException e) {
         fireRepositoryOpenFailed(repo, e);
@@ -385,6 +440,10 @@ public class GitAccess {
     if (logger.isDebugEnabled()) {
       logger.debug("Fire branch changed, old " + oldBranch + " new " + newBranch);
     }
+    // HEAD moved and a new branch might have been created.
+    refDecorations = null;
+    headSnapshot = null;
+    statusEngine.requestFullScan();
     for (GitEventListener gitEventListener : listeners) {
       gitEventListener.branchChanged(oldBranch, newBranch);
     }
@@ -395,6 +454,11 @@ public class GitAccess {
 	 */
 	private void fireRepositoryChanged() {
 	  logger.debug("FIRE REPO CHANGED");
+	  refDecorations = null;
+	  headSnapshot = null;
+	  submoduleSnapshot = null;
+	  closeCommitGraphCache();
+	  statusEngine.reset();
 	  for (GitEventListener gitEventListener : listeners) {
       gitEventListener.repositoryChanged();
     }
@@ -426,6 +490,10 @@ public class GitAccess {
    */
   private void fireStateChanged(GitEvent changeEvent) {
     logger.debug("FIRE STATE CHANGED: " + changeEvent);
+    // Commits, pulls, etc. might have moved the refs.
+    refDecorations = null;
+    headSnapshot = null;
+    statusEngine.stateChanged(changeEvent);
     for (GitEventListener gitEventListener : listeners) {
       gitEventListener.stateChanged(changeEvent);
     }
@@ -482,6 +550,44 @@ public class GitAccess {
 	  return getRepository().getWorkTree();
 	}
 
+	/**
+	 * The methods of this class already take the lock they need. Code that reads the repository
+	 * directly, for example while walking the history, should hold the read lock. Never notify
+	 * the listeners while holding the write lock.
+	 *
+	 * @return The lock that guards the index, the refs and the working copy.
+	 */
+	public ReadWriteLock getRepositoryLock() {
+	  return repositoryLock;
+	}
+
+	/**
+	 * Starts measuring an operation and acquires a repository lock for it. The time spent
+	 * acquiring the lock is recorded as the waiting time of the operation.
+	 * 
+	 * @param lock      The read or the write lock.
+	 * @param operation The name of the operation.
+	 * 
+	 * @return The timer of the operation. Give it to {@link #unlock(Lock, OperationTimer)}.
+	 */
+	private static OperationTimer lock(Lock lock, String operation) {
+	  OperationTimer timer = OperationMetrics.getInstance().start("GitAccess." + operation);
+	  lock.lock();
+	  timer.waited();
+	  return timer;
+	}
+
+	/**
+	 * Releases a lock acquired with {@link #lock(Lock, String)} and records the measurement.
+	 * 
+	 * @param lock  The lock.
+	 * @param timer The timer of the operation.
+	 */
+	private static void unlock(Lock lock, OperationTimer timer) {
+	  lock.unlock();
+	  timer.stop();
+	}
+
 	/**
 	 * Creates a blank new Repository.
 	 * 
@@ -493,8 +599,16 @@ public class GitAccess {
     closeRepo();
     
     try {
-      git = Git.init().setBare(false).setDirectory(new File(path)).call();
-		
+      Git created = Git.init().setBare(false).setDirectory(new File(path)).call();
+      repositoryLock.writeLock().lock();
+      try {
+        git = created;
+      } finally {
+        repositoryLock.writeLock().unlock();
+      }
+      // A new repository is on disk.
+      RepositoryRootCache.getInstance().clear();
+
       fireRepositoryChanged();
     } catch (GitAPIException e) {
       fireRepositoryOpenFailed(new File(path), e);
@@ -507,21 +621,49 @@ public class GitAccess {
 	 * @return A status of the Working Copy, with the unstaged and staged files.
 	 */
 	public GitStatus getStatus() {
+	  return getStatus(Collections.emptyList());
+	}
+	
+	/**
+	 * Computes the status just for some resources of the Working Copy.
+	 * 
+	 * @param paths A subset of interest. An empty collection means the entire Working Copy.
+	 * Submodules are reported regardless of this filter.
+	 * 
+	 * @return A status with the unstaged and staged files. Never <code>null</code>.
+	 */
+	public GitStatus getStatus(Collection<String> paths) {
 	  GitStatus gitStatus = null;
-	  if (git != null) {
-	    try {
+	  OperationTimer timer = lock(repositoryLock.readLock(), "getStatus");
+	  try {
+	    if (git != null) {
 	      logger.debug("-- Compute our GitStatus -> getStatus() --");
-	      Status status = git.status().call();
+	      StatusCommand statusCmd = git.status();
+	      for (String path : paths) {
+	        statusCmd.addPath(path);
+	      }
+	      Status status = statusCmd.call();
 	      logger.debug("-- Get JGit status -> git.status().call() --");
 	      gitStatus = new GitStatus(getUnstagedFiles(status), getStagedFiles(status));
-	    } catch (GitAPIException e) {
-	      logger.error(e, e);
+	      timer.addFiles(gitStatus.getUnstagedFiles().size() + (long) gitStatus.getStagedFiles().size());
 	    }
+	  } catch (GitAPIException e) {
+	    timer.failed();
+	    logger.error(e, e);
+	  } finally {
+	    unlock(repositoryLock.readLock(), timer);
 	  }
     return gitStatus != null ? gitStatus 
         : new GitStatus(Collections.emptyList(),Collections.emptyList());
   }
 	
+	/**
+	 * @return The status of the Working Copy, updated incrementally on refresh. Never <code>null</code>.
+	 */
+	public WorkingCopyStatusEngine getStatusEngine() {
+	  return statusEngine;
+	}
+	
 	/**
    * Makes a diff between the files from the last commit and the files from the
    * working directory. If there are diffs, they will be saved and returned.
@@ -542,25 +684,31 @@ public class GitAccess {
 	 *         as their states.
    */
   public List<FileStatus> getUnstagedFiles(Collection<String> paths) {
-    if (git != null) {
-      if (logger.isDebugEnabled()) {
-        logger.debug("PUBLIC - GET UNSTAGED FILES");
-        logger.debug("Prepare fot JGit status, in paths " + paths);
-      }
-      
-      StatusCommand statusCmd = git.status();
-      for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
-        statusCmd.addPath(iterator.next());
-      }
-      try {
+    OperationTimer timer = lock(repositoryLock.readLock(), "getUnstagedFiles");
+    try {
+      if (git != null) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("PUBLIC - GET UNSTAGED FILES");
+          logger.debug("Prepare fot JGit status, in paths " + paths);
+        }
+
+        StatusCommand statusCmd = git.status();
+        for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
+          statusCmd.addPath(iterator.next());
+        }
         Status status = statusCmd.call();
         logger.debug("JGit Status computed: " + status);
-        return getUnstagedFiles(status);
-      } catch (GitAPIException e) {
-        logger.error(e, e);
+        List<FileStatus> unstagedFiles = getUnstagedFiles(status);
+        timer.addFiles(unstagedFiles.size());
+        return unstagedFiles;
       }
+    } catch (GitAPIException e) {
+      timer.failed();
+      logger.error(e, e);
+    } finally {
+      unlock(repositoryLock.readLock(), timer);
     }
-    
+
     return Collections.emptyList();
   }
 
@@ -577,13 +725,15 @@ public class GitAccess {
 		List<FileStatus> unstagedFiles = new ArrayList<>();
 		if (git != null) {
 			try {
-				Set<String> submodules = getSubmodules();
-        addSubmodulesToUnstaged(unstagedFiles, submodules);
+			  // The submodules might have been checked out on other commits. Compute them again, once per status.
+			  SubmoduleSnapshot snapshot = getSubmoduleSnapshot(true);
+				Set<String> submodules = snapshot.getPaths();
+        addSubmodulesToUnstaged(unstagedFiles, snapshot);
 				addUntrackedFilesToUnstaged(status, unstagedFiles, submodules);
         addModifiedFilesToUnstaged(status, unstagedFiles, submodules);
         addMissingFilesToUnstaged(status, unstagedFiles, submodules);
 				addConflictingFilesToUnstaged(status, unstagedFiles);
-			} catch (NoWorkTreeException | GitAPIException e1) {
+			} catch (NoWorkTreeException e1) {
 			  logger.error(e1, e1);
 			}
 		}
@@ -667,19 +817,14 @@ public class GitAccess {
    * Add submodules to the list of resources that are not staged.
    * 
    * @param unstagedFiles The list of unstaged (not in the INDEX) files.
-   * @param submodules    The set of submodules.
-   * 
-	 * @throws GitAPIException When an error occurs when trying to check the
-	 *                         submodules status.
+   * @param submodules    The status of the submodules.
    */
-  private void addSubmodulesToUnstaged(List<FileStatus> unstagedFiles, Set<String> submodules) throws GitAPIException {
+  private void addSubmodulesToUnstaged(List<FileStatus> unstagedFiles, SubmoduleSnapshot submodules) {
     if (logger.isDebugEnabled()) {
-      logger.debug("addSubmodulesToUnstaged " + submodules);
+      logger.debug("addSubmodulesToUnstaged " + submodules.getPaths());
     }
-    for (String string : submodules) {
-    	SubmoduleStatus submoduleStatus = git.submoduleStatus().call().get(string);
-			if (submoduleStatus != null && submoduleStatus.getHeadId() != null
-    	    && !submoduleStatus.getHeadId().equals(submoduleStatus.getIndexId())) {
+    for (String string : submodules.getPaths()) {
+			if (submodules.isCheckedOutOnAnotherCommit(string)) {
     		unstagedFiles.add(new FileStatus(GitChangeType.SUBMODULE, string));
     	}
     }
@@ -716,15 +861,33 @@ public class GitAccess {
 	 * @return a list containing all the submodules
 	 */
 	public Set<String> getSubmodules() {
-		try {
-			if (git != null) {
-				return git.submoduleStatus().call().keySet();
-			}
-		} catch (GitAPIException e) {
-		  logger.error(e, e);
+		if (git != null) {
+		  return getSubmoduleSnapshot(false).getPaths();
 		}
 		return new HashSet<>();
 	}
+	
+	/**
+	 * Gets the status of the submodules.
+	 * 
+	 * @param recompute <code>true</code> to compute the status again, even if the index and
+	 * ".gitmodules" didn't change. The submodules might have been checked out on other commits.
+	 * 
+	 * @return The status of the submodules. Never <code>null</code>.
+	 */
+	private SubmoduleSnapshot getSubmoduleSnapshot(boolean recompute) {
+	  SubmoduleSnapshot snapshot = submoduleSnapshot;
+	  if (recompute || snapshot == null || !snapshot.isUpToDate(git.getRepository())) {
+	    try {
+	      snapshot = SubmoduleSnapshot.compute(git);
+	    } catch (GitAPIException e) {
+	      logger.error(e, e);
+	      snapshot = SubmoduleSnapshot.EMPTY;
+	    }
+	    submoduleSnapshot = snapshot;
+	  }
+	  return snapshot;
+	}
 
 	/**
 	 * Sets the given submodule as the current repository
@@ -738,14 +901,31 @@ public class GitAccess {
 		Repository submoduleRepository = SubmoduleWalk.getSubmoduleRepository(parentRepository, submodule);
 		
 		if (submoduleRepository == null) {
-		  // The submodule wasn't updated.
-		  git.submoduleInit().call();
-		  git.submoduleUpdate().call();
-		  
+		  // The submodule wasn't updated. It is cloned without locking the parent repository,
+		  // which is not changed, except for its configuration.
+		  OperationTimer updateTimer = OperationMetrics.getInstance().start("GitAccess.setSubmodule.update");
+		  try {
+		    git.submoduleInit().addPath(submodule).call();
+		    git.submoduleUpdate()
+		        .addPath(submodule)
+		        .setProgressMonitor(GitOperationScheduler.getProgressMonitor())
+		        .call();
+		  } catch (GitAPIException e) {
+		    updateTimer.failed();
+		    throw e;
+		  } finally {
+		    updateTimer.stop();
+		  }
+
 		  submoduleRepository = SubmoduleWalk.getSubmoduleRepository(parentRepository, submodule);
 		}
 		
-		git = Git.wrap(submoduleRepository);
+		OperationTimer timer = lock(repositoryLock.writeLock(), "setSubmodule");
+		try {
+		  git = Git.wrap(submoduleRepository);
+		} finally {
+		  unlock(repositoryLock.writeLock(), timer);
+		}
 		
 		fireRepositoryChanged();
 	}
@@ -805,7 +985,13 @@ public class GitAccess {
 	  Collection<String> filePaths = getFilePaths(files);
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.STARTED, filePaths));
-		  git.commit().setMessage(message).setAmend(isAmendLastCommit).call();
+		  OperationTimer timer = lock(repositoryLock.writeLock(), "commit");
+		  try {
+		    git.commit().setMessage(message).setAmend(isAmendLastCommit).call();
+		    timer.addFiles(files.size());
+		  } finally {
+		    unlock(repositoryLock.writeLock(), timer);
+		  }
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.FAILED, filePaths));
@@ -838,9 +1024,23 @@ public class GitAccess {
 	public void closeRepo() {
 		if (git != null) {
 		  AuthenticationInterceptor.unbind(getHostName());
-			git.close();
-			git = null;
+		  repositoryLock.writeLock().lock();
+		  try {
+		    if (git != null) {
+		      git.close();
+		      git = null;
+		    }
+		  } finally {
+		    repositoryLock.writeLock().unlock();
+		  }
 		}
+		refDecorations = null;
+		indexSnapshot = null;
+		headSnapshot = null;
+		submoduleSnapshot = null;
+		closeCommitGraphCache();
+		BlobCache.getInstance().clear();
+		statusEngine.reset();
 	}
 
 	/**
@@ -964,8 +1164,13 @@ public class GitAccess {
 		try {
 		  BranchInfo branchInfo = getBranchInfo();
 		  
-			git.branchCreate().setName(branchName).call();
-			
+		  OperationTimer timer = lock(repositoryLock.writeLock(), "createBranch");
+		  try {
+		    git.branchCreate().setName(branchName).call();
+		  } finally {
+		    unlock(repositoryLock.writeLock(), timer);
+		  }
+
 			fireBranchChanged(branchInfo.getBranchName(), branchName);
 		} catch (GitAPIException e) {
 		  logger.error(e, e);
@@ -1012,8 +1217,14 @@ public class GitAccess {
     }
 	  
 	  String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
-	  Iterable<PushResult> call = git.push().setCredentialsProvider(
-	      new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName())).call();
+	  Iterable<PushResult> call;
+	  OperationTimer timer = OperationMetrics.getInstance().start("GitAccess.push");
+	  try {
+	    call = git.push().setCredentialsProvider(
+	        new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName())).call();
+	  } finally {
+	    timer.stop();
+	  }
 	  logger.debug("Push Ended");
 	  
 	  Iterator<PushResult> results = call.iterator();
@@ -1092,21 +1303,80 @@ public class GitAccess {
 		if (!getConflictingFiles().isEmpty()) {
 			pullResponseToReturn.setStatus(PullStatus.REPOSITORY_HAS_CONFLICTS);
 		} else {
-		  git.reset().call();
-
-		  // Call "Pull"
 		  Repository repository = git.getRepository();
-		  ObjectId oldHead = resolveHead(repository);
 		  String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
-		  SSHCapableUserCredentialsProvider credentialsProvider = 
+		  SSHCapableUserCredentialsProvider credentialsProvider =
 		      new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName());
-      PullCommand pullCmd = git.pull()
-          .setRebase(PullType.REBASE == pullType)
-          .setCredentialsProvider(credentialsProvider);
-      PullResult pullCommandResult = pullCmd.call();
+		  // Like "git pull", but the transfer, and the credentials dialogs, don't lock the repository.
+		  String branchName = getPullBranchName(repository);
+		  StoredConfig config = repository.getConfig();
+		  String remote = config.getString(
+		      ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_REMOTE);
+		  if (remote == null) {
+		    remote = Constants.DEFAULT_REMOTE_NAME;
+		  }
+		  String remoteBranchName = config.getString(
+		      ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_MERGE);
+		  if (remoteBranchName == null) {
+		    throw new InvalidConfigurationException(MessageFormat.format(
+		        JGitText.get().missingConfigurationForKey,
+		        ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_MERGE));
+		  }
+		  
+		  OperationTimer fetchTimer = OperationMetrics.getInstance().start("GitAccess.pull.fetch");
+		  FetchResult fetchResult;
+		  try {
+		    fetchResult = git.fetch()
+		        .setRemote(remote)
+		        .setCredentialsProvider(credentialsProvider)
+		        .setProgressMonitor(GitOperationScheduler.getProgressMonitor())
+		        .call();
+		  } catch (GitAPIException e) {
+		    fetchTimer.failed();
+		    throw e;
+		  } finally {
+		    fetchTimer.stop();
+		  }
+		  Ref upstream = fetchResult.getAdvertisedRef(remoteBranchName);
+		  if (upstream == null) {
+		    upstream = fetchResult.getAdvertisedRef(Constants.R_HEADS + remoteBranchName);
+		  }
+		  if (upstream == null) {
+		    throw new RefNotAdvertisedException(MessageFormat.format(
+		        JGitText.get().couldNotGetAdvertisedRef, remote, remoteBranchName));
+		  }
+		  String upstreamName = MessageFormat.format(
+		      JGitText.get().upstreamBranchName,
+		      Repository.shortenRefName(remoteBranchName),
+		      config.getString(ConfigConstants.CONFIG_REMOTE_SECTION, remote, ConfigConstants.CONFIG_KEY_URL));
+
+		  // Only the merge or the rebase locks the repository.
+		  ObjectId oldHead;
+		  MergeResult mergeResult = null;
+		  RebaseResult rebaseResult = null;
+		  OperationTimer timer = lock(repositoryLock.writeLock(), "pull");
+		  try {
+		    git.reset().call();
+
+		    oldHead = resolveHead(repository);
+		    if (PullType.REBASE == pullType) {
+		      rebaseResult = git.rebase()
+		          .setUpstream(upstream.getObjectId())
+		          .setUpstreamName(upstreamName)
+		          .setOperation(Operation.BEGIN)
+		          .call();
+		    } else {
+		      mergeResult = git.merge()
+		          .include(upstreamName, upstream.getObjectId())
+		          .setFastForward(getPullFastForwardMode(config))
+		          .call();
+		    }
+		  } finally {
+		    unlock(repositoryLock.writeLock(), timer);
+		  }
 
 		  // Get fetch result
-		  Collection<TrackingRefUpdate> trackingRefUpdates = pullCommandResult.getFetchResult().getTrackingRefUpdates();
+		  Collection<TrackingRefUpdate> trackingRefUpdates = fetchResult.getTrackingRefUpdates();
 		  String lockFailureMessage = createLockFailureMessageIfNeeded(trackingRefUpdates);
 		  if (!lockFailureMessage.isEmpty()) {
 		    // Lock failure
@@ -1119,11 +1389,10 @@ public class GitAccess {
 		      refreshProject(repository, oldHead, head);
 		    }
 
-		    RebaseResult rebaseResult = pullCommandResult.getRebaseResult();
 		    if (rebaseResult != null) {
 		      treatRebaseResult(pullResponseToReturn, rebaseResult);
 		    } else { 
-		    treatMergeResult(pullResponseToReturn, pullCommandResult.getMergeResult());
+		    treatMergeResult(pullResponseToReturn, mergeResult);
 		  }
 		}
 		}
@@ -1132,6 +1401,39 @@ public class GitAccess {
 
 	}
 
+	/**
+	 * @param repository The repository.
+	 * 
+	 * @return The name of the current branch, which receives the pulled commits.
+	 * 
+	 * @throws GitAPIException There is no current branch.
+	 */
+	private static String getPullBranchName(Repository repository) throws GitAPIException {
+	  String fullBranch;
+	  try {
+	    fullBranch = repository.getFullBranch();
+	  } catch (IOException e) {
+	    throw new JGitInternalException(e.getMessage(), e);
+	  }
+	  if (fullBranch == null) {
+	    throw new NoHeadException("Pull on a repository without HEAD is not supported");
+	  }
+	  if (!fullBranch.startsWith(Constants.R_HEADS)) {
+	    throw new DetachedHeadException();
+	  }
+	  return fullBranch.substring(Constants.R_HEADS.length());
+	}
+
+	/**
+	 * @param config The repository configuration.
+	 * 
+	 * @return The fast-forward mode from the "pull.ff" option, or <code>null</code> to use the one from "merge.ff".
+	 */
+	private static FastForwardMode getPullFastForwardMode(Config config) {
+	  return config.getEnum(
+	      FastForwardMode.values(), ConfigConstants.CONFIG_PULL_SECTION, null, ConfigConstants.CONFIG_KEY_FF, null);
+	}
+
 	/**
    * Treat rebase result.
    * 
@@ -1283,32 +1585,37 @@ public class GitAccess {
 	 * Refresh the Project view.
 	 * 
 	 * @param repository The current repository.      
-	 * @param oldHead    The old HEAD (before pull).
-	 * @param head       The new HEAD (after pull).
+	 * @param oldHead    The tree of the old HEAD (before pull or checkout).
+	 * @param head       The tree of the new HEAD (after pull or checkout).
 	 * 
 	 * @throws GitAPIException when error occurs during diff.
 	 */
   private void refreshProject(Repository repository, ObjectId oldHead, ObjectId head) throws GitAPIException {
     CanonicalTreeParser oldTreeIter = new CanonicalTreeParser();
     CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
-    try {
-      ObjectReader reader = repository.newObjectReader();
+    try (ObjectReader reader = repository.newObjectReader()) {
       oldTreeIter.reset(reader, oldHead);
       newTreeIter.reset(reader, head);
-			List<DiffEntry> diffs = git.diff().setNewTree(newTreeIter).setOldTree(oldTreeIter).call();
+      List<DiffEntry> diffs = git.diff().setNewTree(newTreeIter).setOldTree(oldTreeIter).call();
       
-      Set<File> pulledFilesParentDirs = new HashSet<>();
-      String selectedRepository = OptionsManager.getInstance().getSelectedRepository();
+      Set<File> changedFolders = new HashSet<>();
+      Set<File> modifiedFiles = new HashSet<>();
+      File workTree = repository.getWorkTree();
       for (DiffEntry diffEntry : diffs) {
-        if (diffEntry.getChangeType() == ChangeType.ADD) {
-          pulledFilesParentDirs.add(new File(selectedRepository, diffEntry.getNewPath()).getParentFile());
-        } else if (diffEntry.getChangeType() == ChangeType.DELETE) {
-          pulledFilesParentDirs.add(new File(selectedRepository, diffEntry.getOldPath()).getParentFile());
+        ChangeType changeType = diffEntry.getChangeType();
+        if (changeType == ChangeType.MODIFY) {
+          modifiedFiles.add(new File(workTree, diffEntry.getNewPath()));
+        } else {
+          if (changeType != ChangeType.DELETE) {
+            changedFolders.add(new File(workTree, diffEntry.getNewPath()).getParentFile());
+          }
+          if (changeType != ChangeType.ADD && changeType != ChangeType.COPY) {
+            changedFolders.add(new File(workTree, diffEntry.getOldPath()).getParentFile());
+          }
         }
       }
       // Refresh the Project view
-      StandalonePluginWorkspace wsAccess = (StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace();
-      wsAccess.getProjectManager().refreshFolders(new File[] { FileHelper.getCommonDir(pulledFilesParentDirs) });
+      ProjectRefreshPlanner.refresh(workTree, changedFolders, modifiedFiles);
     } catch (IOException e) {
       logger.error(e, e);
     }
@@ -1350,10 +1657,16 @@ public class GitAccess {
 	  Collection<String> filePaths = getFilePaths(Arrays.asList(file));
 	  try {
 	    fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.STARTED, filePaths));
-	    if (file.getChangeType().equals(GitChangeType.REMOVED)) {
-	      git.rm().addFilepattern(file.getFileLocation()).call();
-	    } else {
-	      git.add().addFilepattern(file.getFileLocation()).call();
+	    OperationTimer timer = lock(repositoryLock.writeLock(), "add");
+	    try {
+	      if (file.getChangeType().equals(GitChangeType.REMOVED)) {
+	        git.rm().addFilepattern(file.getFileLocation()).call();
+	      } else {
+	        git.add().addFilepattern(file.getFileLocation()).call();
+	      }
+	      timer.addFiles(1);
+	    } finally {
+	      unlock(repositoryLock.writeLock(), timer);
 	    }
 	    fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 	  } catch (GitAPIException e) {
@@ -1389,14 +1702,20 @@ public class GitAccess {
 				}
 			}
 			
-			if (addCmd != null) {
-			  addCmd.call();
-			}
-			
-			if (removeCmd != null) {
-			  removeCmd.call();
+			OperationTimer timer = lock(repositoryLock.writeLock(), "addAll");
+			try {
+			  if (addCmd != null) {
+			    addCmd.call();
+			  }
+
+			  if (removeCmd != null) {
+			    removeCmd.call();
+			  }
+			  timer.addFiles(files.size());
+			} finally {
+			  unlock(repositoryLock.writeLock(), timer);
 			}
-			
+
 			fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.FAILED, filePaths));
@@ -1422,21 +1741,27 @@ public class GitAccess {
    * @return - a set containing the subset of files present in the INDEX.
    */
   public List<FileStatus> getStagedFile(Collection<String> paths) {
-    if (git != null) {
-      StatusCommand statusCmd = git.status();
-      for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
-        String path = iterator.next();
-        statusCmd.addPath(path);
-      }
+    OperationTimer timer = lock(repositoryLock.readLock(), "getStagedFile");
+    try {
+      if (git != null) {
+        StatusCommand statusCmd = git.status();
+        for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
+          String path = iterator.next();
+          statusCmd.addPath(path);
+        }
 
-      try {
         Status status = statusCmd.call();
-        return getStagedFiles(status);
-			} catch (GitAPIException e) {
-			  logger.error(e, e);
+        List<FileStatus> stagedFiles = getStagedFiles(status);
+        timer.addFiles(stagedFiles.size());
+        return stagedFiles;
       }
+    } catch (GitAPIException e) {
+      timer.failed();
+      logger.error(e, e);
+    } finally {
+      unlock(repositoryLock.readLock(), timer);
     }
-    
+
     return Collections.emptyList();
   }
 
@@ -1486,12 +1811,18 @@ public class GitAccess {
 	 * @return the conflicting files list. Never <code>null</code>.
 	 */
 	public Set<String> getConflictingFiles() {
-		if (git != null) {
-			try {
-				return git.status().call().getConflicting();
-			} catch (GitAPIException e) {
-			  logger.error(e, e);
-			}
+		OperationTimer timer = lock(repositoryLock.readLock(), "getConflictingFiles");
+		try {
+		  if (git != null) {
+		    Set<String> conflictingFiles = git.status().call().getConflicting();
+		    timer.addFiles(conflictingFiles.size());
+		    return conflictingFiles;
+		  }
+		} catch (GitAPIException e) {
+		  timer.failed();
+		  logger.error(e, e);
+		} finally {
+		  unlock(repositoryLock.readLock(), timer);
 		}
 		return Collections.emptySet();
 	}
@@ -1505,9 +1836,15 @@ public class GitAccess {
 	  Collection<String> filePaths = getFilePaths(Arrays.asList(file));
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.STARTED, filePaths));
-			ResetCommand reset = git.reset();
-			reset.addPath(file.getFileLocation());
-			reset.call();
+			OperationTimer timer = lock(repositoryLock.writeLock(), "reset");
+			try {
+			  ResetCommand reset = git.reset();
+			  reset.addPath(file.getFileLocation());
+			  reset.call();
+			  timer.addFiles(1);
+			} finally {
+			  unlock(repositoryLock.writeLock(), timer);
+			}
 			fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.FAILED, filePaths));
@@ -1525,11 +1862,17 @@ public class GitAccess {
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.STARTED, filePaths));
 			if (!files.isEmpty()) {
-				ResetCommand reset = git.reset();
-				for (FileStatus file : files) {
-					reset.addPath(file.getFileLocation());
-				}
-				reset.call();
+			  OperationTimer timer = lock(repositoryLock.writeLock(), "resetAll");
+			  try {
+			    ResetCommand reset = git.reset();
+			    for (FileStatus file : files) {
+			      reset.addPath(file.getFileLocation());
+			    }
+			    reset.call();
+			    timer.addFiles(files.size());
+			  } finally {
+			    unlock(repositoryLock.writeLock(), timer);
+			  }
 			}
 			fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
@@ -1642,24 +1985,27 @@ public class GitAccess {
 	 * @throws IOException
 	 */
 	public ObjectLoader getLoaderFrom(ObjectId commit, String path) throws IOException {
-		Repository repository = git.getRepository();
-		RevWalk revWalk = new RevWalk(repository);
-		RevCommit revCommit = revWalk.parseCommit(commit);
-		// and using commit's tree find the path
-		RevTree tree = revCommit.getTree();
-		TreeWalk treeWalk = new TreeWalk(repository);
-		treeWalk.addTree(tree);
-		treeWalk.setRecursive(true);
-		treeWalk.setFilter(PathFilter.create(path));
-
 		ObjectLoader loader = null;
-		if (treeWalk.next()) {
-			ObjectId objectId = treeWalk.getObjectId(0);
-			loader = repository.open(objectId);
+		OperationTimer timer = lock(repositoryLock.readLock(), "getLoaderFrom");
+		try {
+		  Repository repository = git.getRepository();
+		  try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+		    RevCommit revCommit = revWalk.parseCommit(commit);
+		    // and using commit's tree find the path
+		    RevTree tree = revCommit.getTree();
+		    treeWalk.addTree(tree);
+		    treeWalk.setRecursive(true);
+		    treeWalk.setFilter(PathFilter.create(path));
+
+		    if (treeWalk.next()) {
+		      ObjectId objectId = treeWalk.getObjectId(0);
+		      loader = repository.open(objectId);
+		      timer.addBytes(loader.getSize());
+		    }
+		  }
+		} finally {
+		  unlock(repositoryLock.readLock(), timer);
 		}
-
-		treeWalk.close();
-		revWalk.close();
 		return loader;
 	}
 
@@ -1677,7 +2023,14 @@ public class GitAccess {
 	public InputStream getInputStream(ObjectId commitID) throws IOException {
 		InputStream toReturn = null;
 		if (commitID != null) {
-			ObjectLoader loader = git.getRepository().open(commitID);
+		  ObjectLoader loader;
+		  OperationTimer timer = lock(repositoryLock.readLock(), "getInputStream");
+		  try {
+		    loader = git.getRepository().open(commitID);
+		    timer.addBytes(loader.getSize());
+		  } finally {
+		    unlock(repositoryLock.readLock(), timer);
+		  }
 			if (loader == null) {
 			  throw new IOException("Cannot obtain an object loader for the commit ID: " + commitID);
 			} else {
@@ -1693,10 +2046,14 @@ public class GitAccess {
 	 * Performs a git reset. The equivalent of the "git reset" command
 	 */
 	public void reset() {
+	  OperationTimer timer = lock(repositoryLock.writeLock(), "resetIndex");
 		try {
 			git.reset().call();
 		} catch (GitAPIException e) {
+		  timer.failed();
 		  logger.error(e, e);
+		} finally {
+		  unlock(repositoryLock.writeLock(), timer);
 		}
 	}
 
@@ -1709,9 +2066,15 @@ public class GitAccess {
 	public void restoreLastCommitFile(List<String> paths) {
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.STARTED, paths));
-		  CheckoutCommand checkoutCmd = git.checkout();
-		  checkoutCmd.addPaths(paths);
-			checkoutCmd.call();
+		  OperationTimer timer = lock(repositoryLock.writeLock(), "restoreLastCommitFile");
+		  try {
+		    CheckoutCommand checkoutCmd = git.checkout();
+		    checkoutCmd.addPaths(paths);
+		    checkoutCmd.call();
+		    timer.addFiles(paths.size());
+		  } finally {
+		    unlock(repositoryLock.writeLock(), timer);
+		  }
 			fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.SUCCESSFULLY_ENDED, paths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.FAILED, paths));
@@ -1733,9 +2096,9 @@ public class GitAccess {
 	  try {
 	    String branchName = getBranchInfo().getBranchName();
 	    if (branchName != null && branchName.length() > 0) {
-	      BranchTrackingStatus bts = BranchTrackingStatus.of(getRepository(), branchName);
-	      if (bts != null) {
-	        numberOfCommits = bts.getAheadCount();
+	      CommitsAheadAndBehind commits = RevCommitUtil.getCommitsAheadAndBehind(getRepository(), branchName);
+	      if (commits != null) {
+	        numberOfCommits = commits.getCommitsAheadCount();
 	      } else {
 	        throw new RepoNotInitializedException();
 	      }
@@ -1759,9 +2122,9 @@ public class GitAccess {
 	  try {
 	    String branchName = getBranchInfo().getBranchName();
 	    if (branchName != null && branchName.length() > 0) {
-	      BranchTrackingStatus bts = BranchTrackingStatus.of(getRepository(), branchName);
-	      if (bts != null) {
-	        numberOfCommits = bts.getBehindCount();
+	      CommitsAheadAndBehind commits = RevCommitUtil.getCommitsAheadAndBehind(getRepository(), branchName);
+	      if (commits != null) {
+	        numberOfCommits = commits.getCommitsBehindCount();
 	      }
 	    }
 	  } catch (IOException | NoRepositorySelected e) {
@@ -1778,6 +2141,19 @@ public class GitAccess {
 	 */
 	public void fetch()
 			throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  fetch(true);
+	}
+
+	/**
+	 * Brings all the commits to the local repository but does not merge them.
+	 * 
+	 * @param interactive <code>true</code> if the user started the fetch and can be asked for credentials.
+	 * <code>false</code> for a background fetch, which fails instead.
+	 * 
+	 * @throws PrivateRepositoryException 
+	 */
+	public void fetch(boolean interactive)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
 	  logger.debug("Begin fetch");
     if (git == null) {
       throw new RepositoryUnavailableException(new NoRepositorySelected("Repository is empty"));
@@ -1793,14 +2169,20 @@ public class GitAccess {
 		    gitCredentials.getPassword(),
 				sshPassphrase,
 				hostName);
+		credentialsProvider.setDialogsAllowed(interactive);
+		OperationTimer timer = OperationMetrics.getInstance().start("GitAccess.fetch");
 		try {
 			StoredConfig config = git.getRepository().getConfig();
 			Set<String> sections = config.getSections();
 			if (sections.contains(ConfigConstants.CONFIG_KEY_REMOTE)) {
         git.fetch().setRefSpecs(new RefSpec("+refs/heads/*:refs/remotes/origin/*")).setCheckFetchedObjects(true)
-						.setCredentialsProvider(credentialsProvider).call();
+						.setCredentialsProvider(credentialsProvider)
+						// Stops if the operation is canceled.
+						.setProgressMonitor(GitOperationScheduler.getProgressMonitor())
+						.call();
 			}
 		} catch (TransportException e) {
+		  timer.failed();
 		  logger.debug(e, e);
 			
 			Throwable cause = e;
@@ -1819,22 +2201,46 @@ public class GitAccess {
 			  throw new RepositoryUnavailableException(e);
 			}
 		} catch (GitAPIException | RevisionSyntaxException e) {
+		  timer.failed();
 		  logger.error(e, e);
-    } 
+    } finally {
+      // The remote branches might have moved.
+      refDecorations = null;
+      headSnapshot = null;
+      timer.stop();
+    }
 		logger.debug(END_FETCH_DEBUG_MESSAGE);
 	}
 
 	/**
-	 * Replace with remote content. Useful when resolving a conflict using 'theirs'.
+	 * Resolves the conflicts of the given files by taking the same side for all of them. The index is
+	 * updated once and a single {@link GitCommand#STAGE} event is fired for all the files.
 	 * 
-	 * @param filePath File path.
+	 * @param files The conflicting files.
+	 * @param stage {@link Stage#OURS} to resolve using 'mine' or {@link Stage#THEIRS} to resolve using 'theirs'.
 	 */
-	public void replaceWithRemoteContent(String filePath) {
-		try {
-			git.checkout().setStage(Stage.THEIRS).addPath(filePath).call();
-		} catch (Exception e) {
-		  logger.error(e, e);
-		}
+	public void resolveConflicts(List<FileStatus> files, Stage stage) {
+	  Collection<String> filePaths = getFilePaths(files);
+	  fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.STARTED, filePaths));
+	  boolean resolved = false;
+	  OperationTimer timer = lock(repositoryLock.writeLock(), "resolveConflicts");
+	  try {
+	    int count = ConflictResolver.resolve(
+	        git.getRepository(),
+	        new HashSet<>(filePaths),
+	        stage == Stage.OURS ? DirCacheEntry.STAGE_2 : DirCacheEntry.STAGE_3);
+	    timer.addFiles(count);
+	    resolved = true;
+	  } catch (IOException e) {
+	    timer.failed();
+	    logger.error(e, e);
+	  } finally {
+	    unlock(repositoryLock.writeLock(), timer);
+	  }
+	  fireStateChanged(new GitEvent(
+	      GitCommand.STAGE,
+	      resolved ? GitCommandState.SUCCESSFULLY_ENDED : GitCommandState.FAILED,
+	      filePaths));
 	}
 
 	/**
@@ -1849,16 +2255,26 @@ public class GitAccess {
 	    try {
 	      RepositoryState repositoryState = getRepository().getRepositoryState();
 	      if (repositoryState == RepositoryState.REBASING_MERGE) {
-	        git.rebase().setOperation(Operation.ABORT).call();
+	        repositoryLock.writeLock().lock();
+	        try {
+	          git.rebase().setOperation(Operation.ABORT).call();
+	        } finally {
+	          repositoryLock.writeLock().unlock();
+	        }
 	        UserCredentials gitCredentials = OptionsManager.getInstance().getGitCredentials(getHostName());
 	        String username = gitCredentials.getUsername();
 	        String password = gitCredentials.getPassword();
 	        pull(username, password, PullType.REBASE);
 	      } else {
-	        AnyObjectId commitToMerge = getRepository().resolve("MERGE_HEAD");
-	        git.clean().call();
-	        git.reset().setMode(ResetType.HARD).call();
-	        git.merge().include(commitToMerge).setStrategy(MergeStrategy.RECURSIVE).call();
+	        repositoryLock.writeLock().lock();
+	        try {
+	          AnyObjectId commitToMerge = getRepository().resolve("MERGE_HEAD");
+	          git.clean().call();
+	          git.reset().setMode(ResetType.HARD).call();
+	          git.merge().include(commitToMerge).setStrategy(MergeStrategy.RECURSIVE).call();
+	        } finally {
+	          repositoryLock.writeLock().unlock();
+	        }
 	      }
 	      fireStateChanged(new GitEvent(GitCommand.MERGE_RESTART, GitCommandState.SUCCESSFULLY_ENDED));
 	    } catch (IOException | NoRepositorySelected | GitAPIException e) {
@@ -1877,30 +2293,23 @@ public class GitAccess {
 	 * @return An object specifying the branch name and if it is detached or not
 	 */
 	public BranchInfo getBranchInfo() {
-		if (git != null) {
-			BranchInfo branchInfo = new BranchInfo();
-			String branchName = "";
-			try {
-				branchName = git.getRepository().getBranch();
-				branchInfo.setBranchName(branchName);
-				Iterable<RevCommit> results = git.log().call();
-				for (RevCommit revCommit : results) {
-					if (revCommit.getId().name().equals(branchName)) {
-						branchInfo.setDetached(true);
-						branchInfo.setShortBranchName(
-						    revCommit.getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name());
-						break;
-					}
-				}
-				return branchInfo;
-			} catch (NoHeadException e) {
-			  logger.debug(e, e);
-			  return new BranchInfo(branchName, false);
-			} catch (IOException | GitAPIException e) {
-			  logger.error(e, e);
-			}
-		}
-		return new BranchInfo("", false);
+	  BranchInfo branchInfo = new BranchInfo("", false);
+	  if (git != null) {
+	    try {
+	      // Reading HEAD is cheap: the reference files are only read again if they changed.
+	      Repository repository = git.getRepository();
+	      Ref head = repository.exactRef(Constants.HEAD);
+	      HeadSnapshot snapshot = headSnapshot;
+	      if (snapshot == null || !snapshot.isValidFor(repository, head)) {
+	        snapshot = HeadSnapshot.read(repository, head);
+	        headSnapshot = snapshot;
+	      }
+	      branchInfo = snapshot.toBranchInfo();
+	    } catch (IOException e) {
+	      logger.error(e, e);
+	    }
+	  }
+	  return branchInfo;
 	}
 
 	/**
@@ -1912,8 +2321,16 @@ public class GitAccess {
 	 */
 	public void setBranch(String selectedBranch) throws GitAPIException {
 	  BranchInfo branchInfo = getBranchInfo();
-		git.checkout().setName(selectedBranch).call();
-		
+	  ObjectId oldHead;
+	  OperationTimer timer = lock(repositoryLock.writeLock(), "setBranch");
+	  try {
+	    oldHead = resolveHead(git.getRepository());
+	    git.checkout().setName(selectedBranch).call();
+	  } finally {
+	    unlock(repositoryLock.writeLock(), timer);
+	  }
+	  refreshProjectAfterCheckout(oldHead);
+
 		fireBranchChanged(branchInfo.getBranchName(), selectedBranch);
 	}
 	
@@ -1927,14 +2344,41 @@ public class GitAccess {
 	 */
 	public void checkoutCommitAndCreateBranch(String branchName, String commitID) throws GitAPIException {
 	  String oldBranch = getBranchInfo().getBranchName();
-	  git.checkout()
-	      .setCreateBranch(true)
-	      .setName(branchName)
-	      .setStartPoint(commitID)
-	      .call();
+	  ObjectId oldHead;
+	  OperationTimer timer = lock(repositoryLock.writeLock(), "checkoutCommitAndCreateBranch");
+	  try {
+	    oldHead = resolveHead(git.getRepository());
+	    git.checkout()
+	        .setCreateBranch(true)
+	        .setName(branchName)
+	        .setStartPoint(commitID)
+	        .call();
+	  } finally {
+	    unlock(repositoryLock.writeLock(), timer);
+	  }
+	  refreshProjectAfterCheckout(oldHead);
 	  fireBranchChanged(oldBranch, branchName);
 	}
 
+	/**
+	 * Refreshes the folders of the Project view that changed when the working copy was switched to another commit.
+	 * 
+	 * @param oldHead The tree of HEAD before the checkout or <code>null</code> for an unborn branch.
+	 */
+	private void refreshProjectAfterCheckout(ObjectId oldHead) {
+	  Repository repository = git.getRepository();
+	  ObjectId head = resolveHead(repository);
+	  try {
+	    if (oldHead != null && head != null) {
+	      refreshProject(repository, oldHead, head);
+	    } else {
+	      FileHelper.refreshProjectView();
+	    }
+	  } catch (GitAPIException | NoRepositorySelected e) {
+	    logger.error(e, e);
+	  }
+	}
+
 	/**
 	 * Return the submodule head commit to the previously one
 	 * 
@@ -1942,8 +2386,13 @@ public class GitAccess {
 	 *                         submodule.
 	 */
 	public void discardSubmodule() throws GitAPIException {
-	  git.submoduleSync().call();
-	  git.submoduleUpdate().setStrategy(MergeStrategy.RECURSIVE).call();
+	  OperationTimer timer = lock(repositoryLock.writeLock(), "discardSubmodule");
+	  try {
+	    git.submoduleSync().call();
+	    git.submoduleUpdate().setStrategy(MergeStrategy.RECURSIVE).call();
+	  } finally {
+	    unlock(repositoryLock.writeLock(), timer);
+	  }
 	}
 
 	/**
@@ -1956,15 +2405,30 @@ public class GitAccess {
 	 * @throws IOException Unable to read the index.
 	 */
 	public ObjectId locateObjectIdInIndex(String path)  throws IOException {
-	  DirCache dc = git.getRepository().readDirCache();
-	  int firstIndex = dc.findEntry(path);
-	  if (firstIndex < 0) {
-	    return null;
+	  OperationTimer timer = lock(repositoryLock.readLock(), "locateObjectIdInIndex");
+	  try {
+	    return getIndexSnapshot().getEntryId(path);
+	  } finally {
+	    unlock(repositoryLock.readLock(), timer);
 	  }
+	}
 
-	  org.eclipse.jgit.dircache.DirCacheEntry firstEntry = dc.getEntry(firstIndex);
-	  
-	  return firstEntry.getObjectId();
+	/**
+	 * Gets the index of the current repository. It is read only when the index file changed
+	 * since the last call. The caller must hold the repository lock.
+	 * 
+	 * @return The index.
+	 * 
+	 * @throws IOException Unable to read the index.
+	 */
+	private IndexSnapshot getIndexSnapshot() throws IOException {
+	  Repository repository = git.getRepository();
+	  IndexSnapshot snapshot = indexSnapshot;
+	  if (snapshot == null || !snapshot.isValidFor(repository)) {
+	    snapshot = IndexSnapshot.read(repository);
+	    indexSnapshot = snapshot;
+	  }
+	  return snapshot;
 	}
 	
 	/**
@@ -2016,7 +2480,8 @@ public class GitAccess {
 
 	/**
 	 * Returns the SHA-1 commit id for a file by specifying what commit to get for
-	 * that file and it's path
+	 * that file and it's path. The conflict versions are taken from the stages of the index,
+	 * which is read once for all the conflicting files.
 	 * 
 	 * @param commit - specifies the commit to return(MINE, THEIRS, BASE, LOCAL)
 	 * @param path   - the file path for the specified commit
@@ -2024,52 +2489,45 @@ public class GitAccess {
 	 */
 	public ObjectId getCommit(Commit commit, String path) {
 	  ObjectId toReturn = null;
+	  OperationTimer timer = lock(repositoryLock.readLock(), "getCommit");
 		try {
-		  List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(path)).call();
-			boolean isTwoWayDiff = false;
-			if (entries.size() < 3) {
-				isTwoWayDiff = true;
-			}
-			int index = 0;
-			if (commit == Commit.MINE) {
-				if (isTwoWayDiff) {
-					index = 0;
-				} else {
-					index = 1;
-				}
-				if (index >= entries.size()) {
-					throw new IOException("No diff info available for path: '" + path + "' and commit: '" + commit + "'");
-				}
-				toReturn =  entries.get(index).getOldId().toObjectId();
-			} else if (commit == Commit.THEIRS) {
-				if (isTwoWayDiff) {
-					index = 1;
-				} else {
-					index = 2;
-				}
-				if (index >= entries.size()) {
-					throw new IOException("No diff info available for path: '" + path + "' and commit: '" + commit + "'");
-        }
-				toReturn =  entries.get(index).getOldId().toObjectId();
-			} else if (commit == Commit.BASE) {
-			  toReturn = entries.get(index).getOldId().toObjectId();
-			} else if (commit == Commit.LOCAL) {
-				ObjectId lastLocalCommit = getLastLocalCommit();
-				RevWalk revWalk = new RevWalk(git.getRepository());
-				RevCommit revCommit = revWalk.parseCommit(lastLocalCommit);
-				RevTree tree = revCommit.getTree();
-				TreeWalk treeWalk = new TreeWalk(git.getRepository());
-				treeWalk.addTree(tree);
-				treeWalk.setRecursive(true);
-				treeWalk.setFilter(PathFilter.create(path));
-				if (treeWalk.next()) {
-				  toReturn = treeWalk.getObjectId(0);
-				}
-				treeWalk.close();
-				revWalk.close();
-			}
-		} catch (GitAPIException | IOException e) {
+		  Repository repository = git.getRepository();
+		  if (commit == Commit.LOCAL) {
+		    ObjectId headTree = repository.resolve("HEAD^{tree}");
+		    if (headTree != null) {
+		      try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, headTree)) {
+		        if (treeWalk != null) {
+		          toReturn = treeWalk.getObjectId(0);
+		        }
+		      }
+		    }
+		  } else {
+		    IndexSnapshot index = getIndexSnapshot();
+		    ObjectId mine = index.getStageId(path, DirCacheEntry.STAGE_2);
+		    if (mine == null && !index.isConflicting(path)) {
+		      // Not conflicting. The staged version. A conflicting file without stage 2 was deleted by us.
+		      mine = index.getEntryId(path);
+		    }
+		    if (commit == Commit.MINE) {
+		      toReturn = mine;
+		    } else if (commit == Commit.THEIRS) {
+		      toReturn = index.getStageId(path, DirCacheEntry.STAGE_3);
+		    } else {
+		      toReturn = index.getStageId(path, DirCacheEntry.STAGE_1);
+		      if (toReturn == null) {
+		        // No common ancestor, for example when both sides added the file.
+		        toReturn = mine;
+		      }
+		    }
+		    if (toReturn == null) {
+		      throw new IOException("No diff info available for path: '" + path + "' and commit: '" + commit + "'");
+		    }
+		  }
+		} catch (IOException e) {
+		  timer.failed();
 		  logger.error(e, e);
+		} finally {
+		  unlock(repositoryLock.readLock(), timer);
 		}
 		return toReturn;
 	}
@@ -2133,7 +2591,12 @@ public class GitAccess {
     fireStateChanged(new GitEvent(GitCommand.ABORT_REBASE, GitCommandState.STARTED));
     GitOperationScheduler.getInstance().schedule(() -> {
       try {
-        git.rebase().setOperation(Operation.ABORT).call();
+        OperationTimer timer = lock(repositoryLock.writeLock(), "abortRebase");
+        try {
+          git.rebase().setOperation(Operation.ABORT).call();
+        } finally {
+          unlock(repositoryLock.writeLock(), timer);
+        }
         fireStateChanged(new GitEvent(GitCommand.ABORT_REBASE, GitCommandState.SUCCESSFULLY_ENDED));
       } catch (GitAPIException e) {
         fireStateChanged(new GitEvent(GitCommand.ABORT_REBASE, GitCommandState.FAILED));
@@ -2149,12 +2612,16 @@ public class GitAccess {
     fireStateChanged(new GitEvent(GitCommand.CONTINUE_REBASE, GitCommandState.STARTED));
     GitOperationScheduler.getInstance().schedule(() -> {
       try {
-        
-        RebaseResult result = git.rebase().setOperation(Operation.CONTINUE).call();
-        if (result.getStatus() == RebaseResult.Status.NOTHING_TO_COMMIT) {
-          skipCommit();
+        OperationTimer timer = lock(repositoryLock.writeLock(), "continueRebase");
+        try {
+          RebaseResult result = git.rebase().setOperation(Operation.CONTINUE).call();
+          if (result.getStatus() == RebaseResult.Status.NOTHING_TO_COMMIT) {
+            skipCommit();
+          }
+        } finally {
+          unlock(repositoryLock.writeLock(), timer);
         }
-        
+
         fireStateChanged(
             new GitEvent(
                 GitCommand.CONTINUE_REBASE,
@@ -2199,20 +2666,92 @@ public class GitAccess {
 	 * @return a Vector with commits characteristics of the current repository.
 	 */
 	public List<CommitCharacteristics> getCommitsCharacteristics(String filePath) {
-		List<CommitCharacteristics> revisions = new ArrayList<>();
+	  List<CommitCharacteristics> revisions = Collections.emptyList();
+	  try (CommitHistoryCursor cursor = createCommitHistoryCursor(filePath)) {
+	    revisions = getCommitsCharacteristics(filePath, cursor, Integer.MAX_VALUE);
+	  } catch (NoRepositorySelected | IOException e) {
+	    logger.error(e, e);
+	  }
+	  return revisions;
+	}
 
-		try {
-			Repository repository = this.getRepository();
-			if (filePath == null && git.status().call().hasUncommittedChanges()) {
-				revisions.add(UNCOMMITED_CHANGES);
-			}
+	/**
+	 * Creates a cursor that reads the history of the current branch page by page.
+	 * 
+	 * @param filePath A resource for which we are interested in its history. If <code>null</code>, 
+	 * the repository history will be walked.
+	 * 
+	 * @return The cursor. Must be closed when no longer needed.
+	 * 
+	 * @throws NoRepositorySelected
+	 * @throws IOException
+	 */
+	public CommitHistoryCursor createCommitHistoryCursor(String filePath) throws NoRepositorySelected, IOException {
+	  Repository repository = getRepository();
+	  return new CommitHistoryCursor(repository, filePath, getCommitGraphCache(repository));
+	}
 
-			RevCommitUtil.collectCurrentBranchRevisions(filePath, revisions, repository);
-		} catch (NoWorkTreeException | GitAPIException | NoRepositorySelected | IOException e) {
-			logger.error(e, e);
-		}
-		
-		return revisions;
+	/**
+	 * Forgets about the commit graph of the previous repository.
+	 */
+	private void closeCommitGraphCache() {
+	  CommitGraphCache cache = commitGraphCache;
+	  commitGraphCache = null;
+	  if (cache != null) {
+	    cache.close();
+	  }
+	}
+
+	/**
+	 * Gets the on-disk commit graph of the current repository.
+	 * 
+	 * @param repository The current repository.
+	 * 
+	 * @return The cache, or <code>null</code> if it can't be used.
+	 */
+	private CommitGraphCache getCommitGraphCache(Repository repository) {
+	  CommitGraphCache cache = commitGraphCache;
+	  if (cache == null && !Boolean.getBoolean(GitAddonSystemProperties.DISABLE_COMMIT_GRAPH_CACHE)) {
+	    try {
+	      cache = CommitGraphCache.open(repository);
+	      commitGraphCache = cache;
+	    } catch (IOException e) {
+	      logger.error(e, e);
+	    }
+	  }
+	  return cache;
+	}
+
+	/**
+	 * Compute the characteristics of the first commits from the history. When presenting the history
+	 * of the repository, the uncommitted changes come first.
+	 * 
+	 * @param filePath A resource for which we are interested in its history. If <code>null</code>, 
+	 * the repository history will be computed.
+	 * @param cursor A cursor created with {@link #createCommitHistoryCursor(String)} for the same resource.
+	 * @param max The maximum number of entries to compute. The rest can be read later from the cursor.
+	 * 
+	 * @return The commits characteristics. Never <code>null</code>.
+	 */
+	public List<CommitCharacteristics> getCommitsCharacteristics(String filePath, CommitHistoryCursor cursor, int max) {
+	  List<CommitCharacteristics> revisions = new ArrayList<>();
+	  // From the last status refresh. Asked before taking the lock, because the status engine takes it too.
+	  if (filePath == null && statusEngine.hasUncommittedChanges()) {
+	    revisions.add(UNCOMMITED_CHANGES);
+	  }
+
+	  OperationTimer timer = lock(repositoryLock.readLock(), "getCommitsCharacteristics");
+	  try {
+	    revisions.addAll(cursor.next(max - revisions.size()));
+	    timer.addCommits(revisions.size());
+	  } catch (IOException e) {
+	    timer.failed();
+	    logger.error(e, e);
+	  } finally {
+	    unlock(repositoryLock.readLock(), timer);
+	  }
+
+	  return revisions;
 	}
 
 	/**
@@ -2239,23 +2778,41 @@ public class GitAccess {
 			while (st.hasMoreTokens()) {
 				tagName = st.nextToken();
 			}
-			LogCommand log = git.log();
 
+			// Peeling the ref is enough to get to the tagged commit.
 			Ref peeledRef = repository.getRefDatabase().peel(ref);
-			if (peeledRef.getPeeledObjectId() != null) {
-				log.add(peeledRef.getPeeledObjectId());
-			} else {
-				log.add(ref.getObjectId());
-			}
-			Iterable<RevCommit> logs = log.call();
+			ObjectId commitId = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : ref.getObjectId();
 			tagList.add(tagName);
 			commitTagMap.put(
-			    logs.iterator().next().getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(),
+			    commitId.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name(),
 			    tagList);
 		}
 		return commitTagMap;
 	}
 	
+	/**
+	 * Gets the index with the tags and the local/remote branches of each commit. 
+	 * The index is computed once and reused until the refs change: a new repository is
+	 * loaded, the branch changes, a fetch is done, etc.
+	 * 
+	 * @return The index. Never <code>null</code>.
+	 */
+	public RefDecorations getRefDecorations() {
+	  RefDecorations decorations = refDecorations;
+	  if (decorations == null) {
+	    decorations = RefDecorations.EMPTY;
+	    if (git != null) {
+	      try {
+	        decorations = RefDecorations.build(git.getRepository());
+	        refDecorations = decorations;
+	      } catch (IOException e) {
+	        logger.error(e, e);
+	      }
+	    }
+	  }
+	  return decorations;
+	}
+	
 	/**
 	 * Get the linkedHashMap with all local/remote branch names in current repository.
 	 * Map shows: key = commitID, value = list of branch names.
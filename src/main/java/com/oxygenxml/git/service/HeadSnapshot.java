@@ -0,0 +1,111 @@
+package com.oxygenxml.git.service;
+
+import java.util.Objects;
+
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The state of HEAD, read from the references alone: the checked out branch or the detached commit.
+ * Reused as long as HEAD points to the same branch and commit.
+ */
+class HeadSnapshot {
+  /**
+   * The repository.
+   */
+  private final Repository repository;
+  /**
+   * The full name of the reference HEAD points to. <code>null</code> on a detached HEAD.
+   */
+  private final String target;
+  /**
+   * The commit HEAD resolves to. <code>null</code> for an unborn branch.
+   */
+  private final ObjectId headId;
+  /**
+   * The short name of the checked out branch or the ID of the commit on a detached HEAD.
+   */
+  private final String branchName;
+  /**
+   * <code>true</code> on a detached HEAD.
+   */
+  private final boolean detached;
+  /**
+   * The abbreviated ID of the commit on a detached HEAD. <code>null</code> otherwise.
+   */
+  private final String shortId;
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository.
+   * @param head       The HEAD reference. May be <code>null</code>.
+   */
+  private HeadSnapshot(Repository repository, Ref head) {
+    this.repository = repository;
+    this.target = getTarget(head);
+    this.headId = head != null ? head.getObjectId() : null;
+    this.detached = head != null && !head.isSymbolic() && headId != null;
+    if (detached) {
+      branchName = headId.name();
+      shortId = headId.abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name();
+    } else {
+      branchName = target != null ? Repository.shortenRefName(target) : null;
+      shortId = null;
+    }
+  }
+
+  /**
+   * Reads the state of HEAD.
+   *
+   * @param repository The repository.
+   * @param head       The HEAD reference, as read from the repository. May be <code>null</code>.
+   *
+   * @return The snapshot.
+   */
+  static HeadSnapshot read(Repository repository, Ref head) {
+    return new HeadSnapshot(repository, head);
+  }
+
+  /**
+   * @param head The HEAD reference. May be <code>null</code>.
+   *
+   * @return The full name of the reference HEAD points to or <code>null</code>.
+   */
+  private static String getTarget(Ref head) {
+    String target = null;
+    if (head != null && head.isSymbolic()) {
+      target = head.getTarget().getName();
+    }
+    return target;
+  }
+
+  /**
+   * @param repository The current repository.
+   * @param head       The HEAD reference, as read now. May be <code>null</code>.
+   *
+   * @return <code>true</code> if this snapshot is of the given repository and HEAD still points to the same
+   * branch and commit.
+   */
+  boolean isValidFor(Repository repository, Ref head) {
+    return this.repository == repository
+        && Objects.equals(target, getTarget(head))
+        && Objects.equals(headId, head != null ? head.getObjectId() : null);
+  }
+
+  /**
+   * @return A new branch information, with the state of HEAD and the upstream of the checked out branch.
+   * The upstream is read from the configuration each time, which is reloaded only if its file changed.
+   */
+  BranchInfo toBranchInfo() {
+    BranchInfo branchInfo = new BranchInfo(branchName, detached);
+    branchInfo.setShortBranchName(shortId);
+    if (target != null && target.startsWith(Constants.R_HEADS)) {
+      branchInfo.setUpstreamBranch(new BranchConfig(repository.getConfig(), branchName).getTrackingBranch());
+    }
+    return branchInfo;
+  }
+}
@@ -0,0 +1,125 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * The entries of the index, read once and reused until the index file changes. The object IDs of the
+ * conflict stages are collected for all the conflicting files at once, the first time one is needed.
+ */
+class IndexSnapshot {
+  /**
+   * The repository of the index.
+   */
+  private final Repository repository;
+  /**
+   * The index, as read from the disk.
+   */
+  private final DirCache dirCache;
+  /**
+   * Path -> the object IDs of its stages, indexed by {@link DirCacheEntry#getStage()}.
+   * Only for the conflicting files. <code>null</code> until first used. Guarded by this.
+   */
+  private Map<String, ObjectId[]> conflicts;
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository of the index.
+   * @param dirCache   The index, as read from the disk.
+   */
+  private IndexSnapshot(Repository repository, DirCache dirCache) {
+    this.repository = repository;
+    this.dirCache = dirCache;
+  }
+
+  /**
+   * Reads the index of a repository.
+   *
+   * @param repository The repository.
+   *
+   * @return The snapshot of the index.
+   *
+   * @throws IOException Unable to read the index.
+   */
+  static IndexSnapshot read(Repository repository) throws IOException {
+    return new IndexSnapshot(repository, repository.readDirCache());
+  }
+
+  /**
+   * @param repository The current repository.
+   *
+   * @return <code>true</code> if this snapshot is of the given repository and its index file didn't change since.
+   *
+   * @throws IOException Unable to check the index file.
+   */
+  boolean isValidFor(Repository repository) throws IOException {
+    return this.repository == repository && !dirCache.isOutdated();
+  }
+
+  /**
+   * @param path The path of a file.
+   *
+   * @return The object ID of the first index entry of the file: the staged version or,
+   * for a conflicting file, the first stage. <code>null</code> if the file is not in the index.
+   */
+  ObjectId getEntryId(String path) {
+    int index = dirCache.findEntry(path);
+    return index >= 0 ? dirCache.getEntry(index).getObjectId() : null;
+  }
+
+  /**
+   * @param path  The path of a file.
+   * @param stage One of {@link DirCacheEntry#STAGE_1}, {@link DirCacheEntry#STAGE_2}, {@link DirCacheEntry#STAGE_3}.
+   *
+   * @return The object ID of the given conflict stage of the file, or <code>null</code> if the
+   * file is not conflicting or the stage is missing, for example because a side deleted the file.
+   */
+  synchronized ObjectId getStageId(String path, int stage) {
+    ObjectId[] stages = getConflicts().get(path);
+    return stages != null ? stages[stage] : null;
+  }
+
+  /**
+   * @param path The path of a file.
+   *
+   * @return <code>true</code> if the file has conflict stages in the index.
+   */
+  synchronized boolean isConflicting(String path) {
+    return getConflicts().containsKey(path);
+  }
+
+  /**
+   * @return Path -> the object IDs of its stages, for all the conflicting files. Collected the first time.
+   */
+  private Map<String, ObjectId[]> getConflicts() {
+    if (conflicts == null) {
+      conflicts = collectConflicts();
+    }
+    return conflicts;
+  }
+
+  /**
+   * @return Path -> the object IDs of its stages, for all the conflicting files.
+   */
+  private Map<String, ObjectId[]> collectConflicts() {
+    Map<String, ObjectId[]> collected = new HashMap<>();
+    if (dirCache.hasUnmergedPaths()) {
+      for (int i = 0; i < dirCache.getEntryCount(); i++) {
+        DirCacheEntry entry = dirCache.getEntry(i);
+        int stage = entry.getStage();
+        if (stage != DirCacheEntry.STAGE_0) {
+          collected.computeIfAbsent(entry.getPathString(), k -> new ObjectId[DirCacheEntry.STAGE_3 + 1])[stage] =
+              entry.getObjectId();
+        }
+      }
+    }
+    return collected;
+  }
+}
@@ -0,0 +1,158 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Immutable index with the tags and the local/remote branches that point to each commit.
+ * It is built once, from the ref database alone, so presenting the labels of a commit
+ * is just a map lookup.
+ */
+public final class RefDecorations {
+  /**
+   * An index without any decoration.
+   */
+  public static final RefDecorations EMPTY = new RefDecorations(
+      Collections.emptyMap(),
+      Collections.emptyMap(),
+      Collections.emptyMap());
+
+  /**
+   * Commit ID -> tag names.
+   */
+  private final Map<ObjectId, List<String>> tags;
+  /**
+   * Commit ID -> local branch names.
+   */
+  private final Map<ObjectId, List<String>> localBranches;
+  /**
+   * Commit ID -> remote branch names.
+   */
+  private final Map<ObjectId, List<String>> remoteBranches;
+
+  /**
+   * Constructor.
+   *
+   * @param tags           Commit ID -> tag names.
+   * @param localBranches  Commit ID -> local branch names.
+   * @param remoteBranches Commit ID -> remote branch names.
+   */
+  private RefDecorations(
+      Map<ObjectId, List<String>> tags,
+      Map<ObjectId, List<String>> localBranches,
+      Map<ObjectId, List<String>> remoteBranches) {
+    this.tags = tags;
+    this.localBranches = localBranches;
+    this.remoteBranches = remoteBranches;
+  }
+
+  /**
+   * Builds the index for the given repository.
+   *
+   * @param repository The repository.
+   *
+   * @return The index. Never <code>null</code>.
+   *
+   * @throws IOException Unable to read the refs.
+   */
+  public static RefDecorations build(Repository repository) throws IOException {
+    RefDatabase refDatabase = repository.getRefDatabase();
+
+    Map<ObjectId, List<String>> tags = new HashMap<>();
+    for (Ref ref : refDatabase.getRefsByPrefix(Constants.R_TAGS)) {
+      // Annotated tags must be peeled to get to the tagged commit.
+      Ref peeledRef = refDatabase.peel(ref);
+      ObjectId commitId = peeledRef.getPeeledObjectId() != null ? peeledRef.getPeeledObjectId() : ref.getObjectId();
+      String tagName = ref.getName();
+      tagName = tagName.substring(tagName.lastIndexOf('/') + 1);
+      add(tags, commitId, tagName);
+    }
+
+    return new RefDecorations(
+        freeze(tags),
+        freeze(collectBranches(refDatabase, Constants.R_HEADS)),
+        freeze(collectBranches(refDatabase, Constants.R_REMOTES)));
+  }
+
+  /**
+   * Collects the branches with the given prefix.
+   *
+   * @param refDatabase The ref database.
+   * @param prefix      {@link Constants#R_HEADS} or {@link Constants#R_REMOTES}.
+   *
+   * @return Commit ID -> branch names, relative to the prefix.
+   *
+   * @throws IOException Unable to read the refs.
+   */
+  private static Map<ObjectId, List<String>> collectBranches(RefDatabase refDatabase, String prefix) throws IOException {
+    Map<ObjectId, List<String>> branches = new HashMap<>();
+    for (Ref ref : refDatabase.getRefsByPrefix(prefix)) {
+      if (!ref.isSymbolic()) {
+        add(branches, ref.getObjectId(), ref.getName().substring(prefix.length()));
+      }
+    }
+    return branches;
+  }
+
+  /**
+   * Adds a name for the given commit.
+   *
+   * @param map      The map to update.
+   * @param commitId The commit ID.
+   * @param name     The name to add.
+   */
+  private static void add(Map<ObjectId, List<String>> map, ObjectId commitId, String name) {
+    if (commitId != null) {
+      map.computeIfAbsent(commitId.copy(), k -> new ArrayList<>(1)).add(name);
+    }
+  }
+
+  /**
+   * Makes the map and its values unmodifiable.
+   *
+   * @param map The map.
+   *
+   * @return An unmodifiable view.
+   */
+  private static Map<ObjectId, List<String>> freeze(Map<ObjectId, List<String>> map) {
+    map.replaceAll((k, v) -> Collections.unmodifiableList(v));
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * @param commitId The commit ID.
+   *
+   * @return The names of the tags that point to the given commit. Never <code>null</code>.
+   */
+  public List<String> getTags(ObjectId commitId) {
+    return tags.getOrDefault(commitId, Collections.emptyList());
+  }
+
+  /**
+   * @param commitId The commit ID.
+   *
+   * @return The names of the local branches that point to the given commit. Never <code>null</code>.
+   */
+  public List<String> getLocalBranches(ObjectId commitId) {
+    return localBranches.getOrDefault(commitId, Collections.emptyList());
+  }
+
+  /**
+   * @param commitId The commit ID.
+   *
+   * @return The names of the remote branches that point to the given commit. Never <code>null</code>.
+   */
+  public List<String> getRemoteBranches(ObjectId commitId) {
+    return remoteBranches.getOrDefault(commitId, Collections.emptyList());
+  }
+}
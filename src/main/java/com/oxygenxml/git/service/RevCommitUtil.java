@@ -9,6 +9,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
@@ -24,6 +27,7 @@ import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -33,13 +37,15 @@ import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
-import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
-import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.NullOutputStream;
 
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.FileStatusOverDiffEntry;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.OperationMetrics;
+import com.oxygenxml.git.utils.OperationTimer;
 import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
 import com.oxygenxml.git.view.historycomponents.CommitsAheadAndBehind;
 
@@ -53,11 +59,78 @@ public class RevCommitUtil {
    */
   private static final Logger logger = Logger.getLogger(RevCommitUtil.class);
   
+  /**
+   * The default time budget of the rename detection, in milliseconds.
+   */
+  private static final long DEFAULT_RENAME_DETECTION_TIME_BUDGET = 5_000;
+  
   /**
    * Utility class. Not indented to be instantiated.
    */
   private RevCommitUtil() {}
   
+  /**
+   * Cancels the rename detection when the time budget is exhausted or when the operation is canceled.
+   */
+  private static final class TimeBudgetMonitor implements ProgressMonitor {
+    /**
+     * The monitor of the operation.
+     */
+    private final ProgressMonitor delegate;
+    /**
+     * The time budget, in milliseconds.
+     */
+    private final long budgetMillis;
+    /**
+     * When the budget is exhausted, as {@link System#nanoTime()}.
+     */
+    private final long deadline;
+
+    /**
+     * Constructor.
+     * 
+     * @param delegate The monitor of the operation.
+     * @param budgetMillis The time budget, in milliseconds.
+     */
+    TimeBudgetMonitor(ProgressMonitor delegate, long budgetMillis) {
+      this.delegate = delegate;
+      this.budgetMillis = budgetMillis;
+      this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * @return <code>true</code> if the time budget is exhausted.
+     */
+    boolean isExpired() {
+      return System.nanoTime() - deadline > 0;
+    }
+
+    @Override
+    public void start(int totalTasks) {
+      delegate.start(totalTasks);
+    }
+
+    @Override
+    public void beginTask(String title, int totalWork) {
+      delegate.beginTask(title, totalWork);
+    }
+
+    @Override
+    public void update(int completed) {
+      delegate.update(completed);
+    }
+
+    @Override
+    public void endTask() {
+      delegate.endTask();
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return delegate.isCancelled() || isExpired();
+    }
+  }
+  
   /**
    * Get changed files as compared with the parent version.
    * 
@@ -69,33 +142,101 @@ public class RevCommitUtil {
    * @throws GitAPIException
    */
   public static List<FileStatus> getChangedFiles(String commitID) throws IOException, GitAPIException {
+    return getChangedFiles(commitID, false);
+  }
+  
+  /**
+   * Get changed files as compared with the parent version.
+   * 
+   * @param commitID The commit ID.
+   * @param exactRenamesOnly <code>true</code> to detect only the renames that keep the content unchanged, which is fast
+   * even for commits that move thousands of files. Call {@link #getChangedFiles(String)} afterwards for the renames
+   * detected by comparing the contents. It returns the same list if there is nothing more to detect.
+   * 
+   * @return A list with changed files. Never <code>null</code>.
+   * 
+   * @throws IOException
+   * @throws GitAPIException
+   */
+  public static List<FileStatus> getChangedFiles(String commitID, boolean exactRenamesOnly) throws IOException, GitAPIException {
     List<FileStatus> changedFiles = Collections.emptyList();
+    ProgressMonitor monitor = GitOperationScheduler.getProgressMonitor();
+    OperationTimer timer = OperationMetrics.getInstance().start(
+        exactRenamesOnly ? "RevCommitUtil.getChangedFiles.exactRenames" : "RevCommitUtil.getChangedFiles");
     try {
       Repository repository = GitAccess.getInstance().getRepository();
       if (!GitAccess.UNCOMMITED_CHANGES.getCommitId().equals(commitID)) {
         ObjectId head = repository.resolve(commitID);
-
-        try (RevWalk rw = new RevWalk(repository)) {
-          RevCommit commit = rw.parseCommit(head);
-          
-          if (commit.getParentCount() > 0) {
-            RevCommit oldC = rw.parseCommit(commit.getParent(0));
-
-            changedFiles = RevCommitUtil.getChanges(repository, commit, oldC);
-          } else {
-            changedFiles = RevCommitUtil.getFiles(repository, commit);
+        ChangedFilesCache cache = ChangedFilesCache.getInstance();
+        String key = ChangedFilesCache.createKey(repository, head, false);
+        List<FileStatus> cached = cache.get(key);
+        if (cached == null && exactRenamesOnly) {
+          cached = cache.get(ChangedFilesCache.createKey(repository, head, true));
+        }
+        
+        if (cached != null) {
+          changedFiles = cached;
+        } else {
+          boolean complete = true;
+          try (RevWalk rw = new RevWalk(repository)) {
+            RevCommit commit = rw.parseCommit(head);
+
+            if (commit.getParentCount() > 0) {
+              RevCommit oldC = rw.parseCommit(commit.getParent(0));
+
+              AtomicBoolean inexactRenamesSkipped = new AtomicBoolean();
+              changedFiles = RevCommitUtil.getChanges(repository, commit, oldC, exactRenamesOnly, inexactRenamesSkipped);
+              // When the time budget was exhausted, the result is the one of the exact renames detection.
+              complete = !inexactRenamesSkipped.get()
+                  && (!exactRenamesOnly || !mayContainInexactRenames(changedFiles));
+            } else {
+              changedFiles = RevCommitUtil.getFiles(repository, commit);
+            }
+          }
+          // A canceled computation may be incomplete.
+          if (!monitor.isCancelled()) {
+            changedFiles = Collections.unmodifiableList(changedFiles);
+            cache.put(complete ? key : ChangedFilesCache.createKey(repository, head, true), changedFiles);
           }
         }
       } else {
         changedFiles = GitAccess.getInstance().getUnstagedFiles();
       }
+      timer.addFiles(changedFiles.size());
     } catch (GitAPIException | RevisionSyntaxException | IOException | NoRepositorySelected e) {
-      logger.error(e, e);
+      if (monitor.isCancelled()) {
+        // Superseded by the selection of another commit.
+        logger.debug(e, e);
+      } else {
+        timer.failed();
+        logger.error(e, e);
+      }
+    } finally {
+      timer.stop();
     }
 
     return changedFiles;
   }
   
+  /**
+   * @param changedFiles Changed files in which only the renames that keep the content unchanged were detected.
+   * 
+   * @return <code>true</code> if comparing the contents of the added and the removed files might detect more renames.
+   * A single pair is already compared.
+   */
+  private static boolean mayContainInexactRenames(List<FileStatus> changedFiles) {
+    int added = 0;
+    int removed = 0;
+    for (FileStatus fileStatus : changedFiles) {
+      if (fileStatus.getChangeType() == GitChangeType.ADD) {
+        added++;
+      } else if (fileStatus.getChangeType() == GitChangeType.REMOVED) {
+        removed++;
+      }
+    }
+    return Math.min(added, removed) > 0 && Math.max(added, removed) > 1;
+  }
+  
   /**
    * Gets the Object ID for a file path at a given revision.
    * 
@@ -125,13 +266,20 @@ public class RevCommitUtil {
    * @param repository Repository.
    * @param newCommit The new commit.
    * @param oldCommit The previous commit.
+   * @param exactRenamesOnly <code>true</code> to detect only the renames that keep the content unchanged.
+   * @param inexactRenamesSkipped Set if the time budget was exhausted and only the exact renames were detected.
    * 
    * @return A list with changed files. Never <code>null</code>.
    * @throws IOException
    * @throws GitAPIException
    */
-  private static List<FileStatus> getChanges(Repository repository, RevCommit newCommit, RevCommit oldCommit) throws IOException, GitAPIException {
-    List<DiffEntry> diffs = diff(repository, newCommit, oldCommit);
+  private static List<FileStatus> getChanges(
+      Repository repository,
+      RevCommit newCommit,
+      RevCommit oldCommit,
+      boolean exactRenamesOnly,
+      AtomicBoolean inexactRenamesSkipped) throws IOException, GitAPIException {
+    List<DiffEntry> diffs = diff(repository, newCommit, oldCommit, exactRenamesOnly, inexactRenamesSkipped);
     
     return diffs
         .stream()
@@ -146,6 +294,9 @@ public class RevCommitUtil {
    * @param repository Repository.
    * @param newCommit The new commit.
    * @param oldCommit The previous commit.
+   * @param exactRenamesOnly <code>true</code> to detect only the renames that keep the content unchanged.
+   * @param inexactRenamesSkipped Set if the time budget was exhausted and only the exact renames were detected.
+   *                              May be <code>null</code>.
    * 
    * @return A list with changed files. Never <code>null</code>.
    * @throws IOException
@@ -154,7 +305,9 @@ public class RevCommitUtil {
   private static List<DiffEntry> diff(
       Repository repository, 
       RevCommit newCommit, 
-      RevCommit oldCommit) throws IOException, GitAPIException {
+      RevCommit oldCommit,
+      boolean exactRenamesOnly,
+      AtomicBoolean inexactRenamesSkipped) throws IOException, GitAPIException {
     List<DiffEntry> collect = Collections.emptyList();
     try (ObjectReader reader = repository.newObjectReader()) {
       CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
@@ -168,21 +321,78 @@ public class RevCommitUtil {
 
       // finally get the list of changed files
       try (Git git = new Git(repository)) {
+        // Stops when the scheduled operation is canceled or superseded.
+        ProgressMonitor monitor = GitOperationScheduler.getProgressMonitor();
         List<DiffEntry> diffs= git.diff()
             .setNewTree(newTreeIter)
             .setOldTree(oldTreeIter)
+            .setProgressMonitor(monitor)
             .call();
         
         // Identify potential renames.
-        RenameDetector rd = new RenameDetector(git.getRepository());
-        rd.addAll(diffs);
-        collect = rd.compute();
+        collect = detectRenames(repository, diffs, exactRenamesOnly, monitor, inexactRenamesSkipped);
       }
     }
 
     return collect;
   }
   
+  /**
+   * Identifies the renames among the changes. The renames that keep the content unchanged are found by comparing
+   * the object IDs, which is fast. The others are found by comparing the contents of the added and the removed files,
+   * which is slow for large changes, so it is limited by {@link GitAddonSystemProperties#RENAME_DETECTION_LIMIT} and
+   * {@link GitAddonSystemProperties#RENAME_DETECTION_TIME_BUDGET}.
+   * 
+   * @param repository The repository.
+   * @param diffs The changes.
+   * @param exactRenamesOnly <code>true</code> to detect only the renames that keep the content unchanged.
+   * @param monitor Progress monitor. Cancels the detection.
+   * @param inexactRenamesSkipped Set if the time budget was exhausted and only the exact renames were detected.
+   *                              May be <code>null</code>.
+   * 
+   * @return The changes, with the renames identified.
+   * 
+   * @throws IOException If it fails or it is canceled.
+   */
+  private static List<DiffEntry> detectRenames(
+      Repository repository,
+      List<DiffEntry> diffs,
+      boolean exactRenamesOnly,
+      ProgressMonitor monitor,
+      AtomicBoolean inexactRenamesSkipped) throws IOException {
+    List<DiffEntry> renames;
+    RenameDetector rd = new RenameDetector(repository);
+    rd.addAll(diffs);
+    if (exactRenamesOnly) {
+      // The contents are compared only for a single added and removed pair, which is cheap.
+      rd.setRenameLimit(1);
+      renames = rd.compute(monitor);
+    } else {
+      Integer renameLimit = Integer.getInteger(GitAddonSystemProperties.RENAME_DETECTION_LIMIT);
+      if (renameLimit != null) {
+        rd.setRenameLimit(renameLimit);
+      }
+      TimeBudgetMonitor budgetMonitor = new TimeBudgetMonitor(
+          monitor,
+          Long.getLong(GitAddonSystemProperties.RENAME_DETECTION_TIME_BUDGET, DEFAULT_RENAME_DETECTION_TIME_BUDGET));
+      try {
+        renames = rd.compute(budgetMonitor);
+      } catch (IOException e) {
+        if (!budgetMonitor.isExpired() || monitor.isCancelled()) {
+          throw e;
+        }
+        logger.warn("Rename detection abandoned after " + budgetMonitor.budgetMillis + " ms, for "
+            + diffs.size() + " changes. Only the renames that keep the content unchanged are presented.");
+        renames = detectRenames(repository, diffs, true, monitor, null);
+        if (inexactRenamesSkipped != null) {
+          inexactRenamesSkipped.set(true);
+        }
+      }
+    }
+    
+    return renames;
+  }
+  
   /**
    * Iterates over the entire tree of files inside a commit. <b>Note:</b> Not just hte changes, the entire tree.
    * 
@@ -198,6 +408,7 @@ public class RevCommitUtil {
 
     try (DiffFormatter diffFmt = new DiffFormatter(NullOutputStream.INSTANCE)) {
       diffFmt.setRepository(repository);
+      diffFmt.setProgressMonitor(GitOperationScheduler.getProgressMonitor());
 
       for(DiffEntry diff: diffFmt.scan(null, commit.getTree())) {
         collect.add(new FileStatusOverDiffEntry(diff, commit.getId().name(), null));
@@ -245,7 +456,7 @@ public class RevCommitUtil {
       RevCommit commit,
       String path) throws IOException, GitAPIException {
     DiffEntry toReturn = null;
-    List<DiffEntry> diffs = diff(repository, commit, parent);
+    List<DiffEntry> diffs = diff(repository, commit, parent, false, null);
     for (DiffEntry diffEntry : diffs) {
       if (isRename(diffEntry) && diffEntry.getNewPath().equals(path)) {
         toReturn = diffEntry;
@@ -284,31 +495,8 @@ public class RevCommitUtil {
       String filePath, 
       List<CommitCharacteristics> revisions, 
       Repository repository) throws IOException, GitAPIException {
-    
- // a RevWalk allows to walk over commits based on some filtering that is defined
-    // EXM-44307 Show current branch commits only.
-    String fullBranch = repository.getFullBranch();
-    Ref branchHead = repository.exactRef(fullBranch);
-    if (branchHead != null) {
-      try (RevWalk revWalk = new RevWalk(repository)) {
-        
-        RevCommit revCommit = revWalk.parseCommit(branchHead.getObjectId());
-        revWalk.markStart(revCommit);
-
-        // If we have a remote, put it as well.
-        String fullRemoteBranchName = getUpstreamBranchName(repository, repository.getBranch());
-        if (fullRemoteBranchName != null) {
-          Ref fullRemoteBranchHead = repository.exactRef(fullRemoteBranchName);
-          if (fullRemoteBranchHead != null) {
-            revWalk.markStart(revWalk.parseCommit(fullRemoteBranchHead.getObjectId()));
-          }
-        }
-        
-        collectRevisions(filePath, revisions, repository, revWalk);
-      }
-      
-    } else {
-      // Probably a new repository without any history. 
+    try (CommitHistoryCursor cursor = new CommitHistoryCursor(repository, filePath)) {
+      revisions.addAll(cursor.next(Integer.MAX_VALUE));
     }
   }
   
@@ -328,103 +516,27 @@ public class RevCommitUtil {
   }
 
   /**
-   * Collects all the revisions by waking the revision iterator.
-   * 
-   * @param filePath An optional resource path. If not null, only the revisions that changed this resource are collected.
-   * @param revisions Revisions are collected in here.
-   * @param repository Loaded repository.
-   * @param revWalk Revision iterator.
-   * 
-   * @throws IOException
-   * @throws GitAPIException
-   */
-  private static void collectRevisions(
-      String filePath, 
-      List<CommitCharacteristics> commitVector, 
-      Repository repository,
-      RevWalk revWalk) throws IOException, GitAPIException {
-    
-    if (filePath != null) {
-      revWalk.setTreeFilter(
-          AndTreeFilter.create(
-              PathFilterGroup.createFromStrings(filePath),
-              TreeFilter.ANY_DIFF)
-          );
-    }
-
-    RevCommit lastProcessedRevision = null;
-    for (RevCommit commit : revWalk) {
-      appendRevCommit(commitVector, commit);
-      
-      lastProcessedRevision = commit;
-    }
-    
-    // If we are following a resource, check for rename events.
-    if (filePath != null && lastProcessedRevision != null) {
-      handleRename(filePath, commitVector, repository, lastProcessedRevision);
-    }
-  }
-
-  /**
-   * Checks for a rename operation. If the resource was renamed between the current revision and the previous one,
-   * it will continue collecting revisions based on the previous resource name/path.  
-   * 
-   * @param filePath An optional resource path. If not null, only the revisions that changed this resource are collected.
-   * @param revisions Revisions are collected in here.
-   * @param repository Loaded repository.
-   * @param current The last revision encountered for the file path.
+   * Creates the record presented in the history for a commit.
    * 
-   * @throws IOException
-   * @throws GitAPIException
-   */
-  private static void handleRename(
-      String filePath, 
-      List<CommitCharacteristics> commitVector, 
-      Repository repository,
-      RevCommit current)
-      throws IOException, GitAPIException {
-    try (RevWalk revWalk = new RevWalk(repository);) {
-      current = revWalk.parseCommit(current.getId());
-
-      if (current.getParentCount() > 0) {
-        RevCommit parent = current.getParent(0);
-        revWalk.parseHeaders(parent);
-
-        Optional<DiffEntry> renameRev = RevCommitUtil.findRename(repository, parent, current, filePath);
-        if (renameRev.isPresent()) {
-          String oldPath = renameRev.get().getOldPath();
-
-          revWalk.markStart(current);
-          
-          // We will re-append this commit but this time it will be linked to 
-          commitVector.remove(commitVector.size() - 1);
-          collectRevisions(oldPath, commitVector, repository, revWalk);
-        }
-      }
-    }
-  }
-
-  /**
-   * Adds the revision into the collecting list.
+   * @param commit The commit. Its body must be parsed.
+   * @param share Returns a shared instance for an author or committer name.
    * 
-   * @param revisions Revisions are collected in here.
-   * @param commit Revision to collect.
+   * @return The commit characteristics.
    */
-  private static void appendRevCommit(List<CommitCharacteristics> revisions, RevCommit commit) {
+  static CommitCharacteristics toCommitCharacteristics(RevCommit commit, UnaryOperator<String> share) {
     String commitMessage = commit.getFullMessage();
     PersonIdent authorIdent = commit.getAuthorIdent();
-    String author = authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">";
+    String author = share.apply(authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">");
     Date authorDate = authorIdent.getWhen();
     String abbreviatedId = commit.getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name();
     String id = commit.getId().getName();
 
     PersonIdent committerIdent = commit.getCommitterIdent();
-    String committer = committerIdent.getName();
+    String committer = share.apply(committerIdent.getName());
     List<String> parentsIds = getParentsId(commit);
 
-    // add commit element in vector
-    revisions.add(new CommitCharacteristics(commitMessage, authorDate, author, abbreviatedId, id,
-        committer, parentsIds));
+    return new CommitCharacteristics(commitMessage, authorDate, author, abbreviatedId, id,
+        committer, parentsIds);
   }
 
   /**
@@ -574,7 +686,7 @@ public class RevCommitUtil {
               logger.info("Search for a rename at revision " + revCommit.getFullMessage());
             }
             
-            List<DiffEntry> diff = diff(git.getRepository(), revCommit, previous);
+            List<DiffEntry> diff = diff(git.getRepository(), revCommit, previous, false, null);
             for (DiffEntry diffEntry : diff) {
               if (isRename(diffEntry) 
                   && path.equals(diffEntry.getOldPath())) {
@@ -698,15 +810,15 @@ public class RevCommitUtil {
       FileTreeIterator it = new FileTreeIterator(repository);
 
       // Compute diff.
+      ProgressMonitor monitor = GitOperationScheduler.getProgressMonitor();
       List<DiffEntry> diffs= git.diff()
           .setNewTree(it)
           .setOldTree(headTreeIter)
+          .setProgressMonitor(monitor)
           .call();
 
       // Search for renames.
-      RenameDetector rd = new RenameDetector(repository);
-      rd.addAll(diffs);
-      List<DiffEntry> collect = rd.compute();
+      List<DiffEntry> collect = detectRenames(repository, diffs, false, monitor, null);
       
       for (DiffEntry diffEntry : collect) {
         if (isRename(diffEntry) && diffEntry.getOldPath().equals(path)) {
@@ -725,7 +837,7 @@ public class RevCommitUtil {
    * @param repository Current repo.
    * @param branchName Current branch.
    * 
-   * @return a structure that contains the lists of commits ahead and behind or <code>null</code>.
+   * @return a structure that contains the IDs of the commits ahead and behind or <code>null</code>.
    * 
    * @throws IOException
    */
@@ -749,23 +861,40 @@ public class RevCommitUtil {
     if (local == null)
       return null;
 
-    try (RevWalk walk = new RevWalk(repository)) {
-
-      RevCommit localCommit = walk.parseCommit(local.getObjectId());
-      RevCommit trackingCommit = walk.parseCommit(tracking.getObjectId());
-
-      walk.setRevFilter(RevFilter.MERGE_BASE);
-      walk.markStart(localCommit);
-      walk.markStart(trackingCommit);
-      RevCommit mergeBase = walk.next();
-
-      walk.reset();
-      walk.setRevFilter(RevFilter.ALL);
-      List<RevCommit> commitsAhead = RevWalkUtils.find(walk, localCommit, mergeBase);
-      List<RevCommit> commitsBehind = RevWalkUtils.find(walk, trackingCommit, mergeBase);
-
-      return new CommitsAheadAndBehind(commitsAhead, commitsBehind);
+    // The result depends only on the two tips, so it is shared by all the callers until a branch moves.
+    String key = CommitsAheadAndBehindCache.createKey(repository, local.getObjectId(), tracking.getObjectId());
+    CommitsAheadAndBehind commitsAheadAndBehind = CommitsAheadAndBehindCache.getInstance().get(key);
+    if (commitsAheadAndBehind == null) {
+      OperationTimer timer = OperationMetrics.getInstance().start("RevCommitUtil.getCommitsAheadAndBehind");
+      try (RevWalk walk = new RevWalk(repository)) {
+        // Only the IDs are kept.
+        walk.setRetainBody(false);
+
+        RevCommit localCommit = walk.parseCommit(local.getObjectId());
+        RevCommit trackingCommit = walk.parseCommit(tracking.getObjectId());
+
+        walk.setRevFilter(RevFilter.MERGE_BASE);
+        walk.markStart(localCommit);
+        walk.markStart(trackingCommit);
+        RevCommit mergeBase = walk.next();
+
+        walk.reset();
+        walk.setRevFilter(RevFilter.ALL);
+        List<RevCommit> commitsAhead = RevWalkUtils.find(walk, localCommit, mergeBase);
+        List<RevCommit> commitsBehind = RevWalkUtils.find(walk, trackingCommit, mergeBase);
+        timer.addCommits(commitsAhead.size() + commitsBehind.size());
+
+        commitsAheadAndBehind = new CommitsAheadAndBehind(commitsAhead, commitsBehind);
+        CommitsAheadAndBehindCache.getInstance().put(key, commitsAheadAndBehind);
+      } catch (IOException e) {
+        timer.failed();
+        throw e;
+      } finally {
+        timer.stop();
+      }
     }
+
+    return commitsAheadAndBehind;
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+
+/**
+ * The status of all the submodules (path, HEAD and index IDs), computed in a single pass.
+ * The set of submodules depends only on the index and on the ".gitmodules" file, so the
+ * snapshot knows when it no longer describes them.
+ */
+final class SubmoduleSnapshot {
+  /**
+   * A snapshot without submodules. It is never up to date, so it gets replaced on the next request.
+   */
+  static final SubmoduleSnapshot EMPTY = new SubmoduleSnapshot(Collections.emptyMap(), "");
+  
+  /**
+   * Submodule path -> status.
+   */
+  private final Map<String, SubmoduleStatus> statuses;
+  /**
+   * A stamp of the index and of the ".gitmodules" file, taken before computing the statuses.
+   */
+  private final String stamp;
+
+  /**
+   * Constructor.
+   *
+   * @param statuses Submodule path -> status.
+   * @param stamp    A stamp of the index and of the ".gitmodules" file.
+   */
+  private SubmoduleSnapshot(Map<String, SubmoduleStatus> statuses, String stamp) {
+    this.statuses = Collections.unmodifiableMap(statuses);
+    this.stamp = stamp;
+  }
+
+  /**
+   * Computes the status of all the submodules.
+   *
+   * @param git The repository.
+   *
+   * @return The snapshot. Never <code>null</code>.
+   *
+   * @throws GitAPIException Unable to compute the status.
+   */
+  static SubmoduleSnapshot compute(Git git) throws GitAPIException {
+    // Take the stamp first. A change done during the computation will invalidate the snapshot.
+    String stamp = readStamp(git.getRepository());
+    return new SubmoduleSnapshot(git.submoduleStatus().call(), stamp);
+  }
+
+  /**
+   * @param repository The repository.
+   *
+   * @return <code>true</code> if the index and the ".gitmodules" file didn't change since
+   * this snapshot was computed.
+   */
+  boolean isUpToDate(Repository repository) {
+    return stamp.equals(readStamp(repository));
+  }
+
+  /**
+   * @return The paths of the submodules.
+   */
+  Set<String> getPaths() {
+    return statuses.keySet();
+  }
+
+  /**
+   * @param path The path of a submodule.
+   *
+   * @return <code>true</code> if the submodule is checked out on another commit than the
+   * one recorded in the index.
+   */
+  boolean isCheckedOutOnAnotherCommit(String path) {
+    SubmoduleStatus submoduleStatus = statuses.get(path);
+    return submoduleStatus != null
+        && submoduleStatus.getHeadId() != null
+        && !submoduleStatus.getHeadId().equals(submoduleStatus.getIndexId());
+  }
+
+  /**
+   * @param repository The repository.
+   *
+   * @return A stamp of the index and of the ".gitmodules" file.
+   */
+  private static String readStamp(Repository repository) {
+    File indexFile = repository.getIndexFile();
+    File modulesFile = new File(repository.getWorkTree(), Constants.DOT_GIT_MODULES);
+    return indexFile.lastModified() + ":" + indexFile.length()
+        + ":" + modulesFile.lastModified() + ":" + modulesFile.length();
+  }
+}
@@ -0,0 +1,415 @@
+package com.oxygenxml.git.service;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.view.event.GitCommandState;
+import com.oxygenxml.git.view.event.GitEvent;
+
+/**
+ * Keeps the status of the working copy in memory and updates it incrementally. A file system
+ * watcher collects the resources changed since the last refresh and only those are diffed again.
+ * The entire working copy is scanned only when the watcher overflows, when the index or HEAD were
+ * changed by an external tool, or when a full scan is explicitly requested.
+ */
+public class WorkingCopyStatusEngine {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(WorkingCopyStatusEngine.class);
+  /**
+   * When more resources than this changed, a full scan is cheaper than a path filter with all of them.
+   */
+  private static final int MAX_DIRTY_PATHS = 500;
+  /**
+   * Watches the directories of the working copy. <code>null</code> when not watching.
+   */
+  private WatchService watchService;
+  /**
+   * The watched directories.
+   */
+  private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+  /**
+   * The working tree of the watched repository.
+   */
+  private Path workTree;
+  /**
+   * <code>true</code> if the working copy can't be watched. Every refresh will scan the entire working copy.
+   */
+  private boolean watchFailed;
+  /**
+   * <code>true</code> to scan the entire working copy on the next refresh.
+   */
+  private boolean fullScanRequested = true;
+  /**
+   * Paths changed since the last refresh, relative to the working tree.
+   */
+  private final Set<String> dirtyPaths = new HashSet<>();
+  /**
+   * <code>true</code> if one of our own commands changed the index. The affected paths are already dirty.
+   */
+  private boolean expectingOwnMetadataChange;
+  /**
+   * A stamp of the index and HEAD, taken when the snapshot was computed.
+   */
+  private String metadataStamp;
+  /**
+   * Snapshot with the unstaged files.
+   */
+  private List<FileStatus> unstagedFiles = Collections.emptyList();
+  /**
+   * Snapshot with the staged files.
+   */
+  private List<FileStatus> stagedFiles = Collections.emptyList();
+
+  /**
+   * Gets the status of the working copy, updating the snapshot with the changes detected since
+   * the last call.
+   *
+   * @return The status. Never <code>null</code>.
+   */
+  public synchronized GitStatus getStatus() {
+    GitAccess gitAccess = GitAccess.getInstance();
+    if (!gitAccess.isRepoInitialized()) {
+      return new GitStatus(Collections.emptyList(), Collections.emptyList());
+    }
+    if (Boolean.getBoolean(GitAddonSystemProperties.DISABLE_WORKING_COPY_WATCHER)) {
+      return gitAccess.getStatus();
+    }
+
+    collectChanges();
+    if (!fullScanRequested && !expectingOwnMetadataChange && !readMetadataStamp().equals(metadataStamp)) {
+      logger.debug("Index or HEAD changed outside the plugin. Scan the entire working copy.");
+      fullScanRequested = true;
+    }
+
+    if (fullScanRequested || watchService == null || dirtyPaths.size() > MAX_DIRTY_PATHS) {
+      fullScan(gitAccess);
+    } else if (!dirtyPaths.isEmpty()) {
+      partialScan(gitAccess);
+    }
+    expectingOwnMetadataChange = false;
+
+    return new GitStatus(new ArrayList<>(unstagedFiles), new ArrayList<>(stagedFiles));
+  }
+
+  /**
+   * Checks if there is something to commit. Untracked files don't count. The answer comes from the
+   * snapshot, so only the resources changed since the last refresh are diffed again.
+   *
+   * @return <code>true</code> if there are staged files or modified tracked files.
+   */
+  public synchronized boolean hasUncommittedChanges() {
+    GitStatus status = getStatus();
+    return !status.getStagedFiles().isEmpty() 
+        || status.getUnstagedFiles().stream().anyMatch(file -> file.getChangeType() != GitChangeType.UNTRACKED);
+  }
+
+  /**
+   * The entire working copy will be scanned on the next refresh.
+   */
+  public synchronized void requestFullScan() {
+    fullScanRequested = true;
+  }
+
+  /**
+   * Marks the given resources as changed. They will be diffed again on the next refresh.
+   *
+   * @param paths Paths relative to the working tree.
+   */
+  public synchronized void markDirty(Collection<String> paths) {
+    dirtyPaths.addAll(paths);
+  }
+
+  /**
+   * A Git command changed the state of some files.
+   *
+   * @param changeEvent The event.
+   */
+  synchronized void stateChanged(GitEvent changeEvent) {
+    GitCommandState state = changeEvent.getGitComandState();
+    if (state == GitCommandState.SUCCESSFULLY_ENDED || state == GitCommandState.FAILED) {
+      Collection<String> affectedFiles = changeEvent.getAffectedFiles();
+      if (affectedFiles.isEmpty()) {
+        fullScanRequested = true;
+      } else {
+        dirtyPaths.addAll(affectedFiles);
+        expectingOwnMetadataChange = true;
+      }
+    }
+  }
+
+  /**
+   * Drops the snapshot and stops watching. Called when the repository changes or is closed.
+   */
+  synchronized void reset() {
+    closeWatcher();
+    watchFailed = false;
+    fullScanRequested = true;
+    dirtyPaths.clear();
+    expectingOwnMetadataChange = false;
+    metadataStamp = null;
+    unstagedFiles = Collections.emptyList();
+    stagedFiles = Collections.emptyList();
+  }
+
+  /**
+   * Scans the entire working copy.
+   *
+   * @param gitAccess Git access.
+   */
+  private void fullScan(GitAccess gitAccess) {
+    logger.debug("Full working copy scan.");
+    fullScanRequested = false;
+    dirtyPaths.clear();
+    if (watchService == null && !watchFailed) {
+      startWatching(gitAccess);
+    }
+
+    // Take the stamp before the scan. Changes done during the scan will be detected next time.
+    metadataStamp = readMetadataStamp();
+    GitStatus status = gitAccess.getStatus();
+    unstagedFiles = status.getUnstagedFiles();
+    stagedFiles = status.getStagedFiles();
+  }
+
+  /**
+   * Diffs again just the dirty paths and merges the result into the snapshot.
+   *
+   * @param gitAccess Git access.
+   */
+  private void partialScan(GitAccess gitAccess) {
+    Set<String> paths = new HashSet<>(dirtyPaths);
+    dirtyPaths.clear();
+    if (logger.isDebugEnabled()) {
+      logger.debug("Partial working copy scan: " + paths);
+    }
+
+    metadataStamp = readMetadataStamp();
+    GitStatus status = gitAccess.getStatus(paths);
+    unstagedFiles = merge(unstagedFiles, status.getUnstagedFiles(), paths);
+    stagedFiles = merge(stagedFiles, status.getStagedFiles(), paths);
+  }
+
+  /**
+   * Replaces the entries from the given paths with the newly computed ones.
+   *
+   * @param snapshot The current entries.
+   * @param newFiles The entries computed for the given paths.
+   * @param paths    The paths that were diffed again.
+   *
+   * @return The updated entries.
+   */
+  private static List<FileStatus> merge(List<FileStatus> snapshot, List<FileStatus> newFiles, Set<String> paths) {
+    List<FileStatus> merged = new ArrayList<>(snapshot.size() + newFiles.size());
+    for (FileStatus fileStatus : snapshot) {
+      if (!isUnder(fileStatus.getFileLocation(), paths)) {
+        merged.add(fileStatus);
+      }
+    }
+    for (FileStatus fileStatus : newFiles) {
+      // Submodules are always reported. Keep just the entries from the diffed paths.
+      if (isUnder(fileStatus.getFileLocation(), paths)) {
+        merged.add(fileStatus);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Checks if a path is one of the given paths or is inside one of them.
+   *
+   * @param path  The path to check.
+   * @param paths The paths.
+   *
+   * @return <code>true</code> if the path is one of the given paths or one of their descendants.
+   */
+  private static boolean isUnder(String path, Set<String> paths) {
+    if (paths.contains(path)) {
+      return true;
+    }
+    int index = path.indexOf('/');
+    while (index != -1) {
+      if (paths.contains(path.substring(0, index))) {
+        return true;
+      }
+      index = path.indexOf('/', index + 1);
+    }
+    return false;
+  }
+
+  /**
+   * @return A stamp of the index file and the HEAD commit.
+   */
+  private static String readMetadataStamp() {
+    StringBuilder stamp = new StringBuilder();
+    try {
+      Repository repository = GitAccess.getInstance().getRepository();
+      File indexFile = repository.getIndexFile();
+      stamp.append(indexFile.lastModified()).append(':').append(indexFile.length());
+
+      Ref head = repository.exactRef(Constants.HEAD);
+      ObjectId headId = head != null ? head.getObjectId() : null;
+      stamp.append(':').append(headId != null ? headId.name() : "");
+    } catch (NoRepositorySelected | IOException e) {
+      logger.debug(e, e);
+    }
+    return stamp.toString();
+  }
+
+  /**
+   * Starts watching the working tree.
+   *
+   * @param gitAccess Git access.
+   */
+  private void startWatching(GitAccess gitAccess) {
+    try {
+      workTree = gitAccess.getWorkingCopy().toPath();
+      watchService = workTree.getFileSystem().newWatchService();
+      if (watchService.getClass().getName().contains("Polling")) {
+        // No native support. The changes would be reported with a delay of a few seconds.
+        logger.debug("No native file system notifications. Scan the entire working copy on each refresh.");
+        closeWatcher();
+        watchFailed = true;
+      } else {
+        registerTree(workTree);
+      }
+    } catch (IOException | NoRepositorySelected e) {
+      logger.warn("Unable to watch the working copy. It will be entirely scanned on each refresh: " + e.getMessage());
+      logger.debug(e, e);
+      closeWatcher();
+      watchFailed = true;
+    }
+  }
+
+  /**
+   * Registers the given directory and all its descendants. The Git directory and nested
+   * repositories are skipped.
+   *
+   * @param start The directory.
+   *
+   * @throws IOException Unable to register a directory.
+   */
+  private void registerTree(Path start) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (Constants.DOT_GIT.equals(String.valueOf(dir.getFileName()))
+            || !dir.equals(workTree) && Files.exists(dir.resolve(Constants.DOT_GIT))) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        // Probably deleted in the meantime.
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Collects the paths reported by the watcher since the last refresh.
+   */
+  private void collectChanges() {
+    try {
+      WatchKey key;
+      while (watchService != null && (key = watchService.poll()) != null) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            logger.debug("Watcher overflow.");
+            fullScanRequested = true;
+          } else if (dir != null) {
+            treatWatchEvent(dir.resolve((Path) event.context()), event.kind());
+          }
+        }
+        if (!key.reset()) {
+          // The directory was deleted. Its parent reported it.
+          watchedDirs.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      logger.debug(e, e);
+      fullScanRequested = true;
+    }
+  }
+
+  /**
+   * Treats a change reported by the watcher.
+   *
+   * @param child The changed resource.
+   * @param kind  The type of change.
+   */
+  private void treatWatchEvent(Path child, WatchEvent.Kind<?> kind) {
+    boolean isDir = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+    // A directory is reported as modified when its content changes. Its own watcher reports the actual change.
+    if (kind != ENTRY_MODIFY || !isDir) {
+      String path = workTree.relativize(child).toString().replace(File.separatorChar, '/');
+      if (!path.equals(Constants.DOT_GIT) && !path.startsWith(Constants.DOT_GIT + "/")) {
+        dirtyPaths.add(path);
+        if (kind == ENTRY_CREATE && isDir) {
+          try {
+            registerTree(child);
+          } catch (IOException e) {
+            logger.warn("Unable to watch the working copy. It will be entirely scanned on each refresh: " + e.getMessage());
+            logger.debug(e, e);
+            closeWatcher();
+            watchFailed = true;
+            fullScanRequested = true;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops watching.
+   */
+  private void closeWatcher() {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        logger.debug(e, e);
+      }
+      watchService = null;
+    }
+    watchedDirs.clear();
+    workTree = null;
+  }
+}
@@ -885,6 +885,11 @@ public class Tags {
    */
   public static final String NOTHING_TO_SHOW_FOR_NEW_FILES = "Nothing_to_show_for_new_files";
   
+  /**
+   * The title of the dialog that presents the progress of a blame.
+   */
+  public static final String COMPUTING_BLAME = "Computing_blame";
+  
   /**
    * This operation requires saving {0}.
    */
@@ -965,4 +970,19 @@ public class Tags {
    */
   public static final String CANNOT_CHECKOUT_NEW_BRANCH_WHEN_HAVING_CONFLICTS = 
       "Cannot_checkout_new_branch_when_having_conflicts";
+  
+  /**
+   * Git diagnostics. The dialog with the measurements of the Git operations.
+   */
+  public static final String GIT_DIAGNOSTICS = "Git_diagnostics";
+  
+  /**
+   * Reset the measurements of the Git operations.
+   */
+  public static final String RESET_MEASUREMENTS = "Reset_measurements";
+  
+  /**
+   * Export the measurements of the Git operations.
+   */
+  public static final String EXPORT_MEASUREMENTS = "Export_measurements";
 }
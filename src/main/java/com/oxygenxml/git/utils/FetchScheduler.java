@@ -0,0 +1,240 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.git.options.OptionsManager;
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.utils.PanelRefresh.RepositoryStatus;
+
+/**
+ * Fetches from the remote in the background, at a configurable interval, independently of the
+ * refreshes of the local status. When the remote can't be reached, the interval is doubled
+ * with each failure, up to {@link #MAX_BACKOFF_FACTOR} times.
+ *
+ * The timer runs on its own daemon thread, but the fetch itself is executed on the
+ * {@link GitOperationScheduler} thread, like all the other Git operations.
+ */
+public class FetchScheduler {
+  /**
+   * Performs the fetch.
+   */
+  public interface FetchOperation {
+    /**
+     * Fetches from the remote. Called on the Git operations thread.
+     * 
+     * @param interactive <code>true</code> if the user started the fetch and can be asked for credentials.
+     * 
+     * @return The status of the remote.
+     */
+    RepositoryStatus fetch(boolean interactive);
+  }
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(FetchScheduler.class);
+  /**
+   * The maximum factor applied on the fetch interval after consecutive failures.
+   */
+  static final int MAX_BACKOFF_FACTOR = 8;
+  /**
+   * Performs the fetch and reports the status of the remote.
+   */
+  private final FetchOperation fetchOperation;
+  /**
+   * Triggers the periodic fetch. <code>null</code> when not started.
+   */
+  private ScheduledExecutorService timer;
+  /**
+   * The next periodic fetch.
+   */
+  private ScheduledFuture<?> nextFetch;
+  /**
+   * A fetch waiting to be executed on the Git operations thread.
+   */
+  private ScheduledFuture<?> pendingFetch;
+  /**
+   * <code>true</code> if the user asked for the pending fetch.
+   */
+  private boolean pendingInteractive;
+  /**
+   * The number of consecutive fetches that couldn't reach the remote.
+   */
+  private int consecutiveFailures;
+  /**
+   * The time of the last successful fetch, in milliseconds. -1 if there wasn't one.
+   */
+  private volatile long lastFetchTime = -1;
+  /**
+   * The working copy of the last fetch.
+   */
+  private File lastFetchedWorkingCopy;
+
+  /**
+   * Constructor.
+   *
+   * @param fetchOperation Performs the fetch and reports the status of the remote.
+   */
+  public FetchScheduler(FetchOperation fetchOperation) {
+    this.fetchOperation = fetchOperation;
+  }
+
+  /**
+   * Starts fetching periodically, at the interval from the options. Does nothing if
+   * the interval is not positive.
+   */
+  public synchronized void start() {
+    if (timer == null && getIntervalMillis() > 0) {
+      timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Git Fetch Timer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduleNext();
+    }
+  }
+
+  /**
+   * Stops the periodic fetch.
+   */
+  public synchronized void stop() {
+    if (timer != null) {
+      timer.shutdownNow();
+      timer = null;
+      nextFetch = null;
+    }
+  }
+
+  /**
+   * Fetches as soon as possible, without asking the user for credentials.
+   * The periodic fetch is re-scheduled afterwards.
+   */
+  public void fetchNow() {
+    fetchNow(false);
+  }
+
+  /**
+   * Fetches as soon as possible. The periodic fetch is re-scheduled afterwards.
+   * 
+   * @param interactive <code>true</code> if the user started the fetch and can be asked for credentials.
+   * A pending background fetch becomes interactive.
+   */
+  public synchronized void fetchNow(boolean interactive) {
+    pendingInteractive |= interactive;
+    if (pendingFetch == null || pendingFetch.isDone()) {
+      pendingFetch = GitOperationScheduler.getInstance().schedule(
+          GitOperationScheduler.Lane.NETWORK,
+          interactive ? GitOperationScheduler.Priority.INTERACTIVE : GitOperationScheduler.Priority.BACKGROUND,
+          null,
+          this::fetch,
+          0);
+    }
+  }
+
+  /**
+   * Fetches if the last fetch was for another working copy.
+   * Called from the Git operations thread.
+   */
+  public synchronized void fetchIfRepositoryChanged() {
+    try {
+      if (!GitAccess.getInstance().getWorkingCopy().equals(lastFetchedWorkingCopy)) {
+        fetchNow();
+      }
+    } catch (NoRepositorySelected e) {
+      logger.debug(e, e);
+    }
+  }
+
+  /**
+   * Fetches and schedules the next periodic fetch.
+   */
+  private void fetch() {
+    boolean interactive;
+    synchronized (this) {
+      // From now on, a new request must schedule another fetch.
+      pendingFetch = null;
+      interactive = pendingInteractive;
+      pendingInteractive = false;
+    }
+    GitAccess gitAccess = GitAccess.getInstance();
+    if (gitAccess.isRepoInitialized()) {
+      try {
+        File workingCopy = gitAccess.getWorkingCopy();
+        synchronized (this) {
+          if (!workingCopy.equals(lastFetchedWorkingCopy)) {
+            // Another repository. Forget about the previous remote.
+            lastFetchedWorkingCopy = workingCopy;
+            consecutiveFailures = 0;
+            lastFetchTime = -1;
+          }
+        }
+      } catch (NoRepositorySelected e) {
+        logger.debug(e, e);
+      }
+      
+      RepositoryStatus status = fetchOperation.fetch(interactive);
+      synchronized (this) {
+        if (status == RepositoryStatus.AVAILABLE) {
+          consecutiveFailures = 0;
+          lastFetchTime = System.currentTimeMillis();
+        } else {
+          consecutiveFailures++;
+        }
+      }
+    }
+    scheduleNext();
+  }
+
+  /**
+   * Schedules the next periodic fetch, if started.
+   */
+  private synchronized void scheduleNext() {
+    if (nextFetch != null) {
+      nextFetch.cancel(false);
+      nextFetch = null;
+    }
+    long interval = getIntervalMillis();
+    if (timer != null && interval > 0) {
+      long delay = interval * getBackoffFactor();
+      if (logger.isDebugEnabled()) {
+        logger.debug("Next fetch in " + delay + " ms");
+      }
+      // The timer only hands the fetch to the Git operations thread.
+      nextFetch = timer.schedule(() -> fetchNow(false), delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @return The factor to apply on the fetch interval, given the consecutive failures.
+   */
+  synchronized int getBackoffFactor() {
+    return 1 << Math.min(consecutiveFailures, Integer.numberOfTrailingZeros(MAX_BACKOFF_FACTOR));
+  }
+
+  /**
+   * @return The fetch interval from the options, in milliseconds.
+   */
+  private static long getIntervalMillis() {
+    return TimeUnit.MINUTES.toMillis(OptionsManager.getInstance().getFetchInterval());
+  }
+
+  /**
+   * @return The time of the last successful fetch, in milliseconds, or -1 if there wasn't one.
+   */
+  public long getLastFetchTime() {
+    return lastFetchTime;
+  }
+
+  /**
+   * @return How long ago was the last successful fetch, in milliseconds, or -1 if there wasn't one.
+   */
+  public long getLastFetchAge() {
+    return lastFetchTime == -1 ? -1 : System.currentTimeMillis() - lastFetchTime;
+  }
+}
@@ -1,7 +1,6 @@
 package com.oxygenxml.git.utils;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -260,10 +259,8 @@ public class FileHelper {
    * @return <code>true</code> if the path corresponds to a Git repository.
    */
   public static boolean isGitRepository(File folder) {
-    FileFilter filter = pathname -> pathname.isDirectory() && ".git".equals(pathname.getName());
-    File[] listOfFiles = folder.listFiles(filter);
-
-		return listOfFiles != null && listOfFiles.length > 0;
+    // A single file system call, instead of listing the folder.
+    return new File(folder, ".git").isDirectory();
   }
 	
 	/**
@@ -274,15 +271,7 @@ public class FileHelper {
 	 * @return <code>true</code> if the given file is part of a Git repository.
 	 */
   public static boolean isFromGitRepo(File file) {
-    boolean isGit = false;
-    File temp = file;
-    while (temp.getParent() != null && !isGit) {
-      if (FileHelper.isGitRepository(temp.getPath())) {
-        isGit = true;
-      }
-      temp = temp.getParentFile();
-    }
-    return isGit;
+    return RepositoryRootCache.getInstance().getRepositoryRoot(file) != null;
   }
 
 	/**
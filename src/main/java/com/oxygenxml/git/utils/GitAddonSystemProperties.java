@@ -18,4 +18,31 @@ public class GitAddonSystemProperties {
    */
   public static final String USE_JSCH_FOR_SSH_OPERATIONS = "useJschForSSHOperations";
   
+  /**
+   * By default the add-on watches the working copy and, on refresh, computes the status just for the
+   * changed resources. Setting this property to <code>true</code> makes the add-on scan the entire
+   * working copy on each refresh. Useful for network drives, that don't report changes.
+   */
+  public static final String DISABLE_WORKING_COPY_WATCHER = "disableWorkingCopyWatcher";
+  
+  /**
+   * By default the add-on keeps the commit graph of each repository in a cache inside the ".git" folder,
+   * so that presenting the history only reads the new commits. Setting this property to <code>true</code>
+   * makes the add-on read all the commits from the repository each time.
+   */
+  public static final String DISABLE_COMMIT_GRAPH_CACHE = "disableCommitGraphCache";
+  
+  /**
+   * The maximum number of added or deleted files of a change for which the renames are detected by comparing
+   * the contents. The renames that keep the content unchanged are always detected. By default, the
+   * "diff.renameLimit" option of the repository is used.
+   */
+  public static final String RENAME_DETECTION_LIMIT = "renameDetectionLimit";
+  
+  /**
+   * The time, in milliseconds, after which the detection of the renames by comparing the contents is abandoned
+   * and only the renames that keep the content unchanged are presented. 5 seconds by default.
+   */
+  public static final String RENAME_DETECTION_TIME_BUDGET = "renameDetectionTimeBudget";
+  
 }
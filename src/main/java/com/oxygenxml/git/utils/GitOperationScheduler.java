@@ -1,54 +1,274 @@
 package com.oxygenxml.git.utils;
 
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.ProgressMonitor;
 
 /**
- * Schedules git operations on a thread. The same thread is being used. 
+ * Schedules git operations on threads. The operations are split in lanes and each lane has its own threads,
+ * so that, for example, a slow fetch doesn't delay staging a file. The interactive operations start first,
+ * then the background ones, each in the order in which they were scheduled. The read operations run in parallel,
+ * guarded by the read lock of {@link com.oxygenxml.git.service.GitAccess}, the others run one at a time.
+ *
+ * An operation may have a key. Scheduling another operation with the same key supersedes it:
+ * if it didn't start yet, it is canceled, otherwise it is asked to stop through the
+ * {@link ProgressMonitor} returned by {@link #getProgressMonitor()}.
+ *
+ * The wall time and the queue wait of each operation are recorded in {@link OperationMetrics}, under the lane,
+ * the priority and the name of the operation: its key or, without a key, the class that scheduled it.
  */
 public class GitOperationScheduler {
   /**
    * Logger.
    */
   private static final Logger logger = Logger.getLogger(GitOperationScheduler.class);
+
+  /**
+   * The lanes of operations. Each lane has its own threads.
+   */
+  public enum Lane {
+    /**
+     * Operations that talk with the remote repository, like fetch and push.
+     */
+    NETWORK,
+    /**
+     * Operations that change the repository or the working copy. The default one.
+     */
+    WRITE,
+    /**
+     * Operations that only read from the repository, like the history, the blame and the diff.
+     * They run in parallel.
+     */
+    READ
+  }
+
+  /**
+   * The priority of an operation, inside its lane.
+   */
+  public enum Priority {
+    /**
+     * Requested by the user, who waits for it.
+     */
+    INTERACTIVE,
+    /**
+     * Refreshes and other automatic operations.
+     */
+    BACKGROUND
+  }
+
   /**
-   * Refresh executor.
+   * The progress monitor used outside the scheduled operations. Never canceled.
    */
-  private ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1) {
+  private static final ProgressMonitor NO_OPERATION_MONITOR = new OperationProgressMonitor(null);
+  /**
+   * The operation running on the current thread.
+   */
+  private static final ThreadLocal<Operation> currentOperation = new ThreadLocal<>();
+  /**
+   * Orders the operations scheduled with the same priority.
+   */
+  private static final AtomicLong sequence = new AtomicLong();
+  /**
+   * The number of threads that run read operations in parallel.
+   */
+  private static final int READ_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * The executors of the lanes.
+   */
+  private final Map<Lane, ExecutorService> executors = new EnumMap<>(Lane.class);
+  /**
+   * Hands the delayed operations to their lanes, when due.
+   */
+  private ScheduledExecutorService timer;
+  /**
+   * Key -> the last operation scheduled with that key.
+   */
+  private final Map<String, Operation> operationsByKey = new HashMap<>();
+
+  /**
+   * Singleton instance.
+   */
+  private static GitOperationScheduler instance;
+
+  /**
+   * A scheduled operation.
+   */
+  private final class Operation extends FutureTask<Void> implements ScheduledFuture<Void> {
+    /**
+     * The lane.
+     */
+    private final Lane lane;
+    /**
+     * The priority.
+     */
+    private final Priority priority;
+    /**
+     * The key. May be <code>null</code>.
+     */
+    private final String key;
+    /**
+     * The name under which the operation is measured.
+     */
+    private final String name;
+    /**
+     * When the operation is due, as given by {@link System#nanoTime()}.
+     */
+    private final long dueTime;
+    /**
+     * The order in which it was scheduled.
+     */
+    private final long order = sequence.getAndIncrement();
+    /**
+     * Set when another operation with the same key was scheduled while this one was running.
+     */
+    private volatile boolean superseded;
+    /**
+     * Set when the operation threw an exception.
+     */
+    private boolean failed;
+    /**
+     * The progress monitor of the operation.
+     */
+    private final ProgressMonitor monitor = new OperationProgressMonitor(this);
+
+    /**
+     * Constructor.
+     *
+     * @param r           The code to execute.
+     * @param lane        The lane.
+     * @param priority    The priority.
+     * @param key         The key. May be <code>null</code>.
+     * @param delayMillis The delay, in milliseconds.
+     */
+    Operation(Runnable r, Lane lane, Priority priority, String key, int delayMillis) {
+      super(r, null);
+      this.lane = lane;
+      this.priority = priority;
+      this.key = key;
+      this.name = getOperationName(key, r);
+      this.dueTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    }
+
     @Override
-    protected void afterExecute(Runnable r, Throwable t) {
-      if (t != null) {
-        logger.error(t, t);
+    public void run() {
+      OperationTimer timer = OperationMetrics.getInstance().start("Scheduler." + lane + "." + priority + "." + name);
+      // The time spent in the queue of the lane, after being due.
+      timer.setWait(System.nanoTime() - dueTime, TimeUnit.NANOSECONDS);
+      currentOperation.set(this);
+      try {
+        super.run();
+      } finally {
+        currentOperation.remove();
+        forget(this);
+        if (failed) {
+          timer.failed();
+        }
+        timer.stop();
       }
+    }
 
-      if (r instanceof Future) {
-        try {
-          ((Future<?>) r).get();
-        } catch (CancellationException e) {
-          logger.debug(e, e);
-        } catch (Exception e) {
-          logger.error(e, e);
-        }
+    @Override
+    protected void setException(Throwable t) {
+      failed = true;
+      super.setException(t);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      int result;
+      if (o instanceof Operation) {
+        Operation other = (Operation) o;
+        result = priority != other.priority
+            ? priority.compareTo(other.priority)
+            : Long.compare(order, other.order);
+      } else {
+        result = Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
       }
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return this == obj;
     }
-  };
-  
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+  }
+
   /**
-   * Singleton instance.
+   * Passed to the JGit commands, so that they stop when the operation is canceled or superseded.
    */
-  private static GitOperationScheduler instance;
-  
+  private static final class OperationProgressMonitor implements ProgressMonitor {
+    /**
+     * The operation. <code>null</code> outside the scheduled operations.
+     */
+    private final Operation operation;
+
+    /**
+     * Constructor.
+     *
+     * @param operation The operation. <code>null</code> outside the scheduled operations.
+     */
+    OperationProgressMonitor(Operation operation) {
+      this.operation = operation;
+    }
+
+    @Override
+    public void start(int totalTasks) {
+      // Not presented.
+    }
+
+    @Override
+    public void beginTask(String title, int totalWork) {
+      // Not presented.
+    }
+
+    @Override
+    public void update(int completed) {
+      // Not presented.
+    }
+
+    @Override
+    public void endTask() {
+      // Not presented.
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return operation != null && (operation.superseded || operation.isCancelled());
+    }
+  }
+
   /**
    * Singleton private constructor.
    */
   private GitOperationScheduler() {}
-  
+
   /**
    * @return The singleton instance.
    */
@@ -56,58 +276,207 @@ public class GitOperationScheduler {
     if (instance == null) {
       instance = new GitOperationScheduler();
     }
-    
+
     return instance;
   }
-  
+
   /**
-   * Schedules a runnable for immediate execution.
-   * 
+   * @return The progress monitor of the operation running on the current thread. It is canceled when
+   * the operation is canceled or superseded. Never <code>null</code>.
+   */
+  public static ProgressMonitor getProgressMonitor() {
+    Operation operation = currentOperation.get();
+    return operation != null ? operation.monitor : NO_OPERATION_MONITOR;
+  }
+
+  /**
+   * @param key The key of an operation. May be <code>null</code>.
+   * @param r   The code of the operation.
+   *
+   * @return The key or, without a key, the simple name of the class that declares the code.
+   */
+  static String getOperationName(String key, Runnable r) {
+    String name = key;
+    if (name == null) {
+      name = r.getClass().getName();
+      name = name.substring(name.lastIndexOf('.') + 1);
+      // Lambdas and method references: keep the class that declares them.
+      int lambda = name.indexOf("$$Lambda");
+      if (lambda != -1) {
+        name = name.substring(0, lambda);
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Schedules a runnable for immediate execution, on the {@link Lane#WRITE} lane.
+   *
    * @param r Code to be executed on thread.
-   * 
-   * @return a ScheduledFuture representing pending completion of the task 
+   *
+   * @return a ScheduledFuture representing pending completion of the task
    * and whose get() method will return null upon completion.
    */
   public ScheduledFuture<?> schedule(Runnable r) {
-    if (executor.isShutdown()) {
-      // A shutdown operation was canceled.
-      executor = new ScheduledThreadPoolExecutor(1);
-    }
-    
-    return executor.schedule(r, 0, TimeUnit.MILLISECONDS);
+    return schedule(Lane.WRITE, Priority.INTERACTIVE, null, r, 0);
   }
-  
+
   /**
-   * Schedules a runnable for execution.
-   * 
+   * Schedules a runnable for execution, on the {@link Lane#WRITE} lane, with a background priority.
+   *
    * @param delayMillis Milliseconds after which to execute the runnable.
-   * 
+   *
    * @param r Code to be executed on thread.
-   * 
-   * @return a ScheduledFuture representing pending completion of the task 
+   *
+   * @return a ScheduledFuture representing pending completion of the task
    * and whose get() method will return null upon completion.
    */
   public ScheduledFuture<?> schedule(Runnable r, int delayMillis) {
-    if (executor.isShutdown()) {
-      // A shutdown operation was canceled.
-      executor = new ScheduledThreadPoolExecutor(1);
+    return schedule(Lane.WRITE, Priority.BACKGROUND, null, r, delayMillis);
+  }
+
+  /**
+   * Schedules a runnable for execution.
+   *
+   * @param lane        The lane of the operation.
+   * @param priority    The priority of the operation inside its lane.
+   * @param key         Identifies equivalent operations. The previous operation with the same key is superseded.
+   *                    May be <code>null</code>.
+   * @param r           Code to be executed on thread.
+   * @param delayMillis Milliseconds after which to execute the runnable.
+   *
+   * @return a ScheduledFuture representing pending completion of the task
+   * and whose get() method will return null upon completion.
+   */
+  public synchronized ScheduledFuture<?> schedule(Lane lane, Priority priority, String key, Runnable r, int delayMillis) {
+    Operation operation = new Operation(r, lane, priority, key, delayMillis);
+    if (key != null) {
+      Operation previous = operationsByKey.put(key, operation);
+      if (previous != null) {
+        // Stops at the next check, if already running.
+        previous.superseded = true;
+        previous.cancel(false);
+      }
+    }
+
+    if (delayMillis > 0) {
+      getTimer().schedule(() -> execute(operation), delayMillis, TimeUnit.MILLISECONDS);
+    } else {
+      execute(operation);
     }
-    
-    return executor.schedule(r, delayMillis, TimeUnit.MILLISECONDS);
+    return operation;
   }
-  
+
+  /**
+   * Hands an operation to its lane.
+   *
+   * @param operation The operation.
+   */
+  private synchronized void execute(Operation operation) {
+    if (operation.isCancelled()) {
+      // Superseded before being due.
+      forget(operation);
+    } else {
+      getExecutor(operation.lane).execute(operation);
+    }
+  }
+
+  /**
+   * Forgets about a finished operation.
+   *
+   * @param operation The operation.
+   */
+  private synchronized void forget(Operation operation) {
+    if (operation.key != null) {
+      operationsByKey.remove(operation.key, operation);
+    }
+  }
+
+  /**
+   * @param lane A lane.
+   *
+   * @return The number of operations from the lane that may run in parallel.
+   */
+  public int getThreadCount(Lane lane) {
+    return lane == Lane.READ ? READ_THREADS : 1;
+  }
+
+  /**
+   * @param lane A lane.
+   *
+   * @return The executor of the lane.
+   */
+  private ExecutorService getExecutor(Lane lane) {
+    ExecutorService executor = executors.get(lane);
+    if (executor == null || executor.isShutdown()) {
+      // First use or a shutdown operation was canceled.
+      int threads = getThreadCount(lane);
+      AtomicInteger threadNumber = new AtomicInteger();
+      executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+          r -> new Thread(r, "Git " + lane.name().toLowerCase() + " operations " + threadNumber.incrementAndGet())) {
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+          if (t != null) {
+            logger.error(t, t);
+          }
+
+          if (r instanceof Future) {
+            try {
+              ((Future<?>) r).get();
+            } catch (CancellationException e) {
+              logger.debug(e, e);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            } catch (Exception e) {
+              logger.error(e, e);
+            }
+          }
+        }
+      };
+      executors.put(lane, executor);
+    }
+    return executor;
+  }
+
+  /**
+   * @return The timer that hands the delayed operations to their lanes.
+   */
+  private ScheduledExecutorService getTimer() {
+    if (timer == null || timer.isShutdown()) {
+      timer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "Git Operations Timer");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return timer;
+  }
+
   /**
    * Attempts to shutdown any running tasks.
    */
   public void shutdown() {
-    executor.shutdown();
+    ExecutorService[] toStop;
+    synchronized (this) {
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+      toStop = executors.values().toArray(new ExecutorService[0]);
+      for (ExecutorService executor : toStop) {
+        executor.shutdown();
+      }
+      operationsByKey.clear();
+    }
+
     try {
-      executor.awaitTermination(2000, TimeUnit.MILLISECONDS);
+      for (ExecutorService executor : toStop) {
+        executor.awaitTermination(2000, TimeUnit.MILLISECONDS);
+      }
     } catch (InterruptedException e) {
       logger.warn("Unable to stop task thread: " + e.getMessage(), e);
       // Restore interrupted state...
       Thread.currentThread().interrupt();
 
-    }    
+    }
   }
 }
@@ -7,5 +7,14 @@ package com.oxygenxml.git.utils;
  */
 public interface GitRefreshSupport {
 	
+  /**
+   * Refreshes the view, scanning the entire working copy.
+   */
 	public void call();
+	
+	/**
+	 * Refreshes the view, computing the status again only for the resources that changed
+	 * since the last refresh.
+	 */
+	public void callIncremental();
 }
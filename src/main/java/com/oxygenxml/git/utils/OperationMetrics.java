@@ -0,0 +1,304 @@
+package com.oxygenxml.git.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Keeps, in memory, the measurements of the Git operations: the wall time, the time spent waiting
+ * in a queue or for the repository lock, the files and commits processed and the bytes read.
+ * For each operation, the durations of the latest {@link #WINDOW} executions are kept,
+ * so the percentiles follow the current behavior. The measurements can be exported as JSON or CSV
+ * and are exposed through JMX, once {@link #register()} is called.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+  /**
+   * Logger.
+   */
+  private static final Logger logger = Logger.getLogger(OperationMetrics.class);
+  /**
+   * The name under which the measurements are exposed through JMX.
+   */
+  public static final String OBJECT_NAME = "com.oxygenxml.git:type=OperationMetrics";
+  /**
+   * The number of durations kept for each operation.
+   */
+  private static final int WINDOW = 256;
+  /**
+   * Nanoseconds in a millisecond.
+   */
+  private static final double NANOS_PER_MILLI = 1_000_000d;
+
+  /**
+   * The measurements of an operation. Guarded by its own monitor.
+   */
+  private static final class Recorder {
+    /**
+     * The number of executions.
+     */
+    private long count;
+    /**
+     * The number of executions that failed.
+     */
+    private long failures;
+    /**
+     * The total wall time, in nanoseconds.
+     */
+    private long totalNanos;
+    /**
+     * The total waiting time, in nanoseconds.
+     */
+    private long totalWaitNanos;
+    /**
+     * The longest wall time, in nanoseconds.
+     */
+    private long maxNanos;
+    /**
+     * The number of files processed.
+     */
+    private long files;
+    /**
+     * The number of commits processed.
+     */
+    private long commits;
+    /**
+     * The number of bytes read or transferred.
+     */
+    private long bytes;
+    /**
+     * The latest durations, in nanoseconds. Used as a ring.
+     */
+    private final long[] window = new long[WINDOW];
+
+    /**
+     * Records an execution.
+     *
+     * @param nanos     The wall time.
+     * @param waitNanos The waiting time.
+     * @param files     The number of files processed.
+     * @param commits   The number of commits processed.
+     * @param bytes     The number of bytes read or transferred.
+     * @param failed    <code>true</code> if the execution failed.
+     */
+    synchronized void record(long nanos, long waitNanos, long files, long commits, long bytes, boolean failed) {
+      window[(int) (count % WINDOW)] = nanos;
+      count++;
+      if (failed) {
+        failures++;
+      }
+      totalNanos += nanos;
+      totalWaitNanos += waitNanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      this.files += files;
+      this.commits += commits;
+      this.bytes += bytes;
+    }
+
+    /**
+     * @param name The name of the operation.
+     *
+     * @return A snapshot of the measurements.
+     */
+    synchronized OperationStatistics snapshot(String name) {
+      long[] latest = Arrays.copyOf(window, (int) Math.min(count, WINDOW));
+      Arrays.sort(latest);
+      return new OperationStatistics(
+          name,
+          count,
+          failures,
+          count > 0 ? totalNanos / NANOS_PER_MILLI / count : 0,
+          percentile(latest, 0.5),
+          percentile(latest, 0.9),
+          percentile(latest, 0.99),
+          maxNanos / NANOS_PER_MILLI,
+          count > 0 ? totalWaitNanos / NANOS_PER_MILLI / count : 0,
+          files,
+          commits,
+          bytes);
+    }
+
+    /**
+     * @param sorted   Durations, in nanoseconds, sorted.
+     * @param fraction The percentile, between 0 and 1.
+     *
+     * @return The percentile, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double fraction) {
+      double percentile = 0;
+      if (sorted.length > 0) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        percentile = sorted[Math.max(0, index)] / NANOS_PER_MILLI;
+      }
+      return percentile;
+    }
+  }
+
+  /**
+   * Operation name -> its measurements. Guarded by itself.
+   */
+  private final Map<String, Recorder> recorders = new TreeMap<>();
+
+  /**
+   * Singleton instance.
+   */
+  private static OperationMetrics instance;
+
+  /**
+   * Singleton private constructor.
+   */
+  private OperationMetrics() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static synchronized OperationMetrics getInstance() {
+    if (instance == null) {
+      instance = new OperationMetrics();
+    }
+    return instance;
+  }
+
+  /**
+   * Starts measuring an execution of an operation.
+   *
+   * @param operation The name of the operation.
+   *
+   * @return The timer. Call {@link OperationTimer#stop()} when the operation ends.
+   */
+  public OperationTimer start(String operation) {
+    return new OperationTimer(operation);
+  }
+
+  /**
+   * Records an execution of an operation.
+   *
+   * @param operation The name of the operation.
+   * @param nanos     The wall time.
+   * @param waitNanos The time spent waiting in a queue or for a lock.
+   * @param files     The number of files processed.
+   * @param commits   The number of commits processed.
+   * @param bytes     The number of bytes read or transferred.
+   * @param failed    <code>true</code> if the execution failed.
+   */
+  void record(String operation, long nanos, long waitNanos, long files, long commits, long bytes, // NOSONAR
+      boolean failed) {
+    Recorder recorder;
+    synchronized (recorders) {
+      recorder = recorders.computeIfAbsent(operation, k -> new Recorder());
+    }
+    recorder.record(nanos, waitNanos, files, commits, bytes, failed);
+  }
+
+  @Override
+  public List<OperationStatistics> getOperations() {
+    List<OperationStatistics> operations = new ArrayList<>();
+    synchronized (recorders) {
+      for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+        operations.add(entry.getValue().snapshot(entry.getKey()));
+      }
+    }
+    return operations;
+  }
+
+  @Override
+  public void reset() {
+    synchronized (recorders) {
+      recorders.clear();
+    }
+  }
+
+  @Override
+  public String exportJson() {
+    StringBuilder json = new StringBuilder("[");
+    List<OperationStatistics> operations = getOperations();
+    for (int i = 0; i < operations.size(); i++) {
+      OperationStatistics op = operations.get(i);
+      json.append(i > 0 ? ",\n" : "\n")
+          .append("  {\"name\": \"").append(op.getName().replace("\\", "\\\\").replace("\"", "\\\"")).append('"')
+          .append(", \"count\": ").append(op.getCount())
+          .append(", \"failures\": ").append(op.getFailures())
+          .append(", \"averageMillis\": ").append(format(op.getAverageMillis()))
+          .append(", \"p50Millis\": ").append(format(op.getP50Millis()))
+          .append(", \"p90Millis\": ").append(format(op.getP90Millis()))
+          .append(", \"p99Millis\": ").append(format(op.getP99Millis()))
+          .append(", \"maxMillis\": ").append(format(op.getMaxMillis()))
+          .append(", \"averageWaitMillis\": ").append(format(op.getAverageWaitMillis()))
+          .append(", \"files\": ").append(op.getFiles())
+          .append(", \"commits\": ").append(op.getCommits())
+          .append(", \"bytes\": ").append(op.getBytes())
+          .append('}');
+    }
+    return json.append(operations.isEmpty() ? "]" : "\n]").append('\n').toString();
+  }
+
+  @Override
+  public String exportCsv() {
+    StringBuilder csv = new StringBuilder(
+        "name,count,failures,averageMillis,p50Millis,p90Millis,p99Millis,maxMillis,averageWaitMillis,files,commits,bytes\n");
+    for (OperationStatistics op : getOperations()) {
+      csv.append('"').append(op.getName().replace("\"", "\"\"")).append('"')
+          .append(',').append(op.getCount())
+          .append(',').append(op.getFailures())
+          .append(',').append(format(op.getAverageMillis()))
+          .append(',').append(format(op.getP50Millis()))
+          .append(',').append(format(op.getP90Millis()))
+          .append(',').append(format(op.getP99Millis()))
+          .append(',').append(format(op.getMaxMillis()))
+          .append(',').append(format(op.getAverageWaitMillis()))
+          .append(',').append(op.getFiles())
+          .append(',').append(op.getCommits())
+          .append(',').append(op.getBytes())
+          .append('\n');
+    }
+    return csv.toString();
+  }
+
+  /**
+   * @param millis A duration, in milliseconds.
+   *
+   * @return The duration, with 3 decimals, independent of the locale.
+   */
+  private static String format(double millis) {
+    return String.format(Locale.ENGLISH, "%.3f", millis);
+  }
+
+  /**
+   * Exposes the measurements through JMX, under {@link #OBJECT_NAME}.
+   */
+  public void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    } catch (JMException e) {
+      logger.error(e, e);
+    }
+  }
+
+  /**
+   * Stops exposing the measurements through JMX.
+   */
+  public void unregister() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      logger.error(e, e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.oxygenxml.git.utils;
+
+import java.util.List;
+
+/**
+ * Exposes the measurements of the Git operations through JMX.
+ */
+public interface OperationMetricsMXBean {
+  /**
+   * @return The measurements of each operation, sorted by name.
+   */
+  List<OperationStatistics> getOperations();
+
+  /**
+   * @return The measurements, as JSON.
+   */
+  String exportJson();
+
+  /**
+   * @return The measurements, as CSV.
+   */
+  String exportCsv();
+
+  /**
+   * Forgets all the measurements.
+   */
+  void reset();
+}
@@ -0,0 +1,177 @@
+package com.oxygenxml.git.utils;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot with the measurements of an operation. The durations are in milliseconds.
+ * The percentiles are computed over the latest executions, the other values over all of them.
+ */
+public class OperationStatistics {
+  /**
+   * The name of the operation.
+   */
+  private final String name;
+  /**
+   * The number of executions.
+   */
+  private final long count;
+  /**
+   * The number of executions that failed.
+   */
+  private final long failures;
+  /**
+   * The average wall time.
+   */
+  private final double averageMillis;
+  /**
+   * The median wall time.
+   */
+  private final double p50Millis;
+  /**
+   * The 90th percentile of the wall time.
+   */
+  private final double p90Millis;
+  /**
+   * The 99th percentile of the wall time.
+   */
+  private final double p99Millis;
+  /**
+   * The longest wall time.
+   */
+  private final double maxMillis;
+  /**
+   * The average time spent waiting in a queue or for a lock.
+   */
+  private final double averageWaitMillis;
+  /**
+   * The number of files processed.
+   */
+  private final long files;
+  /**
+   * The number of commits processed.
+   */
+  private final long commits;
+  /**
+   * The number of bytes read or transferred.
+   */
+  private final long bytes;
+
+  /**
+   * Constructor.
+   *
+   * @param name              The name of the operation.
+   * @param count             The number of executions.
+   * @param failures          The number of executions that failed.
+   * @param averageMillis     The average wall time.
+   * @param p50Millis         The median wall time.
+   * @param p90Millis         The 90th percentile of the wall time.
+   * @param p99Millis         The 99th percentile of the wall time.
+   * @param maxMillis         The longest wall time.
+   * @param averageWaitMillis The average time spent waiting in a queue or for a lock.
+   * @param files             The number of files processed.
+   * @param commits           The number of commits processed.
+   * @param bytes             The number of bytes read or transferred.
+   */
+  @ConstructorProperties({"name", "count", "failures", "averageMillis", "p50Millis", "p90Millis", "p99Millis",
+    "maxMillis", "averageWaitMillis", "files", "commits", "bytes"})
+  public OperationStatistics(String name, long count, long failures, double averageMillis, // NOSONAR
+      double p50Millis, double p90Millis, double p99Millis, double maxMillis, double averageWaitMillis,
+      long files, long commits, long bytes) {
+    this.name = name;
+    this.count = count;
+    this.failures = failures;
+    this.averageMillis = averageMillis;
+    this.p50Millis = p50Millis;
+    this.p90Millis = p90Millis;
+    this.p99Millis = p99Millis;
+    this.maxMillis = maxMillis;
+    this.averageWaitMillis = averageWaitMillis;
+    this.files = files;
+    this.commits = commits;
+    this.bytes = bytes;
+  }
+
+  /**
+   * @return The name of the operation.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return The number of executions.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The number of executions that failed.
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * @return The average wall time.
+   */
+  public double getAverageMillis() {
+    return averageMillis;
+  }
+
+  /**
+   * @return The median wall time.
+   */
+  public double getP50Millis() {
+    return p50Millis;
+  }
+
+  /**
+   * @return The 90th percentile of the wall time.
+   */
+  public double getP90Millis() {
+    return p90Millis;
+  }
+
+  /**
+   * @return The 99th percentile of the wall time.
+   */
+  public double getP99Millis() {
+    return p99Millis;
+  }
+
+  /**
+   * @return The longest wall time.
+   */
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  /**
+   * @return The average time spent waiting in a queue or for a lock.
+   */
+  public double getAverageWaitMillis() {
+    return averageWaitMillis;
+  }
+
+  /**
+   * @return The number of files processed.
+   */
+  public long getFiles() {
+    return files;
+  }
+
+  /**
+   * @return The number of commits processed.
+   */
+  public long getCommits() {
+    return commits;
+  }
+
+  /**
+   * @return The number of bytes read or transferred.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+}
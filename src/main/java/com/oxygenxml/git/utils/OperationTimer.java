@@ -0,0 +1,101 @@
+package com.oxygenxml.git.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one execution of an operation. Created by {@link OperationMetrics#start(String)} and
+ * used by a single thread. The measurement is recorded by {@link #stop()}.
+ */
+public final class OperationTimer {
+  /**
+   * The name of the operation.
+   */
+  private final String operation;
+  /**
+   * When the operation started, as given by {@link System#nanoTime()}.
+   */
+  private final long start = System.nanoTime();
+  /**
+   * The time spent waiting in a queue or for a lock, in nanoseconds.
+   */
+  private long waitNanos;
+  /**
+   * The number of files processed.
+   */
+  private long files;
+  /**
+   * The number of commits processed.
+   */
+  private long commits;
+  /**
+   * The number of bytes read or transferred.
+   */
+  private long bytes;
+  /**
+   * <code>true</code> if the operation failed.
+   */
+  private boolean failed;
+
+  /**
+   * Constructor.
+   *
+   * @param operation The name of the operation.
+   */
+  OperationTimer(String operation) {
+    this.operation = operation;
+  }
+
+  /**
+   * Marks the end of the wait. The time since the start is recorded as waiting time,
+   * for example the time spent acquiring the repository lock.
+   */
+  public void waited() {
+    waitNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Sets the time spent waiting before the start, for example in the queue of a lane.
+   *
+   * @param wait The time.
+   * @param unit The unit of the time.
+   */
+  public void setWait(long wait, TimeUnit unit) {
+    waitNanos = Math.max(0, unit.toNanos(wait));
+  }
+
+  /**
+   * @param count The number of files processed.
+   */
+  public void addFiles(long count) {
+    files += count;
+  }
+
+  /**
+   * @param count The number of commits processed.
+   */
+  public void addCommits(long count) {
+    commits += count;
+  }
+
+  /**
+   * @param count The number of bytes read or transferred.
+   */
+  public void addBytes(long count) {
+    bytes += count;
+  }
+
+  /**
+   * Marks the operation as failed.
+   */
+  public void failed() {
+    failed = true;
+  }
+
+  /**
+   * Records the measurement.
+   */
+  public void stop() {
+    OperationMetrics.getInstance().record(
+        operation, System.nanoTime() - start, waitNanos, files, commits, bytes, failed);
+  }
+}
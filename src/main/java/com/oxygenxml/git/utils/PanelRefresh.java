@@ -43,6 +43,10 @@ public class PanelRefresh implements GitRefreshSupport {
    * Refresh events are executed after this delay. Milliseconds.
    */
   public static final int EXECUTION_DELAY = 500;
+  /**
+   * Identifies the refresh operations. A new one supersedes the previous one.
+   */
+  private static final String REFRESH_OPERATION_KEY = "refresh";
   /**
    * Logger for logging.
    */
@@ -86,6 +90,14 @@ public class PanelRefresh implements GitRefreshSupport {
 	 * Refresh future (representing pending completion of the task).
 	 */
 	private ScheduledFuture<?> refreshFuture;
+	/**
+	 * Fetches from the remote in the background.
+	 */
+	private final FetchScheduler fetchScheduler = new FetchScheduler(this::fetch);
+	/**
+	 * The status of the remote, as reported by the last fetch.
+	 */
+	private volatile RepositoryStatus repositoryStatus = RepositoryStatus.AVAILABLE;
 	/**
 	 * Refresh task.
 	 */
@@ -99,7 +111,7 @@ public class PanelRefresh implements GitRefreshSupport {
 	    try {
 	      if (gitAccess.getRepository() != null && stagingPanel != null) {
 	        stagingPanel.updateRebasePanelVisibilityBasedOnRepoState();
-	        GitStatus status = GitAccess.getInstance().getStatus();
+	        GitStatus status = gitAccess.getStatusEngine().getStatus();
 	        updateFiles(
 	            stagingPanel.getUnstagedChangesPanel(), 
 	            status.getUnstagedFiles());
@@ -107,6 +119,8 @@ public class PanelRefresh implements GitRefreshSupport {
 	            stagingPanel.getStagedChangesPanel(), 
 	            status.getStagedFiles());
 	        updateCounters();
+	        // The first refresh of a repository also brings the remote changes.
+	        fetchScheduler.fetchIfRepositoryChanged();
 	      }
 	    } catch (NoRepositorySelected e) {
 	      logger.debug(e, e);
@@ -118,12 +132,21 @@ public class PanelRefresh implements GitRefreshSupport {
   
   @Override
   public void call() {
-    if (refreshFuture != null && !refreshFuture.isDone()) {
-      logger.debug("cancel refresh task");
-      refreshFuture.cancel(true);
-    }
-
-    refreshFuture = refreshExecutor.schedule(refreshRunnable, getScheduleDelay());
+    gitAccess.getStatusEngine().requestFullScan();
+    // An explicit refresh also brings the remote changes and can ask for credentials.
+    fetchScheduler.fetchNow(true);
+    callIncremental();
+  }
+  
+  @Override
+  public void callIncremental() {
+    // Supersedes the previous refresh, if still pending.
+    refreshFuture = refreshExecutor.schedule(
+        GitOperationScheduler.Lane.WRITE,
+        GitOperationScheduler.Priority.BACKGROUND,
+        REFRESH_OPERATION_KEY,
+        refreshRunnable,
+        getScheduleDelay());
   }
 
   /**
@@ -287,49 +310,72 @@ public class PanelRefresh implements GitRefreshSupport {
 
 
 	/**
-	 * Update the counters presented on the Pull/Push toolbar action.
+	 * Update the counters presented on the Pull/Push toolbar action. They are computed 
+	 * from the local refs, as updated by the last fetch.
 	 */
 	private void updateCounters() {
+	  final RepositoryStatus fStatus = repositoryStatus;
+	  SwingUtilities.invokeLater(() -> {
+	    stagingPanel.getCommitPanel().setRepoStatus(fStatus);
+	    if (stagingPanel.getToolbarPanel() != null) {
+	      stagingPanel.getToolbarPanel().updateStatus();
+	    }
+	  });
+	}
+	
+	/**
+	 * Fetches from the remote and updates the counters presented on the Pull/Push toolbar action.
+	 * A periodic fetch never asks the user for credentials. When they are missing or invalid,
+	 * the remote is reported as unavailable and the next fetches are delayed.
+	 * 
+	 * @param interactive <code>true</code> if the user started the fetch and can be asked for credentials.
+	 * 
+	 * @return The status of the remote.
+	 */
+	private RepositoryStatus fetch(boolean interactive) {
     // Connect to the remote.
     RepositoryStatus status = RepositoryStatus.AVAILABLE;
     try {
-      GitAccess.getInstance().fetch();
+      GitAccess.getInstance().fetch(interactive);
     } catch (RepositoryUnavailableException e) {
       status = RepositoryStatus.UNAVAILABLE;
     } catch (SSHPassphraseRequiredException e) {
       status = RepositoryStatus.UNAVAILABLE;
+      logger.debug(e, e);
       
       String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
-      if (sshPassphrase != null && !sshPassphrase.isEmpty()) {
+      if (interactive && sshPassphrase != null && !sshPassphrase.isEmpty()) {
         // If the passphrase is null or empty, it is already treated by
         // com.oxygenxml.git.auth.SSHCapableUserCredentialsProvider.get(URIish, CredentialItem...)
         
         String message = translator.getTranslation(Tags.ENTER_SSH_PASS_PHRASE);
         String passphrase = new PassphraseDialog(message).getPassphrase();
         if(passphrase != null) {
-          call();
+          fetchScheduler.fetchNow(true);
         }
       }
     } catch (PrivateRepositoryException e) {
       status = RepositoryStatus.UNAVAILABLE;
+      logger.debug(e, e);
       
-      UserCredentials userCredentials = new LoginDialog(
-          GitAccess.getInstance().getHostName(), 
-          translator.getTranslation(Tags.LOGIN_DIALOG_PRIVATE_REPOSITORY_MESSAGE)).getUserCredentials();
-      if (userCredentials != null) {
-        call();
+      if (interactive) {
+        UserCredentials userCredentials = new LoginDialog(
+            GitAccess.getInstance().getHostName(), 
+            translator.getTranslation(Tags.LOGIN_DIALOG_PRIVATE_REPOSITORY_MESSAGE)).getUserCredentials();
+        if (userCredentials != null) {
+          fetchScheduler.fetchNow(true);
+        }
       }
     } catch (Exception e) {
       logger.error(e, e);
     }
 
-    final RepositoryStatus fStatus = status;
-	  SwingUtilities.invokeLater(() -> {
-      stagingPanel.getCommitPanel().setRepoStatus(fStatus);
-      if (stagingPanel.getToolbarPanel() != null) {
-        stagingPanel.getToolbarPanel().updateStatus();
-      }
-    });
+    repositoryStatus = status;
+    if (stagingPanel != null) {
+      updateCounters();
+    }
+    
+    return status;
 	}
 
 	/**
@@ -352,7 +398,7 @@ public class PanelRefresh implements GitRefreshSupport {
 	  if (!changeDetected) {
 	    // Same size. Sort and compare files.
 	    Collections.sort(newfiles, (o1, o2) -> o1.getFileLocation().compareTo(o2.getFileLocation()));
-	    List<FileStatus> sortedModel = new ArrayList<>(filesInModel.size());
+	    List<FileStatus> sortedModel = new ArrayList<>(filesInModel);
 	    Collections.sort(sortedModel, (o1, o2) -> o1.getFileLocation().compareTo(o2.getFileLocation()));
 	    
 	    changeDetected = !newfiles.equals(sortedModel);
@@ -376,6 +422,7 @@ public class PanelRefresh implements GitRefreshSupport {
    * Attempts to shutdown any running refresh tasks.
    */
   public void shutdown() {
+    fetchScheduler.stop();
     if (refreshFuture != null) {
       // Just in case the task isn't running yet.
       refreshFuture.cancel(false);
@@ -383,6 +430,13 @@ public class PanelRefresh implements GitRefreshSupport {
     refreshExecutor.shutdown();
   }
   
+  /**
+   * @return Fetches from the remote in the background.
+   */
+  public FetchScheduler getFetchScheduler() {
+    return fetchScheduler;
+  }
+  
   /**
    * @return The last scheduled task for refresing the Git status.
    */
@@ -0,0 +1,202 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+/**
+ * Decides which folders of the Project view to refresh after an operation changed files in the working copy.
+ * Instead of refreshing the common ancestor of all the changes, which after a pull touching two top-level folders
+ * is the entire repository, only the folders that gained or lost files are refreshed, together with the folders
+ * of the modified files opened in editors. A folder is not refreshed if one of its ancestors already is. When there
+ * are more than {@link #MAX_FOLDERS} folders, the deepest ones are replaced with their parents until they fit, so that
+ * a large merge is presented with a few refresh requests.
+ */
+public class ProjectRefreshPlanner {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(ProjectRefreshPlanner.class);
+  /**
+   * The maximum number of folders refreshed after an operation.
+   */
+  static final int MAX_FOLDERS = 32;
+
+  /**
+   * Hidden constructor.
+   */
+  private ProjectRefreshPlanner() {
+    // Nothing
+  }
+
+  /**
+   * Refreshes the Project view after files changed in the working copy.
+   *
+   * @param root           The working copy directory.
+   * @param changedFolders The folders that gained or lost files.
+   * @param modifiedFiles  The files whose content changed. Only those opened in editors are considered.
+   */
+  public static void refresh(File root, Collection<File> changedFolders, Collection<File> modifiedFiles) {
+    Set<File> folders = new HashSet<>(changedFolders);
+    if (!modifiedFiles.isEmpty()) {
+      Set<File> openedFiles = getOpenedFiles();
+      for (File file : modifiedFiles) {
+        if (openedFiles.contains(file.getAbsoluteFile())) {
+          folders.add(file.getParentFile());
+        }
+      }
+    }
+
+    List<File> toRefresh = plan(root, folders);
+    if (!toRefresh.isEmpty()) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Refresh the Project view folders: " + toRefresh);
+      }
+      StandalonePluginWorkspace wsAccess = (StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace();
+      wsAccess.getProjectManager().refreshFolders(toRefresh.toArray(new File[0]));
+    }
+  }
+
+  /**
+   * Computes the folders to refresh.
+   *
+   * @param root    The working copy directory. The folders are never replaced with ancestors above it.
+   * @param folders The folders that changed.
+   *
+   * @return At most {@link #MAX_FOLDERS} existing folders, none of them inside another one, sorted by path.
+   */
+  static List<File> plan(File root, Collection<File> folders) {
+    File rootDir = root.getAbsoluteFile();
+    Set<File> planned = new HashSet<>();
+    for (File folder : folders) {
+      if (folder != null) {
+        planned.add(getExistingFolder(rootDir, folder.getAbsoluteFile()));
+      }
+    }
+    removeNested(planned);
+
+    boolean coalesced = true;
+    while (planned.size() > MAX_FOLDERS && coalesced) {
+      coalesced = coalesceDeepest(rootDir, planned);
+      removeNested(planned);
+    }
+
+    List<File> sorted = new ArrayList<>(planned);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * @param root   The working copy directory.
+   * @param folder A folder that changed. It might have been deleted.
+   *
+   * @return The folder or its closest existing ancestor, stopping at the working copy directory.
+   */
+  private static File getExistingFolder(File root, File folder) {
+    File existing = folder;
+    while (!existing.equals(root) && !existing.isDirectory() && existing.getParentFile() != null) {
+      existing = existing.getParentFile();
+    }
+    return existing;
+  }
+
+  /**
+   * Removes the folders that are inside other folders from the set.
+   *
+   * @param folders The folders.
+   */
+  private static void removeNested(Set<File> folders) {
+    List<File> nested = new ArrayList<>();
+    for (File folder : folders) {
+      File parent = folder.getParentFile();
+      while (parent != null && !folders.contains(parent)) {
+        parent = parent.getParentFile();
+      }
+      if (parent != null) {
+        nested.add(folder);
+      }
+    }
+    folders.removeAll(nested);
+  }
+
+  /**
+   * Replaces the deepest folders with their parents.
+   *
+   * @param root    The working copy directory, which is never replaced.
+   * @param folders The folders.
+   *
+   * @return <code>true</code> if any folder was replaced.
+   */
+  private static boolean coalesceDeepest(File root, Set<File> folders) {
+    int maxDepth = -1;
+    for (File folder : folders) {
+      if (canCoalesce(root, folder)) {
+        maxDepth = Math.max(maxDepth, getDepth(folder));
+      }
+    }
+
+    List<File> deepest = new ArrayList<>();
+    for (File folder : folders) {
+      if (canCoalesce(root, folder) && getDepth(folder) == maxDepth) {
+        deepest.add(folder);
+      }
+    }
+    for (File folder : deepest) {
+      folders.remove(folder);
+      folders.add(folder.getParentFile());
+    }
+    return !deepest.isEmpty();
+  }
+
+  /**
+   * @param root   The working copy directory.
+   * @param folder A folder.
+   *
+   * @return <code>true</code> if the folder can be replaced with its parent.
+   */
+  private static boolean canCoalesce(File root, File folder) {
+    return !folder.equals(root) && folder.getParentFile() != null;
+  }
+
+  /**
+   * @param folder A folder.
+   *
+   * @return The number of names in the path of the folder.
+   */
+  private static int getDepth(File folder) {
+    return folder.toPath().getNameCount();
+  }
+
+  /**
+   * @return The local files opened in the main editing area.
+   */
+  private static Set<File> getOpenedFiles() {
+    Set<File> openedFiles = new HashSet<>();
+    URL[] editorLocations = PluginWorkspaceProvider.getPluginWorkspace().getAllEditorLocations(
+        PluginWorkspace.MAIN_EDITING_AREA);
+    if (editorLocations != null) {
+      for (URL editorLocation : editorLocations) {
+        if ("file".equals(editorLocation.getProtocol())) {
+          try {
+            openedFiles.add(new File(editorLocation.toURI()).getAbsoluteFile());
+          } catch (URISyntaxException e) {
+            logger.debug(e, e);
+          }
+        }
+      }
+    }
+    return openedFiles;
+  }
+}
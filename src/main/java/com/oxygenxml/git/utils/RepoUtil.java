@@ -47,14 +47,8 @@ public class RepoUtil {
    * @return the repository, or <code>null</code> if couldn't be detected.
    */
   public static String getRepositoryForFile(File file) {
-    String repository = null;
-    while (repository == null && file.getParent() != null) {
-      if (FileHelper.isGitRepository(file.getPath())) {
-        repository = file.getAbsolutePath();
-      }
-      file = file.getParentFile();
-    }
-    return repository;
+    File repository = RepositoryRootCache.getInstance().getRepositoryRoot(file);
+    return repository != null ? repository.getAbsolutePath() : null;
   }
   
   /**
@@ -0,0 +1,108 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the Git repository that contains each directory, so that presenting the contextual menus
+ * for many selected files doesn't look for the ".git" folder in the same ancestors again. A directory
+ * is checked with a single file system call. The cached answers are forgotten after {@link #MAX_AGE_NANOS}
+ * or when {@link #clear()} is called, for example after a repository was created.
+ */
+public final class RepositoryRootCache {
+  /**
+   * The maximum number of paths to keep.
+   */
+  private static final int MAX_ENTRIES = 10_000;
+  /**
+   * After how long the cached answers are forgotten, so that the repositories created or removed
+   * outside the application are detected.
+   */
+  private static final long MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(1);
+  /**
+   * Marks a path that is not inside a Git repository.
+   */
+  private static final String NO_REPOSITORY = "";
+  /**
+   * Singleton instance.
+   */
+  private static final RepositoryRootCache instance = new RepositoryRootCache();
+  /**
+   * Path -> the root of its repository or {@link #NO_REPOSITORY}. The most recently used come last.
+   */
+  private final Map<String, String> roots = new LinkedHashMap<String, String>(256, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  /**
+   * When the cache was last cleared, as {@link System#nanoTime()}.
+   */
+  private long clearTime = System.nanoTime();
+
+  /**
+   * Singleton private constructor.
+   */
+  private RepositoryRootCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  public static RepositoryRootCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Finds the Git repository that contains a file: the closest ancestor, the file included, that contains
+   * a ".git" folder. The root of the file system is not considered. Each ancestor is checked once, for all the
+   * files that share it.
+   *
+   * @param file The file.
+   *
+   * @return The working copy directory of the repository or <code>null</code> if the file is not inside a
+   * Git repository.
+   */
+  public synchronized File getRepositoryRoot(File file) {
+    if (System.nanoTime() - clearTime > MAX_AGE_NANOS) {
+      clear();
+    }
+
+    String root = null;
+    List<String> resolved = new ArrayList<>();
+    File current = file.getAbsoluteFile();
+    while (root == null && current.getParent() != null) {
+      String path = current.getPath();
+      root = roots.get(path);
+      if (root == null) {
+        resolved.add(path);
+        if (FileHelper.isGitRepository(current)) {
+          root = path;
+        }
+        current = current.getParentFile();
+      }
+    }
+    if (root == null) {
+      root = NO_REPOSITORY;
+    }
+
+    // All the visited paths are inside the same repository.
+    for (String path : resolved) {
+      roots.put(path, root);
+    }
+
+    return NO_REPOSITORY.equals(root) ? null : new File(root);
+  }
+
+  /**
+   * Forgets all the answers.
+   */
+  public synchronized void clear() {
+    roots.clear();
+    clearTime = System.nanoTime();
+  }
+}
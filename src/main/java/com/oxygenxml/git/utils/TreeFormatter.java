@@ -1,9 +1,11 @@
 package com.oxygenxml.git.utils;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.JTree;
 import javax.swing.tree.DefaultTreeModel;
@@ -126,28 +128,20 @@ public class TreeFormatter {
 	public static List<TreePath> getTreeCommonAncestors(TreePath[] selectedPaths) {
 		List<TreePath> commonAncestors = new ArrayList<>();
 		if (selectedPaths != null) {
-			commonAncestors.add(selectedPaths[0]);
-			for (int i = 0; i < selectedPaths.length; i++) {
-				boolean newPathToAdd = false;
-				List<TreePath> pathsToRemove = new ArrayList<>();
-				for (TreePath treePath : commonAncestors) {
-					if (treePath.isDescendant(selectedPaths[i])) {
-						newPathToAdd = false;
-						break;
-					} else if (selectedPaths[i].isDescendant(treePath)) {
-						pathsToRemove.add(treePath);
-						newPathToAdd = false;
-					} else {
-						newPathToAdd = true;
-					}
-				}
-				if (!pathsToRemove.isEmpty()) {
-					commonAncestors.removeAll(pathsToRemove);
-					commonAncestors.add(selectedPaths[i]);
-				} else if (newPathToAdd) {
-					commonAncestors.add(selectedPaths[i]);
-				}
-			}
+		  Set<TreePath> selected = new HashSet<>(Arrays.asList(selectedPaths));
+		  Set<TreePath> added = new HashSet<>();
+		  for (TreePath selectedPath : selectedPaths) {
+		    // Keep just the paths without a selected ancestor. Linear in the number of selected paths.
+		    boolean hasSelectedAncestor = false;
+		    TreePath ancestor = selectedPath.getParentPath();
+		    while (ancestor != null && !hasSelectedAncestor) {
+		      hasSelectedAncestor = selected.contains(ancestor);
+		      ancestor = ancestor.getParentPath();
+		    }
+		    if (!hasSelectedAncestor && added.add(selectedPath)) {
+		      commonAncestors.add(selectedPath);
+		    }
+		  }
 		}
 		return commonAncestors;
 	}
@@ -216,15 +210,14 @@ public class TreeFormatter {
 	 */
 	public static void restoreLastExpandedPaths(Enumeration<TreePath> expandedPaths, JTree tree) {
 		if (expandedPaths != null) {
-			List<TreePath> paths = Collections.list(expandedPaths);
+		  Set<String> paths = new HashSet<>();
+		  while (expandedPaths.hasMoreElements()) {
+		    paths.add(TreeFormatter.getStringPath(expandedPaths.nextElement()));
+		  }
 			for (int i = 0; i < tree.getRowCount(); i++) {
 				TreePath currentPath = tree.getPathForRow(i);
-				String currentStringPath = TreeFormatter.getStringPath(currentPath);
-				for (TreePath treePath : paths) {
-					String stringTreePahr = TreeFormatter.getStringPath(treePath);
-					if (currentStringPath.equals(stringTreePahr)) {
-						tree.expandRow(i);
-					}
+				if (paths.contains(TreeFormatter.getStringPath(currentPath))) {
+				  tree.expandRow(i);
 				}
 			}
 		}
@@ -19,7 +19,7 @@ import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
-import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.ProjectRefreshPlanner;
 import com.oxygenxml.git.view.ChangesPanel.SelectedResourcesProvider;
 import com.oxygenxml.git.view.event.GitCommand;
 import com.oxygenxml.git.view.event.GitController;
@@ -83,36 +83,36 @@ public class DiscardAction extends AbstractAction {
         translator.getTranslation(Tags.DISCARD_CONFIRMATION_MESSAGE), options, optonsId);
     if (response == 0) {
       Set<File> foldersToRefresh = new HashSet<>();
-      Set<File> deletedFilesParentDirs = new HashSet<>();
+      Set<File> modifiedFiles = new HashSet<>();
       String selectedRepository = OptionsManager.getInstance().getSelectedRepository();
       
       List<FileStatus> allSelectedResources = selResProvider.getAllSelectedResources();
       for (FileStatus file : allSelectedResources) {
+        File fileToDiscard = new File(selectedRepository, file.getFileLocation());
         if (file.getChangeType() == GitChangeType.ADD
             || file.getChangeType() == GitChangeType.UNTRACKED) {
           try {
-            File fileToDiscard = new File(selectedRepository, file.getFileLocation());
             FileUtils.forceDelete(fileToDiscard);
-            // Collect the parent folders. We'll later have to find the common ancestor and refresh it.
-            deletedFilesParentDirs.add(fileToDiscard.getParentFile());
+            // Collect the parent folders. We'll later refresh only the folders that lost files.
+            foldersToRefresh.add(fileToDiscard.getParentFile());
           } catch (IOException e1) {
             logger.error(e1, e1);
           }
         } else if (file.getChangeType() == GitChangeType.SUBMODULE) {
           discardSubmodule(file, foldersToRefresh, selectedRepository);
+        } else if (file.getChangeType() == GitChangeType.MISSING) {
+          // The file will be restored.
+          foldersToRefresh.add(fileToDiscard.getParentFile());
+        } else {
+          modifiedFiles.add(fileToDiscard);
         }
       }
       
-      // Also refresh the common folder of all the individual discarded files
-      if (!deletedFilesParentDirs.isEmpty()) {
-        foldersToRefresh.add(FileHelper.getCommonDir(deletedFilesParentDirs));
-      }
-      
-      // Execute Git command
-      stageController.doGitCommand(allSelectedResources, GitCommand.DISCARD);
-      
-      // Refresh the Project view
-      wsAccess.getProjectManager().refreshFolders(foldersToRefresh.toArray(new File[0]));
+      // Execute Git command. Refresh the Project view after the files were restored.
+      stageController.doGitCommand(
+          allSelectedResources,
+          GitCommand.DISCARD,
+          () -> ProjectRefreshPlanner.refresh(new File(selectedRepository), foldersToRefresh, modifiedFiles));
     }
   }
 
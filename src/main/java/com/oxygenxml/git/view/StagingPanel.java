@@ -225,7 +225,7 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
 				// The focus is somewhere in the view.
 				if (!inTheView) {
 				  // EXM-40880: Invoke later so that the focus event gets processed.
-				  SwingUtilities.invokeLater(() -> refreshSupport.call());
+				  SwingUtilities.invokeLater(() -> refreshSupport.callIncremental());
 				}
 				inTheView = true;
 			}
@@ -294,6 +294,7 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
             }
 
             Collection<String> affectedFiles = Arrays.asList(fileInWorkPath.substring(selectedRepositoryPath.length () + 1));
+            GitAccess.getInstance().getStatusEngine().markDirty(affectedFiles);
             GitEvent changeEvent = new GitEvent(GitCommand.UNSTAGE, GitCommandState.SUCCESSFULLY_ENDED, affectedFiles);
             unstagedChangesPanel.stateChanged(changeEvent);
           }
@@ -3,8 +3,11 @@ package com.oxygenxml.git.view;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.table.AbstractTableModel;
@@ -44,14 +47,25 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	public static final int FILE_LOCATION_COLUMN = 1;
 
 	/**
-	 * The internal representation of the model
+	 * The internal representation of the model. Always sorted with {@link #fileStatusComparator}.
 	 */
-	private List<FileStatus> filesStatuses = Collections.synchronizedList(new ArrayList<>());
+	private final List<FileStatus> filesStatuses = Collections.synchronizedList(new ArrayList<>());
+
+	/**
+	 * Above this number of changed ranges, a refresh is reported as a change of the whole table.
+	 */
+	private static final int MAX_RANGE_EVENTS = 50;
+
+	/**
+	 * File location -> the files from the model with that location. Usually just one, but the same
+	 * file can appear with more change types. Guarded by {@link #filesStatuses}.
+	 */
+	private final Map<String, List<FileStatus>> rowsByPath = new HashMap<>();
 
 	/**
 	 * Compares file statuses.
 	 */
-	private Comparator<FileStatus> fileStatusComparator = (f1, f2) -> {
+	private final Comparator<FileStatus> fileStatusComparator = (f1, f2) -> {
     int changeTypeCompareResult = f1.getChangeType().compareTo(f2.getChangeType());
     if(changeTypeCompareResult == 0) {
       return f1.getFileLocation().compareTo(f2.getFileLocation());
@@ -84,7 +98,7 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 
 	@Override
   public int getRowCount() {
-		return filesStatuses != null ? filesStatuses.size() : 0;
+		return filesStatuses.size();
 	}
 
 	@Override
@@ -131,21 +145,125 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	}
 
 	/**
-	 * Sets the model with the given files, and also sorts it
+	 * Sets the model with the given files, and also sorts it. Only the rows that differ
+	 * from the current ones are reported as deleted or inserted.
 	 * 
 	 * @param filesStatuses
 	 *          - the files
 	 */
 	public void setFilesStatus(List<FileStatus> filesStatuses) {
-	  fireTableRowsDeleted(0, getRowCount());
-	  
-		this.filesStatuses = Collections.synchronizedList(new ArrayList<>(filesStatuses));
-		removeDuplicates();
-		Collections.sort(this.filesStatuses, fileStatusComparator);
-		
-		fireTableRowsInserted(0, getRowCount());
+	  List<FileStatus> newFiles = new ArrayList<>(new LinkedHashSet<>(filesStatuses));
+	  Collections.sort(newFiles, fileStatusComparator);
+	  applyDiff(newFiles);
 	}
 
+  /**
+   * Brings the model to the given sorted files by walking both sorted lists at once.
+   * Consecutive rows that are removed or added are reported as a single range. When the
+   * changes are scattered over too many ranges, the whole table is reported as changed instead.
+   * 
+   * @param newFiles The new files, sorted with {@link #fileStatusComparator}, without duplicates.
+   */
+  private void applyDiff(List<FileStatus> newFiles) {
+    synchronized (filesStatuses) {
+      // Each range is {first row, old files removed, first new file, new files inserted}.
+      List<int[]> ranges = new ArrayList<>();
+      int oldIndex = 0;
+      int newIndex = 0;
+      int row = 0;
+      while (oldIndex < filesStatuses.size() || newIndex < newFiles.size()) {
+        int compare;
+        if (newIndex == newFiles.size()) {
+          compare = -1;
+        } else if (oldIndex == filesStatuses.size()) {
+          compare = 1;
+        } else {
+          compare = fileStatusComparator.compare(filesStatuses.get(oldIndex), newFiles.get(newIndex));
+        }
+        
+        if (compare == 0) {
+          // Same change type and location. Nothing to repaint.
+          oldIndex++;
+          newIndex++;
+          row++;
+        } else {
+          int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+          if (last == null || last[0] + last[3] != row) {
+            // Not adjacent to the previous range.
+            last = new int[] {row, 0, newIndex, 0};
+            ranges.add(last);
+          }
+          if (compare < 0) {
+            oldIndex++;
+            last[1]++;
+          } else {
+            newIndex++;
+            last[3]++;
+            row++;
+          }
+        }
+      }
+
+      if (ranges.size() > MAX_RANGE_EVENTS) {
+        filesStatuses.clear();
+        filesStatuses.addAll(newFiles);
+        rowsByPath.clear();
+        indexRows(newFiles);
+        fireTableDataChanged();
+      } else {
+        for (int[] range : ranges) {
+          if (range[1] > 0) {
+            removeRows(range[0], range[0] + range[1]);
+          }
+          if (range[3] > 0) {
+            addRows(range[0], newFiles.subList(range[2], range[2] + range[3]));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes a range of rows and notifies the listeners.
+   * 
+   * @param from The first row, inclusive.
+   * @param to   The last row, exclusive.
+   */
+  private void removeRows(int from, int to) {
+    List<FileStatus> removed = filesStatuses.subList(from, to);
+    for (FileStatus fileStatus : removed) {
+      rowsByPath.computeIfPresent(fileStatus.getFileLocation(), (path, files) -> {
+        files.remove(fileStatus);
+        return files.isEmpty() ? null : files;
+      });
+    }
+    removed.clear();
+    fireTableRowsDeleted(from, to - 1);
+  }
+
+  /**
+   * Inserts a range of rows and notifies the listeners.
+   * 
+   * @param at    The position of the first new row.
+   * @param files The files to insert.
+   */
+  private void addRows(int at, List<FileStatus> files) {
+    filesStatuses.addAll(at, files);
+    indexRows(files);
+    fireTableRowsInserted(at, at + files.size() - 1);
+  }
+
+  /**
+   * Adds the given files to the path index.
+   * 
+   * @param files The files.
+   */
+  private void indexRows(List<FileStatus> files) {
+    for (FileStatus fileStatus : files) {
+      rowsByPath.computeIfAbsent(fileStatus.getFileLocation(), path -> new ArrayList<>(1)).add(fileStatus);
+    }
+  }
+
 	/**
 	 * Returns the file from the given row
 	 * 
@@ -200,55 +318,58 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	  }
 	  
     if (changeEvent.getGitComandState() == GitCommandState.SUCCESSFULLY_ENDED) {
-      updateTableModel(changeEvent);
-      removeDuplicates();
-      Collections.sort(filesStatuses, fileStatusComparator);
-      fireTableDataChanged();
+      List<FileStatus> newFiles;
+      synchronized (filesStatuses) {
+        newFiles = new ArrayList<>(filesStatuses);
+      }
+      updateTableModel(changeEvent, newFiles);
+      // The files are mostly sorted already, so this is close to linear.
+      setFilesStatus(newFiles);
     }
 	}
 
 	/**
-	 * Update the table model based on the given event.
+	 * Update the files based on the given event.
 	 * 
 	 * @param changeEvent Event.
+	 * @param files       The files to update.
 	 */
-  private void updateTableModel(GitEvent changeEvent) {
+  private void updateTableModel(GitEvent changeEvent, List<FileStatus> files) {
     switch (changeEvent.getGitCommand()) {
       case STAGE:
         if (inIndex) {
-          insertRows(GitAccess.getInstance().getStagedFile(changeEvent.getAffectedFiles()));
+          files.addAll(GitAccess.getInstance().getStagedFile(changeEvent.getAffectedFiles()));
         } else {
-          deleteRows(changeEvent.getOldAffectedFiles());
+          deleteRows(files, changeEvent.getOldAffectedFiles());
         }
         break;
       case UNSTAGE:
         if (inIndex) {
-          deleteRows(changeEvent.getOldAffectedFiles());
+          deleteRows(files, changeEvent.getOldAffectedFiles());
         } else {
           // Things were taken out of the INDEX. 
           // The same resource might be present in the UnStaged and INDEX. Remove old states.
-          deleteRows(changeEvent.getOldAffectedFiles());
-          insertRows(GitAccess.getInstance().getUnstagedFiles(changeEvent.getAffectedFiles()));
+          deleteRows(files, changeEvent.getOldAffectedFiles());
+          files.addAll(GitAccess.getInstance().getUnstagedFiles(changeEvent.getAffectedFiles()));
         }
         break;
       case COMMIT:
         if (inIndex) {
           // Committed files are removed from the INDEX.
-          filesStatuses.clear();
+          files.clear();
         }
         break;
       case DISCARD:
-        deleteRows(changeEvent.getOldAffectedFiles());
+        deleteRows(files, changeEvent.getOldAffectedFiles());
         break;
       case MERGE_RESTART:
-        filesStatuses.clear();
-        List<FileStatus> fileStatuses = inIndex ? GitAccess.getInstance().getStagedFiles()
-            : GitAccess.getInstance().getUnstagedFiles();
-        insertRows(fileStatuses);
+        files.clear();
+        files.addAll(inIndex ? GitAccess.getInstance().getStagedFiles()
+            : GitAccess.getInstance().getUnstagedFiles());
         break;
       case ABORT_REBASE:
       case CONTINUE_REBASE:
-        filesStatuses.clear();
+        files.clear();
         break;
       default:
         break;
@@ -256,34 +377,14 @@ public class StagingResourcesTableModel extends AbstractTableModel {
   }
 
 	/**
-	 * Removes any duplicate entries
-	 */
-	private void removeDuplicates() {
-		Set<FileStatus> set = new HashSet<>();
-		set.addAll(this.filesStatuses);
-		this.filesStatuses.clear();
-		this.filesStatuses.addAll(set);
-	}
-
-	/**
-	 * Delete the given files from the model
+	 * Delete the given files from the list.
 	 * 
-	 * @param fileToBeUpdated
-	 *          - the files to be deleted from the model
+	 * @param files           The files to update.
+	 * @param fileToBeUpdated The files to be deleted.
 	 */
-	private void deleteRows(List<FileStatus> fileToBeUpdated) {
-		filesStatuses.removeAll(fileToBeUpdated);
-	}
-
-	/**
-	 * Insert the given files to the model
-	 * 
-	 * @param fileToBeUpdated
-	 *          - the files to be inserted in the model
-	 */
-	private void insertRows(List<FileStatus> fileToBeUpdated) {
-		filesStatuses.addAll(fileToBeUpdated);
-
+	private static void deleteRows(List<FileStatus> files, List<FileStatus> fileToBeUpdated) {
+	  Set<FileStatus> toDelete = new HashSet<>(fileToBeUpdated);
+	  files.removeIf(toDelete::contains);
 	}
 
 	public String getFileLocation(int convertedRow) {
@@ -298,19 +399,30 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	 * Gets all the file indexes from the given folder
 	 * 
 	 * @param path
-	 *          - the folder from which to get the file indexes
+	 *          - the folder from which to get the file indexes. A file path gives the rows of that
+	 *          file and an empty path gives all the rows.
 	 * @return a list containing the file indexes
 	 */
 	public List<Integer> getRows(String path) {
 	  List<Integer> rows = new ArrayList<>();
 	  synchronized (filesStatuses) {
-	    for (int i = 0; i < filesStatuses.size(); i++) {
-	      if (filesStatuses.get(i).getFileLocation().contains(path)) {
+	    if (path.isEmpty()) {
+	      for (int i = 0; i < filesStatuses.size(); i++) {
 	        rows.add(i);
 	      }
+	    } else {
+	      String folderPrefix = path + "/";
+	      for (Map.Entry<String, List<FileStatus>> entry : rowsByPath.entrySet()) {
+	        if (entry.getKey().equals(path) || entry.getKey().startsWith(folderPrefix)) {
+	          for (FileStatus fileStatus : entry.getValue()) {
+	            rows.add(indexOf(fileStatus));
+	          }
+	        }
+	      }
+	      Collections.sort(rows);
 	    }
 	  }
-		return rows;
+	  return rows;
 	}
 
 	/**
@@ -318,17 +430,34 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	 * 
 	 * @param fileLocation
 	 *          - the file location
-	 * @return the row
+	 * @return the row, or -1 if the file is not in the model. If the file is present more than once,
+	 *          with different change types, the first row is returned.
 	 */
 	public int getRow(String fileLocation) {
+	  int row = -1;
 	  synchronized (filesStatuses) {
-	    for (int i = 0; i < filesStatuses.size(); i++) {
-	      if (filesStatuses.get(i).getFileLocation().equals(fileLocation)) {
-	        return i;
+	    List<FileStatus> files = rowsByPath.get(fileLocation);
+	    if (files != null) {
+	      for (FileStatus fileStatus : files) {
+	        int index = indexOf(fileStatus);
+	        if (row == -1 || index < row) {
+	          row = index;
+	        }
 	      }
 	    }
 	  }
-	  return -1;
+	  return row;
 	}
 
+  /**
+   * Finds the row of a file from the model with a binary search.
+   * 
+   * @param fileStatus A file from the model.
+   * 
+   * @return The row.
+   */
+  private int indexOf(FileStatus fileStatus) {
+    return Collections.binarySearch(filesStatuses, fileStatus, fileStatusComparator);
+  }
+
 }
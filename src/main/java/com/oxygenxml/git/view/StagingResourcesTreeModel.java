@@ -2,18 +2,20 @@ package com.oxygenxml.git.view;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
-import com.oxygenxml.git.utils.TreeFormatter;
 import com.oxygenxml.git.view.event.GitCommand;
 import com.oxygenxml.git.view.event.GitCommandState;
 import com.oxygenxml.git.view.event.GitController;
@@ -35,6 +37,14 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	 * The files in the model
 	 */
 	private List<FileStatus> filesStatuses = Collections.synchronizedList(new ArrayList<>());
+	/**
+	 * Path -> the files with that path. Guarded by {@link #filesStatuses}.
+	 */
+	private final Map<String, List<FileStatus>> filesByPath = new HashMap<>();
+	/**
+	 * Path -> the node of a file or folder.
+	 */
+	private final Map<String, GitTreeNode> nodesByPath = new HashMap<>();
 
   /**
    * <code>true</code> if this model presents the resources inside the index.
@@ -74,6 +84,9 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
           inIndex ? GitAccess.getInstance().getStagedFile(changeEvent.getAffectedFiles()) 
               : GitAccess.getInstance().getUnstagedFiles(changeEvent.getAffectedFiles());
               
+      // The nodes inserted and removed for the affected files are notified one by one.
+      // Changes of the entire model are notified as a structure change.
+      boolean structureChanged = false;
       switch (changeEvent.getGitCommand()) {
         case STAGE:
           if (inIndex) {
@@ -94,73 +107,205 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
           break;
         case COMMIT:
           if (inIndex) {
-            deleteNodes(filesStatuses);
-            filesStatuses.clear();
+            clear();
+            structureChanged = true;
           }
           break;
         case DISCARD:
           deleteNodes(oldStates);
           break;
         case MERGE_RESTART:
-          filesStatuses.clear();
+          clear();
           List<FileStatus> fileStatuses = inIndex ? GitAccess.getInstance().getStagedFiles() 
               : GitAccess.getInstance().getUnstagedFiles();
           insertNodes(fileStatuses);
+          structureChanged = true;
           break;
         case ABORT_REBASE:
         case CONTINUE_REBASE:
-          filesStatuses.clear();
+          clear();
+          structureChanged = true;
           break;
         default:
           // Nothing
           break;
       }
   
-  		fireTreeStructureChanged(this, null, null, null);
+      if (structureChanged) {
+        fireTreeStructureChanged(this, null, null, null);
+      }
   	}
 	}
 
 	/**
-	 * Insert nodes to the tree based on the given files
+	 * Insert nodes to the tree based on the given files. Each node is inserted at its sorted
+	 * position and the listeners are notified about it.
 	 * 
 	 * @param fileToBeUpdated
 	 *          - the files on which the nodes will be created
-	 *          
-	 * TODO EXM-41133 Sorin Return the added TreePaths.
 	 */
 	private void insertNodes(List<FileStatus> fileToBeUpdated) {
-
 		for (FileStatus fileStatus : fileToBeUpdated) {
-			TreeFormatter.buildTreeFromString(this, fileStatus.getFileLocation());
+		  synchronized (filesStatuses) {
+		    filesStatuses.add(fileStatus);
+		    filesByPath.computeIfAbsent(fileStatus.getFileLocation(), k -> new ArrayList<>(1)).add(fileStatus);
+		  }
+			insertNode(fileStatus.getFileLocation());
 		}
-		filesStatuses.addAll(fileToBeUpdated);
-		sortTree();
 	}
 
 	/**
-	 * Delete nodes from the tree based on the given files
+	 * Creates the nodes for the given path, if missing.
+	 * 
+	 * @param path The path of a file.
+	 */
+	private void insertNode(String path) {
+	  GitTreeNode parent = (GitTreeNode) getRoot();
+	  // The first created node. Its descendants are created together with it.
+	  GitTreeNode firstNewNode = null;
+	  int start = 0;
+	  while (start <= path.length()) {
+	    int end = path.indexOf('/', start);
+	    boolean isFolder = end != -1;
+	    if (!isFolder) {
+	      end = path.length();
+	    }
+	    String subPath = path.substring(0, end);
+	    GitTreeNode node = nodesByPath.get(subPath);
+	    if (node == null) {
+	      node = new GitTreeNode(path.substring(start, end));
+	      nodesByPath.put(subPath, node);
+	      if (firstNewNode == null) {
+	        firstNewNode = node;
+	        parent.insert(node, getInsertionIndex(parent, node, isFolder));
+	      } else {
+	        // The parent was just created. This is its only child.
+	        parent.add(node);
+	      }
+	    }
+	    parent = node;
+	    start = end + 1;
+	  }
+	  
+	  if (firstNewNode != null) {
+	    TreeNode firstNewNodeParent = firstNewNode.getParent();
+	    nodesWereInserted(firstNewNodeParent, new int[] {firstNewNodeParent.getIndex(firstNewNode)});
+	  }
+	}
+
+	/**
+	 * Finds the sorted position of a new child: folders first, then alphabetically.
+	 * 
+	 * @param parent   The parent node.
+	 * @param child    The new child.
+	 * @param isFolder <code>true</code> if the new child is a folder.
+	 * 
+	 * @return The index where to insert the child.
+	 */
+	private static int getInsertionIndex(GitTreeNode parent, GitTreeNode child, boolean isFolder) {
+	  String name = (String) child.getUserObject();
+	  int low = 0;
+	  int high = parent.getChildCount();
+	  while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    GitTreeNode sibling = (GitTreeNode) parent.getChildAt(middle);
+	    boolean isSiblingFolder = !sibling.isLeaf();
+	    int comparison;
+	    if (isFolder != isSiblingFolder) {
+	      comparison = isFolder ? -1 : 1;
+	    } else {
+	      comparison = name.compareToIgnoreCase(sibling.getUserObject().toString());
+	    }
+	    
+	    if (comparison < 0) {
+	      high = middle;
+	    } else {
+	      low = middle + 1;
+	    }
+	  }
+	  return low;
+	}
+
+	/**
+	 * Delete nodes from the tree based on the given files. The listeners are notified about 
+	 * each removed node.
 	 * 
 	 * @param fileToBeUpdated
 	 *          - the files on which the nodes will be deleted
-	 *          
-	 * TODO EXM-41133 Sorin Return deleted TreePath.
 	 */
 	private void deleteNodes(List<FileStatus> fileToBeUpdated) {
-		for (FileStatus fileStatus : fileToBeUpdated) {
-			GitTreeNode node = TreeFormatter.getTreeNodeFromString(this, fileStatus.getFileLocation());
-			while (node != null && node.getParent() != null) {
-				GitTreeNode parentNode = (GitTreeNode) node.getParent();
-				if (node.getSiblingCount() != 1) {
-					parentNode.remove(node);
-					break;
-				} else {
-					parentNode.remove(node);
-				}
-				node = parentNode;
-			}
-		}
-		filesStatuses.removeAll(fileToBeUpdated);
-		sortTree();
+	  Set<String> emptiedPaths = new HashSet<>();
+	  synchronized (filesStatuses) {
+	    Set<FileStatus> toRemove = new HashSet<>(fileToBeUpdated);
+	    filesStatuses.removeIf(toRemove::contains);
+	    
+	    for (FileStatus fileStatus : fileToBeUpdated) {
+	      String path = fileStatus.getFileLocation();
+	      List<FileStatus> files = filesByPath.get(path);
+	      if (files != null) {
+	        files.removeIf(fileStatus::equals);
+	        if (files.isEmpty()) {
+	          filesByPath.remove(path);
+	          emptiedPaths.add(path);
+	        }
+	      }
+	    }
+	  }
+	  
+	  for (String path : emptiedPaths) {
+	    deleteNode(path);
+	  }
+	}
+
+	/**
+	 * Removes the node of the given path, together with the ancestors left empty.
+	 * 
+	 * @param path The path of a file.
+	 */
+	private void deleteNode(String path) {
+	  GitTreeNode node = nodesByPath.remove(path);
+	  if (node != null && node.getParent() != null) {
+	    GitTreeNode parent = (GitTreeNode) node.getParent();
+	    // Climb while the node is the only child. The root is never removed.
+	    while (parent.getChildCount() == 1 && parent.getParent() != null) {
+	      path = path.substring(0, path.lastIndexOf('/'));
+	      nodesByPath.remove(path);
+	      node = parent;
+	      parent = (GitTreeNode) node.getParent();
+	    }
+	    
+	    int index = parent.getIndex(node);
+	    parent.remove(index);
+	    removeDescendantsFromIndex(node, path);
+	    nodesWereRemoved(parent, new int[] {index}, new Object[] {node});
+	  }
+	}
+
+	/**
+	 * Removes from the index the descendants of a removed node.
+	 * 
+	 * @param node The removed node.
+	 * @param path The path of the removed node.
+	 */
+	private void removeDescendantsFromIndex(GitTreeNode node, String path) {
+	  for (int i = 0; i < node.getChildCount(); i++) {
+	    GitTreeNode child = (GitTreeNode) node.getChildAt(i);
+	    String childPath = path + "/" + child.getUserObject();
+	    nodesByPath.remove(childPath);
+	    removeDescendantsFromIndex(child, childPath);
+	  }
+	}
+
+	/**
+	 * Removes all the files and nodes. The listeners are not notified.
+	 */
+	private void clear() {
+	  synchronized (filesStatuses) {
+	    filesStatuses.clear();
+	    filesByPath.clear();
+	  }
+	  nodesByPath.clear();
+	  ((GitTreeNode) getRoot()).removeAllChildren();
 	}
 
 	/**
@@ -173,16 +318,25 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	public FileStatus getFileByPath(String path) {
 	  FileStatus toReturn = null;
 	  synchronized (filesStatuses) {
-	    for (FileStatus fileStatus : filesStatuses) {
-	      if (path.equals(fileStatus.getFileLocation())) {
-	        toReturn = fileStatus;
-	        break;
-	      }
+	    List<FileStatus> files = filesByPath.get(path);
+	    if (files != null) {
+	      toReturn = files.get(0);
 	    }
     }
 		return toReturn;
 	}
 
+	/**
+	 * Return the node from the given path, without walking the tree.
+	 * 
+	 * @param path
+	 *          - the forward slash delimited path. Empty for the root.
+	 * @return the node or <code>null</code> if the path is not present in the tree.
+	 */
+	public GitTreeNode getNodeByPath(String path) {
+	  return path.isEmpty() ? (GitTreeNode) getRoot() : nodesByPath.get(path);
+	}
+
 	/**
 	 * Return the files from the given paths
 	 * 
@@ -193,15 +347,38 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	public List<FileStatus> getFilesByPaths(List<String> selectedPaths) {
 	  List<FileStatus> containingPaths = new ArrayList<>();
 	  for (String path : selectedPaths) {
+	    GitTreeNode node = getNodeByPath(path);
+	    if (node != null) {
+	      collectFiles(node, path, containingPaths);
+	    }
+	  }
+	  return containingPaths;
+	}
+
+	/**
+	 * Collects the files from the given node and its descendants.
+	 * 
+	 * @param node  The node.
+	 * @param path  The path of the node. Empty for the root.
+	 * @param files Receives copies of the files.
+	 */
+	private void collectFiles(GitTreeNode node, String path, List<FileStatus> files) {
+	  if (node.isLeaf()) {
 	    synchronized (filesStatuses) {
-	      for (FileStatus fileStatus : filesStatuses) {
-	        if (fileStatus.getFileLocation().startsWith(path)) {
-	          containingPaths.add(new FileStatus(fileStatus));
+	      List<FileStatus> filesForPath = filesByPath.get(path);
+	      if (filesForPath != null) {
+	        for (FileStatus fileStatus : filesForPath) {
+	          files.add(new FileStatus(fileStatus));
 	        }
 	      }
 	    }
+	  } else {
+	    String prefix = path.isEmpty() ? "" : path + "/";
+	    for (int i = 0; i < node.getChildCount(); i++) {
+	      GitTreeNode child = (GitTreeNode) node.getChildAt(i);
+	      collectFiles(child, prefix + child.getUserObject(), files);
+	    }
 	  }
-	  return containingPaths;
 	}
 	
 	/**
@@ -213,10 +390,11 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
    */
 	public List<FileStatus> getFileLeavesByPaths(List<String> selectedPaths) {
 	  List<FileStatus> containingPaths = new ArrayList<>();
-	  for (String path : selectedPaths) {
-	    synchronized (filesStatuses) {
-	      for (FileStatus fileStatus : filesStatuses) {
-	        if (fileStatus.getFileLocation().equals(path)) {
+	  synchronized (filesStatuses) {
+	    for (String path : selectedPaths) {
+	      List<FileStatus> files = filesByPath.get(path);
+	      if (files != null) {
+	        for (FileStatus fileStatus : files) {
 	          containingPaths.add(new FileStatus(fileStatus));
 	        }
 	      }
@@ -237,45 +415,12 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	    filesStatus = Collections.emptyList();
 	  }
 	  
-		deleteNodes(this.filesStatuses);
+		clear();
 		insertNodes(filesStatus);
 		
 		fireTreeStructureChanged(this, null, null, null);
 	}
 
-	/**
-	 * Sorts the entire tree
-	 */
-	private void sortTree() {
-		GitTreeNode root = (GitTreeNode) getRoot();
-		Enumeration<?> e = root.depthFirstEnumeration();
-		while (e.hasMoreElements()) {
-			GitTreeNode node = (GitTreeNode) e.nextElement();
-			if (!node.isLeaf()) {
-				sort(node);
-			}
-		}
-	}
-
-	/**
-	 * Sorts the given node
-	 * 
-	 * @param parent
-	 *          - the node to be sorted
-	 */
-	private void sort(GitTreeNode parent) {
-		int n = parent.getChildCount();
-		List<GitTreeNode> children = new ArrayList<>(n);
-		for (int i = 0; i < n; i++) {
-			children.add((GitTreeNode) parent.getChildAt(i));
-		}
-		Collections.sort(children, new NodeTreeComparator());
-		parent.removeAllChildren();
-		for (MutableTreeNode node : children) {
-			parent.add(node);
-		}
-	}
-
 	/**
 	 * @return The files in the model.
 	 */
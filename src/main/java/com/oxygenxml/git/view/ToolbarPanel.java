@@ -47,6 +47,7 @@ import com.oxygenxml.git.utils.GitRefreshSupport;
 import com.oxygenxml.git.view.dialog.BranchSelectDialog;
 import com.oxygenxml.git.view.dialog.CloneRepositoryDialog;
 import com.oxygenxml.git.view.dialog.LoginDialog;
+import com.oxygenxml.git.view.dialog.OperationMetricsDialog;
 import com.oxygenxml.git.view.dialog.PassphraseDialog;
 import com.oxygenxml.git.view.dialog.SubmoduleSelectDialog;
 import com.oxygenxml.git.view.event.GitCommand;
@@ -391,6 +392,15 @@ public class ToolbarPanel extends JPanel {
             }
           }
         }, false);
+    
+    // The measurements of the Git operations
+    settingsMenuButton.addActionToMenu(
+        new AbstractAction(translator.getTranslation(Tags.GIT_DIAGNOSTICS)) {
+          @Override
+          public void actionPerformed(ActionEvent e) {
+            new OperationMetricsDialog();
+          }
+        }, false);
 
     gitToolbar.add(settingsMenuButton);
   }
@@ -0,0 +1,89 @@
+package com.oxygenxml.git.view.blame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Keeps the most recent blame results, so that presenting the blame again for an unchanged
+ * file doesn't compute it again. A result depends on the HEAD commit and on the content of the
+ * file in the index and in the working copy, so all of them are part of the key.
+ */
+final class BlameCache {
+  /**
+   * The maximum number of results to keep.
+   */
+  private static final int MAX_ENTRIES = 16;
+  /**
+   * Singleton instance.
+   */
+  private static final BlameCache instance = new BlameCache();
+  /**
+   * Key -> the commit that last changed each line. The most recently used come last.
+   */
+  private final Map<String, RevCommit[]> results = new LinkedHashMap<String, RevCommit[]>(MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, RevCommit[]> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Singleton private constructor.
+   */
+  private BlameCache() {}
+
+  /**
+   * @return The singleton instance.
+   */
+  static BlameCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param repository      The repository.
+   * @param filePath        The path of the file.
+   * @param head            The HEAD commit. May be <code>null</code>.
+   * @param indexBlob       The blob of the file from the index. May be <code>null</code>.
+   * @param workingCopyBlob The blob ID of the file from the working copy. May be <code>null</code>.
+   *
+   * @return The key of the blame result.
+   */
+  static String createKey(Repository repository, String filePath, ObjectId head, ObjectId indexBlob,
+      ObjectId workingCopyBlob) {
+    return repository.getDirectory().getAbsolutePath()
+        + "|" + filePath
+        + "|" + ObjectId.toString(head)
+        + "|" + ObjectId.toString(indexBlob)
+        + "|" + ObjectId.toString(workingCopyBlob);
+  }
+
+  /**
+   * @param key The key of the result.
+   *
+   * @return The commit that last changed each line or <code>null</code> if not cached.
+   */
+  synchronized RevCommit[] get(String key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches a result.
+   *
+   * @param key   The key of the result.
+   * @param lines The commit that last changed each line. <code>null</code> for the uncommitted lines.
+   */
+  synchronized void put(String key, RevCommit[] lines) {
+    results.put(key, lines);
+  }
+
+  /**
+   * Forgets all the results.
+   */
+  synchronized void clear() {
+    results.clear();
+  }
+}
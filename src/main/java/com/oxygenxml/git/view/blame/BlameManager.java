@@ -53,6 +53,7 @@ public class BlameManager {
     GitAccess.getInstance().addGitListener(new GitEventAdapter() {
       @Override
       public void repositoryChanged() {
+        BlameCache.getInstance().clear();
         // Dispose all blames from the previous repository.
         Iterator<String> iterator = activeBlames.keySet().iterator();
         while (iterator.hasNext()) {
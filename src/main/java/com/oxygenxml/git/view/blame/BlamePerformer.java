@@ -3,14 +3,24 @@ package com.oxygenxml.git.view.blame;
 import java.awt.Color;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.locks.Lock;
 
+import javax.swing.JFrame;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 import javax.swing.event.CaretListener;
@@ -19,15 +29,30 @@ import javax.swing.text.Highlighter;
 import javax.swing.text.Highlighter.HighlightPainter;
 
 import org.apache.log4j.Logger;
-import org.eclipse.jgit.api.BlameCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.blame.BlameGenerator;
 import org.eclipse.jgit.blame.BlameResult;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig.AutoCRLF;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.WorkingTreeOptions;
+import org.eclipse.jgit.util.IO;
+import org.eclipse.jgit.util.io.AutoLFInputStream;
 
+import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.Equaler;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
+import com.oxygenxml.git.view.dialog.ProgressDialog;
 import com.oxygenxml.git.view.historycomponents.HistoryController;
 
 import ro.sync.exml.editor.EditorPageConstants;
@@ -38,12 +63,21 @@ import ro.sync.exml.workspace.api.editor.page.text.WSTextEditorPage;
 
 /**
  * Computes the blame information and installs highlights on the tet page. 
+ * The blame is computed in the background and the results are cached, see {@link BlameCache}.
  */
 public class BlamePerformer {
   /**
    * Logger for logging.
    */
   private static final Logger LOGGER = Logger.getLogger(BlamePerformer.class);
+  /**
+   * For how long, in milliseconds, the blame is computed before giving other Git operations a chance.
+   */
+  private static final int SLICE_DURATION = 100;
+  /**
+   * After how many milliseconds the progress of the blame is presented.
+   */
+  private static final int PROGRESS_DIALOG_DELAY = 1000;
   /**
    * The current active commit. The one that contained the caret line. 
    */
@@ -86,6 +120,22 @@ public class BlamePerformer {
    * Random number generator.
    */
   private Random rand = new SecureRandom();
+  /**
+   * Set when the blame is no longer needed. Stops the computation.
+   */
+  private volatile boolean cancelled;
+  /**
+   * Shows the progress dialog if the blame takes longer.
+   */
+  private javax.swing.Timer progressTimer;
+  /**
+   * Presents the progress of a longer blame and allows canceling it.
+   */
+  private ProgressDialog progressDialog;
+  /**
+   * For how long, in milliseconds, a slice of the blame is computed.
+   */
+  int sliceDuration = SLICE_DURATION;
   
   /**
    * Computes the blame for the given resource and adds highlights on the editor.
@@ -114,59 +164,379 @@ public class BlamePerformer {
 
   /**
    * Computes the blame for the given resource and adds highlights on the editor.
+   * The blame is computed in the background, on the Git thread. The highlights are added
+   * as the regions of the file are resolved.
    * 
    * @param repository The repository that contains the file.
    * @param filePath File for which to compute the path.
    * @param historyController Interface to history support.
    * @param currentPage Editor that presents the file.
-   * 
-   * @throws GitAPIException if it fails.
    */
   private void doBlame(
       Repository repository,
       String filePath, 
       HistoryController historyController, 
-      WSTextEditorPage currentPage) throws GitAPIException {
-    BlameCommand blamer = new BlameCommand(repository);
+      WSTextEditorPage currentPage) {
+    textpage = currentPage;
     
-    // This is how you do it on a specific commit. If left out, it's performed on the WC instance.
-    //    ObjectId commitID = repository.resolve("HEAD~~"); NOSONAR
-    //    blamer.setStartCommit(commitID); NOSONAR
+    progressTimer = new javax.swing.Timer(PROGRESS_DIALOG_DELAY, e -> showProgressDialog());
+    progressTimer.setRepeats(false);
+    progressTimer.start();
     
-    blamer.setFilePath(filePath);
-    BlameResult blame = blamer.call();
-    textpage = currentPage;
-    JTextArea textArea = (JTextArea) textpage.getTextComponent();
-    Highlighter highlighter = textArea.getHighlighter();
+    GitOperationScheduler.getInstance().schedule(
+        Lane.READ, Priority.INTERACTIVE, null, new BlameTask(repository, filePath, historyController), 0);
+  }
+  
+  /**
+   * Computes the blame, a slice at a time, so that the other Git operations are not kept waiting.
+   * Runs on the Git thread.
+   */
+  private class BlameTask implements Runnable {
+    /**
+     * The repository that contains the file.
+     */
+    private final Repository repository;
+    /**
+     * The file.
+     */
+    private final String filePath;
+    /**
+     * Interface to history support.
+     */
+    private final HistoryController historyController;
+    /**
+     * The key of the result, in the cache.
+     */
+    private String cacheKey;
+    /**
+     * Resolves the regions of the file. <code>null</code> before starting.
+     */
+    private BlameGenerator generator;
+    /**
+     * The result, computed incrementally. <code>null</code> before starting.
+     */
+    private BlameResult result;
+    /**
+     * The number of lines resolved so far.
+     */
+    private int resolvedLines;
 
-    // Add highlights for each interval.
-    if (blame != null) {
-      int lines = blame.getResultContents().size();
-      for (int i = 0; i < lines; i++) {
-        RevCommit commit = blame.getSourceCommit(i);
-        lineIndicesToRevCommits.put(i, commit);
-        if (commit != null) {
-          try {
-            int offsetOfLineStart = textpage.getOffsetOfLineStart(i + 1);
-            int offsetOfLineEnd = textpage.getOffsetOfLineEnd(i + 1);
+    /**
+     * Constructor.
+     * 
+     * @param repository The repository that contains the file.
+     * @param filePath File for which to compute the path.
+     * @param historyController Interface to history support.
+     */
+    BlameTask(Repository repository, String filePath, HistoryController historyController) {
+      this.repository = repository;
+      this.filePath = filePath;
+      this.historyController = historyController;
+    }
+
+    @Override
+    public void run() {
+      // Other reads may run in parallel, but not a commit or a checkout.
+      Lock readLock = GitAccess.getInstance().getRepositoryLock().readLock();
+      readLock.lock();
+      try {
+        if (cancelled) {
+          close();
+        } else if (result != null || start()) {
+          computeSlice();
+        }
+      } catch (IOException e) {
+        LOGGER.error(e, e);
+        close();
+        SwingUtilities.invokeLater(BlamePerformer.this::closeProgress);
+      } finally {
+        readLock.unlock();
+      }
+    }
 
-            Object addHighlight = highlighter.addHighlight(offsetOfLineStart, offsetOfLineEnd, getPainter(commit, textpage));
-            highlightsToRevCommits.put(addHighlight, commit);
-          } catch (BadLocationException e) {
-            LOGGER.error(e, e);
+    /**
+     * Starts the computation. If the result is cached, it is presented right away.
+     * 
+     * @return <code>true</code> if the result must be computed.
+     * 
+     * @throws IOException Unable to read the file.
+     */
+    private boolean start() throws IOException {
+      ObjectId head = repository.resolve(Constants.HEAD);
+      ObjectId indexBlob = null;
+      RawText workingCopyText = null;
+      ObjectId workingCopyBlob = null;
+      if (!repository.isBare()) {
+        DirCache dirCache = repository.readDirCache();
+        int entry = dirCache.findEntry(filePath);
+        if (entry >= 0) {
+          indexBlob = dirCache.getEntry(entry).getObjectId();
+        }
+        
+        File inTree = new File(repository.getWorkTree(), filePath);
+        if (repository.getFS().isFile(inTree)) {
+          byte[] content = Files.readAllBytes(inTree.toPath());
+          try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            workingCopyBlob = formatter.idFor(Constants.OBJ_BLOB, content);
           }
+          workingCopyText = new RawText(canonicalize(content));
         }
       }
+      
+      cacheKey = BlameCache.createKey(repository, filePath, head, indexBlob, workingCopyBlob);
+      RevCommit[] cached = BlameCache.getInstance().get(cacheKey);
+      boolean compute = cached == null;
+      if (cached != null) {
+        SwingUtilities.invokeLater(() -> finish(cached, filePath, historyController));
+      } else {
+        // The same sources as the BlameCommand uses for the working copy.
+        generator = new BlameGenerator(repository, filePath);
+        if (head != null) {
+          generator.push(null, head);
+        }
+        if (indexBlob != null) {
+          generator.push(null, indexBlob);
+        }
+        if (workingCopyText != null) {
+          generator.push(null, workingCopyText);
+        }
+        
+        result = BlameResult.create(generator);
+        if (result == null) {
+          // The generator is closed.
+          compute = false;
+          SwingUtilities.invokeLater(() -> finish(null, filePath, historyController));
+        }
+      }
+      return compute;
+    }
+
+    /**
+     * @param content The content of the file from the working copy.
+     * 
+     * @return The content with the line endings from the repository, like the BlameCommand does.
+     * 
+     * @throws IOException
+     */
+    private byte[] canonicalize(byte[] content) throws IOException {
+      byte[] canonical = content;
+      WorkingTreeOptions options = repository.getConfig().get(WorkingTreeOptions.KEY);
+      if (options.getAutoCRLF() == AutoCRLF.TRUE) {
+        try (InputStream in = new AutoLFInputStream(new ByteArrayInputStream(content), true)) {
+          ByteBuffer buffer = IO.readWholeStream(in, content.length);
+          canonical = Arrays.copyOf(buffer.array(), buffer.limit());
+        }
+      }
+      return canonical;
+    }
 
-      installSyncListeners(filePath, historyController, textArea);
+    /**
+     * Resolves regions for a while, then presents them and schedules the next slice.
+     * 
+     * @throws IOException Unable to read the history.
+     */
+    private void computeSlice() throws IOException {
+      List<Region> regions = new ArrayList<>();
+      long sliceEnd = System.currentTimeMillis() + sliceDuration;
+      boolean done = false;
+      ProgressMonitor monitor = GitOperationScheduler.getProgressMonitor();
+      // Each slice resolves at least one region, so the blame advances even on a busy machine.
+      while (!done && !cancelled && !monitor.isCancelled() 
+          && (regions.isEmpty() || System.currentTimeMillis() < sliceEnd)) {
+        int start = result.computeNext();
+        if (start == -1) {
+          done = true;
+        } else {
+          int length = result.lastLength();
+          regions.add(new Region(start, length, result.getSourceCommit(start)));
+          resolvedLines += length;
+        }
+      }
+      
+      int totalLines = result.getResultContents().size();
+      int resolved = resolvedLines;
+      SwingUtilities.invokeLater(() -> addRegions(regions, resolved, totalLines));
       
-      // Present the history for the given resource.
-      historyController.showResourceHistory(filePath);
-    } else {
-      PluginWorkspaceProvider.getPluginWorkspace().showInformationMessage(
-          Translator.getInstance().getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES));
+      if (done) {
+        RevCommit[] lines = new RevCommit[totalLines];
+        for (int i = 0; i < totalLines; i++) {
+          lines[i] = result.getSourceCommit(i);
+        }
+        BlameCache.getInstance().put(cacheKey, lines);
+        SwingUtilities.invokeLater(() -> finish(lines, filePath, historyController));
+      } else if (cancelled || monitor.isCancelled()) {
+        close();
+      } else {
+        // Give the other Git operations a chance.
+        GitOperationScheduler.getInstance().schedule(Lane.READ, Priority.BACKGROUND, null, this, 0);
+      }
+    }
+
+    /**
+     * Releases the generator of a computation that didn't finish.
+     */
+    private void close() {
+      if (generator != null) {
+        generator.close();
+        generator = null;
+      }
+      result = null;
     }
   }
+  
+  /**
+   * A number of consecutive lines last changed in the same commit.
+   */
+  static class Region {
+    /**
+     * The first line, 0 based.
+     */
+    private final int start;
+    /**
+     * The number of lines.
+     */
+    private final int length;
+    /**
+     * The commit. <code>null</code> for uncommitted lines.
+     */
+    private final RevCommit commit;
+
+    /**
+     * Constructor.
+     * 
+     * @param start The first line, 0 based.
+     * @param length The number of lines.
+     * @param commit The commit. <code>null</code> for uncommitted lines.
+     */
+    Region(int start, int length, RevCommit commit) {
+      this.start = start;
+      this.length = length;
+      this.commit = commit;
+    }
+  }
+  
+  /**
+   * Presents the regions resolved so far. Runs on the AWT thread.
+   * 
+   * @param regions The newly resolved regions.
+   * @param resolvedLines The number of lines resolved so far.
+   * @param totalLines The number of lines of the file.
+   */
+  void addRegions(List<Region> regions, int resolvedLines, int totalLines) {
+    if (!cancelled) {
+      for (Region region : regions) {
+        for (int i = region.start; i < region.start + region.length; i++) {
+          lineIndicesToRevCommits.put(i, region.commit);
+        }
+        addHighlight(region);
+      }
+      
+      if (progressDialog != null) {
+        if (progressDialog.isCanceled()) {
+          cancelled = true;
+          closeProgress();
+        } else {
+          progressDialog.setNote(resolvedLines * 100 / Math.max(totalLines, 1) + "%");
+        }
+      }
+    }
+  }
+  
+  /**
+   * Adds a highlight over a region.
+   * 
+   * @param region The region.
+   */
+  private void addHighlight(Region region) {
+    if (region.commit != null) {
+      try {
+        int offsetOfLineStart = textpage.getOffsetOfLineStart(region.start + 1);
+        int offsetOfLineEnd = textpage.getOffsetOfLineEnd(region.start + region.length);
+        
+        Highlighter highlighter = ((JTextArea) textpage.getTextComponent()).getHighlighter();
+        Object addHighlight = highlighter.addHighlight(
+            offsetOfLineStart, offsetOfLineEnd, getPainter(region.commit, textpage));
+        highlightsToRevCommits.put(addHighlight, region.commit);
+      } catch (BadLocationException e) {
+        LOGGER.error(e, e);
+      }
+    }
+  }
+  
+  /**
+   * Presents the complete blame. The highlights of the consecutive lines changed in the same commit are
+   * replaced by a single one. Runs on the AWT thread.
+   * 
+   * @param lines The commit that last changed each line or <code>null</code> if there is nothing to show.
+   * @param filePath File for which to compute the path.
+   * @param historyController Interface to history support.
+   */
+  private void finish(RevCommit[] lines, String filePath, HistoryController historyController) {
+    closeProgress();
+    if (!cancelled) {
+      if (lines != null) {
+        removeHighlights();
+        lineIndicesToRevCommits.clear();
+        
+        int start = 0;
+        for (int i = 1; i <= lines.length; i++) {
+          if (i == lines.length || !Equaler.verifyEquals(lines[i], lines[start])) {
+            Region run = new Region(start, i - start, lines[start]);
+            for (int j = run.start; j < i; j++) {
+              lineIndicesToRevCommits.put(j, run.commit);
+            }
+            addHighlight(run);
+            start = i;
+          }
+        }
+        
+        installSyncListeners(filePath, historyController, (JTextArea) textpage.getTextComponent());
+        
+        // Present the history for the given resource.
+        historyController.showResourceHistory(filePath);
+      } else {
+        PluginWorkspaceProvider.getPluginWorkspace().showInformationMessage(
+            Translator.getInstance().getTranslation(Tags.NOTHING_TO_SHOW_FOR_NEW_FILES));
+      }
+    }
+  }
+  
+  /**
+   * Shows the progress of a blame that takes longer. Runs on the AWT thread.
+   */
+  private void showProgressDialog() {
+    if (!cancelled) {
+      progressDialog = new ProgressDialog(
+          (JFrame) PluginWorkspaceProvider.getPluginWorkspace().getParentFrame(),
+          Translator.getInstance().getTranslation(Tags.COMPUTING_BLAME),
+          false);
+      progressDialog.setVisible(true);
+    }
+  }
+  
+  /**
+   * Hides the progress of the blame.
+   */
+  private void closeProgress() {
+    if (progressTimer != null) {
+      progressTimer.stop();
+    }
+    if (progressDialog != null) {
+      progressDialog.dispose();
+      progressDialog = null;
+    }
+  }
+  
+  /**
+   * Removes all the highlights added on the text page.
+   */
+  private void removeHighlights() {
+    Highlighter highlighter = ((JTextArea) textpage.getTextComponent()).getHighlighter();
+    for (Object h : highlightsToRevCommits.keySet()) {
+      highlighter.removeHighlight(h);
+    }
+    highlightsToRevCommits.clear();
+  }
 
   /**
    * Installs various listeners to synchronized between caret and revision.
@@ -266,6 +636,9 @@ public class BlamePerformer {
    * Clears all internal buffers and removes all listeners added on the editor.
    */
   public void dispose() {
+    // Stops the computation, if still running.
+    cancelled = true;
+    closeProgress();
     if (textpage != null) {
       cancelCaretSyncTask();
       
@@ -274,13 +647,7 @@ public class BlamePerformer {
       }
       
       JTextArea textArea = (JTextArea) textpage.getTextComponent();
-      Highlighter highlighter = textArea.getHighlighter();
-      
-      Iterator<Object> iterator = highlightsToRevCommits.keySet().iterator();
-      while (iterator.hasNext()) {
-        Object h = iterator.next();
-        highlighter.removeHighlight(h);
-      }
+      removeHighlights();
       
       if (focusListener != null) {
         textArea.removeFocusListener(focusListener);
@@ -0,0 +1,207 @@
+package com.oxygenxml.git.view.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.WindowConstants;
+import javax.swing.table.AbstractTableModel;
+
+import org.apache.log4j.Logger;
+
+import com.oxygenxml.git.translator.Tags;
+import com.oxygenxml.git.translator.Translator;
+import com.oxygenxml.git.utils.OperationMetrics;
+import com.oxygenxml.git.utils.OperationStatistics;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.ui.OKCancelDialog;
+
+/**
+ * Presents the measurements of the Git operations, so that a slow operation can be spotted
+ * on the user's machine. The measurements can be exported as JSON or CSV.
+ */
+public class OperationMetricsDialog extends OKCancelDialog {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(OperationMetricsDialog.class);
+  /**
+   * The translator for the messages that are displayed in this dialog.
+   */
+  private static final Translator translator = Translator.getInstance();
+  /**
+   * The column names. Technical, not translated.
+   */
+  private static final String[] COLUMNS = {
+      "Operation", "Count", "Failures", "Avg (ms)", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)",
+      "Avg wait (ms)", "Files", "Commits", "Bytes"};
+
+  /**
+   * Presents the measurements, one operation per row.
+   */
+  private static final class MetricsTableModel extends AbstractTableModel {
+    /**
+     * The measurements.
+     */
+    private List<OperationStatistics> operations = OperationMetrics.getInstance().getOperations();
+
+    /**
+     * Reads the measurements again.
+     */
+    void refresh() {
+      operations = OperationMetrics.getInstance().getOperations();
+      fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+      return operations.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+      return columnIndex == 0 ? String.class : Number.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+      OperationStatistics op = operations.get(rowIndex);
+      Object value;
+      switch (columnIndex) {
+        case 0:
+          value = op.getName();
+          break;
+        case 1:
+          value = op.getCount();
+          break;
+        case 2:
+          value = op.getFailures();
+          break;
+        case 3:
+          value = format(op.getAverageMillis());
+          break;
+        case 4:
+          value = format(op.getP50Millis());
+          break;
+        case 5:
+          value = format(op.getP90Millis());
+          break;
+        case 6:
+          value = format(op.getP99Millis());
+          break;
+        case 7:
+          value = format(op.getMaxMillis());
+          break;
+        case 8:
+          value = format(op.getAverageWaitMillis());
+          break;
+        case 9:
+          value = op.getFiles();
+          break;
+        case 10:
+          value = op.getCommits();
+          break;
+        default:
+          value = op.getBytes();
+          break;
+      }
+      return value;
+    }
+
+    /**
+     * @param millis A duration.
+     *
+     * @return The duration, rounded to one decimal.
+     */
+    private static Double format(double millis) {
+      return Math.round(millis * 10) / 10d;
+    }
+  }
+
+  /**
+   * Constructor.
+   */
+  public OperationMetricsDialog() {
+    super((JFrame) PluginWorkspaceProvider.getPluginWorkspace().getParentFrame(),
+        translator.getTranslation(Tags.GIT_DIAGNOSTICS), false);
+
+    MetricsTableModel model = new MetricsTableModel();
+    JTable table = new JTable(model);
+    table.setAutoCreateRowSorter(true);
+    table.setFillsViewportHeight(true);
+
+    JButton refreshButton = new JButton(translator.getTranslation(Tags.REFRESH));
+    refreshButton.addActionListener(e -> model.refresh());
+    JButton resetButton = new JButton(translator.getTranslation(Tags.RESET_MEASUREMENTS));
+    resetButton.addActionListener(e -> {
+      OperationMetrics.getInstance().reset();
+      model.refresh();
+    });
+    JButton exportButton = new JButton(translator.getTranslation(Tags.EXPORT_MEASUREMENTS));
+    exportButton.addActionListener(e -> export());
+
+    JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    buttonsPanel.add(refreshButton);
+    buttonsPanel.add(resetButton);
+    buttonsPanel.add(exportButton);
+
+    JPanel panel = new JPanel(new BorderLayout());
+    panel.add(new JScrollPane(table), BorderLayout.CENTER);
+    panel.add(buttonsPanel, BorderLayout.SOUTH);
+    getContentPane().add(panel);
+    getCancelButton().setVisible(false);
+
+    this.setResizable(true);
+    this.setMinimumSize(new Dimension(800, 300));
+    this.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+    this.pack();
+    this.setLocationRelativeTo((JFrame) PluginWorkspaceProvider.getPluginWorkspace().getParentFrame());
+    this.setVisible(true);
+  }
+
+  /**
+   * Asks for a file and saves the measurements in it, as CSV if the file has the "csv" extension,
+   * as JSON otherwise.
+   */
+  private void export() {
+    File file = PluginWorkspaceProvider.getPluginWorkspace().chooseFile(
+        translator.getTranslation(Tags.EXPORT_MEASUREMENTS),
+        new String[] {"json", "csv"},
+        "JSON, CSV",
+        true);
+    if (file != null) {
+      OperationMetrics metrics = OperationMetrics.getInstance();
+      String content = file.getName().toLowerCase(Locale.ENGLISH).endsWith(".csv")
+          ? metrics.exportCsv()
+          : metrics.exportJson();
+      try {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        logger.error(e, e);
+        PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage(e.getMessage());
+      }
+    }
+  }
+}
@@ -23,9 +23,20 @@ public class ProgressDialog extends OKCancelDialog {
 	private Translator translator;
 
 	public ProgressDialog(JFrame parentFrame) {
-		super(parentFrame, "", true);
+		this(parentFrame, Translator.getInstance().getTranslation(Tags.CLONE_PROGRESS_DIALOG_TITLE), true);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param parentFrame The parent frame.
+	 * @param title       The title of the dialog.
+	 * @param modal       <code>true</code> to block the parent frame while the dialog is showing.
+	 */
+	public ProgressDialog(JFrame parentFrame, String title, boolean modal) {
+		super(parentFrame, "", modal);
 		translator = Translator.getInstance();
-		setTitle(translator.getTranslation(Tags.CLONE_PROGRESS_DIALOG_TITLE));
+		setTitle(title);
 		
 		noteLabel = new JLabel();
 
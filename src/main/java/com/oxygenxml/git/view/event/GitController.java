@@ -4,7 +4,10 @@ import java.text.MessageFormat;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.swing.SwingUtilities;
+
 import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.CheckoutCommand.Stage;
 import org.eclipse.jgit.lib.RepositoryState;
 
 import com.oxygenxml.git.service.GitAccess;
@@ -48,37 +51,66 @@ public class GitController {
 	 *                          One of the {@link GitCommand} values that has the "STARTED" suffix.
 	 */
 	public void doGitCommand(List<FileStatus> filesStatuses, GitCommand action) {
+	  doGitCommand(filesStatuses, action, null);
+	}
+
+	/**
+	 * Executes the given action on the given files.
+	 * 
+	 * @param filesStatuses The files to be processed. 
+	 * @param action        The action that is executed: stage, unstage, discard, resolve, etc.
+	 *                          One of the {@link GitCommand} values that has the "STARTED" suffix.
+	 * @param onFinish      Invoked on the AWT thread after the action finished, even if it failed.
+	 *                          May be <code>null</code>.
+	 */
+	public void doGitCommand(List<FileStatus> filesStatuses, GitCommand action, Runnable onFinish) {
 	  if (logger.isDebugEnabled()) {
 	    logger.debug("Do action " + action + " on " + filesStatuses);
 	  }
 
 	  GitOperationScheduler.getInstance().schedule(() -> {
-	    switch (action) {
-	      case STAGE:
-	        gitAccess.addAll(filesStatuses);
-	        break;
-	      case UNSTAGE:
-	        gitAccess.resetAll(filesStatuses);
-	        break;
-	      case DISCARD:
-	        discard(filesStatuses);
-	        break;
-	      case RESOLVE_USING_MINE:
-	        if (shouldContinueResolvingConflictUsingMineOrTheirs(GitCommand.RESOLVE_USING_MINE)) {
-	          resolveUsingMine(filesStatuses);
-	        }
-	        break;
-	      case RESOLVE_USING_THEIRS:
-	        if (shouldContinueResolvingConflictUsingMineOrTheirs(GitCommand.RESOLVE_USING_THEIRS)) {
-	          resolveUsingTheirs(filesStatuses);
-	        }
-	        break;
-	      default:
-	        break;
+	    try {
+	      execute(filesStatuses, action);
+	    } finally {
+	      if (onFinish != null) {
+	        SwingUtilities.invokeLater(onFinish);
+	      }
 	    }
 	  });
 	}
 
+	/**
+	 * Executes the given action on the given files, on the current thread.
+	 * 
+	 * @param filesStatuses The files to be processed. 
+	 * @param action        The action that is executed.
+	 */
+	private void execute(List<FileStatus> filesStatuses, GitCommand action) {
+	  switch (action) {
+	    case STAGE:
+	      gitAccess.addAll(filesStatuses);
+	      break;
+	    case UNSTAGE:
+	      gitAccess.resetAll(filesStatuses);
+	      break;
+	    case DISCARD:
+	      discard(filesStatuses);
+	      break;
+	    case RESOLVE_USING_MINE:
+	      if (shouldContinueResolvingConflictUsingMineOrTheirs(GitCommand.RESOLVE_USING_MINE)) {
+	        resolveUsingMine(filesStatuses);
+	      }
+	      break;
+	    case RESOLVE_USING_THEIRS:
+	      if (shouldContinueResolvingConflictUsingMineOrTheirs(GitCommand.RESOLVE_USING_THEIRS)) {
+	        resolveUsingTheirs(filesStatuses);
+	      }
+	      break;
+	    default:
+	      break;
+	  }
+	}
+
 	/**
 	 * Should continue resolving a conflict using 'mine' or 'theirs'.
 	 * 
@@ -141,8 +173,7 @@ public class GitController {
 	 * @param filesStatuses The resources to resolve.
 	 */
   private void resolveUsingMine(List<FileStatus> filesStatuses) {
-    discard(filesStatuses);
-    gitAccess.addAll(filesStatuses);
+    gitAccess.resolveConflicts(filesStatuses, Stage.OURS);
   }
 
 	/**
@@ -151,10 +182,7 @@ public class GitController {
 	 * @param filesStatuses The resources to resolve.
 	 */
   private void resolveUsingTheirs(List<FileStatus> filesStatuses) {
-    for (FileStatus file : filesStatuses) {
-      gitAccess.replaceWithRemoteContent(file.getFileLocation());
-    }
-    gitAccess.addAll(filesStatuses);
+    gitAccess.resolveConflicts(filesStatuses, Stage.THEIRS);
   }
 
 	/**
@@ -23,6 +23,8 @@ import com.oxygenxml.git.service.RebaseUncommittedChangesException;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.view.dialog.PullStatusAndFilesDialog;
 import com.oxygenxml.git.view.dialog.RebaseInProgressDialog;
 
@@ -60,23 +62,24 @@ public class PushPullController implements Subject<PushPullEvent> {
 	/**
 	 * Execute an push or pull action, depending on the given command.
 	 * 
+	 * @param lane The lane of the operation.
 	 * @param command The command runnable to execute.
 	 * 
 	 * @return The result of the operation execution.
 	 */
-	private Future<?> execute(String message, ExecuteCommandRunnable command) {
+	private Future<?> execute(String message, Lane lane, ExecuteCommandRunnable command) {
 		// Notify push about to start.
 		PushPullEvent pushPullEvent = new PushPullEvent(ActionStatus.STARTED, message);
 		notifyObservers(pushPullEvent);
 		
-		return GitOperationScheduler.getInstance().schedule(command);
+		return GitOperationScheduler.getInstance().schedule(lane, Priority.INTERACTIVE, null, command, 0);
 	}
 	
 	/**
 	 * Push.
 	 */
 	public Future<?> push() {
-	  return execute(translator.getTranslation(Tags.PUSH_IN_PROGRESS), new ExecutePushRunnable());
+	  return execute(translator.getTranslation(Tags.PUSH_IN_PROGRESS), Lane.NETWORK, new ExecutePushRunnable());
 	}
 	
 	/**
@@ -92,7 +95,8 @@ public class PushPullController implements Subject<PushPullEvent> {
 	 * @param pullType The pull type / merging strategy.
 	 */
 	public Future<?> pull(PullType pullType) {
-    return execute(translator.getTranslation(Tags.PULL_IN_PROGRESS), new ExecutePullRunnable(pullType));
+    // The pull also changes the working copy, so it waits for the other changes.
+    return execute(translator.getTranslation(Tags.PULL_IN_PROGRESS), Lane.WRITE, new ExecutePullRunnable(pullType));
   }
 	
 	/**
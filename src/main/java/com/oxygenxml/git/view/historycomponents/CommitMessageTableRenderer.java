@@ -6,9 +6,7 @@ import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
@@ -18,13 +16,10 @@ import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.TableCellRenderer;
 
-import org.apache.log4j.Logger;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.ConfigConstants;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.lib.ObjectId;
 
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.RefDecorations;
 
 import sun.swing.DefaultLookup;
 
@@ -36,14 +31,9 @@ import sun.swing.DefaultLookup;
  */
 public class CommitMessageTableRenderer extends JPanel implements TableCellRenderer {
 	/**
-	 * Logger for logging.
+	 * The tags and branches of each commit.
 	 */
-	private static Logger logger = Logger.getLogger(CommitMessageTableRenderer.class);
-
-	/**
-	 * Git repository.
-	 */
-	private Repository repository;
+	private RefDecorations refDecorations;
 
 	/**
 	 * Commits ahead (to push) and behind (to pull).
@@ -53,11 +43,11 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 	/**
 	 * Construct the Table Renderer with accurate alignment.
 	 * 
-	 * @param repository            The current repository
+	 * @param refDecorations        The tags and branches of each commit.
 	 * @param commitsAheadAndBehind Commits ahead (to push) and behind (to pull).
 	 */
-	public CommitMessageTableRenderer(Repository repository, CommitsAheadAndBehind commitsAheadAndBehind) {
-		this.repository = repository;
+	public CommitMessageTableRenderer(RefDecorations refDecorations, CommitsAheadAndBehind commitsAheadAndBehind) {
+		this.refDecorations = refDecorations;
     this.commitsAheadAndBehind = commitsAheadAndBehind;
 
 		setLayout(new GridBagLayout());
@@ -120,27 +110,12 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 			// bold the text for uncommitted changes
 			if (toRender.equals(GitAccess.UNCOMMITTED_CHANGES)) {
 				toRender = "<html><body><b>" + GitAccess.UNCOMMITTED_CHANGES + "</b></body></html>";
-			} else if (repository != null) {
-				// add labels in historyTable for tags and branch names from corresponding maps
-				try {
-				  GitAccess gitAccess = GitAccess.getInstance();
-				  
-					String abbreviatedId = commitCharacteristics.getCommitAbbreviatedId();
-					Map<String, List<String>> tagMap = gitAccess.getTagMap(repository);
-					List<String> tagList = tagMap.get(abbreviatedId);
-					addTagOrBranchLabel(tagList, constr);
-
-					Map<String, List<String>> localBranchMap = gitAccess.getBranchMap(repository, ConfigConstants.CONFIG_KEY_LOCAL);
-					List<String> localBranchList = localBranchMap.get(abbreviatedId);
-					addTagOrBranchLabel(localBranchList, constr);
-
-					Map<String, List<String>> remoteBranchMap = gitAccess.getBranchMap(repository, ConfigConstants.CONFIG_KEY_REMOTE);
-					List<String> remoteBranchList = remoteBranchMap.get(abbreviatedId);
-					addTagOrBranchLabel(remoteBranchList, constr);
-
-				} catch (IOException | GitAPIException e) {
-					logger.debug(e, e);
-				}
+			} else if (refDecorations != null && ObjectId.isId(commitCharacteristics.getCommitId())) {
+				// add labels in historyTable for tags and branch names from the precomputed index
+				ObjectId commitId = ObjectId.fromString(commitCharacteristics.getCommitId());
+				addTagOrBranchLabel(refDecorations.getTags(commitId), constr);
+				addTagOrBranchLabel(refDecorations.getLocalBranches(commitId), constr);
+				addTagOrBranchLabel(refDecorations.getRemoteBranches(commitId), constr);
 			}
 		} else {
 			toRender = value != null ? value.toString() : "";
@@ -184,8 +159,7 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 	private boolean isAheadCommit(String commitID) {
 	  boolean isIt = false;
 	  if (commitsAheadAndBehind != null) {
-	    List<RevCommit> commitsAhead = commitsAheadAndBehind.getCommitsAhead();
-	    isIt = commitsAhead.stream().anyMatch(commit -> commit.getId().getName().equals(commitID));
+	    isIt = commitsAheadAndBehind.isAhead(commitID);
 	  }
 	  return isIt;
 	}
@@ -200,8 +174,7 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 	private boolean isBehindCommit(String commitID) {
 	  boolean isIt = false;
 	  if (commitsAheadAndBehind != null) {
-	    List<RevCommit> commitsBehind = commitsAheadAndBehind.getCommitsBehind();
-	    isIt = commitsBehind.stream().anyMatch(commit -> commit.getId().getName().equals(commitID));
+	    isIt = commitsAheadAndBehind.isBehind(commitID);
 	  }
 	  return isIt;
  }
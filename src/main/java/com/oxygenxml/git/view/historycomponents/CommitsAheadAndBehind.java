@@ -1,23 +1,29 @@
 package com.oxygenxml.git.view.historycomponents;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 /**
- * Data structure that contains the lists of commits to be pushed to the server ("ahead")
- * and commits to be pulled from the server ("behind").
+ * Data structure that contains the commits to be pushed to the server ("ahead")
+ * and commits to be pulled from the server ("behind"). Only their IDs are kept, not
+ * the commits, so that a branch far behind its upstream doesn't keep thousands of
+ * commits in memory.
  */
 public class CommitsAheadAndBehind {
 
   /**
-   * The list of commits to be pushed to the server.
+   * The IDs of the commits to be pushed to the server.
    */
-  private List<RevCommit> commitsAhead;
+  private Set<ObjectId> aheadIds;
   /**
-   * The list of commits to be pulled from the server.
+   * The IDs of the commits to be pulled from the server.
    */
-  private List<RevCommit> commitsBehind;
+  private Set<ObjectId> behindIds;
   
   /**
    * Constructor.
@@ -26,22 +32,53 @@ public class CommitsAheadAndBehind {
    * @param commitsBehind The list of commits to be pulled from the server.
    */
   public CommitsAheadAndBehind(List<RevCommit> commitsAhead, List<RevCommit> commitsBehind) {
-    this.commitsAhead = commitsAhead;
-    this.commitsBehind = commitsBehind;
+    this.aheadIds = toIds(commitsAhead);
+    this.behindIds = toIds(commitsBehind);
   }
 
   /**
-   * @return the commits ahead
+   * @param commits Commits.
+   * 
+   * @return The IDs of the commits, detached from the commits.
+   */
+  private static Set<ObjectId> toIds(List<RevCommit> commits) {
+    Set<ObjectId> ids = new HashSet<>();
+    for (RevCommit commit : commits) {
+      ids.add(commit.copy());
+    }
+    return Collections.unmodifiableSet(ids);
+  }
+
+  /**
+   * @return the number of commits ahead
    */
-  public List<RevCommit> getCommitsAhead() {
-    return commitsAhead;
+  public int getCommitsAheadCount() {
+    return aheadIds.size();
   }
   
   /**
-   * @return the commits behind
+   * @return the number of commits behind
+   */
+  public int getCommitsBehindCount() {
+    return behindIds.size();
+  }
+  
+  /**
+   * @param commitId The ID of a commit.
+   * 
+   * @return <code>true</code> if the commit is to be pushed to the server.
+   */
+  public boolean isAhead(String commitId) {
+    return ObjectId.isId(commitId) && aheadIds.contains(ObjectId.fromString(commitId));
+  }
+  
+  /**
+   * @param commitId The ID of a commit.
+   * 
+   * @return <code>true</code> if the commit is to be pulled from the server.
    */
-  public List<RevCommit> getCommitsBehind() {
-    return commitsBehind;
+  public boolean isBehind(String commitId) {
+    return ObjectId.isId(commitId) && behindIds.contains(ObjectId.fromString(commitId));
   }
   
 }
@@ -1,20 +1,52 @@
 package com.oxygenxml.git.view.historycomponents;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 
+import javax.swing.SwingUtilities;
 import javax.swing.table.AbstractTableModel;
 
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+import com.oxygenxml.git.service.CommitHistoryCursor;
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 
 /**
- * Table Model for Commit History Characteristics.
+ * Table Model for Commit History Characteristics. When created over a {@link CommitHistoryCursor},
+ * the model starts with the first page of commits and reads the next pages, on the Git operations
+ * thread, as the rows close to the end are requested.
  * 
  * @Alexandra_Dinisor
  *
  */
 public class HistoryCommitTableModel extends AbstractTableModel {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(HistoryCommitTableModel.class);
+  
+  /**
+   * The number of commits read at once.
+   */
+  public static final int PAGE_SIZE = 500;
+  
+  /**
+   * The next page is requested when a row this close to the end is presented.
+   */
+  private static final int PREFETCH_DISTANCE = 100;
 
 	/*
 	 * Constants for the index representing the table column.
@@ -29,17 +61,54 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	 */
 	private List<CommitCharacteristics> allCommitsCharacteristics;
 
+	/**
+	 * Reads the rest of the commits. <code>null</code> if all the commits are in the model.
+	 * Only accessed on the Git operations thread.
+	 */
+	private final CommitHistoryCursor cursor;
+	
+	/**
+	 * <code>true</code> if the cursor might have more commits. Only accessed on AWT.
+	 */
+	private boolean hasMore;
+	
+	/**
+	 * <code>true</code> while the next page is being read. Only accessed on AWT.
+	 */
+	private boolean loadingPage;
+	
+	/**
+	 * <code>true</code> after {@link #dispose()}. Read on the Git operations threads.
+	 */
+	private volatile boolean disposed;
+
 	/**
 	 * Construct the Table Model with a Vector containing all commitCharacteristics.
 	 * 
 	 * @param commitVector The computed commitVector
 	 */
 	public HistoryCommitTableModel(List<CommitCharacteristics> commitVector) {
-		this.allCommitsCharacteristics = commitVector;
+		this(commitVector, null);
+	}
+	
+	/**
+	 * Construct the Table Model with the first commits. The others are read from the cursor when needed.
+	 * 
+	 * @param firstPage The first commits. The list is extended with the next pages.
+	 * @param cursor    Reads the next commits. May be <code>null</code>. It is closed by {@link #dispose()}.
+	 */
+	public HistoryCommitTableModel(List<CommitCharacteristics> firstPage, CommitHistoryCursor cursor) {
+	  this.allCommitsCharacteristics = firstPage;
+	  this.cursor = cursor;
+	  this.hasMore = cursor != null && cursor.hasNext();
 	}
 	
 	@Override
 	public Object getValueAt(int rowIndex, int columnIndex) {
+	  if (rowIndex >= allCommitsCharacteristics.size() - PREFETCH_DISTANCE) {
+	    loadNextPage();
+	  }
+	  
 		CommitCharacteristics commitCharacteristics = allCommitsCharacteristics.get(rowIndex);
 		Object temp = null;
 
@@ -121,8 +190,156 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 		return columnName;	
 	}
 	
+	/**
+	 * @return The commits loaded so far. The list grows, on AWT, as the next pages are read.
+	 */
 	public List<CommitCharacteristics> getAllCommits() {
     return allCommitsCharacteristics;
   }
+	
+	/**
+	 * Reads the next page of commits in the background, if not already reading it.
+	 * Called on AWT.
+	 */
+	private void loadNextPage() {
+	  if (hasMore && !loadingPage) {
+	    loadingPage = true;
+	    GitOperationScheduler.getInstance().schedule(Lane.READ, Priority.INTERACTIVE, null, () -> {
+	      readPage();
+	      SwingUtilities.invokeLater(() -> loadingPage = false);
+	    }, 0);
+	  }
+	}
+	
+	/**
+	 * Looks for a commit, reading the next pages until it is found or until there are no more commits.
+	 * Called on AWT.
+	 * 
+	 * @param matcher Identifies the commit.
+	 * @param onFound Receives the row of the commit, on AWT. Not called if the commit is not in the history.
+	 */
+	public void findCommit(Predicate<CommitCharacteristics> matcher, IntConsumer onFound) {
+	  int row = indexOf(matcher);
+	  if (row != -1) {
+	    onFound.accept(row);
+	  } else if (hasMore) {
+	    GitOperationScheduler.getInstance().schedule(Lane.READ, Priority.INTERACTIVE, null, () -> {
+	      boolean found = false;
+	      ProgressMonitor monitor = GitOperationScheduler.getProgressMonitor();
+	      while (!found && isActive() && hasNextPage() && !monitor.isCancelled()) {
+	        found = readPage().stream().anyMatch(matcher);
+	      }
+	      if (found) {
+	        SwingUtilities.invokeLater(() -> {
+	          int index = indexOf(matcher);
+	          if (index != -1) {
+	            onFound.accept(index);
+	          }
+	        });
+	      }
+	    }, 0);
+	  }
+	}
+	
+	/**
+	 * @param matcher Identifies a commit.
+	 * 
+	 * @return The row of the first loaded commit accepted by the matcher, or -1.
+	 */
+	private int indexOf(Predicate<CommitCharacteristics> matcher) {
+	  for (int i = 0; i < allCommitsCharacteristics.size(); i++) {
+	    if (matcher.test(allCommitsCharacteristics.get(i))) {
+	      return i;
+	    }
+	  }
+	  return -1;
+	}
+	
+	/**
+	 * Reads the next page from the cursor and appends it to the table, on AWT. Called on a Git operations thread.
+	 * The read operations run in parallel, so the pages are read one at a time, in the order in which
+	 * they are appended.
+	 * 
+	 * @return The commits. Empty if there are no more commits or if the history can't be read.
+	 */
+	private List<CommitCharacteristics> readPage() {
+	  List<CommitCharacteristics> page = Collections.emptyList();
+	  Lock readLock = GitAccess.getInstance().getRepositoryLock().readLock();
+	  readLock.lock();
+	  try {
+	    synchronized (cursor) {
+	      try {
+	        page = cursor.next(PAGE_SIZE);
+	      } catch (IOException | GitAPIException e) {
+	        logger.error(e, e);
+	        cursor.close();
+	      }
+	      List<CommitCharacteristics> read = page;
+	      boolean more = cursor.hasNext();
+	      SwingUtilities.invokeLater(() -> append(read, more));
+	    }
+	  } finally {
+	    readLock.unlock();
+	  }
+	  return page;
+	}
+
+	/**
+	 * @return <code>true</code> if the model was not disposed and its repository is still the opened one.
+	 * Called on a Git operations thread.
+	 */
+	private boolean isActive() {
+	  boolean active = false;
+	  if (!disposed) {
+	    try {
+	      active = GitAccess.getInstance().getRepository() == cursor.getRepository();
+	    } catch (NoRepositorySelected e) {
+	      // The repository was closed.
+	      logger.debug(e, e);
+	    }
+	  }
+	  return active;
+	}
+
+	/**
+	 * @return <code>true</code> if there might be more commits to read. Called on a Git operations thread.
+	 */
+	private boolean hasNextPage() {
+	  synchronized (cursor) {
+	    return cursor.hasNext();
+	  }
+	}
+	
+	/**
+	 * Adds a page of commits at the end of the table. Called on AWT.
+	 * 
+	 * @param page The commits.
+	 * @param more <code>true</code> if there might be more commits after this page.
+	 */
+	private void append(List<CommitCharacteristics> page, boolean more) {
+	  if (hasMore) {
+	    hasMore = more;
+	    if (!page.isEmpty()) {
+	      int firstRow = allCommitsCharacteristics.size();
+	      allCommitsCharacteristics.addAll(page);
+	      fireTableRowsInserted(firstRow, allCommitsCharacteristics.size() - 1);
+	    }
+	  }
+	}
+	
+	/**
+	 * Stops reading the history. Called on AWT, when the model is replaced.
+	 */
+	public void dispose() {
+	  hasMore = false;
+	  disposed = true;
+	  if (cursor != null) {
+	    GitOperationScheduler.getInstance().schedule(Lane.READ, Priority.BACKGROUND, null, () -> {
+	      synchronized (cursor) {
+	        cursor.close();
+	      }
+	    }, 0);
+	  }
+	}
 
 }
@@ -39,12 +39,29 @@ public class HistoryHyperlinkListener implements HyperlinkListener {
 			String query = event.getURL().getQuery();
 			int parentStringIdx = query.indexOf('=') + 1;
 			String parentCommitId = query.substring(parentStringIdx);
-			int parentTableIndex = CommitCharacteristics.getCommitTableIndex(commits, parentCommitId);
-			if (parentTableIndex != -1) {
-				historyTable.getSelectionModel().setSelectionInterval(parentTableIndex, parentTableIndex);
+			if (historyTable.getModel() instanceof HistoryCommitTableModel) {
+			  // The parent might be in a page that is not loaded yet.
+			  ((HistoryCommitTableModel) historyTable.getModel()).findCommit(
+			      commit -> commit.getCommitAbbreviatedId().equals(parentCommitId),
+			      this::selectRow);
+			} else {
+			  int parentTableIndex = CommitCharacteristics.getCommitTableIndex(commits, parentCommitId);
+			  if (parentTableIndex != -1) {
+			    selectRow(parentTableIndex);
+			  }
 			}
 		}
 
 	}
 
+	/**
+	 * Selects a row in the history table and makes it visible.
+	 * 
+	 * @param row The row.
+	 */
+	private void selectRow(int row) {
+	  historyTable.getSelectionModel().setSelectionInterval(row, row);
+	  historyTable.scrollRectToVisible(historyTable.getCellRect(row, 0, true));
+	}
+
 }
@@ -34,6 +34,7 @@ import javax.swing.UIManager;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
+import javax.swing.table.TableModel;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -45,18 +46,19 @@ import org.eclipse.jgit.util.StringUtils;
 
 import com.jidesoft.swing.JideSplitPane;
 import com.oxygenxml.git.constants.Icons;
+import com.oxygenxml.git.service.CommitHistoryCursor;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.NoRepositorySelected;
-import com.oxygenxml.git.service.PrivateRepositoryException;
-import com.oxygenxml.git.service.RepositoryUnavailableException;
+import com.oxygenxml.git.service.RefDecorations;
 import com.oxygenxml.git.service.RevCommitUtil;
-import com.oxygenxml.git.service.SSHPassphraseRequiredException;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.Equaler;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.view.HiDPIUtil;
 import com.oxygenxml.git.view.StagingResourcesTableModel;
 import com.oxygenxml.git.view.dialog.UIUtil;
@@ -73,6 +75,10 @@ public class HistoryPanel extends JPanel {
    * Logger for logging.
    */
   private static final Logger LOGGER = Logger.getLogger(HistoryPanel.class);
+  /**
+   * Identifies the operations that present the history. A new one supersedes the previous one.
+   */
+  private static final String HISTORY_OPERATION_KEY = "history";
   /**
    * Git API access.
    */
@@ -188,7 +194,8 @@ public class HistoryPanel extends JPanel {
       @Override
       public void repositoryChanged() {
         if (isShowing()) {
-          GitOperationScheduler.getInstance().schedule(HistoryPanel.this::showRepositoryHistory);
+          GitOperationScheduler.getInstance().schedule(
+              Lane.READ, Priority.BACKGROUND, HISTORY_OPERATION_KEY, HistoryPanel.this::showRepositoryHistory, 0);
         }
         
       }
@@ -196,7 +203,8 @@ public class HistoryPanel extends JPanel {
       @Override
       public void branchChanged(String oldBranch, String newBranch) {
         if (isShowing()) {
-          GitOperationScheduler.getInstance().schedule(() -> showHistory(activeFilePath, true));
+          GitOperationScheduler.getInstance().schedule(
+              Lane.READ, Priority.BACKGROUND, HISTORY_OPERATION_KEY, () -> showHistory(activeFilePath, true), 0);
         }
       }
     });
@@ -394,7 +402,22 @@ public class HistoryPanel extends JPanel {
    *                     even if the view already presents the history
    *                      for the given resource.
    */
-  private void showHistory(String filePath, boolean force) {
+  private synchronized void showHistory(String filePath, boolean force) {
+    // The read operations run in parallel. Skip a presentation superseded while waiting for the one in progress.
+    if (!GitOperationScheduler.getProgressMonitor().isCancelled()) {
+      presentHistory(filePath, force);
+    }
+  }
+
+  /**
+   * Presents the commit history for the entire repository or for a resource.
+   * 
+   * @param filePath File for which to present the commit that changed him.
+   * @param force    <code>true</code> to recompute the history data,
+   *                     even if the view already presents the history
+   *                      for the given resource.
+   */
+  private void presentHistory(String filePath, boolean force) {
     // Check if we don't already present the history for this path!!!!
     Translator translator = Translator.getInstance();
     
@@ -404,9 +427,8 @@ public class HistoryPanel extends JPanel {
       this.activeFilePath = filePath;
 
       try {
-        // Make sure we know about the remote as well, to present data about the upstream branch.
-        tryFetch();
-
+        // The upstream branch is as recent as the last fetch of the FetchScheduler. The history doesn't
+        // fetch by itself, so presenting it never waits for the network.
         File directory = gitAccess.getWorkingCopy();
         if (filePath != null) {
           directory = new File(directory, filePath);
@@ -427,18 +449,28 @@ public class HistoryPanel extends JPanel {
         dataModel.setFilesStatus(Collections.emptyList());
         commitDescriptionPane.setText("");
 
-        final List<CommitCharacteristics> commitCharacteristicsVector = gitAccess.getCommitsCharacteristics(filePath);
+        // Only the first page is read now. The rest is read as the table is scrolled.
+        CommitHistoryCursor historyCursor = gitAccess.createCommitHistoryCursor(filePath);
+        final List<CommitCharacteristics> commitCharacteristicsVector = 
+            gitAccess.getCommitsCharacteristics(filePath, historyCursor, HistoryCommitTableModel.PAGE_SIZE);
+        HistoryCommitTableModel historyModel = new HistoryCommitTableModel(commitCharacteristicsVector, historyCursor);
         
         Repository repo = gitAccess.getRepository();
         CommitsAheadAndBehind commitsAheadAndBehind = RevCommitUtil.getCommitsAheadAndBehind(repo, repo.getFullBranch());
+        // Computed here, on the Git thread, so that painting a row doesn't touch the repository.
+        RefDecorations refDecorations = gitAccess.getRefDecorations();
         
         SwingUtilities.invokeLater(() -> {
-          historyTable.setModel(new HistoryCommitTableModel(commitCharacteristicsVector));
+          TableModel oldModel = historyTable.getModel();
+          historyTable.setModel(historyModel);
+          if (oldModel instanceof HistoryCommitTableModel) {
+            ((HistoryCommitTableModel) oldModel).dispose();
+          }
           updateHistoryTableWidths();
           
           historyTable.setDefaultRenderer(
               CommitCharacteristics.class,
-              new CommitMessageTableRenderer(repo, commitsAheadAndBehind));
+              new CommitMessageTableRenderer(refDecorations, commitsAheadAndBehind));
           historyTable.setDefaultRenderer(
               Date.class,
               new DateTableCellRenderer("d MMM yyyy HH:mm"));
@@ -523,21 +555,6 @@ public class HistoryPanel extends JPanel {
     };
   }
 
-  /**
-   * Tries a fetch to update remote information.
-   * 
-   * @param gitAccess Git access.
-   */
-  private void tryFetch() {
-    try {
-      gitAccess.fetch();
-    } catch (SSHPassphraseRequiredException | PrivateRepositoryException | RepositoryUnavailableException e) {
-      if (LOGGER.isDebugEnabled()) {
-        LOGGER.debug(e, e);
-      }
-    }
-  }
-
   /**
    * Coalescing for selecting the row in HistoryTable.
    */
@@ -611,16 +628,13 @@ public class HistoryPanel extends JPanel {
   private void selectCommit(ObjectId id) {
     SwingUtilities.invokeLater(() -> {
       HistoryCommitTableModel model =  (HistoryCommitTableModel) historyTable.getModel();
-      List<CommitCharacteristics> commits = model.getAllCommits();
-      for (int i = 0; i < commits.size(); i++) {
-        CommitCharacteristics commitCharacteristics = commits.get(i);
-        if (id.getName().equals(commitCharacteristics.getCommitId())) {
-          final int sel = i;
-          historyTable.scrollRectToVisible(historyTable.getCellRect(sel, 0, true));
-          historyTable.getSelectionModel().setSelectionInterval(sel, sel);
-          break;
-        }
-      }
+      // The commit might be in a page that is not loaded yet.
+      model.findCommit(
+          commitCharacteristics -> id.getName().equals(commitCharacteristics.getCommitId()),
+          sel -> {
+            historyTable.scrollRectToVisible(historyTable.getCellRect(sel, 0, true));
+            historyTable.getSelectionModel().setSelectionInterval(sel, sel);
+          });
     });
   }
 }
@@ -3,10 +3,13 @@ package com.oxygenxml.git.view.historycomponents;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import javax.swing.JEditorPane;
 import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
@@ -20,6 +23,9 @@ import com.oxygenxml.git.service.RevCommitUtil;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.view.StagingResourcesTableModel;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
@@ -34,6 +40,18 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
 	 * Fake commit URL to search for parents when using hyperlink.
 	 */
 	private static final String PARENT_COMMIT_URL = "http://gitplugin.com/parent/commit?id=";
+  /**
+   * The key of the computation of the files changed by the selected commit. A new selection supersedes it.
+   */
+  private static final String CHANGED_FILES_KEY = "History.changedFiles";
+  /**
+   * The key of the computation of the files changed by the commits around the selected one.
+   */
+  private static final String PREFETCH_KEY = "History.prefetchChangedFiles";
+  /**
+   * How many commits before and after the selected one have their changed files computed in advance.
+   */
+  private static final int PREFETCH_DISTANCE = 2;
 	/**
 	 * Table for Commit History.
 	 */
@@ -58,6 +76,10 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
 	 * Table that presents the resources changed inside a commit.
 	 */
   private JTable changesTable;
+  /**
+   * The latest computation of the files changed by the selected commit.
+   */
+  private volatile Future<?> changedFilesUpdate;
 
 	/**
 	 * Construct the SelectionListener for HistoryTable.
@@ -139,18 +161,88 @@ public class RowHistoryTableSelectionListener implements ListSelectionListener {
 		  commitDescriptionPane.setText(commitDescription.toString());
 		  commitDescriptionPane.setCaretPosition(0);
 
-		  StagingResourcesTableModel dataModel = (StagingResourcesTableModel) changesTable.getModel();
-		  if (GitAccess.UNCOMMITED_CHANGES != commitCharacteristics) {
-		    try {
-		      List<FileStatus> changes = RevCommitUtil.getChangedFiles(commitCharacteristics.getCommitId());
-		      dataModel.setFilesStatus(changes);
-		    } catch (GitAPIException | RevisionSyntaxException | IOException e) {
-		      logger.error(e, e);
-		    }
-		  } else {
-		    dataModel.setFilesStatus(GitAccess.getInstance().getUnstagedFiles());
-		  }
+		  updateChangedFiles(selectedRow, commitCharacteristics);
 		}
 	}
 
+  /**
+   * Computes the files changed by the selected commit in the background and presents them, if the commit
+   * is still selected. Selecting another commit cancels the computation. The renames that keep the content
+   * unchanged are presented first, the ones detected by comparing the contents when ready. The files changed by the
+   * neighboring commits are computed afterwards, so that moving the selection presents them at once.
+   * 
+   * @param selectedRow           The selected row.
+   * @param commitCharacteristics The selected commit.
+   */
+  private void updateChangedFiles(int selectedRow, CommitCharacteristics commitCharacteristics) {
+    List<String> neighbors = new ArrayList<>();
+    for (int i = Math.max(0, selectedRow - PREFETCH_DISTANCE);
+        i <= Math.min(allCommits.size() - 1, selectedRow + PREFETCH_DISTANCE); i++) {
+      CommitCharacteristics neighbor = allCommits.get(i);
+      if (i != selectedRow && GitAccess.UNCOMMITED_CHANGES != neighbor) {
+        neighbors.add(neighbor.getCommitId());
+      }
+    }
+
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+    changedFilesUpdate = scheduler.schedule(Lane.READ, Priority.INTERACTIVE, CHANGED_FILES_KEY, () -> {
+      if (GitAccess.UNCOMMITED_CHANGES != commitCharacteristics) {
+        try {
+          // First the renames that are fast to detect, then the ones detected by comparing the contents.
+          List<FileStatus> changes = RevCommitUtil.getChangedFiles(commitCharacteristics.getCommitId(), true);
+          presentChangedFiles(commitCharacteristics, changes);
+          if (!GitOperationScheduler.getProgressMonitor().isCancelled()) {
+            List<FileStatus> refinedChanges = RevCommitUtil.getChangedFiles(commitCharacteristics.getCommitId());
+            if (refinedChanges != changes) {
+              presentChangedFiles(commitCharacteristics, refinedChanges);
+            }
+          }
+        } catch (GitAPIException | RevisionSyntaxException | IOException e) {
+          logger.error(e, e);
+        }
+      } else {
+        presentChangedFiles(commitCharacteristics, GitAccess.getInstance().getUnstagedFiles());
+      }
+    }, 0);
+
+    if (!neighbors.isEmpty()) {
+      scheduler.schedule(Lane.READ, Priority.BACKGROUND, PREFETCH_KEY, () -> {
+        for (String commitId : neighbors) {
+          if (!GitOperationScheduler.getProgressMonitor().isCancelled()) {
+            try {
+              RevCommitUtil.getChangedFiles(commitId, true);
+            } catch (GitAPIException | RevisionSyntaxException | IOException e) {
+              logger.debug(e, e);
+            }
+          }
+        }
+      }, 0);
+    }
+  }
+
+  /**
+   * Presents the files changed by a commit, if the commit is still selected and the computation was not superseded.
+   * 
+   * @param commitCharacteristics The commit.
+   * @param changes               The files changed by the commit.
+   */
+  private void presentChangedFiles(CommitCharacteristics commitCharacteristics, List<FileStatus> changes) {
+    if (!GitOperationScheduler.getProgressMonitor().isCancelled()) {
+      SwingUtilities.invokeLater(() -> {
+        int row = historyTable.getSelectedRow();
+        if (row != -1 && row < allCommits.size() && allCommits.get(row) == commitCharacteristics) {
+          ((StagingResourcesTableModel) changesTable.getModel()).setFilesStatus(changes);
+        }
+      });
+    }
+  }
+
+  /**
+   * @return The latest computation of the files changed by the selected commit. <code>null</code> if no commit
+   * was selected yet.
+   */
+  Future<?> getChangedFilesUpdate() {
+    return changedFilesUpdate;
+  }
+
 }
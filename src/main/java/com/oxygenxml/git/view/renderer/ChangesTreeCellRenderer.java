@@ -58,7 +58,7 @@ public class ChangesTreeCellRenderer extends DefaultTreeCellRenderer {
 		TreePath treePath = tree.getPathForRow(row);
 		if (treePath != null) {
 			String path = TreeFormatter.getStringPath(treePath);
-			if (!"".equals(path) && model.isLeaf(TreeFormatter.getTreeNodeFromString(model, path))) {
+			if (!"".equals(path) && model.isLeaf(model.getNodeByPath(path))) {
 				FileStatus file = model.getFileByPath(path);
 				if (file != null) {
 				  GitChangeType changeType = file.getChangeType();
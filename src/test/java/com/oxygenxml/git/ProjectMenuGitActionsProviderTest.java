@@ -0,0 +1,79 @@
+package com.oxygenxml.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for filtering the status on the resources selected in the Project view.
+ */
+public class ProjectMenuGitActionsProviderTest {
+  /**
+   * The working copy.
+   */
+  private final File repository = new File("target/test-resources/ProjectMenuGitActionsProviderTest/repo").getAbsoluteFile();
+
+  /**
+   * Selecting the working copy means everything, even if other resources are also selected.
+   */
+  @Test
+  public void testRootSelected() {
+    List<String> paths = ProjectMenuGitActionsProvider.getSelectedPaths(
+        new File[] {new File(repository, "a/b"), repository},
+        repository.getPath());
+    assertEquals(Collections.emptyList(), paths);
+
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "x.txt"), paths));
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.ADD, "c/d/y.txt"), paths));
+  }
+
+  /**
+   * A nested folder selects the files inside it, but not those from a sibling folder whose name starts the same.
+   */
+  @Test
+  public void testNestedFolderSelected() {
+    List<String> paths = ProjectMenuGitActionsProvider.getSelectedPaths(
+        new File[] {new File(repository, "a/b"), new File(repository, "c.txt")},
+        repository.getPath());
+    assertEquals(Arrays.asList("a/b", "c.txt"), paths);
+
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/b/x.txt"), paths));
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/b/d/y.txt"), paths));
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.SUBMODULE, "a/b"), paths));
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.ADD, "c.txt"), paths));
+
+    assertFalse(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/bc"), paths));
+    assertFalse(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/bc/x.txt"), paths));
+    assertFalse(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/x.txt"), paths));
+    assertFalse(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "c.txt.bak"), paths));
+  }
+
+  /**
+   * The resources outside the working copy are ignored.
+   */
+  @Test
+  public void testFilesOutsideRepository() {
+    File parent = repository.getParentFile();
+    List<String> paths = ProjectMenuGitActionsProvider.getSelectedPaths(
+        new File[] {
+            new File(repository, "a/x.txt"),
+            new File(parent, "other/y.txt"),
+            new File(parent, "repo2/z.txt"),
+            parent},
+        repository.getPath());
+    assertEquals(Arrays.asList("a/x.txt"), paths);
+
+    assertTrue(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "a/x.txt"), paths));
+    assertFalse(ProjectMenuGitActionsProvider.isSelected(new FileStatus(GitChangeType.MODIFIED, "other/y.txt"), paths));
+  }
+}
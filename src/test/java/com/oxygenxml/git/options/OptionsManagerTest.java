@@ -0,0 +1,91 @@
+package com.oxygenxml.git.options;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the delayed writing of the options.
+ */
+public class OptionsManagerTest {
+  /**
+   * The options written so far.
+   */
+  private final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+  /**
+   * Records the written options instead of writing them.
+   */
+  private OptionsManager optionsManager;
+
+  /**
+   * Creates an options manager that records the writes.
+   */
+  @Before
+  public void setUp() {
+    optionsManager = new OptionsManager() {
+      @Override
+      void writeOptions(String serializedOptions) {
+        writes.add(serializedOptions);
+      }
+    };
+  }
+
+  /**
+   * Several changes in a short time are written once, after the delay.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSeveralChangesWrittenOnce() throws Exception {
+    optionsManager.saveSelectedRepository("/repo/first");
+    optionsManager.saveSelectedRepository("/repo/second");
+    optionsManager.saveSelectedRepository("/repo/third");
+
+    Thread.sleep(OptionsManager.SAVE_DELAY / 2);
+    assertEquals("Written before the delay", 0, writes.size());
+
+    for (int i = 0; i < 40 && writes.isEmpty(); i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(1, writes.size());
+    assertTrue(writes.get(0).contains("/repo/third"));
+
+    // The superseded saves don't write again.
+    Thread.sleep(OptionsManager.SAVE_DELAY + 500);
+    assertEquals(1, writes.size());
+  }
+
+  /**
+   * Flushing writes the pending changes at once. Nothing is left for the delayed save.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFlush() throws Exception {
+    // Nothing changed, nothing to write.
+    optionsManager.flushOptions();
+    assertEquals(0, writes.size());
+
+    optionsManager.saveSelectedRepository("/repo/flushed");
+    optionsManager.flushOptions();
+    assertEquals(1, writes.size());
+    assertTrue(writes.get(0).contains("/repo/flushed"));
+
+    Thread.sleep(OptionsManager.SAVE_DELAY + 500);
+    assertEquals(1, writes.size());
+
+    // A change after the flush is written again.
+    optionsManager.saveSelectedRepository("/repo/changed");
+    optionsManager.flushOptions();
+    assertEquals(2, writes.size());
+    assertFalse(writes.get(1).contains("/repo/flushed"));
+    assertTrue(writes.get(1).contains("/repo/changed"));
+  }
+}
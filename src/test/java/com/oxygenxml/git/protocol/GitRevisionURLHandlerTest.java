@@ -117,9 +117,13 @@ public class GitRevisionURLHandlerTest extends GitTestBase {
       indexVersionURL = "git://" + revCommit.getCommitId() + "/file1.txt";
       assertEquals("file 1 First commit.", read(new URL(indexVersionURL)));
       
+      // Read again, from the cache.
+      assertNotNull(BlobCache.getInstance().getBlobId(revCommit.getCommitId(), "file1.txt"));
+      assertEquals("file 1 First commit.", read(new URL(indexVersionURL)));
       
-      
-      
+      // Nothing is kept after the repository is closed.
+      GitAccess.getInstance().closeRepo();
+      assertNull(BlobCache.getInstance().getBlobId(revCommit.getCommitId(), "file1.txt"));
     } finally {
       GitAccess.getInstance().closeRepo();
       
@@ -124,6 +124,9 @@ public class BlameTest extends GitTestBase{
       // Execute blame.
       new BlamePerformer().doit(
           GitAccess.getInstance().getRepository(), "file1.txt", wsEditor, historyController);
+      // The blame is computed on the Git thread and presented on the AWT thread.
+      waitForScheduler();
+      flushAWT();
       
       Highlight[] highlights = textArea.getHighlighter().getHighlights();
       assertEquals(5, highlights.length);
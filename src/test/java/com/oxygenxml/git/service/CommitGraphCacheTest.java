@@ -0,0 +1,207 @@
+package com.oxygenxml.git.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+
+/**
+ * Tests for the on-disk commit graph.
+ */
+public class CommitGraphCacheTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/CommitGraphCacheTest/local";
+
+  /**
+   * The history read from the cache is the same as the one read from the repository
+   * and the cache is extended only with the new commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testIncrementalCache() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "c.txt", "c");
+
+    // The first walk doesn't wait for the cache. It is created in the background.
+    List<CommitCharacteristics> fromCache = GitAccess.getInstance().getCommitsCharacteristics(null);
+    assertEquals(3, fromCache.size());
+    assertFalse(fromCache.get(0) instanceof CachedCommitCharacteristics);
+    for (int i = 0; i < 100 && !(fromCache.get(0) instanceof CachedCommitCharacteristics); i++) {
+      Thread.sleep(50);
+      fromCache = GitAccess.getInstance().getCommitsCharacteristics(null);
+    }
+    assertTrue(fromCache.get(0) instanceof CachedCommitCharacteristics);
+    assertEquals(readWithoutCache(repository), dumpHistory(fromCache));
+
+    commitOneFile(LOCAL_TEST_REPOSITORY, "d.txt", "d");
+
+    // Reopened, as after a restart.
+    CommitGraphCache cache = CommitGraphCache.open(repository);
+    assertEquals(3, cache.size());
+    cache.update(repository, Arrays.asList(repository.resolve("HEAD")));
+    assertEquals(4, cache.size());
+    assertEquals("New file: d.txt", cache.getMessageSummary(cache.indexOf(repository.resolve("HEAD"))));
+    cache.close();
+
+    fromCache = GitAccess.getInstance().getCommitsCharacteristics(null);
+    assertEquals(4, fromCache.size());
+    assertEquals(readWithoutCache(repository), dumpHistory(fromCache));
+  }
+
+  /**
+   * Two instances of the cache of the same repository, as from two application windows, extend the same files.
+   * Each one reads the records added by the other before adding its own, so the parents point to the right records.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testTwoInstances() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+
+    CommitGraphCache first = CommitGraphCache.open(repository);
+    CommitGraphCache second = CommitGraphCache.open(repository);
+    try {
+      first.update(repository, Arrays.asList(repository.resolve("HEAD")));
+      assertEquals(2, first.size());
+      assertEquals(0, second.size());
+
+      commitOneFile(LOCAL_TEST_REPOSITORY, "c.txt", "c");
+      second.update(repository, Arrays.asList(repository.resolve("HEAD")));
+      assertEquals(3, second.size());
+    } finally {
+      first.close();
+      second.close();
+    }
+
+    CommitGraphCache reopened = CommitGraphCache.open(repository);
+    try {
+      assertEquals(3, reopened.size());
+      int head = reopened.indexOf(repository.resolve("HEAD"));
+      int parent = reopened.indexOf(repository.resolve("HEAD~1"));
+      int root = reopened.indexOf(repository.resolve("HEAD~2"));
+      assertEquals("New file: c.txt", reopened.getMessageSummary(head));
+      assertEquals("New file: b.txt", reopened.getMessageSummary(parent));
+      assertEquals("New file: a.txt", reopened.getMessageSummary(root));
+      assertEquals("[" + parent + "]", Arrays.toString(reopened.getParents(head, repository)));
+      assertEquals("[" + root + "]", Arrays.toString(reopened.getParents(parent, repository)));
+      assertEquals(0, reopened.getParents(root, repository).length);
+    } finally {
+      reopened.close();
+    }
+  }
+
+  /**
+   * The history of a resource computed with the changed paths index is the same as the one
+   * read from the repository.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFileHistoryWithChangedPaths() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "dir/b.txt", "b");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a2");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "dir/b.txt", "b2");
+
+    CommitGraphCache cache = CommitGraphCache.open(repository);
+    try {
+      cache.update(repository, Arrays.asList(repository.resolve("HEAD")));
+      ChangedPathsIndex changedPaths = cache.getChangedPaths();
+      changedPaths.updateInBackground(repository);
+      for (int i = 0; i < 100 && !changedPaths.isIndexed(cache.size() - 1); i++) {
+        Thread.sleep(50);
+      }
+      assertTrue(changedPaths.isIndexed(cache.size() - 1));
+
+      int head = cache.indexOf(repository.resolve("HEAD"));
+      assertTrue(changedPaths.mightHaveChanged(head, "dir/b.txt"));
+      assertTrue(changedPaths.mightHaveChanged(head, "dir"));
+      assertFalse(changedPaths.mightHaveChanged(head, "a.txt"));
+
+      for (String path : new String[] {"a.txt", "dir/b.txt", "dir"}) {
+        try (CommitHistoryCursor cursor = new CommitHistoryCursor(repository, path, cache)) {
+          String fromCache = dumpHistory(cursor.next(Integer.MAX_VALUE));
+          assertEquals(path, readWithoutCache(repository, path), fromCache);
+        }
+      }
+    } finally {
+      cache.close();
+    }
+  }
+
+  /**
+   * The history of a resource is computed page by page, as the pages are requested, with the same result
+   * as the one read from the repository, merges included.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testFileHistoryPageByPage() throws Exception {
+    Repository repository = createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+    try (Git git = new Git(repository)) {
+      git.branchCreate().setName("side").call();
+      git.checkout().setName("side").call();
+      commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a on side");
+      git.checkout().setName("master").call();
+      commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b on master");
+      git.merge().include(repository.resolve("side")).setMessage("Merge side").call();
+    }
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a after merge");
+
+    CommitGraphCache cache = CommitGraphCache.open(repository);
+    try {
+      cache.update(repository, Arrays.asList(repository.resolve("HEAD")));
+      for (String path : new String[] {"a.txt", "b.txt"}) {
+        List<CommitCharacteristics> pages = new ArrayList<>();
+        try (CommitHistoryCursor cursor = new CommitHistoryCursor(repository, path, cache)) {
+          List<CommitCharacteristics> page;
+          while (!(page = cursor.next(1)).isEmpty()) {
+            assertEquals(1, page.size());
+            pages.addAll(page);
+          }
+        }
+        assertEquals(path, readWithoutCache(repository, path), dumpHistory(pages));
+      }
+    } finally {
+      cache.close();
+    }
+  }
+
+  /**
+   * @param repository The repository.
+   *
+   * @return The history, read from the object database.
+   *
+   * @throws Exception If it fails.
+   */
+  private String readWithoutCache(Repository repository) throws Exception {
+    return readWithoutCache(repository, null);
+  }
+
+  /**
+   * @param repository The repository.
+   * @param path       An optional resource path.
+   *
+   * @return The history, read from the object database.
+   *
+   * @throws Exception If it fails.
+   */
+  private String readWithoutCache(Repository repository, String path) throws Exception {
+    try (CommitHistoryCursor cursor = new CommitHistoryCursor(repository, path)) {
+      return dumpHistory(cursor.next(Integer.MAX_VALUE));
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.oxygenxml.git.service;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+
+import com.oxygenxml.git.view.historycomponents.CommitsAheadAndBehind;
+
+/**
+ * Tests for the state of HEAD, as presented by {@link GitAccess#getBranchInfo()}.
+ */
+public class GitAccessBranchInfoTest extends GitTestBase {
+  private static final String LOCAL_REPOSITORY = "target/test-resources/GitAccessBranchInfoTest/local";
+  private static final String REMOTE_REPOSITORY = "target/test-resources/GitAccessBranchInfoTest/remote";
+
+  /**
+   * The branch, the detached HEAD and the upstream follow the repository, even when changed
+   * without the add-on.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBranchInfo() throws Exception {
+    Repository remoteRepo = createRepository(REMOTE_REPOSITORY);
+    Repository localRepo = createRepository(LOCAL_REPOSITORY);
+    GitAccess gitAccess = GitAccess.getInstance();
+
+    // Unborn branch.
+    BranchInfo branchInfo = gitAccess.getBranchInfo();
+    assertEquals("master", branchInfo.getBranchName());
+    assertFalse(branchInfo.isDetached());
+
+    commitOneFile(LOCAL_REPOSITORY, "test.txt", "content");
+    bindLocalToRemote(localRepo, remoteRepo);
+    branchInfo = gitAccess.getBranchInfo();
+    assertEquals("master", branchInfo.getBranchName());
+    assertFalse(branchInfo.isDetached());
+    assertEquals("refs/remotes/origin/master", branchInfo.getUpstreamBranch());
+
+    // Detach HEAD outside the add-on.
+    ObjectId commit = gitAccess.getLastLocalCommit();
+    try (Git git = new Git(localRepo)) {
+      git.checkout().setName(commit.getName()).call();
+    }
+    branchInfo = gitAccess.getBranchInfo();
+    assertTrue(branchInfo.isDetached());
+    assertEquals(commit.getName(), branchInfo.getBranchName());
+    assertEquals(commit.getName().substring(0, RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH),
+        branchInfo.getShortBranchName());
+    assertNull(branchInfo.getUpstreamBranch());
+
+    try (Git git = new Git(localRepo)) {
+      git.checkout().setName("master").call();
+    }
+    branchInfo = gitAccess.getBranchInfo();
+    assertEquals("master", branchInfo.getBranchName());
+    assertFalse(branchInfo.isDetached());
+  }
+
+  /**
+   * The commits ahead and behind are computed once for the same local and upstream commits.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCommitsAheadAndBehindAreShared() throws Exception {
+    Repository remoteRepo = createRepository(REMOTE_REPOSITORY);
+    Repository localRepo = createRepository(LOCAL_REPOSITORY);
+    GitAccess gitAccess = GitAccess.getInstance();
+
+    bindLocalToRemote(localRepo, remoteRepo);
+    pushOneFileToRemote(LOCAL_REPOSITORY, "test.txt", "content");
+    commitOneFile(LOCAL_REPOSITORY, "test.txt", "changed");
+
+    CommitsAheadAndBehind commits = RevCommitUtil.getCommitsAheadAndBehind(localRepo, "master");
+    assertEquals(1, commits.getCommitsAheadCount());
+    assertEquals(0, commits.getCommitsBehindCount());
+    assertTrue(commits.isAhead(gitAccess.getLastLocalCommit().getName()));
+    assertSame(commits, RevCommitUtil.getCommitsAheadAndBehind(localRepo, "master"));
+    assertEquals(1, gitAccess.getPushesAhead());
+    assertEquals(0, gitAccess.getPullsBehind());
+
+    // The branch moved.
+    commitOneFile(LOCAL_REPOSITORY, "test.txt", "changed again");
+    assertEquals(2, gitAccess.getPushesAhead());
+  }
+}
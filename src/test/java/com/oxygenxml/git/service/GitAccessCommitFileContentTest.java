@@ -1,6 +1,7 @@
 package com.oxygenxml.git.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -192,6 +193,65 @@ public class GitAccessCommitFileContentTest {
 		assertEquals(expected, actual);
 	}
 
+	/**
+	 * The conflict versions are read from the index and follow its changes.
+	 */
+	@Test
+	public void testConflictVersionsFollowTheIndex() throws Exception {
+		pushOneFileToRemote("hellllo");
+
+		gitAccess.setRepositorySynchronously(SECOND_LOCAL_TEST_REPOSITORY);
+		OptionsManager.getInstance().saveSelectedRepository(SECOND_LOCAL_TEST_REPOSITORY);
+		PrintWriter out = new PrintWriter(SECOND_LOCAL_TEST_REPOSITORY + "/test.txt");
+		out.println("teeeeeest");
+		out.close();
+
+		gitAccess.add(new FileStatus(GitChangeType.ADD, "test.txt"));
+		gitAccess.commit("conflict");
+		gitAccess.pull("", "");
+		// Both sides added the file, there is no common base.
+		assertEquals(gitAccess.getCommit(Commit.MINE, "test.txt"), gitAccess.getCommit(Commit.BASE, "test.txt"));
+		assertEquals("hellllo\n", new String(gitAccess.getRepository().open(
+		    gitAccess.getCommit(Commit.THEIRS, "test.txt")).getBytes()));
+
+		// Resolve the conflict.
+		out = new PrintWriter(SECOND_LOCAL_TEST_REPOSITORY + "/test.txt");
+		out.println("resolved");
+		out.close();
+		gitAccess.add(new FileStatus(GitChangeType.MODIFIED, "test.txt"));
+
+		ObjectId staged = gitAccess.locateObjectIdInIndex("test.txt");
+		assertEquals("resolved\n", new String(gitAccess.getRepository().open(staged).getBytes()));
+		assertEquals(staged, gitAccess.getCommit(Commit.MINE, "test.txt"));
+		assertNull(gitAccess.getCommit(Commit.THEIRS, "test.txt"));
+	}
+
+	/**
+	 * A file deleted by us and modified by them has no 'mine' version. The base version is not presented instead.
+	 */
+	@Test
+	public void testDeletedByUsHasNoMineVersion() throws Exception {
+		pushOneFileToRemote("test 1");
+
+		gitAccess.setRepositorySynchronously(SECOND_LOCAL_TEST_REPOSITORY);
+		OptionsManager.getInstance().saveSelectedRepository(SECOND_LOCAL_TEST_REPOSITORY);
+		gitAccess.pull("", "");
+
+		pushOneFileToRemote("test 2");
+		gitAccess.setRepositorySynchronously(SECOND_LOCAL_TEST_REPOSITORY);
+		OptionsManager.getInstance().saveSelectedRepository(SECOND_LOCAL_TEST_REPOSITORY);
+		new File(SECOND_LOCAL_TEST_REPOSITORY + "/test.txt").delete();
+		gitAccess.addAll(gitAccess.getUnstagedFiles());
+		gitAccess.commit("deleted");
+		gitAccess.pull("", "");
+
+		assertNull(gitAccess.getCommit(Commit.MINE, "test.txt"));
+		assertEquals("test 2\n", new String(gitAccess.getRepository().open(
+		    gitAccess.getCommit(Commit.THEIRS, "test.txt")).getBytes()));
+		assertEquals("test 1\n", new String(gitAccess.getRepository().open(
+		    gitAccess.getCommit(Commit.BASE, "test.txt")).getBytes()));
+	}
+
 	protected void pushOneFileToRemote(String message) throws IOException, RepositoryNotFoundException,
 			FileNotFoundException, InvalidRemoteException, TransportException, GitAPIException, InterruptedException {
 		gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITPRY);
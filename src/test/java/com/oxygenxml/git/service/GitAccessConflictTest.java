@@ -15,7 +15,13 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.CheckoutCommand.Stage;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.api.MergeResult.MergeStatus;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
@@ -195,6 +201,77 @@ public class GitAccessConflictTest {
     assertEquals("Conclude_Merge_Message", shownWarningMess[0]);
 	}
 
+  /**
+   * Resolves several conflicts at once using 'theirs', including a file deleted on their side.
+   * Only the resolved entries remain in the index and the working copy matches their side.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void testResolveSeveralUsingTheirs() throws Exception {
+    gitAccess.setRepositorySynchronously(FIRST_LOCAL_TEST_REPOSITPRY);
+    Repository repository = gitAccess.getRepository();
+    File workTree = repository.getWorkTree();
+    File a = new File(workTree, "a.txt");
+    File b = new File(workTree, "b.txt");
+    File c = new File(workTree, "c.txt");
+    File d = new File(workTree, "d.txt");
+
+    try (Git git = new Git(repository)) {
+      writeToFile(a, "base a");
+      writeToFile(b, "base b");
+      writeToFile(c, "base c");
+      writeToFile(d, "base d");
+      git.add().addFilepattern("a.txt").addFilepattern("b.txt").addFilepattern("c.txt").addFilepattern("d.txt").call();
+      git.commit().setMessage("base").call();
+
+      // Their side changes two files and deletes one.
+      git.branchCreate().setName("theirs").call();
+      git.checkout().setName("theirs").call();
+      writeToFile(a, "their a");
+      writeToFile(b, "their b");
+      git.rm().addFilepattern("c.txt").call();
+      git.add().addFilepattern("a.txt").addFilepattern("b.txt").call();
+      git.commit().setMessage("theirs").call();
+
+      // Our side changes the same three files.
+      git.checkout().setName("master").call();
+      writeToFile(a, "my a");
+      writeToFile(b, "my b");
+      writeToFile(c, "my c");
+      git.add().addFilepattern("a.txt").addFilepattern("b.txt").addFilepattern("c.txt").call();
+      git.commit().setMessage("mine").call();
+
+      MergeResult mergeResult = git.merge().include(repository.resolve("theirs")).call();
+      assertEquals(MergeStatus.CONFLICTING, mergeResult.getMergeStatus());
+    }
+
+    gitAccess.resolveConflicts(
+        Arrays.asList(
+            new FileStatus(GitChangeType.CONFLICT, "a.txt"),
+            new FileStatus(GitChangeType.CONFLICT, "b.txt"),
+            new FileStatus(GitChangeType.CONFLICT, "c.txt")),
+        Stage.THEIRS);
+
+    DirCache dirCache = repository.readDirCache();
+    StringBuilder entries = new StringBuilder();
+    for (int i = 0; i < dirCache.getEntryCount(); i++) {
+      DirCacheEntry entry = dirCache.getEntry(i);
+      entries.append(entry.getPathString()).append(':').append(entry.getStage()).append('\n');
+    }
+    assertEquals(
+        "a.txt:0\n" + 
+        "b.txt:0\n" + 
+        "d.txt:0\n", 
+        entries.toString());
+
+    assertEquals("their a", getFileContent(a));
+    assertEquals("their b", getFileContent(b));
+    assertFalse(c.exists());
+    assertEquals("base d", getFileContent(d));
+    assertEquals(RepositoryState.MERGING_RESOLVED, repository.getRepositoryState());
+  }
+
 	@Test
 	public void testRestartMerge() throws Exception {
 
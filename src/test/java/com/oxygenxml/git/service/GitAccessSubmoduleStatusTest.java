@@ -0,0 +1,60 @@
+package com.oxygenxml.git.service;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.SubmoduleAddCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+
+/**
+ * Tests for the status of the submodules, computed once and shared by the consumers.
+ */
+public class GitAccessSubmoduleStatusTest extends GitTestBase {
+  private static final String PARENT_REPOSITORY = "target/test-resources/GitAccessSubmoduleStatusTest/parent";
+  private static final String SUBMODULE_REPOSITORY = "target/test-resources/GitAccessSubmoduleStatusTest/submodule";
+
+  /**
+   * The submodules are reused until the index changes. A submodule checked out on another
+   * commit is presented as unstaged.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSubmoduleStatus() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+
+    Repository submoduleRepo = createRepository(SUBMODULE_REPOSITORY);
+    commitOneFile(SUBMODULE_REPOSITORY, "a.txt", "first");
+    ObjectId firstCommit = gitAccess.getLastLocalCommit();
+    commitOneFile(SUBMODULE_REPOSITORY, "a.txt", "second");
+
+    createRepository(PARENT_REPOSITORY);
+    commitOneFile(PARENT_REPOSITORY, "p.txt", "parent");
+    SubmoduleAddCommand addCommand = gitAccess.submoduleAdd();
+    addCommand.setURI(submoduleRepo.getDirectory().toURI().toString());
+    addCommand.setPath("modules/submodule");
+    Repository checkedOutSubmodule = addCommand.call();
+    record4Cleanup(checkedOutSubmodule);
+    gitAccess.setRepositorySynchronously(PARENT_REPOSITORY);
+    gitAccess.commit("Submodule add");
+
+    Set<String> submodules = gitAccess.getSubmodules();
+    assertEquals("[modules/submodule]", submodules.toString());
+    // Nothing changed, so the same status is reused.
+    assertSame(submodules, gitAccess.getSubmodules());
+    assertEquals("", dumpFS(gitAccess.getUnstagedFiles()));
+
+    // Check out the submodule on another commit.
+    try (Git git = new Git(checkedOutSubmodule)) {
+      git.checkout().setName(firstCommit.getName()).call();
+    }
+    List<FileStatus> unstagedFiles = gitAccess.getUnstagedFiles();
+    assertEquals("(changeType=SUBMODULE, fileLocation=modules/submodule)\n", dumpFS(unstagedFiles));
+    assertEquals("[modules/submodule]", gitAccess.getSubmodules().toString());
+  }
+}
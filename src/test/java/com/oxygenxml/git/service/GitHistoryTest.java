@@ -286,6 +286,52 @@ public class GitHistoryTest extends HistoryPanelTestBase {
     }
   }
 
+  /**
+   * The tags and branches of each commit are indexed once, by full commit ID.
+   * 
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRefDecorations() throws Exception {
+    URL script = getClass().getClassLoader().getResource("scripts/history_script_branches.txt");
+    
+    File wcTree = new File("target/gen/GitHistoryTest_testRefDecorations");
+    RepoGenerationScript.generateRepository(script, wcTree);
+    
+    try {
+      GitAccess.getInstance().setRepositorySynchronously(wcTree.getAbsolutePath());
+      GitAccess.getInstance().setBranch("master");
+      
+      Repository repository = GitAccess.getInstance().getRepository();
+      ObjectId masterHead = repository.resolve("refs/heads/master");
+      ObjectId featureHead = repository.resolve("refs/heads/feature");
+      
+      GitAccess.getInstance().getGit().tag().setName("v1.0").setAnnotated(true).setMessage("Release").call();
+      GitAccess.getInstance().getGit().tag().setName("light").setAnnotated(false).call();
+      
+      RefDecorations decorations = RefDecorations.build(repository);
+      assertEquals("[master]", decorations.getLocalBranches(masterHead).toString());
+      assertEquals("[feature]", decorations.getLocalBranches(featureHead).toString());
+      assertEquals("[]", decorations.getRemoteBranches(masterHead).toString());
+      // Both the annotated and the lightweight tag point to the same commit.
+      List<String> tags = decorations.getTags(masterHead);
+      assertEquals(2, tags.size());
+      assertTrue(tags.contains("v1.0"));
+      assertTrue(tags.contains("light"));
+      assertTrue(decorations.getTags(featureHead).isEmpty());
+      
+      // The index is reused until the refs change.
+      RefDecorations cached = GitAccess.getInstance().getRefDecorations();
+      assertSame(cached, GitAccess.getInstance().getRefDecorations());
+      GitAccess.getInstance().setBranch("feature");
+      assertNotSame(cached, GitAccess.getInstance().getRefDecorations());
+    } finally {
+      GitAccess.getInstance().closeRepo();
+      
+      FileUtils.deleteDirectory(wcTree);
+    }
+  }
+
   /**
    * The upstream branch is ahead. In the history we should present the upstream branch as well.
    * 
@@ -514,6 +560,9 @@ public class GitHistoryTest extends HistoryPanelTestBase {
       
       List<FileStatus> changedFiles = RevCommitUtil.getChangedFiles(cc.getCommitId());
       assertEquals("[(changeType=RENAME, fileLocation=child/file_renamed.txt)]", changedFiles.toString());
+      // A commit never changes, so its changed files are computed once.
+      assertSame(changedFiles, RevCommitUtil.getChangedFiles(cc.getCommitId()));
+      assertSame(changedFiles, RevCommitUtil.getChangedFiles(cc.getCommitId(), true));
       
       Action action = getCompareWithWCAction(changedFiles.get(0), cc);
       assertEquals("Compare_file_with_working_tree_version", action.getValue(Action.NAME).toString());
@@ -531,5 +580,37 @@ public class GitHistoryTest extends HistoryPanelTestBase {
       assertEquals("git://" + cc.getCommitId() + "/child/file_renamed.txt", right.toString());
     
     }
+
+    /**
+     * The history read page by page is the same as the one read at once, including
+     * the commits found by following the renames.
+     *
+     * @throws Exception If it fails.
+     */
+    @Test
+    public void testPagedHistory() throws Exception {
+      URL script = getClass().getClassLoader().getResource("scripts/history_script_follow_rename_copy.txt");
+      File wcTree = new File("target/gen/GitHistoryTest_testPagedHistory");
+      
+      generateRepositoryAndLoad(script, wcTree);
+      
+      String fullDump = dumpHistory(GitAccess.getInstance().getCommitsCharacteristics("file_renamed_again.txt"));
+      
+      StringBuilder pagedDump = new StringBuilder();
+      int pages = 0;
+      try (CommitHistoryCursor cursor = GitAccess.getInstance().createCommitHistoryCursor("file_renamed_again.txt")) {
+        List<CommitCharacteristics> page = cursor.next(2);
+        while (!page.isEmpty()) {
+          assertTrue(page.size() <= 2);
+          pagedDump.append(dumpHistory(page));
+          pages++;
+          page = cursor.next(2);
+        }
+        assertFalse(cursor.hasNext());
+      }
+      
+      assertEquals(3, pages);
+      assertEquals(fullDump, pagedDump.toString());
+    }
     
 }
@@ -25,6 +25,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
@@ -67,8 +68,11 @@ import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
 import com.oxygenxml.git.utils.PanelRefresh;
 import com.oxygenxml.git.utils.PlatformDetectionUtil;
+import com.oxygenxml.git.utils.RepositoryRootCache;
 import com.oxygenxml.git.utils.script.RepoGenerationScript;
 import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
 
@@ -328,6 +332,8 @@ public class GitTestBase extends JFCTestCase { // NOSONAR
   @Before
   public void setUp() throws Exception {
     super.setUp();
+    // The test repositories are created and removed all the time.
+    RepositoryRootCache.getInstance().clear();
     
     
     // Create the unstaged resources panel
@@ -858,9 +864,30 @@ public class GitTestBase extends JFCTestCase { // NOSONAR
     }
     
     try {
-    Semaphore s = new Semaphore(0);
-    GitOperationScheduler.getInstance().schedule(() -> {s.release();}, 50);
-      s.tryAcquire(1, 4000, TimeUnit.MILLISECONDS);
+      // Twice, for the operations scheduled by other operations, on other lanes.
+      GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+      for (int i = 0; i < 2; i++) {
+        Semaphore s = new Semaphore(0);
+        int markers = 0;
+        for (Lane lane : Lane.values()) {
+          // Occupy all the threads of the lane, so that the operations in progress are done.
+          int threads = scheduler.getThreadCount(lane);
+          markers += threads;
+          CountDownLatch allThreads = new CountDownLatch(threads);
+          for (int j = 0; j < threads; j++) {
+            scheduler.schedule(lane, Priority.BACKGROUND, null, () -> {
+              allThreads.countDown();
+              try {
+                allThreads.await(4000, TimeUnit.MILLISECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              s.release();
+            }, 50);
+          }
+        }
+        s.tryAcquire(markers, 4000, TimeUnit.MILLISECONDS);
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       
@@ -0,0 +1,149 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests the incremental computation of the working copy status.
+ */
+public class WorkingCopyStatusEngineTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/WorkingCopyStatusEngineTest/local";
+
+  /**
+   * The changes done in the working copy, by our commands and by external tools, are all
+   * reflected by the engine's status.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testIncrementalStatus() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "tracked.txt", "initial");
+
+    WorkingCopyStatusEngine engine = gitAccess.getStatusEngine();
+    // The first request scans everything and starts watching.
+    assertEquals("", dumpFS(engine.getStatus().getUnstagedFiles()));
+
+    // A new file, detected by the watcher.
+    write(new File(LOCAL_TEST_REPOSITORY, "dir/new.txt"), "new");
+    assertStatus(engine, "(changeType=UNTRACKED, fileLocation=dir/new.txt)\n", GitStatus::getUnstagedFiles);
+
+    // A modified file, detected by the watcher.
+    write(new File(LOCAL_TEST_REPOSITORY, "tracked.txt"), "changed");
+    assertStatus(engine,
+        "(changeType=UNTRACKED, fileLocation=dir/new.txt)\n" +
+        "(changeType=MODIFIED, fileLocation=tracked.txt)\n",
+        GitStatus::getUnstagedFiles);
+
+    // Staged through our API. The affected path is diffed again.
+    gitAccess.add(new FileStatus(GitChangeType.MODIFIED, "tracked.txt"));
+    GitStatus status = engine.getStatus();
+    assertEquals("(changeType=UNTRACKED, fileLocation=dir/new.txt)\n", dumpFS(status.getUnstagedFiles()));
+    assertEquals("(changeType=CHANGED, fileLocation=tracked.txt)\n", dumpFS(status.getStagedFiles()));
+
+    // Staged by an external tool. The index change triggers a full scan.
+    try (Git git = new Git(gitAccess.getRepository())) {
+      git.add().addFilepattern("dir/new.txt").call();
+    }
+    status = engine.getStatus();
+    assertEquals("", dumpFS(status.getUnstagedFiles()));
+    assertEquals(
+        "(changeType=CHANGED, fileLocation=tracked.txt)\n" +
+        "(changeType=ADD, fileLocation=dir/new.txt)\n",
+        dumpFS(status.getStagedFiles()));
+
+    // A deleted file, detected by the watcher.
+    new File(LOCAL_TEST_REPOSITORY, "dir/new.txt").delete();
+    assertStatus(engine, "(changeType=MISSING, fileLocation=dir/new.txt)\n", GitStatus::getUnstagedFiles);
+
+    // Marked as changed by the editor save hook.
+    engine.markDirty(Arrays.asList("tracked.txt"));
+    assertEquals(
+        "(changeType=ADD, fileLocation=dir/new.txt)\n" +
+        "(changeType=CHANGED, fileLocation=tracked.txt)\n",
+        dumpFS(engine.getStatus().getStagedFiles()));
+  }
+
+  /**
+   * The untracked files are not uncommitted changes, the modified and the staged ones are.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testHasUncommittedChanges() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY + "-uncommitted");
+    commitOneFile(LOCAL_TEST_REPOSITORY + "-uncommitted", "tracked.txt", "initial");
+
+    WorkingCopyStatusEngine engine = gitAccess.getStatusEngine();
+    assertFalse(engine.hasUncommittedChanges());
+
+    write(new File(LOCAL_TEST_REPOSITORY + "-uncommitted", "new.txt"), "new");
+    assertStatus(engine, "(changeType=UNTRACKED, fileLocation=new.txt)\n", GitStatus::getUnstagedFiles);
+    assertFalse(engine.hasUncommittedChanges());
+
+    write(new File(LOCAL_TEST_REPOSITORY + "-uncommitted", "tracked.txt"), "changed");
+    assertStatus(engine,
+        "(changeType=UNTRACKED, fileLocation=new.txt)\n" +
+        "(changeType=MODIFIED, fileLocation=tracked.txt)\n",
+        GitStatus::getUnstagedFiles);
+    assertTrue(engine.hasUncommittedChanges());
+
+    gitAccess.add(new FileStatus(GitChangeType.MODIFIED, "tracked.txt"));
+    assertEquals("(changeType=CHANGED, fileLocation=tracked.txt)\n", dumpFS(engine.getStatus().getStagedFiles()));
+    assertTrue(engine.hasUncommittedChanges());
+  }
+
+  /**
+   * Writes the given content into a file.
+   *
+   * @param file    The file.
+   * @param content The content.
+   *
+   * @throws Exception If it fails.
+   */
+  private void write(File file, String content) throws Exception {
+    file.getParentFile().mkdirs();
+    try (PrintWriter out = new PrintWriter(file)) {
+      out.println(content);
+    }
+  }
+
+  /**
+   * The watcher reports the changes asynchronously. Waits for them to be reflected in the status.
+   *
+   * @param engine   The status engine.
+   * @param expected The expected files dump.
+   * @param files    Extracts the files to assert from the status.
+   *
+   * @throws InterruptedException If interrupted.
+   */
+  private void assertStatus(
+      WorkingCopyStatusEngine engine,
+      String expected,
+      Function<GitStatus, List<FileStatus>> files) throws InterruptedException {
+    String actual = null;
+    for (int i = 0; i < 50 && !expected.equals(actual); i++) {
+      if (i > 0) {
+        Thread.sleep(100);
+      }
+      actual = dumpFS(files.apply(engine.getStatus()));
+    }
+    assertEquals(expected, actual);
+  }
+}
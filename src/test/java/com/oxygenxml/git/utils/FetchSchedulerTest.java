@@ -0,0 +1,94 @@
+package com.oxygenxml.git.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.GitTestBase;
+import com.oxygenxml.git.utils.PanelRefresh.RepositoryStatus;
+
+/**
+ * Tests for the background fetch.
+ */
+public class FetchSchedulerTest extends GitTestBase {
+
+  /**
+   * The interval grows while the remote is unavailable and it is restored by a successful fetch.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBackoffAndLastFetchAge() throws Exception {
+    createRepository("target/test-resources/FetchSchedulerTest/local");
+
+    Queue<RepositoryStatus> results = new LinkedList<>(Arrays.asList(
+        RepositoryStatus.UNAVAILABLE,
+        RepositoryStatus.UNAVAILABLE,
+        RepositoryStatus.UNAVAILABLE,
+        RepositoryStatus.UNAVAILABLE,
+        RepositoryStatus.AVAILABLE));
+    FetchScheduler fetchScheduler = new FetchScheduler(interactive -> results.poll());
+    assertEquals(1, fetchScheduler.getBackoffFactor());
+
+    fetchScheduler.fetchIfRepositoryChanged();
+    waitForScheduler();
+    assertEquals(2, fetchScheduler.getBackoffFactor());
+    assertEquals(-1, fetchScheduler.getLastFetchAge());
+
+    // Same repository. No fetch.
+    fetchScheduler.fetchIfRepositoryChanged();
+    waitForScheduler();
+    assertEquals(2, fetchScheduler.getBackoffFactor());
+
+    for (int i = 0; i < 3; i++) {
+      fetchScheduler.fetchNow();
+      waitForScheduler();
+    }
+    assertEquals(FetchScheduler.MAX_BACKOFF_FACTOR, fetchScheduler.getBackoffFactor());
+
+    fetchScheduler.fetchNow();
+    waitForScheduler();
+    assertEquals(1, fetchScheduler.getBackoffFactor());
+    assertTrue(fetchScheduler.getLastFetchAge() >= 0);
+    assertTrue(results.isEmpty());
+  }
+
+  /**
+   * Only the fetches started by the user can ask for credentials. A pending background fetch
+   * becomes interactive when the user asks for a fetch.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testInteractiveFetch() throws Exception {
+    createRepository("target/test-resources/FetchSchedulerTest/interactive");
+
+    List<Boolean> fetches = new ArrayList<>();
+    FetchScheduler fetchScheduler = new FetchScheduler(interactive -> {
+      fetches.add(interactive);
+      return RepositoryStatus.AVAILABLE;
+    });
+
+    fetchScheduler.fetchNow();
+    waitForScheduler();
+    fetchScheduler.fetchNow(true);
+    waitForScheduler();
+    assertEquals(Arrays.asList(false, true), fetches);
+
+    fetches.clear();
+    // Keep the Git operations thread busy, so that the fetches are merged.
+    Semaphore busy = new Semaphore(0);
+    GitOperationScheduler.getInstance().schedule(GitOperationScheduler.Lane.NETWORK, 
+        GitOperationScheduler.Priority.INTERACTIVE, null, busy::acquireUninterruptibly, 0);
+    fetchScheduler.fetchNow();
+    fetchScheduler.fetchNow(true);
+    busy.release();
+    waitForScheduler();
+    assertEquals(Arrays.asList(true), fetches);
+  }
+}
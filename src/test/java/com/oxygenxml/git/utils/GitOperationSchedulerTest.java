@@ -0,0 +1,130 @@
+package com.oxygenxml.git.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.oxygenxml.git.utils.GitOperationScheduler.Lane;
+import com.oxygenxml.git.utils.GitOperationScheduler.Priority;
+
+/**
+ * Tests for the lanes, the priorities and the coalescing of the Git operations.
+ */
+public class GitOperationSchedulerTest {
+
+  /**
+   * Stops the lanes.
+   */
+  @After
+  public void tearDown() {
+    GitOperationScheduler.getInstance().shutdown();
+  }
+
+  /**
+   * A blocked lane doesn't delay the other lanes. Inside a lane, the interactive operations come first
+   * and an operation with the same key supersedes the previous one.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testLanesPrioritiesAndCoalescing() throws Exception {
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    boolean[] supersededWhileRunning = new boolean[1];
+    scheduler.schedule(Lane.NETWORK, Priority.BACKGROUND, "fetch", () -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      supersededWhileRunning[0] = GitOperationScheduler.getProgressMonitor().isCancelled();
+    }, 0);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // The network lane is blocked, the other lanes are not.
+    scheduler.schedule(Lane.WRITE, Priority.INTERACTIVE, null, () -> {}, 0).get(5, TimeUnit.SECONDS);
+    scheduler.schedule(Lane.READ, Priority.INTERACTIVE, null, () -> {}, 0).get(5, TimeUnit.SECONDS);
+
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<?> refresh1 = scheduler.schedule(Lane.NETWORK, Priority.BACKGROUND, "refresh", () -> order.add("refresh1"), 0);
+    scheduler.schedule(Lane.NETWORK, Priority.BACKGROUND, null, () -> order.add("background"), 0);
+    scheduler.schedule(Lane.NETWORK, Priority.BACKGROUND, "refresh", () -> order.add("refresh2"), 0);
+    scheduler.schedule(Lane.NETWORK, Priority.INTERACTIVE, null, () -> order.add("interactive"), 0);
+    // Supersedes the running one.
+    Future<?> last = scheduler.schedule(Lane.NETWORK, Priority.BACKGROUND, "fetch", () -> order.add("fetch2"), 0);
+
+    release.countDown();
+    last.get(5, TimeUnit.SECONDS);
+
+    assertTrue(supersededWhileRunning[0]);
+    assertTrue(refresh1.isCancelled());
+    assertEquals("[interactive, background, refresh2, fetch2]", order.toString());
+  }
+
+  /**
+   * The read operations run in parallel.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testReadOperationsRunInParallel() throws Exception {
+    GitOperationScheduler scheduler = GitOperationScheduler.getInstance();
+    int threads = scheduler.getThreadCount(Lane.READ);
+    assertTrue(threads > 1);
+    assertEquals(1, scheduler.getThreadCount(Lane.WRITE));
+
+    // Each operation waits for all the others to start.
+    CountDownLatch allStarted = new CountDownLatch(threads);
+    List<Future<?>> operations = new CopyOnWriteArrayList<>();
+    boolean[] timedOut = new boolean[1];
+    for (int i = 0; i < threads; i++) {
+      operations.add(scheduler.schedule(Lane.READ, Priority.INTERACTIVE, null, () -> {
+        allStarted.countDown();
+        try {
+          if (!allStarted.await(5, TimeUnit.SECONDS)) {
+            timedOut[0] = true;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }, 0));
+    }
+    for (Future<?> operation : operations) {
+      operation.get(10, TimeUnit.SECONDS);
+    }
+    assertFalse(timedOut[0]);
+  }
+
+  /**
+   * The operations are measured under their key or, without a key, under the class that scheduled them.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testOperationNames() throws Exception {
+    assertEquals("History.changedFiles", GitOperationScheduler.getOperationName("History.changedFiles", () -> {}));
+    assertEquals("GitOperationSchedulerTest", GitOperationScheduler.getOperationName(null, () -> {}));
+
+    OperationMetrics.getInstance().reset();
+    GitOperationScheduler.getInstance().schedule(Lane.READ, Priority.BACKGROUND, "blame", () -> {}, 0)
+        .get(5, TimeUnit.SECONDS);
+    // The timer is stopped after the task completes.
+    for (int i = 0; i < 100 && OperationMetrics.getInstance().getOperations().isEmpty(); i++) {
+      Thread.sleep(10);
+    }
+    List<OperationStatistics> operations = OperationMetrics.getInstance().getOperations();
+    assertEquals(1, operations.size());
+    assertEquals("Scheduler.READ.BACKGROUND.blame", operations.get(0).getName());
+  }
+}
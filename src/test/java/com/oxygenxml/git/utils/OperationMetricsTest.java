@@ -0,0 +1,64 @@
+package com.oxygenxml.git.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the measurements of the Git operations.
+ */
+public class OperationMetricsTest {
+
+  /**
+   * Forgets the measurements.
+   */
+  @After
+  public void tearDown() {
+    OperationMetrics.getInstance().reset();
+  }
+
+  /**
+   * The percentiles are computed over the latest executions, the totals over all of them.
+   */
+  @Test
+  public void testStatistics() {
+    OperationMetrics metrics = OperationMetrics.getInstance();
+    metrics.reset();
+    // 1000 executions, the latest 256 of 1 ms to 256 ms.
+    for (int i = 0; i < 1000; i++) {
+      long millis = i < 744 ? 1000 : i - 743;
+      metrics.record("op", TimeUnit.MILLISECONDS.toNanos(millis), TimeUnit.MILLISECONDS.toNanos(2), 3, 1, 10, i == 0);
+    }
+    metrics.start("another").stop();
+
+    List<OperationStatistics> operations = metrics.getOperations();
+    assertEquals(2, operations.size());
+    assertEquals("another", operations.get(0).getName());
+    OperationStatistics op = operations.get(1);
+    assertEquals("op", op.getName());
+    assertEquals(1000, op.getCount());
+    assertEquals(1, op.getFailures());
+    assertEquals(128, op.getP50Millis(), 0.001);
+    assertEquals(231, op.getP90Millis(), 0.001);
+    assertEquals(254, op.getP99Millis(), 0.001);
+    assertEquals(1000, op.getMaxMillis(), 0.001);
+    assertEquals(2, op.getAverageWaitMillis(), 0.001);
+    assertEquals(3000, op.getFiles());
+    assertEquals(1000, op.getCommits());
+    assertEquals(10000, op.getBytes());
+
+    String csv = metrics.exportCsv();
+    assertTrue(csv, csv.startsWith("name,count,failures,"));
+    assertTrue(csv, csv.contains("\n\"op\",1000,1,"));
+    String json = metrics.exportJson();
+    assertTrue(json, json.contains("{\"name\": \"op\", \"count\": 1000, \"failures\": 1, "));
+
+    metrics.reset();
+    assertTrue(metrics.getOperations().isEmpty());
+  }
+}
@@ -0,0 +1,70 @@
+package com.oxygenxml.git.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for choosing the folders of the Project view to refresh.
+ */
+public class ProjectRefreshPlannerTest {
+  /**
+   * The working copy.
+   */
+  private final File root = new File("target/test-resources/ProjectRefreshPlannerTest").getAbsoluteFile();
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(root);
+  }
+
+  /**
+   * Changes in two top-level folders refresh those folders, not the working copy. The nested and the deleted
+   * folders are covered by their ancestors.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRefreshOnlyChangedFolders() throws Exception {
+    File a = new File(root, "a");
+    File b = new File(root, "b");
+    File bc = new File(b, "c");
+    bc.mkdirs();
+    a.mkdirs();
+
+    List<File> plan = ProjectRefreshPlanner.plan(root, Arrays.asList(
+        a, bc, b, new File(a, "deleted/folder"), new File(root, "deleted")));
+    assertEquals(Arrays.asList(root), plan);
+
+    plan = ProjectRefreshPlanner.plan(root, Arrays.asList(a, bc, new File(a, "deleted/folder")));
+    assertEquals(Arrays.asList(a, bc), plan);
+  }
+
+  /**
+   * Many changed folders are coalesced into their parents.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCoalesceManyFolders() throws Exception {
+    List<File> folders = new ArrayList<>();
+    for (int i = 0; i < ProjectRefreshPlanner.MAX_FOLDERS; i++) {
+      File folder = new File(root, "a/" + i);
+      folder.mkdirs();
+      folders.add(folder);
+    }
+    File b = new File(root, "b");
+    b.mkdirs();
+    folders.add(b);
+
+    List<File> plan = ProjectRefreshPlanner.plan(root, folders);
+    assertEquals(Arrays.asList(new File(root, "a"), b), plan);
+  }
+}
@@ -202,5 +202,32 @@ public class RepoUtilTest extends GitTestBase {
     assertNotNull("No repository detected", detectRepositoryInProject);
     
     assertEquals(gitDir.getAbsolutePath(), detectRepositoryInProject.getAbsolutePath());
-  } 
+  }
+  
+  /**
+   * <p><b>Description:</b> The repository of a file is found by going upwards and the answer
+   * is reused for the files from the same directories, until the cache is cleared.</p>
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRepositoryForFile() throws Exception {
+    File dir = new File(workDir, "a/b");
+    dir.mkdirs();
+    File file1 = new File(dir, "file1.txt");
+    File file2 = new File(dir, "file2.txt");
+    setFileContent(file1, "1");
+    setFileContent(file2, "2");
+    Git.init().setDirectory(workDir).call();
+    
+    assertEquals(workDir.getAbsolutePath(), RepoUtil.getRepositoryForFile(file1));
+    assertTrue(FileHelper.isFromGitRepo(file2));
+    
+    // A repository created outside the application is detected after the cache is cleared.
+    File child = new File(workDir, "a");
+    Git.init().setDirectory(child).call();
+    assertEquals(workDir.getAbsolutePath(), RepoUtil.getRepositoryForFile(file2));
+    
+    RepositoryRootCache.getInstance().clear();
+    assertEquals(child.getAbsolutePath(), RepoUtil.getRepositoryForFile(file2));
+  }
 }
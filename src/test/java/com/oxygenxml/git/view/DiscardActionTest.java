@@ -0,0 +1,73 @@
+package com.oxygenxml.git.view;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.oxygenxml.git.options.OptionsManager;
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitTestBase;
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.view.ChangesPanel.SelectedResourcesProvider;
+import com.oxygenxml.git.view.event.GitController;
+
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+/**
+ * Tests for the discard action.
+ */
+public class DiscardActionTest extends GitTestBase {
+  private static final String LOCAL_REPOSITORY = "target/test-resources/DiscardActionTest/local";
+
+  /**
+   * The Project view is refreshed after the discard restored the files, not before.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRefreshAfterDiscard() throws Exception {
+    createRepository(LOCAL_REPOSITORY);
+    new File(LOCAL_REPOSITORY, "dir").mkdirs();
+    commitOneFile(LOCAL_REPOSITORY, "dir/a.txt", "content");
+    OptionsManager.getInstance().saveSelectedRepository(new File(LOCAL_REPOSITORY).getAbsolutePath());
+
+    File file = new File(LOCAL_REPOSITORY, "dir/a.txt");
+    assertTrue(file.delete());
+    assertEquals("(changeType=MISSING, fileLocation=dir/a.txt)\n", dumpFS(GitAccess.getInstance().getUnstagedFiles()));
+
+    AtomicBoolean restoredBeforeRefresh = new AtomicBoolean();
+    Semaphore refreshed = new Semaphore(0);
+    StandalonePluginWorkspace pluginWS = (StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace();
+    Mockito.doAnswer(invocation -> {
+      restoredBeforeRefresh.set(file.exists());
+      refreshed.release();
+      return null;
+    }).when(pluginWS.getProjectManager()).refreshFolders(Mockito.any());
+
+    DiscardAction discardAction = new DiscardAction(
+        new SelectedResourcesProvider() {
+          @Override
+          public List<FileStatus> getOnlySelectedLeaves() {
+            return null;
+          }
+          @Override
+          public List<FileStatus> getAllSelectedResources() {
+            return Arrays.asList(new FileStatus(GitChangeType.MISSING, "dir/a.txt"));
+          }
+        },
+        new GitController());
+    discardAction.actionPerformed(null);
+
+    assertTrue("The Project view was not refreshed", refreshed.tryAcquire(4000, TimeUnit.MILLISECONDS));
+    assertTrue("The Project view was refreshed before the file was restored", restoredBeforeRefresh.get());
+    assertEquals("", dumpFS(GitAccess.getInstance().getUnstagedFiles()));
+  }
+}
@@ -101,8 +101,9 @@ public class RefreshProjectTest extends TestCase {
           },
           new GitController() {
             @Override
-            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action) {
+            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action, Runnable onFinish) {
               // Do nothing
+              onFinish.run();
             }
           });
       discardAction.actionPerformed(null);
@@ -151,8 +152,9 @@ public class RefreshProjectTest extends TestCase {
           },
           new GitController() {
             @Override
-            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action) {
+            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action, Runnable onFinish) {
               // Do nothing
+              onFinish.run();
             }
           });
       discardAction.actionPerformed(null);
@@ -199,8 +201,9 @@ public class RefreshProjectTest extends TestCase {
           },
           new GitController() {
             @Override
-            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action) {
+            public void doGitCommand(List<FileStatus> filesStatus, GitCommand action, Runnable onFinish) {
               // Do nothing
+              onFinish.run();
             }
           });
       discardAction.actionPerformed(null);
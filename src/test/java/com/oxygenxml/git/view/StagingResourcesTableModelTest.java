@@ -0,0 +1,71 @@
+package com.oxygenxml.git.view;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for the row index and the minimal updates of the table model.
+ */
+public class StagingResourcesTableModelTest {
+
+  /**
+   * Only the rows that differ are reported to the listeners and the rows are found by path.
+   */
+  @Test
+  public void testDiffBasedUpdates() {
+    StagingResourcesTableModel model = new StagingResourcesTableModel(null, false);
+    List<String> events = new ArrayList<>();
+    model.addTableModelListener(e -> events.add(
+        (e.getType() == TableModelEvent.INSERT ? "insert " : e.getType() == TableModelEvent.DELETE ? "delete " : "update ")
+        + e.getFirstRow() + "-" + e.getLastRow()));
+
+    model.setFilesStatus(Arrays.asList(
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.UNTRACKED, "src/a.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "a.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "a.txt")));
+    assertEquals("[insert 0-2]", events.toString());
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=src/a.txt), "
+        + "(changeType=MODIFIED, fileLocation=a.txt), "
+        + "(changeType=MODIFIED, fileLocation=b.txt)]",
+        model.getFilesStatuses().toString());
+
+    // The same files. Nothing to report.
+    events.clear();
+    model.setFilesStatus(new ArrayList<>(model.getFilesStatuses()));
+    assertEquals("[]", events.toString());
+
+    // One file removed, two new ones.
+    events.clear();
+    model.setFilesStatus(Arrays.asList(
+        new FileStatus(GitChangeType.UNTRACKED, "src/a.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "c.txt"),
+        new FileStatus(GitChangeType.MISSING, "src/b.txt")));
+    assertEquals("[delete 1-1, insert 2-3]", events.toString());
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=src/a.txt), "
+        + "(changeType=MODIFIED, fileLocation=b.txt), "
+        + "(changeType=MODIFIED, fileLocation=c.txt), "
+        + "(changeType=MISSING, fileLocation=src/b.txt)]",
+        model.getFilesStatuses().toString());
+
+    assertEquals(2, model.getRow("c.txt"));
+    assertEquals(-1, model.getRow("a.txt"));
+    assertEquals("[0, 3]", model.getRows("src").toString());
+    assertEquals("[0]", model.getRows("src/a.txt").toString());
+    assertEquals("[]", model.getRows("sr").toString());
+    assertEquals("[0, 1, 2, 3]", model.getRows("").toString());
+  }
+}
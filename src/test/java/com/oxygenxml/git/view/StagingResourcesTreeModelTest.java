@@ -0,0 +1,80 @@
+package com.oxygenxml.git.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests for the path index and the sorted inserts of the tree model.
+ */
+public class StagingResourcesTreeModelTest {
+
+  /**
+   * Folders come first and the children are sorted alphabetically. The files are found
+   * by path without scanning the model.
+   */
+  @Test
+  public void testSortedNodesAndPathIndex() {
+    List<FileStatus> files = Arrays.asList(
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.ADD, "src/z.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "A.txt"),
+        new FileStatus(GitChangeType.UNTRACKED, "src/main/x.java"),
+        new FileStatus(GitChangeType.MODIFIED, "src/a.txt"),
+        new FileStatus(GitChangeType.MISSING, "srcFile.txt"));
+    StagingResourcesTreeModel model = new StagingResourcesTreeModel(null, "root", false, files);
+
+    assertEquals(
+        "root\n" +
+        "  src\n" +
+        "    main\n" +
+        "      x.java\n" +
+        "    a.txt\n" +
+        "    z.txt\n" +
+        "  A.txt\n" +
+        "  b.txt\n" +
+        "  srcFile.txt\n",
+        dump((GitTreeNode) model.getRoot(), ""));
+
+    assertEquals("(changeType=ADD, fileLocation=src/z.txt)", model.getFileByPath("src/z.txt").toString());
+    assertNull(model.getFileByPath("src"));
+
+    // All the files from a folder, but not the ones that just start with the same name.
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=src/main/x.java), "
+        + "(changeType=MODIFIED, fileLocation=src/a.txt), "
+        + "(changeType=ADD, fileLocation=src/z.txt)]",
+        model.getFilesByPaths(Arrays.asList("src")).toString());
+    // The root.
+    assertEquals(6, model.getFilesByPaths(Arrays.asList("")).size());
+
+    assertEquals(
+        "[(changeType=MODIFIED, fileLocation=A.txt)]",
+        model.getFileLeavesByPaths(Arrays.asList("A.txt", "src")).toString());
+    assertEquals(Collections.emptyList(), model.getFileLeavesByPaths(Arrays.asList("missing.txt")));
+  }
+
+  /**
+   * Dumps the tree.
+   *
+   * @param node   The node to dump.
+   * @param indent The indent.
+   *
+   * @return The node and its descendants, one per line.
+   */
+  private static String dump(GitTreeNode node, String indent) {
+    StringBuilder b = new StringBuilder(indent).append(node.getUserObject()).append("\n");
+    for (int i = 0; i < node.getChildCount(); i++) {
+      b.append(dump((GitTreeNode) node.getChildAt(i), indent + "  "));
+    }
+    return b.toString();
+  }
+}
@@ -0,0 +1,122 @@
+package com.oxygenxml.git.view.blame;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests for the cache of the blame results.
+ */
+public class BlameCacheTest {
+  /**
+   * The repository of the cached results.
+   */
+  private Repository repository;
+
+  /**
+   * Starts with an empty cache.
+   */
+  @Before
+  public void setUp() {
+    repository = Mockito.mock(Repository.class);
+    Mockito.when(repository.getDirectory()).thenReturn(new File("target/test-resources/BlameCacheTest/.git"));
+    BlameCache.getInstance().clear();
+  }
+
+  /**
+   * Forgets the results of the test.
+   */
+  @After
+  public void tearDown() {
+    BlameCache.getInstance().clear();
+  }
+
+  /**
+   * A result is found again only if HEAD, the index and the working copy are unchanged.
+   */
+  @Test
+  public void testHitAndMiss() {
+    ObjectId head = id(1);
+    ObjectId index = id(2);
+    ObjectId workingCopy = id(3);
+    RevCommit[] lines = new RevCommit[3];
+    BlameCache cache = BlameCache.getInstance();
+    cache.put(BlameCache.createKey(repository, "file.txt", head, index, workingCopy), lines);
+
+    assertSame(lines, cache.get(BlameCache.createKey(repository, "file.txt", head, index, workingCopy)));
+    assertSame(lines, cache.get(BlameCache.createKey(repository, "file.txt", id(1), id(2), id(3))));
+
+    // Another commit.
+    assertNull(cache.get(BlameCache.createKey(repository, "file.txt", id(4), index, workingCopy)));
+    // Staged changes.
+    assertNull(cache.get(BlameCache.createKey(repository, "file.txt", head, id(4), workingCopy)));
+    // Changes in the working copy.
+    assertNull(cache.get(BlameCache.createKey(repository, "file.txt", head, index, id(4))));
+    // Another file.
+    assertNull(cache.get(BlameCache.createKey(repository, "other.txt", head, index, workingCopy)));
+
+    // A file that is not yet in HEAD, the index or the working copy has a key of its own.
+    assertFalse(BlameCache.createKey(repository, "file.txt", null, index, workingCopy).equals(
+        BlameCache.createKey(repository, "file.txt", index, null, workingCopy)));
+    assertFalse(BlameCache.createKey(repository, "file.txt", head, index, null).equals(
+        BlameCache.createKey(repository, "file.txt", head, null, index)));
+  }
+
+  /**
+   * The cache keeps only the 16 most recently used results.
+   */
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    BlameCache cache = BlameCache.getInstance();
+    for (int i = 0; i < 16; i++) {
+      cache.put(key(i), new RevCommit[i]);
+    }
+    for (int i = 0; i < 16; i++) {
+      assertNotNull("Missing " + i, cache.get(key(i)));
+    }
+
+    // The first one is used again, so the second one is now the eldest.
+    assertNotNull(cache.get(key(0)));
+    cache.put(key(16), new RevCommit[16]);
+    assertNotNull(cache.get(key(0)));
+    assertNull(cache.get(key(1)));
+    for (int i = 2; i <= 16; i++) {
+      assertNotNull("Missing " + i, cache.get(key(i)));
+    }
+
+    // Replacing a result doesn't evict anything.
+    cache.put(key(16), new RevCommit[1]);
+    for (int i = 2; i <= 16; i++) {
+      assertNotNull("Missing " + i, cache.get(key(i)));
+    }
+  }
+
+  /**
+   * @param n A number.
+   *
+   * @return The key of a result for the working copy with the given number.
+   */
+  private String key(int n) {
+    return BlameCache.createKey(repository, "file.txt", id(1), id(2), id(100 + n));
+  }
+
+  /**
+   * @param n A number.
+   *
+   * @return An object ID made from the given number.
+   */
+  private static ObjectId id(int n) {
+    return ObjectId.fromRaw(new int[] {n, 0, 0, 0, 0});
+  }
+}
@@ -0,0 +1,279 @@
+package com.oxygenxml.git.view.blame;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitTestBase;
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.view.historycomponents.HistoryController;
+
+import ro.sync.exml.workspace.api.editor.WSEditor;
+import ro.sync.exml.workspace.api.editor.page.text.xml.WSXMLTextEditorPage;
+
+/**
+ * Tests for the time-sliced computation of the blame and for the reuse of its results.
+ */
+public class BlamePerformerTest extends GitTestBase {
+  /**
+   * The blamed file.
+   */
+  private static final String FILE = "file1.txt";
+  /**
+   * The text area of the last blamed editor.
+   */
+  private JTextArea textArea;
+  /**
+   * Released when a blame is presented.
+   */
+  private final Semaphore presented = new Semaphore(0);
+  /**
+   * Intercepts the requests to present the history.
+   */
+  private HistoryController historyController;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    BlameCache.getInstance().clear();
+
+    historyController = Mockito.mock(HistoryController.class);
+    Mockito.doAnswer(invocation -> {
+      presented.release();
+      return null;
+    }).when(historyController).showResourceHistory(Mockito.anyString());
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    BlameCache.getInstance().clear();
+    super.tearDown();
+  }
+
+  /**
+   * Blaming again an unchanged file presents the cached result. A change of the working copy,
+   * of the index or of HEAD computes the blame again.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCachedResult() throws Exception {
+    URL script = getClass().getClassLoader().getResource("scripts/blame_script.txt");
+    File wcTree = new File("target/gen/BlamePerformerTest_testCachedResult");
+    generateRepositoryAndLoad(script, wcTree);
+
+    assertEquals(5, blame(new BlamePerformer()));
+    String key = getCurrentKey();
+    RevCommit[] computed = BlameCache.getInstance().get(key);
+    assertEquals(5, computed.length);
+
+    // Replace the result with one where all the lines come from the same commit. It is presented as is.
+    RevCommit[] fake = new RevCommit[computed.length];
+    Arrays.fill(fake, computed[0]);
+    BlameCache.getInstance().put(key, fake);
+    assertEquals(1, blame(new BlamePerformer()));
+
+    // A new first line in the working copy. The uncommitted line is not highlighted.
+    File file = new File(wcTree, FILE);
+    byte[] content = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), ("Line 0\n" + new String(content, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+    assertEquals(5, blame(new BlamePerformer()));
+    String workingCopyKey = getCurrentKey();
+    assertFalse(key.equals(workingCopyKey));
+    assertEquals(6, BlameCache.getInstance().get(workingCopyKey).length);
+
+    // Staged. The same working copy, but another index.
+    GitAccess.getInstance().add(new FileStatus(GitChangeType.MODIFIED, FILE));
+    BlameCache.getInstance().put(workingCopyKey, fake);
+    assertEquals(5, blame(new BlamePerformer()));
+    String indexKey = getCurrentKey();
+    assertFalse(workingCopyKey.equals(indexKey));
+    assertNotNull(BlameCache.getInstance().get(indexKey));
+
+    // Committed. Another HEAD.
+    GitAccess.getInstance().commit("Change 0");
+    BlameCache.getInstance().put(indexKey, fake);
+    assertEquals(6, blame(new BlamePerformer()));
+    String headKey = getCurrentKey();
+    assertFalse(indexKey.equals(headKey));
+    assertNotNull(BlameCache.getInstance().get(headKey));
+  }
+
+  /**
+   * The blame is computed a slice at a time and each slice presents the regions resolved so far.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testTimeSlices() throws Exception {
+    URL script = getClass().getClassLoader().getResource("scripts/blame_script.txt");
+    File wcTree = new File("target/gen/BlamePerformerTest_testTimeSlices");
+    generateRepositoryAndLoad(script, wcTree);
+
+    StringBuilder slices = new StringBuilder();
+    BlamePerformer blamePerformer = new BlamePerformer() {
+      @Override
+      void addRegions(List<Region> regions, int resolvedLines, int totalLines) {
+        slices.append(regions.size()).append(" region(s), ").append(resolvedLines).append("/").append(totalLines).append("\n");
+        super.addRegions(regions, resolvedLines, totalLines);
+      }
+    };
+    // Each slice resolves just one region, then the task is scheduled again.
+    blamePerformer.sliceDuration = 0;
+
+    assertEquals(5, blame(blamePerformer));
+    assertEquals(
+        "1 region(s), 1/5\n" +
+        "1 region(s), 2/5\n" +
+        "1 region(s), 3/5\n" +
+        "1 region(s), 4/5\n" +
+        "1 region(s), 5/5\n" +
+        "0 region(s), 5/5\n",
+        slices.toString());
+    assertNotNull(BlameCache.getInstance().get(getCurrentKey()));
+  }
+
+  /**
+   * Disposing the blame stops the computation at the next slice. Nothing is presented or cached.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCancel() throws Exception {
+    String repository = "target/test-resources/BlamePerformerTest/testCancel";
+    createRepository(repository);
+    int lineCount = 10000;
+    StringBuilder committed = new StringBuilder();
+    for (int i = 0; i < lineCount; i++) {
+      committed.append("Line ").append(i).append("\n");
+    }
+    commitOneFile(repository, FILE, committed.toString());
+
+    // Every other line changed in the working copy, so there are many regions to resolve.
+    StringBuilder changed = new StringBuilder();
+    for (int i = 0; i < lineCount; i++) {
+      changed.append(i % 2 == 0 ? "Changed " : "Line ").append(i).append("\n");
+    }
+    Files.write(new File(repository, FILE).toPath(), changed.toString().getBytes(StandardCharsets.UTF_8));
+
+    CountDownLatch firstSlice = new CountDownLatch(1);
+    List<Integer> resolved = new ArrayList<>();
+    BlamePerformer blamePerformer = new BlamePerformer() {
+      @Override
+      void addRegions(List<Region> regions, int resolvedLines, int totalLines) {
+        resolved.add(resolvedLines);
+        super.addRegions(regions, resolvedLines, totalLines);
+        firstSlice.countDown();
+      }
+    };
+    blamePerformer.sliceDuration = 0;
+    startBlame(blamePerformer);
+    assertTrue("The blame didn't start", firstSlice.await(4000, TimeUnit.MILLISECONDS));
+
+    // Between two slices.
+    Lock writeLock = GitAccess.getInstance().getRepositoryLock().writeLock();
+    writeLock.lock();
+    try {
+      SwingUtilities.invokeAndWait(blamePerformer::dispose);
+    } finally {
+      writeLock.unlock();
+    }
+    waitForScheduler();
+    flushAWT();
+
+    Mockito.verify(historyController, Mockito.never()).showResourceHistory(Mockito.anyString());
+    assertEquals(0, textArea.getHighlighter().getHighlights().length);
+    assertNull(BlameCache.getInstance().get(getCurrentKey()));
+
+    int resolvedWhenDisposed = resolved.get(resolved.size() - 1);
+    assertTrue("Resolved " + resolvedWhenDisposed, resolvedWhenDisposed < lineCount);
+    // No other slice is computed.
+    waitForScheduler();
+    flushAWT();
+    assertEquals(resolvedWhenDisposed, (int) resolved.get(resolved.size() - 1));
+  }
+
+  /**
+   * Blames the file and waits for the result to be presented.
+   *
+   * @param blamePerformer Computes the blame.
+   *
+   * @return The number of highlights.
+   *
+   * @throws Exception If it fails.
+   */
+  private int blame(BlamePerformer blamePerformer) throws Exception {
+    startBlame(blamePerformer);
+    assertTrue("The blame was not presented", presented.tryAcquire(4000, TimeUnit.MILLISECONDS));
+    flushAWT();
+    int highlights = textArea.getHighlighter().getHighlights().length;
+    blamePerformer.dispose();
+    return highlights;
+  }
+
+  /**
+   * Starts the blame on an editor that presents the working copy file.
+   *
+   * @param blamePerformer Computes the blame.
+   *
+   * @throws Exception If it fails.
+   */
+  private void startBlame(BlamePerformer blamePerformer) throws Exception {
+    Repository repository = GitAccess.getInstance().getRepository();
+    File file = new File(repository.getWorkTree(), FILE);
+
+    textArea = new JTextArea(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    WSEditor wsEditor = Mockito.mock(WSEditor.class);
+    WSXMLTextEditorPage page = Mockito.mock(WSXMLTextEditorPage.class);
+    Mockito.when(wsEditor.getCurrentPage()).thenReturn(page);
+    Mockito.when(page.getTextComponent()).thenReturn(textArea);
+    // The lines of the page are 1 based.
+    Mockito.when(page.getOffsetOfLineStart(Mockito.anyInt())).thenAnswer(
+        invocation -> textArea.getLineStartOffset((int) invocation.getArguments()[0] - 1));
+    Mockito.when(page.getOffsetOfLineEnd(Mockito.anyInt())).thenAnswer(
+        invocation -> textArea.getLineEndOffset((int) invocation.getArguments()[0] - 1));
+    Mockito.when(page.getLineOfOffset(Mockito.anyInt())).thenAnswer(
+        invocation -> textArea.getLineOfOffset((int) invocation.getArguments()[0]) + 1);
+    flushAWT();
+
+    blamePerformer.doit(repository, FILE, wsEditor, historyController);
+  }
+
+  /**
+   * @return The key of the blame of the file, for the current HEAD, index and working copy.
+   *
+   * @throws Exception If it fails.
+   */
+  private String getCurrentKey() throws Exception {
+    Repository repository = GitAccess.getInstance().getRepository();
+    ObjectId head = repository.resolve(Constants.HEAD);
+    ObjectId indexBlob = repository.readDirCache().getEntry(FILE).getObjectId();
+    byte[] content = Files.readAllBytes(new File(repository.getWorkTree(), FILE).toPath());
+    ObjectId workingCopyBlob;
+    try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+      workingCopyBlob = formatter.idFor(Constants.OBJ_BLOB, content);
+    }
+    return BlameCache.createKey(repository, FILE, head, indexBlob, workingCopyBlob);
+  }
+}
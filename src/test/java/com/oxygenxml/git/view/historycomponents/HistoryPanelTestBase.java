@@ -4,13 +4,20 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import javax.swing.Action;
+import javax.swing.DefaultListSelectionModel;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JTable;
 import javax.swing.MenuElement;
+import javax.swing.event.ListSelectionListener;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.Ignore;
@@ -84,10 +91,37 @@ public class HistoryPanelTestBase extends GitTestBase { // NOSONAR squid:S2187
       Thread.sleep(100);
     } catch (InterruptedException e) {}
     flushAWT();
+    // The changed files are computed in the background.
+    waitForChangedFiles(historyTable);
     CommitCharacteristics selectedObject = (CommitCharacteristics) model.getValueAt(historyTable.getSelectedRow(), 0);
     assertEquals(replaceDate(expected), toString(selectedObject));
   }
 
+  /**
+   * Waits for the files changed by the selected revision to be presented.
+   * 
+   * @param historyTable History table.
+   */
+  private void waitForChangedFiles(JTable historyTable) {
+    ListSelectionListener[] listeners = 
+        ((DefaultListSelectionModel) historyTable.getSelectionModel()).getListSelectionListeners();
+    for (ListSelectionListener listener : listeners) {
+      if (listener instanceof RowHistoryTableSelectionListener) {
+        Future<?> update = ((RowHistoryTableSelectionListener) listener).getChangedFilesUpdate();
+        if (update != null) {
+          try {
+            update.get(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (ExecutionException | TimeoutException | CancellationException e) {
+            throw new AssertionError(e);
+          }
+        }
+      }
+    }
+    flushAWT();
+  }
+
   protected String replaceDate(String expected) {
     return expected.replaceAll("\\{date\\}",  DATE_FORMAT.format(new Date()));
   }